@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous client that calls a blocking client on threads of its
+ * own, so that no method of this client blocks the caller. This is the
+ * client returned by the default implementation of
+ * {@link BLNexusClientProviderType#createAsyncClient(BLNexusClientConfiguration)}.
+ */
+
+final class BLBlockingAsyncClient implements BLNexusAsyncClientType
+{
+  private static final AtomicInteger THREAD_IDS = new AtomicInteger(0);
+
+  private final BLNexusClientType client;
+  private final ExecutorService executor;
+
+  /*
+   * A call to the blocking client.
+   */
+
+  private interface CallType<T>
+  {
+    T call()
+      throws BLException;
+  }
+
+  BLBlockingAsyncClient(
+    final BLNexusClientType inClient)
+  {
+    this.client =
+      Objects.requireNonNull(inClient, "client");
+    this.executor =
+      Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r);
+        thread.setName(
+          "com.io7m.brooklime.async-client-" + THREAD_IDS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+  }
+
+  private <T> CompletableFuture<T> submit(
+    final CallType<T> call)
+  {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return call.call();
+      } catch (final BLException e) {
+        throw new CompletionException(e);
+      }
+    }, this.executor);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.executor.shutdown();
+    this.client.close();
+  }
+
+  @Override
+  public CompletableFuture<Void> upload(
+    final BLStagingRepositoryUpload upload,
+    final BLProgressReceiverType receiver)
+  {
+    Objects.requireNonNull(upload, "upload");
+    Objects.requireNonNull(receiver, "receiver");
+
+    return this.submit(() -> {
+      this.client.upload(upload, receiver);
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<BLStagingRepositoryUpload> createUploadRequest(
+    final BLStagingRepositoryUploadRequestParameters request)
+  {
+    Objects.requireNonNull(request, "request");
+    return this.submit(() -> this.client.createUploadRequest(request));
+  }
+
+  @Override
+  public CompletableFuture<List<BLStagingProfileRepository>> stagingRepositories()
+  {
+    return this.submit(this.client::stagingRepositories);
+  }
+
+  @Override
+  public CompletableFuture<Optional<BLStagingProfileRepository>> stagingRepositoryGet(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+    return this.submit(() -> this.client.stagingRepositoryGet(id));
+  }
+
+  @Override
+  public CompletableFuture<String> stagingRepositoryCreate(
+    final BLStagingRepositoryCreate create)
+  {
+    Objects.requireNonNull(create, "create");
+    return this.submit(() -> this.client.stagingRepositoryCreate(create));
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryDrop(
+    final BLStagingRepositoryDrop drop)
+  {
+    Objects.requireNonNull(drop, "drop");
+    return this.submit(() -> {
+      this.client.stagingRepositoryDrop(drop);
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryClose(
+    final BLStagingRepositoryClose close)
+  {
+    Objects.requireNonNull(close, "close");
+    return this.submit(() -> {
+      this.client.stagingRepositoryClose(close);
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryRelease(
+    final BLStagingRepositoryRelease release)
+  {
+    Objects.requireNonNull(release, "release");
+    return this.submit(() -> {
+      this.client.stagingRepositoryRelease(release);
+      return null;
+    });
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLBlockingAsyncClient %s]".formatted(this.client);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+/**
+ * A sink that holds the content of a file in memory, and uploads it as a
+ * single source when the sink is finished. This is the sink returned by the
+ * default implementation of
+ * {@link BLNexusClientType#uploadOpen(String, String, OptionalLong,
+ * BLProgressReceiverType)}.
+ */
+
+final class BLBufferedUploadSink implements BLUploadSinkType
+{
+  private final String path;
+  private final OptionalLong size;
+  private final SenderType sender;
+  private final ByteArrayOutputStream buffer;
+  private final OutputStream output;
+  private State state;
+
+  private enum State
+  {
+    OPEN,
+    FINISHED,
+    ABORTED
+  }
+
+  /**
+   * A function that uploads a source.
+   */
+
+  interface SenderType
+  {
+    /**
+     * Upload the given source.
+     *
+     * @param source The source
+     *
+     * @throws BLException On errors
+     */
+
+    void send(BLUploadSourceType source)
+      throws BLException;
+  }
+
+  BLBufferedUploadSink(
+    final String inPath,
+    final OptionalLong inSize,
+    final SenderType inSender)
+  {
+    this.path =
+      BLUploadSources.checkPath(inPath);
+    this.size =
+      Objects.requireNonNull(inSize, "size");
+    this.sender =
+      Objects.requireNonNull(inSender, "sender");
+    this.buffer =
+      new ByteArrayOutputStream();
+    this.output =
+      Channels.newOutputStream(this);
+    this.state =
+      State.OPEN;
+  }
+
+  @Override
+  public OutputStream outputStream()
+  {
+    return this.output;
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer source)
+    throws IOException
+  {
+    if (this.state != State.OPEN) {
+      throw new ClosedChannelException();
+    }
+
+    final int count = source.remaining();
+    if (this.size.isPresent()
+      && this.buffer.size() + (long) count > this.size.getAsLong()) {
+      throw new IOException(String.format(
+        "Wrote more than the expected %d octets to %s",
+        Long.valueOf(this.size.getAsLong()),
+        this.path));
+    }
+
+    final var data = new byte[count];
+    source.get(data);
+    this.buffer.write(data, 0, count);
+    return count;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.state == State.OPEN;
+  }
+
+  @Override
+  public void finish()
+    throws BLException
+  {
+    if (this.state != State.OPEN) {
+      if (this.state == State.ABORTED) {
+        throw new BLException(
+          "The upload of %s was abandoned".formatted(this.path));
+      }
+      return;
+    }
+
+    this.state = State.FINISHED;
+    final var data = this.buffer.toByteArray();
+    if (this.size.isPresent() && data.length != this.size.getAsLong()) {
+      throw new BLException(String.format(
+        "Wrote %d octets to %s, but %d were expected",
+        Integer.valueOf(data.length),
+        this.path,
+        Long.valueOf(this.size.getAsLong())));
+    }
+    this.sender.send(
+      BLUploadSources.ofByteBuffer(this.path, ByteBuffer.wrap(data)));
+  }
+
+  @Override
+  public void abort()
+  {
+    if (this.state == State.OPEN) {
+      this.state = State.ABORTED;
+      this.buffer.reset();
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.state == State.ABORTED) {
+      return;
+    }
+    try {
+      this.finish();
+    } catch (final BLException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLBufferedUploadSink %s]".formatted(this.path);
+  }
+}
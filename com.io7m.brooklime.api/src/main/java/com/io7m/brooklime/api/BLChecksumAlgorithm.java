@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.util.Objects;
+
+/**
+ * The checksum algorithms for which checksum files can be generated.
+ */
+
+public enum BLChecksumAlgorithm
+{
+  /**
+   * MD5 ({@code .md5} files).
+   */
+
+  MD5("MD5", "md5"),
+
+  /**
+   * SHA-1 ({@code .sha1} files).
+   */
+
+  SHA1("SHA-1", "sha1"),
+
+  /**
+   * SHA-256 ({@code .sha256} files).
+   */
+
+  SHA256("SHA-256", "sha256"),
+
+  /**
+   * SHA-512 ({@code .sha512} files).
+   */
+
+  SHA512("SHA-512", "sha512");
+
+  private final String jcaName;
+  private final String extension;
+
+  BLChecksumAlgorithm(
+    final String inJcaName,
+    final String inExtension)
+  {
+    this.jcaName =
+      Objects.requireNonNull(inJcaName, "jcaName");
+    this.extension =
+      Objects.requireNonNull(inExtension, "extension");
+  }
+
+  /**
+   * @return The standard Java Cryptography Architecture name of the algorithm
+   */
+
+  public String jcaName()
+  {
+    return this.jcaName;
+  }
+
+  /**
+   * @return The file extension (without a leading dot) of checksum files
+   */
+
+  public String extension()
+  {
+    return this.extension;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+/**
+ * The reasons for which an adaptive upload concurrency controller changes
+ * the number of concurrent uploads.
+ */
+
+public enum BLConcurrencyChangeReason
+{
+  /**
+   * Throughput grew at the current concurrency, so concurrency was
+   * increased additively.
+   */
+
+  THROUGHPUT_INCREASED,
+
+  /**
+   * The server responded with HTTP 429 (Too Many Requests), so concurrency
+   * was decreased multiplicatively.
+   */
+
+  THROTTLED,
+
+  /**
+   * The server responded with an HTTP 5xx error, so concurrency was
+   * decreased multiplicatively.
+   */
+
+  SERVER_ERROR,
+
+  /**
+   * A request timed out, so concurrency was decreased multiplicatively.
+   */
+
+  TIMEOUT,
+
+  /**
+   * The latency of a request was far higher than the recent average, so
+   * concurrency was decreased multiplicatively.
+   */
+
+  LATENCY_SPIKE
+}
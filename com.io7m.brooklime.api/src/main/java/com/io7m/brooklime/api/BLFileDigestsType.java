@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import org.immutables.value.Value;
+
+import java.util.Map;
+
+/**
+ * The known digests of a file, along with the size and modification time
+ * that the file had when the digests were computed.
+ */
+
+@BLImmutableStyleType
+@Value.Immutable
+public interface BLFileDigestsType
+{
+  /**
+   * @return The size of the file in octets
+   */
+
+  long size();
+
+  /**
+   * @return The modification time of the file in milliseconds since the epoch
+   */
+
+  long modified();
+
+  /**
+   * @return The lowercase hexadecimal digests of the file
+   */
+
+  Map<BLChecksumAlgorithm, String> digests();
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous Nexus client. No method of this interface blocks waiting
+ * on the network; each returns a future that is completed when the server
+ * has responded.
+ *
+ * On failure, the returned futures complete exceptionally with a
+ * {@link BLException} (such as {@link BLHTTPErrorException} or
+ * {@link BLHTTPFailureException}) exactly as would be thrown by the
+ * corresponding method of {@link BLNexusClientType}.
+ */
+
+public interface BLNexusAsyncClientType extends Closeable
+{
+  /**
+   * Execute an upload request. Progress updates will be delivered to the
+   * given receiver. Up to {@link BLStagingRepositoryUpload#parallelism()}
+   * files are uploaded concurrently, but no thread is dedicated to any
+   * individual upload.
+   *
+   * @param upload   The set of files to be uploaded
+   * @param receiver The progress receiver
+   *
+   * @return The upload in progress
+   */
+
+  CompletableFuture<Void> upload(
+    BLStagingRepositoryUpload upload,
+    BLProgressReceiverType receiver);
+
+  /**
+   * Create a staging repository upload request. This requires a scan of
+   * the local filesystem, which is performed on a background thread.
+   *
+   * @param request The upload request parameters
+   *
+   * @return A new request
+   */
+
+  CompletableFuture<BLStagingRepositoryUpload> createUploadRequest(
+    BLStagingRepositoryUploadRequestParameters request);
+
+  /**
+   * List the available staging repositories.
+   *
+   * @return The list of repositories
+   */
+
+  CompletableFuture<List<BLStagingProfileRepository>> stagingRepositories();
+
+  /**
+   * Retrieve an existing staging repository.
+   *
+   * @param id The ID of the repository
+   *
+   * @return The repository, or nothing if the repository does not exist
+   */
+
+  CompletableFuture<Optional<BLStagingProfileRepository>> stagingRepositoryGet(
+    String id);
+
+  /**
+   * Create a staging repository.
+   *
+   * @param create The creation parameters
+   *
+   * @return The ID of the created repository
+   */
+
+  CompletableFuture<String> stagingRepositoryCreate(
+    BLStagingRepositoryCreate create);
+
+  /**
+   * Drop one or more staging repositories.
+   *
+   * @param drop The repository parameters
+   *
+   * @return The operation in progress
+   */
+
+  CompletableFuture<Void> stagingRepositoryDrop(
+    BLStagingRepositoryDrop drop);
+
+  /**
+   * Close one or more staging repositories.
+   *
+   * @param close The repository parameters
+   *
+   * @return The operation in progress
+   */
+
+  CompletableFuture<Void> stagingRepositoryClose(
+    BLStagingRepositoryClose close);
+
+  /**
+   * Release one or more staging repositories.
+   *
+   * @param release The repository parameters
+   *
+   * @return The operation in progress
+   */
+
+  CompletableFuture<Void> stagingRepositoryRelease(
+    BLStagingRepositoryRelease release);
+}
@@ -20,6 +20,10 @@ import org.immutables.value.Value;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.Executor;
 
 /**
  * The client configuration.
@@ -74,4 +78,191 @@ public interface BLNexusClientConfigurationType
    */
 
   int retryCount();
+
+  /**
+   * @return The kind of threads on which blocking work is executed
+   */
+
+  @Value.Default
+  default BLExecutionMode executionMode()
+  {
+    return BLExecutionMode.PLATFORM_THREADS;
+  }
+
+  /**
+   * The maximum number of octets per second that uploads may send. Uploads
+   * are slowed down (rather than failed) to stay within the limit.
+   *
+   * @return The upload bandwidth limit, if any
+   */
+
+  OptionalLong uploadBytesPerSecond();
+
+  /**
+   * The maximum number of upload requests per second, including retries
+   * and the uploads of generated checksum files.
+   *
+   * @return The upload request rate limit, if any
+   */
+
+  OptionalDouble uploadRequestsPerSecond();
+
+  /**
+   * @return The scope within which the upload rate limits are shared
+   */
+
+  @Value.Default
+  default BLRateLimitScope rateLimitScope()
+  {
+    return BLRateLimitScope.CLIENT;
+  }
+
+  /**
+   * @return The HTTP protocol version that the client prefers
+   */
+
+  @Value.Default
+  default BLHTTPVersion httpVersion()
+  {
+    return BLHTTPVersion.HTTP_2;
+  }
+
+  /**
+   * The maximum time to wait for a connection to the server to be
+   * established. If no timeout is given, the JDK default (no timeout) is
+   * used.
+   *
+   * @return The connection timeout, if any
+   */
+
+  Optional<Duration> connectTimeout();
+
+  /**
+   * The maximum time to wait for the response to each request, measured
+   * from the moment the request is sent. For uploads, this includes the time
+   * taken to send the file, and so the timeout must be large enough for the
+   * largest file at the slowest expected bandwidth. If no timeout is given,
+   * requests wait indefinitely.
+   *
+   * @return The request timeout, if any
+   */
+
+  Optional<Duration> requestTimeout();
+
+  /**
+   * The executor used by the HTTP client for asynchronous tasks. If no
+   * executor is given, an executor appropriate to {@link #executionMode()}
+   * is created and owned by the client. An executor given here is not shut
+   * down when the client is closed.
+   *
+   * Note that the JDK HTTP client exposes connection pool and keep-alive
+   * tuning only as JVM-wide system properties (such as
+   * {@code jdk.httpclient.connectionPoolSize} and
+   * {@code jdk.httpclient.keepalive.timeout}), and so these cannot be
+   * configured on a per-client basis.
+   *
+   * @return The executor for the HTTP client, if any
+   */
+
+  Optional<Executor> httpExecutor();
+
+  /**
+   * The number of files that are opened, and the start of which is read
+   * into memory, ahead of their uploads in {@link BLUploadMode#FILES} mode.
+   * A value of {@code 0} disables read-ahead.
+   *
+   * @return The number of files to read ahead
+   */
+
+  @Value.Default
+  default int prefetchFileCount()
+  {
+    return 0;
+  }
+
+  /**
+   * The maximum number of octets of files read ahead that may be held in
+   * memory at any one time, across all uploads of the client. Each file read
+   * ahead may use up to an equal share of this limit; the remainder of the
+   * file is read during its upload as usual.
+   *
+   * @return The memory limit for files read ahead
+   */
+
+  @Value.Default
+  default long prefetchMemoryLimit()
+  {
+    return 64L * 1024L * 1024L;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    checkRateLimits(
+      this.uploadBytesPerSecond(),
+      this.uploadRequestsPerSecond());
+    checkTimeouts(this.connectTimeout(), this.requestTimeout());
+    checkPrefetch(this.prefetchFileCount(), this.prefetchMemoryLimit());
+  }
+
+  private static void checkRateLimits(
+    final OptionalLong bytes,
+    final OptionalDouble requests)
+  {
+    if (bytes.isPresent() && bytes.getAsLong() <= 0L) {
+      throw new IllegalArgumentException(String.format(
+        "Upload bandwidth limit must be positive (received %d)",
+        Long.valueOf(bytes.getAsLong())));
+    }
+
+    if (requests.isPresent() && !(requests.getAsDouble() > 0.0)) {
+      throw new IllegalArgumentException(String.format(
+        "Upload request rate limit must be positive (received %f)",
+        Double.valueOf(requests.getAsDouble())));
+    }
+  }
+
+  private static void checkTimeouts(
+    final Optional<Duration> connect,
+    final Optional<Duration> request)
+  {
+    if (connect.isPresent() && !isPositive(connect.get())) {
+      throw new IllegalArgumentException(String.format(
+        "Connection timeout must be positive (received %s)",
+        connect.get()));
+    }
+
+    if (request.isPresent() && !isPositive(request.get())) {
+      throw new IllegalArgumentException(String.format(
+        "Request timeout must be positive (received %s)",
+        request.get()));
+    }
+  }
+
+  private static void checkPrefetch(
+    final int fileCount,
+    final long memoryLimit)
+  {
+    if (fileCount < 0) {
+      throw new IllegalArgumentException(String.format(
+        "Prefetch file count must be non-negative (received %d)",
+        Integer.valueOf(fileCount)));
+    }
+
+    if (memoryLimit < 0L) {
+      throw new IllegalArgumentException(String.format(
+        "Prefetch memory limit must be non-negative (received %d)",
+        Long.valueOf(memoryLimit)));
+    }
+  }
+
+  private static boolean isPositive(
+    final Duration duration)
+  {
+    return !duration.isNegative() && !duration.isZero();
+  }
 }
@@ -35,4 +35,24 @@ public interface BLNexusClientProviderType
   BLNexusClientType createClient(
     BLNexusClientConfiguration configuration)
     throws BLException;
+
+  /**
+   * Create a new asynchronous Nexus client. The default implementation
+   * creates a client with {@link #createClient(BLNexusClientConfiguration)}
+   * and calls it on threads owned by the returned client, one for each
+   * operation in progress.
+   *
+   * @param configuration The client configuration
+   *
+   * @return A new Nexus client
+   *
+   * @throws BLException On errors
+   */
+
+  default BLNexusAsyncClientType createAsyncClient(
+    final BLNexusClientConfiguration configuration)
+    throws BLException
+  {
+    return new BLBlockingAsyncClient(this.createClient(configuration));
+  }
 }
@@ -17,8 +17,12 @@
 package com.io7m.brooklime.api;
 
 import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * A Nexus client.
@@ -41,6 +45,73 @@ public interface BLNexusClientType extends Closeable
     BLProgressReceiverType receiver)
     throws BLException;
 
+  /**
+   * Create and execute an upload request in a single step. Implementations
+   * may begin uploading files before the base directory has been scanned
+   * completely, in which case files are uploaded in the order in which they
+   * are found rather than in the order given by
+   * {@link BLStagingRepositoryUploadRequestParameters#ordering()}. Progress
+   * updates will be delivered to the given receiver.
+   *
+   * @param request  The upload request parameters
+   * @param receiver The progress receiver
+   *
+   * @throws BLException On errors
+   */
+
+  default void uploadDirectory(
+    final BLStagingRepositoryUploadRequestParameters request,
+    final BLProgressReceiverType receiver)
+    throws BLException
+  {
+    this.upload(this.createUploadRequest(request), receiver);
+  }
+
+  /**
+   * Open an upload of a single file to a staging repository, returning a
+   * sink to which the content of the file is written. The file is sent to
+   * the server as it is written, and so need not exist on disk. If the size
+   * of the file is given, exactly that number of octets must be written to
+   * the sink. Progress updates will be delivered to the given receiver. The
+   * default implementation instead holds the content of the file in memory
+   * and sends it with {@link #upload(BLStagingRepositoryUpload,
+   * BLProgressReceiverType)} when the sink is finished.
+   *
+   * @param repositoryId The ID of the staging repository
+   * @param path         The path of the file in the staging repository,
+   *                     using {@code /} as a separator
+   * @param size         The size of the file, if known
+   * @param receiver     The progress receiver
+   *
+   * @return A sink that must be finished or closed to complete the upload
+   *
+   * @throws BLException On errors
+   */
+
+  default BLUploadSinkType uploadOpen(
+    final String repositoryId,
+    final String path,
+    final OptionalLong size,
+    final BLProgressReceiverType receiver)
+    throws BLException
+  {
+    Objects.requireNonNull(repositoryId, "repositoryId");
+    Objects.requireNonNull(receiver, "receiver");
+
+    return new BLBufferedUploadSink(path, size, source -> {
+      this.upload(
+        BLStagingRepositoryUpload.builder()
+          .setRepositoryId(repositoryId)
+          .setBaseDirectory(Path.of("").toAbsolutePath())
+          .setRetryCount(1)
+          .setRetryDelay(Duration.ZERO)
+          .addSources(source)
+          .build(),
+        receiver
+      );
+    });
+  }
+
   /**
    * Create a staging repository upload request.
    *
@@ -19,7 +19,9 @@ package com.io7m.brooklime.api;
 import org.immutables.value.Value;
 
 import java.time.Duration;
+import java.util.Optional;
 
+import static com.io7m.brooklime.api.BLProgressEventType.Kind.PROGRESS_CONCURRENCY_CHANGED;
 import static com.io7m.brooklime.api.BLProgressEventType.Kind.PROGRESS_FILE_STARTED;
 import static com.io7m.brooklime.api.BLProgressEventType.Kind.PROGRESS_UPDATE;
 
@@ -85,7 +87,15 @@ public interface BLProgressEventType
      * @see BLProgressUpdateType
      */
 
-    PROGRESS_UPDATE
+    PROGRESS_UPDATE,
+
+    /**
+     * The number of concurrent uploads was changed.
+     *
+     * @see BLProgressConcurrencyChangedType
+     */
+
+    PROGRESS_CONCURRENCY_CHANGED
   }
 
   /**
@@ -176,5 +186,68 @@ public interface BLProgressEventType
      */
 
     Duration timeRemaining();
+
+    /**
+     * @return The aggregate progress of all uploads in the current operation,
+     * if the operation tracks it
+     */
+
+    Optional<BLProgressTotal> total();
+  }
+
+  /**
+   * An adaptive concurrency controller changed the number of concurrent
+   * uploads. The file and attempt fields describe the most recent upload
+   * attempt that the controller observed.
+   */
+
+  @Value.Immutable
+  @BLImmutableStyleType
+  interface BLProgressConcurrencyChangedType extends BLProgressEventType
+  {
+    @Override
+    default Kind kind()
+    {
+      return PROGRESS_CONCURRENCY_CHANGED;
+    }
+
+    @Override
+    String name();
+
+    @Override
+    int fileIndexCurrent();
+
+    @Override
+    int fileIndexMaximum();
+
+    @Override
+    int attemptCurrent();
+
+    @Override
+    int attemptMaximum();
+
+    /**
+     * @return The number of concurrent uploads before the change
+     */
+
+    int concurrencyPrevious();
+
+    /**
+     * @return The number of concurrent uploads after the change
+     */
+
+    int concurrencyCurrent();
+
+    /**
+     * @return The reason for the change
+     */
+
+    BLConcurrencyChangeReason reason();
+
+    /**
+     * @return The aggregate number of bytes per second observed most recently
+     */
+
+    long bytesPerSecond();
   }
 }
@@ -17,7 +17,12 @@
 package com.io7m.brooklime.api;
 
 /**
- * A function that receives progress events during operations.
+ * A function that receives progress events during operations. Clients
+ * deliver events one at a time on a thread of their own, so that a slow
+ * receiver does not slow down the operation; progress updates for a file
+ * that are superseded before they can be delivered may be skipped, and if
+ * the receiver falls too far behind, the oldest undelivered updates are
+ * discarded. Events other than progress updates are always delivered.
  */
 
 public interface BLProgressReceiverType
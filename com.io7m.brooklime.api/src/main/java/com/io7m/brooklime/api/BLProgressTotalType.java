@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * The aggregate progress of all of the uploads performed by a single
+ * operation, as opposed to the progress of the single file described by
+ * the enclosing progress event.
+ */
+
+@Value.Immutable
+@BLImmutableStyleType
+public interface BLProgressTotalType
+{
+  /**
+   * @return The number of bytes sent so far by all uploads
+   */
+
+  long bytesSent();
+
+  /**
+   * @return The number of bytes that all uploads are expected to send
+   */
+
+  long bytesMaximum();
+
+  /**
+   * @return The number of files that have been uploaded successfully
+   */
+
+  long filesCompleted();
+
+  /**
+   * @return The number of files that are currently being uploaded
+   */
+
+  long filesInFlight();
+
+  /**
+   * @return The number of files that will be uploaded
+   */
+
+  long filesMaximum();
+
+  /**
+   * @return The progress of all uploads as a real value
+   */
+
+  double progress();
+
+  /**
+   * @return The average number of bytes per second since the operation began
+   */
+
+  long bytesPerSecond();
+
+  /**
+   * @return An estimate of the time remaining until all uploads are complete
+   */
+
+  Duration timeRemaining();
+}
@@ -19,7 +19,11 @@ package com.io7m.brooklime.api;
 import org.immutables.value.Value;
 
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * A request to schedule the upload of a set of files to a staging repository.
@@ -36,6 +40,11 @@ public interface BLStagingRepositoryUploadRequestParametersType
   String repositoryId();
 
   /**
+   * The base directory containing files. If this is a zip archive (such as
+   * a jar file) rather than a directory, the entries of the archive are
+   * uploaded as if the archive had been extracted into a directory, and are
+   * read from the archive without extracting them.
+   *
    * @return The base directory containing files
    */
 
@@ -52,4 +61,205 @@ public interface BLStagingRepositoryUploadRequestParametersType
    */
 
   int retryCount();
+
+  /**
+   * @return The maximum number of files that will be uploaded concurrently
+   */
+
+  @Value.Default
+  default int parallelism()
+  {
+    return 1;
+  }
+
+  /**
+   * @return The upload journal, if completed uploads should be recorded
+   *
+   * @see BLStagingRepositoryUploadType#journal()
+   */
+
+  Optional<Path> journal();
+
+  /**
+   * @return {@code true} if files that the journal records as having already
+   * been uploaded to the same staging repository should be excluded from
+   * the upload
+   */
+
+  @Value.Default
+  default boolean resume()
+  {
+    return false;
+  }
+
+  /**
+   * Only the repository given by {@link #repositoryId()} is consulted; a file
+   * excluded this way is not sent to any of the {@link #mirrors()}.
+   *
+   * @return {@code true} if files that are already present in the staging
+   * repository with the same size and checksum should be excluded from the
+   * upload
+   */
+
+  @Value.Default
+  default boolean skipExisting()
+  {
+    return false;
+  }
+
+  /**
+   * @return The algorithms for which checksum files will be generated
+   *
+   * @see BLStagingRepositoryUploadType#checksums()
+   */
+
+  Set<BLChecksumAlgorithm> checksums();
+
+  /**
+   * @return The digest cache, if one should be used
+   *
+   * @see BLStagingRepositoryUploadType#digestCache()
+   */
+
+  Optional<Path> digestCache();
+
+  /**
+   * @return {@code true} if the number of concurrent uploads is adaptive
+   *
+   * @see BLStagingRepositoryUploadType#adaptiveConcurrency()
+   */
+
+  @Value.Default
+  default boolean adaptiveConcurrency()
+  {
+    return false;
+  }
+
+  /**
+   * @return The manner in which files are transferred to the server
+   *
+   * @see BLStagingRepositoryUploadType#uploadMode()
+   */
+
+  @Value.Default
+  default BLUploadMode uploadMode()
+  {
+    return BLUploadMode.FILES;
+  }
+
+  /**
+   * The order in which files are uploaded. By default, files are uploaded
+   * {@link BLUploadOrdering#LARGEST_FIRST} if more than one file may be
+   * uploaded concurrently, and in {@link BLUploadOrdering#NAME} order
+   * otherwise. The sizes of files are read once, while planning the upload.
+   *
+   * @return The order in which files are uploaded
+   */
+
+  @Value.Default
+  default BLUploadOrdering ordering()
+  {
+    return this.parallelism() > 1
+      ? BLUploadOrdering.LARGEST_FIRST
+      : BLUploadOrdering.NAME;
+  }
+
+  /**
+   * Glob patterns, in the syntax accepted by
+   * {@link java.nio.file.FileSystem#getPathMatcher(String)} but without the
+   * {@code glob:} prefix, that select the files to be uploaded. A pattern
+   * matches a file if it matches either the path of the file relative to
+   * the base directory, or the name of the file. If no patterns are given,
+   * every file is included.
+   *
+   * @return The patterns of files to include
+   */
+
+  List<String> includes();
+
+  /**
+   * Glob patterns, in the same form as {@link #includes()}, that select
+   * files and directories that must not be uploaded. Exclusions take
+   * precedence over inclusions, and an excluded directory is not scanned.
+   *
+   * @return The patterns of files and directories to exclude
+   */
+
+  List<String> excludes();
+
+  /**
+   * @return The additional staging repositories to which files are sent
+   *
+   * @see BLStagingRepositoryUploadType#mirrors()
+   */
+
+  List<BLStagingRepositoryUploadTarget> mirrors();
+
+  /**
+   * @return The upload sources that supply additional files
+   *
+   * @see BLStagingRepositoryUploadType#sources()
+   */
+
+  List<BLUploadSourceType> sources();
+
+  /**
+   * @return The compiled {@link #includes()} patterns
+   */
+
+  @Value.Lazy
+  default List<PathMatcher> includeMatchers()
+  {
+    final var fileSystem = this.baseDirectory().getFileSystem();
+    return this.includes()
+      .stream()
+      .map(pattern -> fileSystem.getPathMatcher("glob:" + pattern))
+      .toList();
+  }
+
+  /**
+   * @return The compiled {@link #excludes()} patterns
+   */
+
+  @Value.Lazy
+  default List<PathMatcher> excludeMatchers()
+  {
+    final var fileSystem = this.baseDirectory().getFileSystem();
+    return this.excludes()
+      .stream()
+      .map(pattern -> fileSystem.getPathMatcher("glob:" + pattern))
+      .toList();
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.parallelism() < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Parallelism must be at least 1 (received %d)",
+        Integer.valueOf(this.parallelism())));
+    }
+
+    if (this.resume() && this.journal().isEmpty()) {
+      throw new IllegalArgumentException(
+        "Resuming an upload requires a journal");
+    }
+
+    if (this.uploadMode() == BLUploadMode.BUNDLE && !this.mirrors().isEmpty()) {
+      throw new IllegalArgumentException(
+        "Uploads to mirrors are not supported in BUNDLE mode");
+    }
+
+    if (this.uploadMode() == BLUploadMode.BUNDLE && !this.sources().isEmpty()) {
+      throw new IllegalArgumentException(
+        "Upload sources are not supported in BUNDLE mode");
+    }
+
+    this.includeMatchers();
+    this.excludeMatchers();
+  }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import org.immutables.value.Value;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * An additional staging repository, possibly on another server that
+ * implements the same staging API, to which the files of an upload are
+ * sent. Each file is read once, and is sent to every target concurrently.
+ */
+
+@BLImmutableStyleType
+@Value.Immutable
+public interface BLStagingRepositoryUploadTargetType
+{
+  /**
+   * @return The base URI of the Nexus server
+   */
+
+  URI baseURI();
+
+  /**
+   * @return The ID of the staging repository on the server
+   */
+
+  String repositoryId();
+
+  /**
+   * @return The Nexus username, if it differs from the client's username
+   */
+
+  Optional<String> userName();
+
+  /**
+   * @return The Nexus password, if it differs from the client's password
+   */
+
+  Optional<String> password();
+}
@@ -20,7 +20,11 @@ import org.immutables.value.Value;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * A request to upload a set of files to a staging repository.
@@ -60,6 +64,131 @@ public interface BLStagingRepositoryUploadType
 
   int retryCount();
 
+  /**
+   * @return The maximum number of files that will be uploaded concurrently
+   */
+
+  @Value.Default
+  default int parallelism()
+  {
+    return 1;
+  }
+
+  /**
+   * The upload journal is a file to which each successfully uploaded file is
+   * appended, along with its size, modification time, digest, and the ID of
+   * the staging repository to which it was uploaded. The journal survives
+   * the death of the uploading process, and so can be used to resume an
+   * interrupted upload.
+   *
+   * @return The upload journal, if completed uploads should be recorded
+   *
+   * @see BLStagingRepositoryUploadRequestParametersType#resume()
+   */
+
+  Optional<Path> journal();
+
+  /**
+   * For each uploaded file, a checksum file is generated for each of the
+   * given algorithms, unless a checksum file with the same name is itself
+   * part of the upload. Checksums are computed as the file is uploaded, and
+   * checksum files are uploaded from memory immediately after the file, so
+   * each file is read exactly once. Files that are themselves checksum files
+   * do not receive checksum files.
+   *
+   * @return The algorithms for which checksum files will be generated
+   */
+
+  Set<BLChecksumAlgorithm> checksums();
+
+  /**
+   * The digest cache is a file that records the digests of local files,
+   * keyed by path, size, modification time and (where the platform provides
+   * one) inode. Digests computed during the upload are added to the cache.
+   *
+   * @return The digest cache, if one is used
+   */
+
+  Optional<Path> digestCache();
+
+  /**
+   * The digests of files in the upload that were found in the digest cache
+   * when the upload was planned. Known digests are not recomputed during
+   * the upload unless the file has changed in the meantime.
+   *
+   * @return The known digests of files, keyed by file
+   */
+
+  Map<Path, BLFileDigests> knownDigests();
+
+  /**
+   * The sizes of files in the upload, as read when the files were found.
+   * The sizes are used to plan the aggregate progress of the upload; files
+   * without a known size are examined when the upload begins.
+   *
+   * @return The known sizes of files, keyed by file
+   */
+
+  Map<Path, Long> fileSizes();
+
+  /**
+   * If adaptive concurrency is enabled, {@link #parallelism()} is the upper
+   * bound on the number of concurrent uploads. Uploads start one at a time;
+   * the number of concurrent uploads is increased additively while the
+   * aggregate throughput grows, and is decreased multiplicatively when the
+   * server responds with HTTP 429 or 5xx errors, when requests time out, or
+   * when request latency spikes. Changes are reported to the progress
+   * receiver.
+   *
+   * @return {@code true} if the number of concurrent uploads is adaptive
+   */
+
+  @Value.Default
+  default boolean adaptiveConcurrency()
+  {
+    return false;
+  }
+
+  /**
+   * @return The manner in which files are transferred to the server
+   */
+
+  @Value.Default
+  default BLUploadMode uploadMode()
+  {
+    return BLUploadMode.FILES;
+  }
+
+  /**
+   * Additional staging repositories to which every file of the upload is
+   * sent, along with its generated checksum files. Each file is read once,
+   * and is sent to {@link #repositoryId()} and to every mirror
+   * concurrently; each target has its own retries and progress reports.
+   * Octets read for one target are held in memory for the others only up to
+   * a bounded amount, and a target that falls further behind reads the file
+   * again itself rather than holding up the others. A file is recorded in
+   * the journal only once it has been sent to every target. Mirrors are
+   * only supported in {@link BLUploadMode#FILES} mode.
+   *
+   * @return The additional staging repositories to which files are sent
+   */
+
+  List<BLStagingRepositoryUploadTarget> mirrors();
+
+  /**
+   * Additional files to be uploaded that are supplied by upload sources
+   * rather than read from {@link #baseDirectory()}, such as artifacts that
+   * are generated in memory. Sources are uploaded after {@link #files()},
+   * and are reopened for each upload attempt. Checksum files are generated
+   * for sources in the same way as for files, but sources are not recorded
+   * in the journal or the digest cache, and so are always uploaded. Sources
+   * are only supported in {@link BLUploadMode#FILES} mode.
+   *
+   * @return The upload sources
+   */
+
+  List<BLUploadSourceType> sources();
+
   /**
    * Check preconditions for the type.
    */
@@ -72,6 +201,14 @@ public interface BLStagingRepositoryUploadType
         "The base directory path must be absolute");
     }
 
+    checkSources(this.sources());
+
+    if (this.parallelism() < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Parallelism must be at least 1 (received %d)",
+        Integer.valueOf(this.parallelism())));
+    }
+
     for (final Path file : this.files()) {
       if (file.isAbsolute()) {
         throw new IllegalArgumentException(String.format(
@@ -80,4 +217,18 @@ public interface BLStagingRepositoryUploadType
       }
     }
   }
+
+  private static void checkSources(
+    final List<BLUploadSourceType> sources)
+  {
+    final var sourcePaths = new HashSet<String>();
+    for (final var source : sources) {
+      final var path = BLUploadSources.checkPath(source.path());
+      if (!sourcePaths.add(path)) {
+        throw new IllegalArgumentException(String.format(
+          "Upload source paths must be unique. %s is duplicated.",
+          path));
+      }
+    }
+  }
 }
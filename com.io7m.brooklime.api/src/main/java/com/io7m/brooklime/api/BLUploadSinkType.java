@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A sink to which the content of a single file is written as it is uploaded
+ * to a staging repository. Octets written to the sink are sent to the server
+ * as they are written, without being stored locally, and writes block while
+ * the server is not accepting octets. Because the octets are not stored,
+ * an upload through a sink is attempted exactly once. A sink must not be
+ * used by more than one thread at a time.
+ */
+
+public interface BLUploadSinkType extends WritableByteChannel
+{
+  /**
+   * @return An output stream that writes to this sink, and that finishes the
+   * upload when closed
+   */
+
+  OutputStream outputStream();
+
+  /**
+   * Finish writing the file, and wait for the server to accept or reject it.
+   * Finishing an upload that has already been finished has no effect.
+   *
+   * @throws BLException On errors, or if the server rejected the upload
+   */
+
+  void finish()
+    throws BLException;
+
+  /**
+   * Abandon the upload. The server does not receive a complete file.
+   * Abandoning an upload that has already finished has no effect.
+   */
+
+  void abort();
+
+  /**
+   * Finish the upload as if by {@link #finish()}.
+   *
+   * @throws IOException On errors, or if the server rejected the upload
+   */
+
+  @Override
+  void close()
+    throws IOException;
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A source of octets to be uploaded to a staging repository that does not
+ * necessarily exist as a file, such as an artifact generated in memory or
+ * held in another store. A source is opened once for every attempt to upload
+ * it, and so must be able to supply its octets any number of times.
+ *
+ * @see BLUploadSources
+ */
+
+public interface BLUploadSourceType
+{
+  /**
+   * The path of the uploaded file in the staging repository, relative to
+   * the root of the repository, using {@code /} as a separator (such as
+   * {@code com/io7m/example/1.0.0/example-1.0.0.pom}).
+   *
+   * @return The path of the uploaded file
+   */
+
+  String path();
+
+  /**
+   * @return The number of octets that {@link #open()} will supply
+   *
+   * @throws IOException On I/O errors
+   */
+
+  long size()
+    throws IOException;
+
+  /**
+   * Open the source. Each call returns a new stream that supplies exactly
+   * {@link #size()} octets from the start of the source.
+   *
+   * @return A new stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  InputStream open()
+    throws IOException;
+}
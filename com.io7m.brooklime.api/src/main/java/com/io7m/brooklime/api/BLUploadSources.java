@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Functions to create upload sources.
+ */
+
+public final class BLUploadSources
+{
+  private BLUploadSources()
+  {
+
+  }
+
+  /**
+   * Create a source that supplies a copy of the given octets.
+   *
+   * @param path The path of the uploaded file
+   * @param data The octets
+   *
+   * @return A source
+   */
+
+  public static BLUploadSourceType ofBytes(
+    final String path,
+    final byte[] data)
+  {
+    Objects.requireNonNull(data, "data");
+    return ofByteBuffer(path, ByteBuffer.wrap(data.clone()));
+  }
+
+  /**
+   * Create a source that supplies the remaining octets of the given buffer.
+   * The buffer is not copied, and so must not be modified until the upload
+   * has completed. The position and limit of the given buffer are not
+   * changed by the source.
+   *
+   * @param path The path of the uploaded file
+   * @param data The octets
+   *
+   * @return A source
+   */
+
+  public static BLUploadSourceType ofByteBuffer(
+    final String path,
+    final ByteBuffer data)
+  {
+    return new BufferSource(
+      checkPath(path),
+      Objects.requireNonNull(data, "data").slice().asReadOnlyBuffer()
+    );
+  }
+
+  /**
+   * Create a source that supplies the contents of the given file. The file
+   * may be on any file system, and is read anew for each upload attempt.
+   *
+   * @param path The path of the uploaded file
+   * @param file The file
+   *
+   * @return A source
+   */
+
+  public static BLUploadSourceType ofFile(
+    final String path,
+    final Path file)
+  {
+    return new FileSource(
+      checkPath(path),
+      Objects.requireNonNull(file, "file")
+    );
+  }
+
+  /**
+   * Check that the given path is a valid path for an upload source.
+   *
+   * @param path The path
+   *
+   * @return The path
+   *
+   * @throws IllegalArgumentException If the path is empty or absolute
+   */
+
+  public static String checkPath(
+    final String path)
+  {
+    Objects.requireNonNull(path, "path");
+    if (path.isEmpty() || path.startsWith("/") || path.endsWith("/")) {
+      throw new IllegalArgumentException(String.format(
+        "Upload source paths must be relative file paths (received '%s')",
+        path));
+    }
+    return path;
+  }
+
+  private record BufferSource(
+    String path,
+    ByteBuffer data)
+    implements BLUploadSourceType
+  {
+    @Override
+    public long size()
+    {
+      return this.data.remaining();
+    }
+
+    @Override
+    public InputStream open()
+    {
+      return new BufferInputStream(this.data.duplicate());
+    }
+  }
+
+  private static final class BufferInputStream extends InputStream
+  {
+    private final ByteBuffer data;
+
+    BufferInputStream(
+      final ByteBuffer inData)
+    {
+      this.data = inData;
+    }
+
+    @Override
+    public int read()
+    {
+      if (!this.data.hasRemaining()) {
+        return -1;
+      }
+      return this.data.get() & 0xff;
+    }
+
+    @Override
+    public int read(
+      final byte[] buffer,
+      final int offset,
+      final int length)
+    {
+      Objects.checkFromIndexSize(offset, length, buffer.length);
+      if (length == 0) {
+        return 0;
+      }
+      if (!this.data.hasRemaining()) {
+        return -1;
+      }
+      final int count = Math.min(length, this.data.remaining());
+      this.data.get(buffer, offset, count);
+      return count;
+    }
+
+    @Override
+    public int available()
+    {
+      return this.data.remaining();
+    }
+  }
+
+  private record FileSource(
+    String path,
+    Path file)
+    implements BLUploadSourceType
+  {
+    @Override
+    public long size()
+      throws IOException
+    {
+      return Files.size(this.file);
+    }
+
+    @Override
+    public InputStream open()
+      throws IOException
+    {
+      return Files.newInputStream(this.file);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A trivial HTTP server that accepts uploads in the manner of a Nexus
+ * staging repository, with a configurable per-request latency.
+ */
+
+public final class BLBenchmarkServer implements AutoCloseable
+{
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Duration latency;
+  private final AtomicLong uploads;
+  private final AtomicLong bytes;
+
+  private BLBenchmarkServer(
+    final HttpServer inServer,
+    final ExecutorService inExecutor,
+    final Duration inLatency)
+  {
+    this.server = inServer;
+    this.executor = inExecutor;
+    this.latency = inLatency;
+    this.uploads = new AtomicLong();
+    this.bytes = new AtomicLong();
+  }
+
+  /**
+   * Start a server on an ephemeral port on the loopback interface.
+   *
+   * @param latency The artificial latency added to each request
+   *
+   * @return A running server
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BLBenchmarkServer start(
+    final Duration latency)
+    throws IOException
+  {
+    final var address =
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    final var httpServer =
+      HttpServer.create(address, 1024);
+
+    /*
+     * The server must never be the bottleneck, so it gets an unbounded
+     * pool of its own.
+     */
+
+    final var executor =
+      Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r);
+        thread.setName("com.io7m.brooklime.benchmarks.server-" + thread.getId());
+        thread.setDaemon(true);
+        return thread;
+      });
+
+    final var server = new BLBenchmarkServer(httpServer, executor, latency);
+    httpServer.setExecutor(executor);
+    httpServer.createContext("/", server::handle);
+    httpServer.start();
+    return server;
+  }
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (exchange) {
+      try (var input = exchange.getRequestBody()) {
+        this.bytes.addAndGet(input.transferTo(OutputStream.nullOutputStream()));
+      }
+
+      if (!this.latency.isZero()) {
+        try {
+          Thread.sleep(this.latency.toMillis());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      this.uploads.incrementAndGet();
+      exchange.sendResponseHeaders(201, -1L);
+    }
+  }
+
+  /**
+   * @return The base URI of the server
+   */
+
+  public URI baseURI()
+  {
+    final var address = this.server.getAddress();
+    return URI.create(
+      "http://%s:%d/".formatted(
+        address.getHostString(),
+        Integer.valueOf(address.getPort()))
+    );
+  }
+
+  /**
+   * @return The number of uploads received
+   */
+
+  public long uploads()
+  {
+    return this.uploads.get();
+  }
+
+  /**
+   * @return The number of bytes received
+   */
+
+  public long bytes()
+  {
+    return this.bytes.get();
+  }
+
+  @Override
+  public void close()
+  {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+}
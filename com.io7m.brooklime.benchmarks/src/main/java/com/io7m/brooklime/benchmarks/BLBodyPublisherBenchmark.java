@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.benchmarks;
+
+import com.io7m.brooklime.vanilla.internal.BLFileBodyPublisher;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTimedInputStream;
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the cost of uploading a single file using the chunked input
+ * stream body publisher against the fixed-length file channel body
+ * publisher.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BLBodyPublisherBenchmark
+{
+  /**
+   * The kind of body publisher.
+   */
+
+  public enum PublisherKind
+  {
+    /**
+     * A chunked input stream publisher.
+     */
+
+    INPUT_STREAM,
+
+    /**
+     * A fixed-length file channel publisher.
+     */
+
+    FILE_CHANNEL
+  }
+
+  @Param({"INPUT_STREAM", "FILE_CHANNEL"})
+  private PublisherKind publisher;
+
+  @Param({"1024", "524288000"})
+  private long fileSize;
+
+  private BLBenchmarkServer server;
+  private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
+  private HttpClient client;
+  private Path directory;
+  private Path file;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BLBodyPublisherBenchmark()
+  {
+
+  }
+
+  /**
+   * Start the server and create the file.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws Exception
+  {
+    this.server =
+      BLBenchmarkServer.start(Duration.ZERO);
+    this.executor =
+      Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
+    this.client =
+      HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+    this.directory =
+      Files.createTempDirectory("brooklime-benchmark-");
+    this.file =
+      this.directory.resolve("file.bin");
+
+    final var block = new byte[1024 * 1024];
+    try (var output = Files.newOutputStream(this.file)) {
+      long remaining = this.fileSize;
+      while (remaining > 0L) {
+        final int length = (int) Math.min(remaining, block.length);
+        output.write(block, 0, length);
+        remaining -= length;
+      }
+    }
+  }
+
+  /**
+   * Shut everything down.
+   *
+   * @throws Exception On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws Exception
+  {
+    this.ticker.close();
+    this.executor.shutdown();
+    this.server.close();
+    PathUtils.deleteDirectory(this.directory);
+  }
+
+  /**
+   * Upload the file.
+   *
+   * @return The response status
+   *
+   * @throws Exception On errors
+   */
+
+  @Benchmark
+  public int upload()
+    throws Exception
+  {
+    final var uri =
+      this.server.baseURI().resolve("/file.bin");
+
+    return switch (this.publisher) {
+      case INPUT_STREAM -> this.uploadStream(uri);
+      case FILE_CHANNEL -> this.uploadChannel(uri);
+    };
+  }
+
+  private int uploadStream(
+    final URI uri)
+    throws Exception
+  {
+    final var request =
+      HttpRequest.newBuilder(uri)
+        .PUT(HttpRequest.BodyPublishers.ofInputStream(this::openStream))
+        .header("Content-Type", "application/octet-stream")
+        .build();
+
+    return this.client.send(request, HttpResponse.BodyHandlers.discarding())
+      .statusCode();
+  }
+
+  private InputStream openStream()
+  {
+    try {
+      return new STTimedInputStream(
+        this.ticker,
+        OptionalLong.of(this.fileSize),
+        statistics -> {
+
+        },
+        Files.newInputStream(this.file)
+      );
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int uploadChannel(
+    final URI uri)
+    throws Exception
+  {
+    try (var channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+      final var body =
+        BLFileBodyPublisher.builder(
+            this.ticker,
+            channel,
+            channel.size(),
+            statistics -> {
+
+            })
+          .setMapped(true)
+          .build();
+
+      final var request =
+        HttpRequest.newBuilder(uri)
+          .PUT(body)
+          .header("Content-Type", "application/octet-stream")
+          .build();
+
+      return this.client.send(request, HttpResponse.BodyHandlers.discarding())
+        .statusCode();
+    }
+  }
+}
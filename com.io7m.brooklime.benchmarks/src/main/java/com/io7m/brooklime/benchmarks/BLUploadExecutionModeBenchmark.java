@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.benchmarks;
+
+import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLExecutionMode;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLNexusClientType;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.vanilla.BLNexusClients;
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the throughput of uploading many small files using platform
+ * threads and virtual threads at the same concurrency width.
+ *
+ * Each upload is a small file sent to a local server that adds a fixed
+ * latency to every request, so that the benchmark is dominated by waiting
+ * on the network rather than by copying bytes.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BLUploadExecutionModeBenchmark
+{
+  @Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+  private BLExecutionMode executionMode;
+
+  @Param({"16", "256"})
+  private int parallelism;
+
+  @Param({"512"})
+  private int fileCount;
+
+  @Param({"1024"})
+  private int fileSize;
+
+  @Param({"10"})
+  private long latencyMilliseconds;
+
+  private BLBenchmarkServer server;
+  private BLNexusClientType client;
+  private BLStagingRepositoryUpload upload;
+  private Path directory;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BLUploadExecutionModeBenchmark()
+  {
+
+  }
+
+  /**
+   * Start the server, create the files, and create the client.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws Exception
+  {
+    this.server =
+      BLBenchmarkServer.start(Duration.ofMillis(this.latencyMilliseconds));
+    this.directory =
+      Files.createTempDirectory("brooklime-benchmark-");
+
+    final var data = new byte[this.fileSize];
+    for (int index = 0; index < this.fileCount; ++index) {
+      final var file =
+        this.directory.resolve("com/io7m/example/file%04d.jar".formatted(
+          Integer.valueOf(index)));
+      Files.createDirectories(file.getParent());
+      Files.write(file, data);
+    }
+
+    final var configuration =
+      BLNexusClientConfiguration.builder()
+        .setApplicationVersion(
+          BLApplicationVersion.builder()
+            .setApplicationName("com.io7m.brooklime.benchmarks")
+            .setApplicationVersion("0.0.0")
+            .build())
+        .setUserName("user")
+        .setPassword("password")
+        .setStagingProfileId("profile")
+        .setBaseURI(this.server.baseURI())
+        .setRetryCount(1)
+        .setRetryDelay(Duration.ZERO)
+        .setExecutionMode(this.executionMode)
+        .build();
+
+    this.client =
+      new BLNexusClients().createClient(configuration);
+    this.upload =
+      this.client.createUploadRequest(
+        BLStagingRepositoryUploadRequestParameters.builder()
+          .setRepositoryId("r0")
+          .setBaseDirectory(this.directory)
+          .setRetryCount(1)
+          .setRetryDelay(Duration.ZERO)
+          .setParallelism(this.parallelism)
+          .build()
+      );
+  }
+
+  /**
+   * Shut everything down.
+   *
+   * @throws Exception On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws Exception
+  {
+    this.client.close();
+    this.server.close();
+    PathUtils.deleteDirectory(this.directory);
+  }
+
+  /**
+   * Upload all the files.
+   *
+   * @throws Exception On errors
+   */
+
+  @Benchmark
+  public void upload()
+    throws Exception
+  {
+    this.client.upload(this.upload, event -> {
+    });
+  }
+}
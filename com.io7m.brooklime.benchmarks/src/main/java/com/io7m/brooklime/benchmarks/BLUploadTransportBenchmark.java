@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.benchmarks;
+
+import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLHTTPVersion;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLNexusClientType;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.vanilla.BLNexusClients;
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the throughput of multi-file uploads under each of the transport
+ * settings of the client configuration: the preferred HTTP version, the
+ * presence of a request timeout, a caller-supplied HTTP executor, and the
+ * size of the JDK HTTP client's connection pool.
+ *
+ * The local server speaks only HTTP/1.1 in cleartext, so with
+ * {@link BLHTTPVersion#HTTP_2} the client attempts (and the server declines)
+ * an upgrade; the benchmark therefore measures the cost of the preference
+ * against a server that does not support HTTP/2, which is the common case
+ * for Nexus servers behind HTTP/1.1 proxies.
+ *
+ * The connection pool size is a JVM-wide system property read once by the
+ * JDK, so it is set before the first client is created. Each combination of
+ * parameters runs in its own forked JVM.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BLUploadTransportBenchmark
+{
+  @Param({"HTTP_1_1", "HTTP_2"})
+  private BLHTTPVersion httpVersion;
+
+  @Param({"0", "60"})
+  private long requestTimeoutSeconds;
+
+  @Param({"DEFAULT", "FIXED"})
+  private String httpExecutor;
+
+  @Param({"0", "8"})
+  private int connectionPoolSize;
+
+  @Param({"16"})
+  private int parallelism;
+
+  @Param({"256"})
+  private int fileCount;
+
+  @Param({"65536"})
+  private int fileSize;
+
+  @Param({"1"})
+  private long latencyMilliseconds;
+
+  private BLBenchmarkServer server;
+  private BLNexusClientType client;
+  private BLStagingRepositoryUpload upload;
+  private Path directory;
+  private Optional<ExecutorService> executor;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public BLUploadTransportBenchmark()
+  {
+
+  }
+
+  /**
+   * Start the server, create the files, and create the client.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws Exception
+  {
+    /*
+     * Zero means "unlimited" to the JDK, and is also the JDK default.
+     */
+
+    System.setProperty(
+      "jdk.httpclient.connectionPoolSize",
+      Integer.toString(this.connectionPoolSize));
+
+    this.server =
+      BLBenchmarkServer.start(Duration.ofMillis(this.latencyMilliseconds));
+    this.directory =
+      Files.createTempDirectory("brooklime-benchmark-");
+
+    final var data = new byte[this.fileSize];
+    for (int index = 0; index < this.fileCount; ++index) {
+      final var file =
+        this.directory.resolve("com/io7m/example/file%04d.jar".formatted(
+          Integer.valueOf(index)));
+      Files.createDirectories(file.getParent());
+      Files.write(file, data);
+    }
+
+    this.executor = switch (this.httpExecutor) {
+      case "FIXED" -> Optional.of(
+        Executors.newFixedThreadPool(this.parallelism));
+      default -> Optional.empty();
+    };
+
+    final var configurationBuilder =
+      BLNexusClientConfiguration.builder()
+        .setApplicationVersion(
+          BLApplicationVersion.builder()
+            .setApplicationName("com.io7m.brooklime.benchmarks")
+            .setApplicationVersion("0.0.0")
+            .build())
+        .setUserName("user")
+        .setPassword("password")
+        .setStagingProfileId("profile")
+        .setBaseURI(this.server.baseURI())
+        .setRetryCount(1)
+        .setRetryDelay(Duration.ZERO)
+        .setHttpVersion(this.httpVersion);
+
+    this.executor.ifPresent(configurationBuilder::setHttpExecutor);
+
+    if (this.requestTimeoutSeconds > 0L) {
+      configurationBuilder.setRequestTimeout(
+        Duration.ofSeconds(this.requestTimeoutSeconds));
+    }
+
+    this.client =
+      new BLNexusClients().createClient(configurationBuilder.build());
+    this.upload =
+      this.client.createUploadRequest(
+        BLStagingRepositoryUploadRequestParameters.builder()
+          .setRepositoryId("r0")
+          .setBaseDirectory(this.directory)
+          .setRetryCount(1)
+          .setRetryDelay(Duration.ZERO)
+          .setParallelism(this.parallelism)
+          .build()
+      );
+  }
+
+  /**
+   * Shut everything down.
+   *
+   * @throws Exception On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws Exception
+  {
+    this.client.close();
+    this.executor.ifPresent(ExecutorService::shutdown);
+    this.server.close();
+    PathUtils.deleteDirectory(this.directory);
+  }
+
+  /**
+   * Upload all the files.
+   *
+   * @throws Exception On errors
+   */
+
+  @Benchmark
+  public void upload()
+    throws Exception
+  {
+    this.client.upload(this.upload, event -> {
+    });
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.benchmarks;
+
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTimedInputStream;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTimedOutputStream;
+import org.apache.commons.io.input.NullInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the cost of the byte counting performed by timed streams, by
+ * transferring a fixed amount of data through timed and untimed streams
+ * using single octets, small buffers, and large buffers.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class STTimedStreamBenchmark
+{
+  private static final int TRANSFER_SIZE = 1024 * 1024;
+
+  /**
+   * The way in which data is read or written.
+   */
+
+  public enum AccessPattern
+  {
+    /**
+     * One octet at a time.
+     */
+
+    SINGLE_BYTE(1),
+
+    /**
+     * Small buffers.
+     */
+
+    SMALL_BUFFER(64),
+
+    /**
+     * Large buffers.
+     */
+
+    LARGE_BUFFER(65536);
+
+    private final int bufferSize;
+
+    AccessPattern(
+      final int inBufferSize)
+    {
+      this.bufferSize = inBufferSize;
+    }
+  }
+
+  /**
+   * The kind of stream.
+   */
+
+  public enum StreamKind
+  {
+    /**
+     * The underlying stream, without timing.
+     */
+
+    PLAIN,
+
+    /**
+     * A timed stream.
+     */
+
+    TIMED
+  }
+
+  @Param({"SINGLE_BYTE", "SMALL_BUFFER", "LARGE_BUFFER"})
+  private AccessPattern pattern;
+
+  @Param({"PLAIN", "TIMED"})
+  private StreamKind stream;
+
+  private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
+  private byte[] buffer;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public STTimedStreamBenchmark()
+  {
+
+  }
+
+  /**
+   * Create the statistics executor and ticker.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.executor =
+      Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
+    this.buffer =
+      new byte[this.pattern.bufferSize];
+  }
+
+  /**
+   * Shut everything down.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.ticker.close();
+    this.executor.shutdown();
+  }
+
+  /**
+   * Read the data.
+   *
+   * @return The number of octets read
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long read()
+    throws IOException
+  {
+    long total = 0L;
+    try (var input = this.openInput()) {
+      if (this.pattern == AccessPattern.SINGLE_BYTE) {
+        while (input.read() >= 0) {
+          ++total;
+        }
+      } else {
+        while (true) {
+          final int r = input.read(this.buffer, 0, this.buffer.length);
+          if (r < 0) {
+            break;
+          }
+          total += r;
+        }
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Write the data.
+   *
+   * @return The number of octets written
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long write()
+    throws IOException
+  {
+    long total = 0L;
+    try (var output = this.openOutput()) {
+      if (this.pattern == AccessPattern.SINGLE_BYTE) {
+        for (; total < TRANSFER_SIZE; ++total) {
+          output.write((int) total);
+        }
+      } else {
+        while (total < TRANSFER_SIZE) {
+          output.write(this.buffer, 0, this.buffer.length);
+          total += this.buffer.length;
+        }
+      }
+    }
+    return total;
+  }
+
+  private InputStream openInput()
+  {
+    final var input = new NullInputStream(TRANSFER_SIZE);
+    return switch (this.stream) {
+      case PLAIN -> input;
+      case TIMED -> new STTimedInputStream(
+        this.ticker,
+        OptionalLong.of(TRANSFER_SIZE),
+        statistics -> {
+
+        },
+        input
+      );
+    };
+  }
+
+  private OutputStream openOutput()
+  {
+    final var output = NullOutputStream.INSTANCE;
+    return switch (this.stream) {
+      case PLAIN -> output;
+      case TIMED -> new STTimedOutputStream(
+        this.ticker,
+        OptionalLong.of(TRANSFER_SIZE),
+        statistics -> {
+
+        },
+        output
+      );
+    };
+  }
+}
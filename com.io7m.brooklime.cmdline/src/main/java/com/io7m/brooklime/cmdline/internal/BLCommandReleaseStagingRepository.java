@@ -132,11 +132,18 @@ public final class BLCommandReleaseStagingRepository extends BLCommandRoot
       while (true) {
         LOG.debug("waiting for repository to release...");
 
+        final var wait = new BLPollWaitEvent();
+        wait.begin();
         try {
           Thread.sleep(2_000L);
         } catch (final InterruptedException e) {
           Thread.currentThread().interrupt();
         }
+        if (wait.shouldCommit()) {
+          wait.setRepositoryId(this.stagingRepositoryId);
+          wait.setOperation("release");
+          wait.commit();
+        }
 
         final var repositoryOpt =
           client.stagingRepositoryGet(this.stagingRepositoryId);
@@ -18,13 +18,20 @@ package com.io7m.brooklime.cmdline.internal;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
 import com.io7m.brooklime.api.BLErrorLogging;
 import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLExecutionMode;
 import com.io7m.brooklime.api.BLHTTPErrorException;
+import com.io7m.brooklime.api.BLHTTPVersion;
 import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLProgressConcurrencyChanged;
 import com.io7m.brooklime.api.BLProgressEventType;
 import com.io7m.brooklime.api.BLProgressUpdate;
 import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadTarget;
+import com.io7m.brooklime.api.BLUploadMode;
+import com.io7m.brooklime.api.BLUploadOrdering;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
@@ -34,6 +41,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * A command to upload files to a staging repository.
@@ -96,11 +106,175 @@ public final class BLCommandUploadToStagingRepository extends BLCommandRoot
 
   @Parameter(
     names = "--directory",
-    description = "The directory containing files to be uploaded",
+    description = "The directory (or zip archive) containing files to be uploaded",
     required = true
   )
   private Path directory;
 
+  @Parameter(
+    names = "--include",
+    description = "Upload only files whose paths or names match the given glob pattern (may be repeated)",
+    splitter = BLPatternSplitter.class,
+    required = false
+  )
+  private List<String> includes = new ArrayList<>();
+
+  @Parameter(
+    names = "--exclude",
+    description = "Skip files or directories whose paths or names match the given glob pattern (may be repeated)",
+    splitter = BLPatternSplitter.class,
+    required = false
+  )
+  private List<String> excludes = new ArrayList<>();
+
+  @Parameter(
+    names = "--mirror",
+    description = "An additional staging repository to send files to, as <repository>@<baseURI> (may be repeated)",
+    converter = BLUploadTargetConverter.class,
+    required = false
+  )
+  private List<BLStagingRepositoryUploadTarget> mirrors = new ArrayList<>();
+
+  @Parameter(
+    names = "--mirrorUser",
+    description = "The Nexus user name for mirrors (defaults to --user)",
+    required = false
+  )
+  private String mirrorUserName;
+
+  @Parameter(
+    names = "--mirrorPassword",
+    description = "The Nexus password for mirrors (defaults to --password)",
+    required = false
+  )
+  private String mirrorPassword;
+
+  @Parameter(
+    names = "--parallelism",
+    description = "The maximum number of files to upload concurrently",
+    required = false
+  )
+  private int parallelism = 1;
+
+  @Parameter(
+    names = "--executionMode",
+    description = "The kind of threads used to execute uploads",
+    required = false
+  )
+  private BLExecutionMode executionMode = BLExecutionMode.PLATFORM_THREADS;
+
+  @Parameter(
+    names = "--httpVersion",
+    description = "The preferred HTTP protocol version",
+    required = false
+  )
+  private BLHTTPVersion httpVersion = BLHTTPVersion.HTTP_2;
+
+  @Parameter(
+    names = "--connectTimeoutSeconds",
+    description = "The maximum number of seconds to wait for a connection to the server",
+    required = false
+  )
+  private Long connectTimeoutSeconds;
+
+  @Parameter(
+    names = "--requestTimeoutSeconds",
+    description = "The maximum number of seconds to wait for each response, including the time taken to send the file",
+    required = false
+  )
+  private Long requestTimeoutSeconds;
+
+  @Parameter(
+    names = "--prefetchFiles",
+    description = "The number of files to open and start reading ahead of their uploads (0 disables read-ahead)",
+    required = false
+  )
+  private int prefetchFiles;
+
+  @Parameter(
+    names = "--prefetchMemory",
+    description = "The maximum number of octets of files read ahead that may be held in memory",
+    required = false
+  )
+  private long prefetchMemory = 64L * 1024L * 1024L;
+
+  @Parameter(
+    names = "--uploadMode",
+    description = "The manner in which files are transferred to the server",
+    required = false
+  )
+  private BLUploadMode uploadMode = BLUploadMode.FILES;
+
+  @Parameter(
+    names = "--order",
+    description = "The order in which files are uploaded (default: LARGEST_FIRST if --parallelism > 1, else NAME)",
+    required = false
+  )
+  private BLUploadOrdering ordering;
+
+  @Parameter(
+    names = "--streaming",
+    description = "Start uploading files as they are found, without waiting for the whole directory to be scanned",
+    required = false
+  )
+  private boolean streaming;
+
+  @Parameter(
+    names = "--adaptiveConcurrency",
+    description = "Adjust the number of concurrent uploads (up to --parallelism) to the observed throughput and errors",
+    required = false
+  )
+  private boolean adaptiveConcurrency;
+
+  @Parameter(
+    names = "--maxBytesPerSecond",
+    description = "The maximum number of octets per second sent across all concurrent uploads",
+    required = false
+  )
+  private Long maxBytesPerSecond;
+
+  @Parameter(
+    names = "--maxRequestsPerSecond",
+    description = "The maximum number of upload requests per second, including retries",
+    required = false
+  )
+  private Double maxRequestsPerSecond;
+
+  @Parameter(
+    names = "--journal",
+    description = "The file that records completed uploads (--resume defaults it to <directory>.brooklime-journal)",
+    required = false
+  )
+  private Path journal;
+
+  @Parameter(
+    names = "--resume",
+    description = "Skip files that the journal records as already uploaded to the repository",
+    required = false
+  )
+  private boolean resume;
+
+  @Parameter(
+    names = "--skipExisting",
+    description = "Skip files that are already present in the repository with the same size and checksum",
+    required = false
+  )
+  private boolean skipExisting;
+
+  @Parameter(
+    names = "--checksums",
+    description = "Generate checksum files that are missing, using the given algorithms (such as MD5,SHA1)",
+    required = false
+  )
+  private List<BLChecksumAlgorithm> checksums = new ArrayList<>();
+
+  @Parameter(
+    names = "--digestCache",
+    description = "A file used to cache the digests of unchanged files between runs",
+    required = false
+  )
+  private Path digestCache;
+
   @Parameter(
     names = "--quiet",
     description = "Only log the start of file uploads",
@@ -126,29 +300,46 @@ public final class BLCommandUploadToStagingRepository extends BLCommandRoot
     }
 
     this.directory = this.directory.toAbsolutePath();
+    if (this.journal == null && this.resume) {
+      this.journal = this.directory.resolveSibling(
+        this.directory.getFileName() + ".brooklime-journal");
+    }
 
     final var clients =
       BLServices.findClients();
 
     final var clientConfiguration =
-      BLNexusClientConfiguration.builder()
-        .setApplicationVersion(BLServices.findApplicationVersion())
-        .setUserName(this.userName)
-        .setPassword(this.password)
-        .setBaseURI(this.baseURI)
-        .setStagingProfileId(this.stagingProfileId)
-        .setRetryCount(this.retryCount)
-        .setRetryDelay(Duration.ofSeconds(this.retrySeconds))
-        .build();
+      this.clientConfiguration();
 
     try (var client = clients.createClient(clientConfiguration)) {
-      final var parameters =
+      final var parametersBuilder =
         BLStagingRepositoryUploadRequestParameters.builder()
           .setRetryCount(this.retryCount)
           .setRetryDelay(Duration.ofSeconds(this.retrySeconds))
           .setBaseDirectory(this.directory)
           .setRepositoryId(this.stagingRepositoryId)
-          .build();
+          .setIncludes(this.includes)
+          .setExcludes(this.excludes)
+          .setMirrors(this.mirrorTargets())
+          .setParallelism(this.parallelism)
+          .setAdaptiveConcurrency(this.adaptiveConcurrency)
+          .setUploadMode(this.uploadMode)
+          .setJournal(Optional.ofNullable(this.journal))
+          .setResume(this.resume)
+          .setSkipExisting(this.skipExisting)
+          .setChecksums(this.checksums)
+          .setDigestCache(Optional.ofNullable(this.digestCache));
+
+      if (this.ordering != null) {
+        parametersBuilder.setOrdering(this.ordering);
+      }
+
+      final var parameters = parametersBuilder.build();
+
+      if (this.streaming) {
+        client.uploadDirectory(parameters, this::onReceiveEvent);
+        return Status.SUCCESS;
+      }
 
       final var request =
         client.createUploadRequest(parameters);
@@ -164,6 +355,51 @@ public final class BLCommandUploadToStagingRepository extends BLCommandRoot
     }
   }
 
+  private BLNexusClientConfiguration clientConfiguration()
+  {
+    final var clientConfigurationBuilder =
+      BLNexusClientConfiguration.builder()
+        .setApplicationVersion(BLServices.findApplicationVersion())
+        .setUserName(this.userName)
+        .setPassword(this.password)
+        .setBaseURI(this.baseURI)
+        .setStagingProfileId(this.stagingProfileId)
+        .setRetryCount(this.retryCount)
+        .setRetryDelay(Duration.ofSeconds(this.retrySeconds))
+        .setExecutionMode(this.executionMode)
+        .setHttpVersion(this.httpVersion)
+        .setPrefetchFileCount(this.prefetchFiles)
+        .setPrefetchMemoryLimit(this.prefetchMemory);
+
+    if (this.connectTimeoutSeconds != null) {
+      clientConfigurationBuilder.setConnectTimeout(
+        Duration.ofSeconds(this.connectTimeoutSeconds.longValue()));
+    }
+    if (this.requestTimeoutSeconds != null) {
+      clientConfigurationBuilder.setRequestTimeout(
+        Duration.ofSeconds(this.requestTimeoutSeconds.longValue()));
+    }
+
+    if (this.maxBytesPerSecond != null) {
+      clientConfigurationBuilder.setUploadBytesPerSecond(
+        this.maxBytesPerSecond.longValue());
+    }
+    if (this.maxRequestsPerSecond != null) {
+      clientConfigurationBuilder.setUploadRequestsPerSecond(
+        this.maxRequestsPerSecond.doubleValue());
+    }
+
+    return clientConfigurationBuilder.build();
+  }
+
+  private List<BLStagingRepositoryUploadTarget> mirrorTargets()
+  {
+    return this.mirrors.stream()
+      .map(mirror -> mirror.withUserName(Optional.ofNullable(this.mirrorUserName))
+        .withPassword(Optional.ofNullable(this.mirrorPassword)))
+      .toList();
+  }
+
   private void onReceiveEvent(
     final BLProgressEventType event)
   {
@@ -192,9 +428,32 @@ public final class BLCommandUploadToStagingRepository extends BLCommandRoot
             FileUtils.byteCountToDisplaySize(update.bytesPerSecond()),
             DurationFormatUtils.formatDurationHMS(update.timeRemaining().toMillis())
           );
+          update.total().ifPresent(total -> {
+            LOG.info(
+              "Total: {} of {} files, {} of {}, {}/s, {} remaining",
+              Long.valueOf(total.filesCompleted()),
+              Long.valueOf(total.filesMaximum()),
+              FileUtils.byteCountToDisplaySize(total.bytesSent()),
+              FileUtils.byteCountToDisplaySize(total.bytesMaximum()),
+              FileUtils.byteCountToDisplaySize(total.bytesPerSecond()),
+              DurationFormatUtils.formatDurationHMS(
+                total.timeRemaining().toMillis())
+            );
+          });
         }
         break;
       }
+      case PROGRESS_CONCURRENCY_CHANGED: {
+        final var change = (BLProgressConcurrencyChanged) event;
+        LOG.info(
+          "Concurrent uploads {} -> {} ({}, {}/s)",
+          Integer.valueOf(change.concurrencyPrevious()),
+          Integer.valueOf(change.concurrencyCurrent()),
+          change.reason(),
+          FileUtils.byteCountToDisplaySize(change.bytesPerSecond())
+        );
+        break;
+      }
     }
   }
 }
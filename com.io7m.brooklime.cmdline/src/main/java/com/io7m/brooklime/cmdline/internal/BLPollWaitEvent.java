@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.cmdline.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering one wait between polls of the state of
+ * a staging repository.
+ */
+
+@Name("com.io7m.brooklime.PollWait")
+@Label("Poll Wait")
+@Category({"Brooklime", "Staging"})
+@Description("A wait before polling the state of a staging repository")
+@StackTrace(false)
+public final class BLPollWaitEvent extends Event
+{
+  @Label("Repository ID")
+  private String repositoryId;
+
+  @Label("Operation")
+  @Description("The operation whose completion is awaited")
+  private String operation;
+
+  /**
+   * Create an event.
+   */
+
+  public BLPollWaitEvent()
+  {
+
+  }
+
+  void setRepositoryId(
+    final String value)
+  {
+    this.repositoryId = value;
+  }
+
+  void setOperation(
+    final String value)
+  {
+    this.operation = value;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.cmdline.internal;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadTarget;
+
+import java.net.URI;
+
+/**
+ * A converter for upload targets, given in the form
+ * {@code <repository>@<baseURI>}.
+ */
+
+public final class BLUploadTargetConverter implements
+  IStringConverter<BLStagingRepositoryUploadTarget>
+{
+  /**
+   * Construct a new converter.
+   */
+
+  public BLUploadTargetConverter()
+  {
+
+  }
+
+  @Override
+  public BLStagingRepositoryUploadTarget convert(final String value)
+  {
+    final var separator = value.indexOf('@');
+    if (separator <= 0 || separator == value.length() - 1) {
+      throw new ParameterException(
+        "Mirror must be of the form <repository>@<baseURI>: " + value);
+    }
+
+    try {
+      return BLStagingRepositoryUploadTarget.builder()
+        .setRepositoryId(value.substring(0, separator))
+        .setBaseURI(new URI(value.substring(separator + 1)))
+        .build();
+    } catch (final Exception e) {
+      throw new ParameterException(
+        "Unparseable mirror: " + value + ": " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLHTTPErrorException;
+import com.io7m.brooklime.api.BLProgressConcurrencyChanged;
+import com.io7m.brooklime.api.BLProgressEventType;
+import com.io7m.brooklime.vanilla.internal.BLAdaptiveConcurrency;
+import com.io7m.brooklime.vanilla.internal.BLProgressCounter;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletionException;
+
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.LATENCY_SPIKE;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.SERVER_ERROR;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.THROTTLED;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.THROUGHPUT_INCREASED;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.TIMEOUT;
+
+public final class BLAdaptiveConcurrencyTest
+{
+  private ArrayList<BLProgressEventType> events;
+  private BLProgressCounter counter;
+  private BLAdaptiveConcurrency concurrency;
+  private long octets;
+
+  @BeforeEach
+  public void testSetup()
+  {
+    this.events = new ArrayList<>();
+    this.counter = new BLProgressCounter(Clock.systemUTC(), this.events::add);
+    this.counter.startFile("file0", 100L, 1, 3, 0, 1);
+    this.events.clear();
+    this.concurrency = new BLAdaptiveConcurrency(this.counter, 4);
+    this.octets = 1000L;
+  }
+
+  private void transferred(
+    final long size)
+  {
+    this.concurrency.onStatistics(
+      new STTransferStatistics(OptionalLong.empty(), size, size));
+  }
+
+  /**
+   * Raise the limit by keeping every permit in use while throughput grows.
+   * No permits are held afterwards.
+   */
+
+  private void raiseTo(
+    final int limit)
+  {
+    while (this.concurrency.limit() < limit) {
+      final int held = this.concurrency.limit();
+      for (int index = 0; index < held; ++index) {
+        Assertions.assertTrue(this.concurrency.acquire().isDone());
+      }
+      this.octets *= 2L;
+      this.transferred(this.octets);
+      this.concurrency.tick();
+      for (int index = 0; index < held; ++index) {
+        this.concurrency.release();
+      }
+    }
+    this.events.clear();
+  }
+
+  private BLProgressConcurrencyChanged eventAt(
+    final int index)
+  {
+    return (BLProgressConcurrencyChanged) this.events.get(index);
+  }
+
+  /**
+   * Concurrency starts at one, and is raised by one when all permits are in
+   * use and throughput grows.
+   */
+
+  @Test
+  public void testIncreaseOnGrowth()
+  {
+    Assertions.assertEquals(1, this.concurrency.limit());
+    Assertions.assertTrue(this.concurrency.acquire().isDone());
+
+    final var waiting = this.concurrency.acquire();
+    Assertions.assertFalse(waiting.isDone());
+
+    this.transferred(1000L);
+    this.concurrency.tick();
+
+    Assertions.assertEquals(2, this.concurrency.limit());
+    Assertions.assertTrue(waiting.isDone());
+
+    final var event = this.eventAt(0);
+    Assertions.assertEquals(1, event.concurrencyPrevious());
+    Assertions.assertEquals(2, event.concurrencyCurrent());
+    Assertions.assertEquals(THROUGHPUT_INCREASED, event.reason());
+    Assertions.assertEquals(1000L, event.bytesPerSecond());
+    Assertions.assertEquals("file0", event.name());
+    Assertions.assertEquals(1, this.events.size());
+  }
+
+  /**
+   * Concurrency is not raised if throughput did not grow, if not all permits
+   * were in use, or beyond the maximum.
+   */
+
+  @Test
+  public void testNoIncrease()
+  {
+    this.raiseTo(2);
+    this.concurrency.acquire();
+    this.concurrency.acquire();
+
+    this.transferred(1000L);
+    this.concurrency.tick();
+    Assertions.assertEquals(2, this.concurrency.limit());
+
+    this.concurrency.release();
+    this.concurrency.tick();
+    this.transferred(100_000L);
+    this.concurrency.tick();
+    Assertions.assertEquals(2, this.concurrency.limit());
+
+    this.concurrency.release();
+    this.octets = 100_000L;
+    this.raiseTo(4);
+    this.transferred(1_000_000L);
+    this.concurrency.tick();
+    Assertions.assertEquals(4, this.concurrency.limit());
+    Assertions.assertEquals(List.of(), this.events);
+  }
+
+  /**
+   * Concurrency is halved on HTTP 429 and 5xx errors, at most once per
+   * period, and never below one.
+   */
+
+  @Test
+  public void testDecreaseOnErrors()
+  {
+    this.raiseTo(4);
+
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(429, "Slow down", List.of()));
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(503, "Unavailable", List.of()));
+    Assertions.assertEquals(2, this.concurrency.limit());
+
+    this.concurrency.tick();
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(503, "Unavailable", List.of()));
+    Assertions.assertEquals(1, this.concurrency.limit());
+
+    this.concurrency.tick();
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(500, "Error", List.of()));
+    Assertions.assertEquals(1, this.concurrency.limit());
+
+    Assertions.assertEquals(2, this.events.size());
+    Assertions.assertEquals(THROTTLED, this.eventAt(0).reason());
+    Assertions.assertEquals(4, this.eventAt(0).concurrencyPrevious());
+    Assertions.assertEquals(2, this.eventAt(0).concurrencyCurrent());
+    Assertions.assertEquals(SERVER_ERROR, this.eventAt(1).reason());
+    Assertions.assertEquals(2, this.eventAt(1).concurrencyPrevious());
+    Assertions.assertEquals(1, this.eventAt(1).concurrencyCurrent());
+  }
+
+  /**
+   * Concurrency is halved on timeouts, but not on other failures.
+   */
+
+  @Test
+  public void testDecreaseOnTimeout()
+  {
+    this.raiseTo(4);
+
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(404, "Not found", List.of()));
+    this.concurrency.onAttemptFailed(
+      this.counter, new IOException("Connection reset"));
+    Assertions.assertEquals(4, this.concurrency.limit());
+
+    this.concurrency.onAttemptFailed(
+      this.counter,
+      new CompletionException(new HttpTimeoutException("Timed out")));
+    Assertions.assertEquals(2, this.concurrency.limit());
+    Assertions.assertEquals(TIMEOUT, this.eventAt(0).reason());
+    Assertions.assertEquals(1, this.events.size());
+  }
+
+  /**
+   * Concurrency is halved when the latency of a small upload spikes.
+   */
+
+  @Test
+  public void testDecreaseOnLatencySpike()
+  {
+    this.raiseTo(4);
+
+    for (int index = 0; index < 8; ++index) {
+      this.concurrency.onAttemptSucceeded(
+        this.counter, 100L, Duration.ofMillis(10L));
+    }
+
+    this.concurrency.onAttemptSucceeded(
+      this.counter, 10_000_000L, Duration.ofSeconds(10L));
+    Assertions.assertEquals(4, this.concurrency.limit());
+
+    this.concurrency.onAttemptSucceeded(
+      this.counter, 100L, Duration.ofMillis(100L));
+    Assertions.assertEquals(2, this.concurrency.limit());
+    Assertions.assertEquals(LATENCY_SPIKE, this.eventAt(0).reason());
+    Assertions.assertEquals(1, this.events.size());
+  }
+
+  /**
+   * Permits are not granted while more uploads are in flight than the
+   * decreased limit allows.
+   */
+
+  @Test
+  public void testPermitsAfterDecrease()
+  {
+    this.raiseTo(4);
+    for (int index = 0; index < 4; ++index) {
+      Assertions.assertTrue(this.concurrency.acquire().isDone());
+    }
+
+    this.concurrency.onAttemptFailed(
+      this.counter, new BLHTTPErrorException(429, "Slow down", List.of()));
+
+    final var waiting = this.concurrency.acquire();
+    this.concurrency.release();
+    this.concurrency.release();
+    Assertions.assertFalse(waiting.isDone());
+    this.concurrency.release();
+    Assertions.assertTrue(waiting.isDone());
+  }
+}
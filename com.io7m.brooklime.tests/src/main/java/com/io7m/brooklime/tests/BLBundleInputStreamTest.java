@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLProgressEventType;
+import com.io7m.brooklime.api.BLProgressFileStarted;
+import com.io7m.brooklime.vanilla.internal.BLBundleInputStream;
+import com.io7m.brooklime.vanilla.internal.BLProgressCounter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipInputStream;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLBundleInputStreamTest
+{
+  private static final String HELLO_MD5 =
+    "8b1a9953c4611296a827abf8c47804d7";
+
+  private Path directory;
+  private ArrayList<BLProgressEventType> events;
+  private BLProgressCounter counter;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+    this.events = new ArrayList<>();
+    this.counter = new BLProgressCounter(Clock.systemUTC(), this.events::add);
+  }
+
+  /**
+   * Read the entries of a zip archive.
+   *
+   * @param stream The archive
+   *
+   * @return The entries and their contents, in archive order
+   *
+   * @throws IOException On errors
+   */
+
+  static Map<String, String> entriesOf(
+    final InputStream stream)
+    throws IOException
+  {
+    final var results = new LinkedHashMap<String, String>();
+    try (var zip = new ZipInputStream(stream)) {
+      while (true) {
+        final var entry = zip.getNextEntry();
+        if (entry == null) {
+          break;
+        }
+        results.put(
+          entry.getName(),
+          StandardCharsets.UTF_8.decode(
+            ByteBuffer.wrap(zip.readAllBytes())).toString()
+        );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The stream produces a zip archive of the files, with the requested
+   * checksum files, and reports progress for each file.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testArchive()
+    throws Exception
+  {
+    final var subdir = this.directory.resolve("a");
+    Files.createDirectories(subdir);
+    Files.writeString(subdir.resolve("x.jar"), "Hello");
+    Files.writeString(subdir.resolve("y.pom"), "Goodbye");
+
+    final var files =
+      List.of(Path.of("a", "x.jar"), Path.of("a", "y.pom"));
+
+    final byte[] archive;
+    final BLBundleInputStream stream;
+    try (var bundle = new BLBundleInputStream(
+      this.directory,
+      files,
+      List.of(Set.of(BLChecksumAlgorithm.MD5), Set.of()),
+      List.of(Set.of(BLChecksumAlgorithm.MD5), Set.of()),
+      this.counter,
+      1,
+      3)) {
+      stream = bundle;
+      archive = bundle.readAllBytes();
+    }
+
+    Assertions.assertEquals(
+      Map.of(
+        "a/x.jar", "Hello",
+        "a/x.jar.md5", HELLO_MD5,
+        "a/y.pom", "Goodbye"),
+      entriesOf(new ByteArrayInputStream(archive))
+    );
+
+    final var results = stream.results();
+    Assertions.assertEquals(2, results.size());
+    Assertions.assertEquals(5L, results.get(0).size());
+    Assertions.assertEquals(
+      Map.of(BLChecksumAlgorithm.MD5, HELLO_MD5), results.get(0).digests());
+    Assertions.assertEquals(7L, results.get(1).size());
+    Assertions.assertEquals(Map.of(), results.get(1).digests());
+
+    final var started =
+      this.events.stream()
+        .filter(e -> e instanceof BLProgressFileStarted)
+        .map(BLProgressEventType::fileIndexCurrent)
+        .toList();
+    Assertions.assertEquals(List.of(1, 2), started);
+  }
+
+  /**
+   * Reading the stream one byte at a time produces the same archive as
+   * reading it in bulk.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testArchiveSingleBytes()
+    throws Exception
+  {
+    final var data = new byte[200_000];
+    for (int index = 0; index < data.length; ++index) {
+      data[index] = (byte) (index * 31);
+    }
+    Files.write(this.directory.resolve("x.bin"), data);
+
+    final var output = new ByteArrayOutputStream();
+    try (var bundle = new BLBundleInputStream(
+      this.directory,
+      List.of(Path.of("x.bin")),
+      List.of(Set.of()),
+      List.of(Set.of()),
+      this.counter,
+      1,
+      1)) {
+      while (true) {
+        final int b = bundle.read();
+        if (b == -1) {
+          break;
+        }
+        output.write(b);
+      }
+    }
+
+    try (var zip = new ZipInputStream(
+      new ByteArrayInputStream(output.toByteArray()))) {
+      Assertions.assertEquals("x.bin", zip.getNextEntry().getName());
+      Assertions.assertArrayEquals(data, zip.readAllBytes());
+    }
+  }
+}
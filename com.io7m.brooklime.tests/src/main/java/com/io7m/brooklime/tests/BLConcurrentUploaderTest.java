@@ -0,0 +1,293 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLExecutionMode;
+import com.io7m.brooklime.vanilla.internal.BLAdaptiveConcurrency;
+import com.io7m.brooklime.vanilla.internal.BLConcurrentUploader;
+import com.io7m.brooklime.vanilla.internal.BLProgressCounter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class BLConcurrentUploaderTest
+{
+  private static BLProgressCounter counter()
+  {
+    return new BLProgressCounter(Clock.systemUTC(), event -> {
+
+    });
+  }
+
+  private static void pause(
+    final long ms)
+  {
+    try {
+      Thread.sleep(ms);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * All tasks are executed exactly once, and no more than the configured
+   * number of tasks execute at any one time.
+   */
+
+  @Test
+  public void testBoundedParallelism()
+    throws Exception
+  {
+    final var running = new AtomicInteger(0);
+    final var runningMax = new AtomicInteger(0);
+    final var executed = ConcurrentHashMap.<Integer>newKeySet();
+
+    new BLConcurrentUploader(3).execute(counter(), 20, (c, index) -> {
+      final int now = running.incrementAndGet();
+      runningMax.accumulateAndGet(now, Math::max);
+      pause(20L);
+      Assertions.assertTrue(executed.add(Integer.valueOf(index)));
+      running.decrementAndGet();
+    });
+
+    Assertions.assertEquals(20, executed.size());
+    Assertions.assertTrue(runningMax.get() <= 3);
+    Assertions.assertTrue(runningMax.get() > 1);
+  }
+
+  /**
+   * The failure of the lowest-indexed task is raised, even if a task with a
+   * higher index fails first.
+   */
+
+  @Test
+  public void testFirstFailureDeterministic()
+  {
+    final Set<Integer> executed = ConcurrentHashMap.newKeySet();
+
+    final var ex =
+      Assertions.assertThrows(BLException.class, () -> {
+        new BLConcurrentUploader(4).execute(counter(), 100, (c, index) -> {
+          executed.add(Integer.valueOf(index));
+          if (index == 1) {
+            pause(200L);
+            throw new BLException("Failed 1");
+          }
+          if (index == 2) {
+            throw new BLException("Failed 2");
+          }
+          pause(5L);
+        });
+      });
+
+    Assertions.assertEquals("Failed 1", ex.getMessage());
+    Assertions.assertEquals(1, ex.getSuppressed().length);
+    Assertions.assertTrue(executed.size() < 100);
+  }
+
+  /**
+   * Streamed tasks start as soon as their indices become available, and the
+   * upload completes once the source is exhausted.
+   */
+
+  @Test
+  public void testStreaming()
+    throws Exception
+  {
+    final var queue = new LinkedBlockingQueue<Integer>();
+    final var executed = ConcurrentHashMap.<Integer>newKeySet();
+    final var first = new CompletableFuture<Void>();
+
+    final var producer = Executors.newSingleThreadExecutor();
+    try {
+      producer.execute(() -> {
+        queue.add(Integer.valueOf(0));
+        try {
+          first.get(10L, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+        for (int index = 1; index < 20; ++index) {
+          queue.add(Integer.valueOf(index));
+        }
+        queue.add(Integer.valueOf(-1));
+      });
+
+      new BLConcurrentUploader(3).executeStreaming(
+        counter(),
+        () -> {
+          final var index = queue.take();
+          if (index.intValue() < 0) {
+            queue.add(index);
+          }
+          return index.intValue();
+        },
+        (c, index) -> {
+          Assertions.assertTrue(executed.add(Integer.valueOf(index)));
+          if (index == 0) {
+            first.complete(null);
+          }
+        });
+    } finally {
+      producer.shutdown();
+    }
+
+    Assertions.assertEquals(20, executed.size());
+  }
+
+  /**
+   * Workers waiting for streamed tasks to become available do not hold
+   * adaptive concurrency permits.
+   */
+
+  @Test
+  public void testStreamingPermitsNotHeldWhileWaiting()
+    throws Exception
+  {
+    final var queue = new LinkedBlockingQueue<Integer>();
+    final var waiting = new AtomicInteger(0);
+    final var executed = ConcurrentHashMap.<Integer>newKeySet();
+
+    final var producer = Executors.newSingleThreadExecutor();
+    try (var concurrency = new BLAdaptiveConcurrency(counter(), 2)) {
+      final var granted = producer.submit(() -> {
+        queue.add(Integer.valueOf(0));
+
+        final long deadline = System.nanoTime() + 10_000_000_000L;
+        while (waiting.get() < 2 && System.nanoTime() < deadline) {
+          pause(10L);
+        }
+
+        boolean free = false;
+        if (waiting.get() == 2) {
+          final var permit = concurrency.acquire();
+          free = permit.isDone();
+          if (free) {
+            concurrency.release();
+          }
+        }
+
+        queue.add(Integer.valueOf(1));
+        queue.add(Integer.valueOf(-1));
+        return Boolean.valueOf(free);
+      });
+
+      new BLConcurrentUploader(
+        BLExecutionMode.PLATFORM_THREADS, 2, Optional.of(concurrency))
+        .executeStreaming(
+          counter(),
+          () -> {
+            waiting.incrementAndGet();
+            final Integer index;
+            try {
+              index = queue.take();
+            } finally {
+              waiting.decrementAndGet();
+            }
+            if (index.intValue() < 0) {
+              queue.add(index);
+            }
+            return index.intValue();
+          },
+          (c, index) -> {
+            Assertions.assertTrue(executed.add(Integer.valueOf(index)));
+          });
+
+      Assertions.assertTrue(granted.get(10L, TimeUnit.SECONDS).booleanValue());
+    } finally {
+      producer.shutdown();
+    }
+
+    Assertions.assertEquals(2, executed.size());
+  }
+
+  /**
+   * A parallelism of one executes tasks sequentially on the calling thread.
+   */
+
+  @Test
+  public void testSequential()
+    throws Exception
+  {
+    final var thread = Thread.currentThread();
+    final var count = new AtomicInteger(0);
+
+    new BLConcurrentUploader(1).execute(counter(), 10, (c, index) -> {
+      Assertions.assertEquals(thread, Thread.currentThread());
+      Assertions.assertEquals(count.getAndIncrement(), index);
+    });
+
+    Assertions.assertEquals(10, count.get());
+  }
+
+  /**
+   * Asynchronous tasks are kept in flight up to the configured parallelism,
+   * and the failure of the lowest-indexed task is raised.
+   */
+
+  @Test
+  public void testAsyncFirstFailureDeterministic()
+  {
+    final var running = new AtomicInteger(0);
+    final var runningMax = new AtomicInteger(0);
+    final var scheduler = Executors.newScheduledThreadPool(4);
+
+    try {
+      final var future =
+        new BLConcurrentUploader(3).executeAsync(counter(), 20, (c, index) -> {
+          final int now = running.incrementAndGet();
+          runningMax.accumulateAndGet(now, Math::max);
+
+          final var result = new CompletableFuture<Void>();
+          final long delay = index == 5 ? 100L : 10L;
+          scheduler.schedule(() -> {
+            running.decrementAndGet();
+            if (index == 5 || index == 7) {
+              result.completeExceptionally(
+                new BLException("Failed " + index));
+            } else {
+              result.complete(null);
+            }
+          }, delay, TimeUnit.MILLISECONDS);
+          return result;
+        });
+
+      final var ex =
+        Assertions.assertThrows(
+          ExecutionException.class,
+          () -> future.get(10L, TimeUnit.SECONDS));
+
+      Assertions.assertEquals("Failed 5", ex.getCause().getMessage());
+      Assertions.assertEquals(1, ex.getCause().getSuppressed().length);
+      Assertions.assertTrue(runningMax.get() <= 3);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+}
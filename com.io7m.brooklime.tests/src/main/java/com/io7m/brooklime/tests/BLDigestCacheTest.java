@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.vanilla.internal.BLDigestCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLDigestCacheTest
+{
+  private static final String HELLO_MD5 =
+    "8b1a9953c4611296a827abf8c47804d7";
+  private static final String HELLO_SHA1 =
+    "f7ff9e8b7bb2e09b70935a5d785e0cc5d9d0abf0";
+
+  private Path directory;
+  private Path cacheFile;
+  private Path file;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+    this.cacheFile = this.directory.resolve("cache");
+    this.file = this.directory.resolve("x.jar");
+    Files.writeString(this.file, "Hello");
+  }
+
+  private BasicFileAttributes attributes()
+    throws IOException
+  {
+    return Files.readAttributes(this.file, BasicFileAttributes.class);
+  }
+
+  /**
+   * Computed digests are remembered across reopening the cache.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRoundTrip()
+    throws Exception
+  {
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      Assertions.assertTrue(cache.find("x.jar", this.attributes()).isEmpty());
+
+      final var digests =
+        cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5));
+      Assertions.assertEquals(
+        Map.of(BLChecksumAlgorithm.MD5, HELLO_MD5), digests);
+    }
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      final var known = cache.find("x.jar", this.attributes()).orElseThrow();
+      Assertions.assertEquals(5L, known.size());
+      Assertions.assertEquals(
+        Map.of(BLChecksumAlgorithm.MD5, HELLO_MD5), known.digests());
+
+      cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.SHA1));
+    }
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      final var known = cache.find("x.jar", this.attributes()).orElseThrow();
+      Assertions.assertEquals(
+        Map.of(
+          BLChecksumAlgorithm.MD5, HELLO_MD5,
+          BLChecksumAlgorithm.SHA1, HELLO_SHA1),
+        known.digests());
+    }
+  }
+
+  /**
+   * Known digests are returned without reading the file.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testKnownNotRecomputed()
+    throws Exception
+  {
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      cache.put(
+        "x.jar",
+        this.attributes(),
+        Map.of(BLChecksumAlgorithm.MD5, "00112233445566778899aabbccddeeff"));
+
+      Assertions.assertEquals(
+        Map.of(BLChecksumAlgorithm.MD5, "00112233445566778899aabbccddeeff"),
+        cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5)));
+    }
+  }
+
+  /**
+   * Digests are forgotten when a file changes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChangedFile()
+    throws Exception
+  {
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5));
+    }
+
+    final var time = Files.getLastModifiedTime(this.file).toMillis();
+    Files.writeString(this.file, "Hello");
+    Files.setLastModifiedTime(this.file, FileTime.fromMillis(time + 2000L));
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      Assertions.assertTrue(cache.find("x.jar", this.attributes()).isEmpty());
+    }
+  }
+
+  /**
+   * A truncated final record is discarded, and later records are readable.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testTruncatedRecord()
+    throws Exception
+  {
+    final var other = this.directory.resolve("y.jar");
+    Files.writeString(other, "Hello");
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5));
+      cache.digestsOf(other, "y.jar", Set.of(BLChecksumAlgorithm.MD5));
+    }
+
+    try (var channel =
+           FileChannel.open(this.cacheFile, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3L);
+    }
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      final var otherAttributes =
+        Files.readAttributes(other, BasicFileAttributes.class);
+      Assertions.assertTrue(cache.find("x.jar", this.attributes()).isPresent());
+      Assertions.assertTrue(cache.find("y.jar", otherAttributes).isEmpty());
+      cache.digestsOf(other, "y.jar", Set.of(BLChecksumAlgorithm.SHA1));
+    }
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      final var otherAttributes =
+        Files.readAttributes(other, BasicFileAttributes.class);
+      Assertions.assertEquals(
+        Map.of(BLChecksumAlgorithm.SHA1, HELLO_SHA1),
+        cache.find("y.jar", otherAttributes).orElseThrow().digests());
+    }
+  }
+
+  /**
+   * A cache consisting mostly of superseded records is compacted on close.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCompaction()
+    throws Exception
+  {
+    final var time = Files.getLastModifiedTime(this.file).toMillis();
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      for (int index = 0; index < 100; ++index) {
+        Files.setLastModifiedTime(
+          this.file, FileTime.fromMillis(time + index * 1000L));
+        cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5));
+      }
+    }
+
+    Assertions.assertTrue(Files.size(this.cacheFile) < 200L);
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      Assertions.assertEquals(
+        Map.of(BLChecksumAlgorithm.MD5, HELLO_MD5),
+        cache.find("x.jar", this.attributes()).orElseThrow().digests());
+    }
+  }
+
+  /**
+   * A file that is not a digest cache is replaced.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNotACache()
+    throws Exception
+  {
+    Files.writeString(this.cacheFile, "Not a digest cache at all.");
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      Assertions.assertTrue(cache.find("x.jar", this.attributes()).isEmpty());
+      cache.digestsOf(this.file, "x.jar", Set.of(BLChecksumAlgorithm.MD5));
+    }
+
+    try (var cache = BLDigestCache.open(this.cacheFile)) {
+      Assertions.assertTrue(cache.find("x.jar", this.attributes()).isPresent());
+    }
+  }
+}
@@ -17,8 +17,11 @@
 package com.io7m.brooklime.tests;
 
 import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLFileDigests;
 import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLProgressConcurrencyChanged;
 import com.io7m.brooklime.api.BLProgressFileStarted;
+import com.io7m.brooklime.api.BLProgressTotal;
 import com.io7m.brooklime.api.BLProgressUpdate;
 import com.io7m.brooklime.api.BLStagingProfileRepository;
 import com.io7m.brooklime.api.BLStagingRepositoryClose;
@@ -30,6 +33,7 @@ import com.io7m.brooklime.api.BLStagingRepositoryRelease;
 import com.io7m.brooklime.api.BLStagingRepositoryReleaseType;
 import com.io7m.brooklime.api.BLStagingRepositoryUpload;
 import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadTarget;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
@@ -91,7 +95,10 @@ public final class BLEqualsTest
         "password",
         "stagingProfileId",
         "baseURI",
-        "retryDelay"
+        "retryDelay",
+        "executionMode",
+        "rateLimitScope",
+        "httpVersion"
       ).verify();
   }
 
@@ -115,14 +122,18 @@ public final class BLEqualsTest
   public Stream<DynamicTest> testRequests()
   {
     return Stream.of(
+      BLProgressConcurrencyChanged.class,
       BLProgressFileStarted.class,
+      BLProgressTotal.class,
       BLProgressUpdate.class,
       BLStagingRepositoryClose.class,
       BLStagingRepositoryCreate.class,
       BLStagingRepositoryDrop.class,
       BLStagingRepositoryRelease.class,
       BLStagingRepositoryUpload.class,
-      BLStagingRepositoryUploadRequestParameters.class)
+      BLStagingRepositoryUploadRequestParameters.class,
+      BLStagingRepositoryUploadTarget.class,
+      BLFileDigests.class)
       .map(c -> {
         return DynamicTest.dynamicTest("test" + c.getCanonicalName(), () -> {
           final ArrayList<String> ignored = new ArrayList<>();
@@ -132,8 +143,23 @@ public final class BLEqualsTest
           addNonnullFieldConditionally(c, ignored, "repositoryId");
           addNonnullFieldConditionally(c, ignored, "stagingRepositories");
           addNonnullFieldConditionally(c, ignored, "timeRemaining");
+          addNonnullFieldConditionally(c, ignored, "total");
           addNonnullFieldConditionally(c, ignored, "files");
           addNonnullFieldConditionally(c, ignored, "retryDelay");
+          addNonnullFieldConditionally(c, ignored, "checksums");
+          addNonnullFieldConditionally(c, ignored, "knownDigests");
+          addNonnullFieldConditionally(c, ignored, "fileSizes");
+          addNonnullFieldConditionally(c, ignored, "digests");
+          addNonnullFieldConditionally(c, ignored, "reason");
+          addNonnullFieldConditionally(c, ignored, "uploadMode");
+          addNonnullFieldConditionally(c, ignored, "ordering");
+          addNonnullFieldConditionally(c, ignored, "includes");
+          addNonnullFieldConditionally(c, ignored, "excludes");
+          addNonnullFieldConditionally(c, ignored, "mirrors");
+          addNonnullFieldConditionally(c, ignored, "sources");
+          addNonnullFieldConditionally(c, ignored, "baseURI");
+          addNonnullFieldConditionally(c, ignored, "userName");
+          addNonnullFieldConditionally(c, ignored, "password");
           final String[] nonnull = new String[ignored.size()];
           ignored.toArray(nonnull);
 
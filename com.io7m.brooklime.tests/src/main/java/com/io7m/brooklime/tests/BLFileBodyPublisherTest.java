@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.vanilla.internal.BLFileBodyPublisher;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLFileBodyPublisherTest
+{
+  private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
+  private Path directory;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.executor = Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
+    this.directory = createTempDirectory();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.ticker.close();
+    this.executor.shutdown();
+  }
+
+  private static final class CollectingSubscriber
+    implements Flow.Subscriber<ByteBuffer>
+  {
+    private final ByteArrayOutputStream output;
+    private final CompletableFuture<byte[]> result;
+    private Flow.Subscription subscription;
+
+    CollectingSubscriber()
+    {
+      this.output = new ByteArrayOutputStream();
+      this.result = new CompletableFuture<>();
+    }
+
+    @Override
+    public void onSubscribe(
+      final Flow.Subscription inSubscription)
+    {
+      this.subscription = inSubscription;
+      this.subscription.request(1L);
+    }
+
+    @Override
+    public void onNext(
+      final ByteBuffer item)
+    {
+      try {
+        Channels.newChannel(this.output).write(item);
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+      this.subscription.request(1L);
+    }
+
+    @Override
+    public void onError(
+      final Throwable throwable)
+    {
+      this.result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete()
+    {
+      this.result.complete(this.output.toByteArray());
+    }
+  }
+
+  private byte[] publish(
+    final FileChannel channel,
+    final long size,
+    final boolean mapped)
+    throws Exception
+  {
+    final var publisher =
+      BLFileBodyPublisher.builder(this.ticker, channel, size, s -> {
+
+        })
+        .setMapped(mapped)
+        .build();
+
+    Assertions.assertEquals(size, publisher.contentLength());
+
+    final var subscriber = new CollectingSubscriber();
+    publisher.subscribe(subscriber);
+    return subscriber.result.get(10L, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Files larger than a single slice are published exactly, whether mapped
+   * or read, and the same channel can be published more than once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPublishLarge()
+    throws Exception
+  {
+    final var data = new byte[BLFileBodyPublisher.SLICE_SIZE * 3 + 17];
+    new Random(0L).nextBytes(data);
+
+    final var file = this.directory.resolve("large.bin");
+    Files.write(file, data);
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Assertions.assertArrayEquals(
+        data, this.publish(channel, data.length, true));
+      Assertions.assertArrayEquals(
+        data, this.publish(channel, data.length, false));
+      Assertions.assertArrayEquals(
+        data, this.publish(channel, data.length, true));
+    }
+  }
+
+  /**
+   * Empty files are published.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPublishEmpty()
+    throws Exception
+  {
+    final var file = this.directory.resolve("empty.bin");
+    Files.write(file, new byte[0]);
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Assertions.assertArrayEquals(new byte[0], this.publish(channel, 0L, true));
+    }
+  }
+
+  /**
+   * Files that are shorter than declared cause errors.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPublishTruncated()
+    throws Exception
+  {
+    final var file = this.directory.resolve("short.bin");
+    Files.write(file, new byte[100]);
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var ex =
+        Assertions.assertThrows(
+          ExecutionException.class,
+          () -> this.publish(channel, 200L, false));
+      Assertions.assertInstanceOf(EOFException.class, ex.getCause());
+    }
+  }
+
+  /**
+   * A prefix given to the publisher is published from memory, and the
+   * remainder of the file is read from the channel.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPublishPrefix()
+    throws Exception
+  {
+    final var data = new byte[BLFileBodyPublisher.SLICE_SIZE * 2 + 17];
+    new Random(0L).nextBytes(data);
+
+    final var file = this.directory.resolve("prefix.bin");
+    Files.write(file, data);
+
+    /*
+     * The prefix deliberately differs from the file, so that octets read
+     * from the channel in place of the prefix would be detected.
+     */
+
+    final var prefixSize = BLFileBodyPublisher.SLICE_SIZE + 5;
+    final var prefix = new byte[prefixSize];
+    new Random(1L).nextBytes(prefix);
+
+    final var expected = data.clone();
+    System.arraycopy(prefix, 0, expected, 0, prefixSize);
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var publisher =
+        BLFileBodyPublisher.builder(
+            this.ticker,
+            channel,
+            data.length,
+            s -> {
+
+            })
+          .setPrefix(ByteBuffer.wrap(prefix))
+          .build();
+
+      final var subscriber = new CollectingSubscriber();
+      publisher.subscribe(subscriber);
+      Assertions.assertArrayEquals(
+        expected, subscriber.result.get(10L, TimeUnit.SECONDS));
+    }
+  }
+}
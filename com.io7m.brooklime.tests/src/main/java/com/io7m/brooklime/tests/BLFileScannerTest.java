@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.vanilla.internal.BLFileDiscovery;
+import com.io7m.brooklime.vanilla.internal.BLFileScanner;
+import com.io7m.brooklime.vanilla.internal.BLFileSelection;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLFileScannerTest
+{
+  private Path directory;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+  }
+
+  private TreeMap<Path, Long> createTree()
+    throws IOException
+  {
+    final var expected = new TreeMap<Path, Long>();
+    for (int a = 0; a < 4; ++a) {
+      for (int b = 0; b < 4; ++b) {
+        final var dir = Path.of("d" + a, "e" + b);
+        Files.createDirectories(this.directory.resolve(dir));
+        for (int c = 0; c < 5; ++c) {
+          final var file = dir.resolve("f" + c + ".txt");
+          final var data = new byte[a + b + c];
+          Files.write(this.directory.resolve(file), data);
+          expected.put(file, Long.valueOf(data.length));
+        }
+      }
+    }
+    Files.createDirectories(this.directory.resolve("empty"));
+    return expected;
+  }
+
+  /**
+   * The parallel scan finds every regular file, along with its size, and
+   * reports each file to the listener exactly once.
+   */
+
+  @Test
+  public void testScan()
+    throws IOException
+  {
+    final var expected = this.createTree();
+    final var excluded = Path.of("d1", "e1", "f1.txt");
+    expected.remove(excluded);
+
+    final var heard = ConcurrentHashMap.<Path>newKeySet();
+    final var found = BLFileScanner.scan(
+      this.directory,
+      BLFileSelection.all(),
+      p -> p.equals(this.directory.resolve(excluded)),
+      (file, attributes) -> Assertions.assertTrue(heard.add(file))
+    );
+
+    Assertions.assertEquals(expected.keySet(), found.keySet());
+    Assertions.assertEquals(expected.keySet(), heard);
+    for (final var entry : found.entrySet()) {
+      Assertions.assertEquals(
+        expected.get(entry.getKey()).longValue(),
+        entry.getValue().size());
+    }
+  }
+
+  /**
+   * Include and exclude patterns match either relative paths or file names,
+   * and excluded directories are not scanned.
+   */
+
+  @Test
+  public void testScanSelection()
+    throws IOException
+  {
+    final var expected = this.createTree();
+    Files.writeString(this.directory.resolve("d0/x.lastUpdated"), "x");
+    Files.writeString(this.directory.resolve("d0/e0/_remote.repositories"), "x");
+
+    final var parameters =
+      BLStagingRepositoryUploadRequestParameters.builder()
+        .setRepositoryId("r0")
+        .setBaseDirectory(this.directory)
+        .setRetryDelay(Duration.ofSeconds(1L))
+        .setRetryCount(1)
+        .addIncludes("*.txt", "_remote.repositories")
+        .addExcludes("d1", "d2/e*", "f4.txt", "_remote.repositories")
+        .build();
+
+    final var found = BLFileScanner.scan(
+      this.directory,
+      BLFileSelection.of(parameters),
+      p -> false
+    );
+
+    expected.keySet().removeIf(p -> p.startsWith("d1"));
+    expected.keySet().removeIf(p -> p.startsWith("d2"));
+    expected.keySet().removeIf(p -> p.endsWith("f4.txt"));
+    Assertions.assertEquals(expected.keySet(), found.keySet());
+  }
+
+  /**
+   * A file is selected exactly when a scan with the same patterns finds it.
+   */
+
+  @Test
+  public void testIsSelected()
+    throws IOException
+  {
+    final var expected = this.createTree();
+
+    final var parameters =
+      BLStagingRepositoryUploadRequestParameters.builder()
+        .setRepositoryId("r0")
+        .setBaseDirectory(this.directory)
+        .setRetryDelay(Duration.ofSeconds(1L))
+        .setRetryCount(1)
+        .addExcludes("d1", "d2/e*", "f4.txt")
+        .build();
+
+    final var selection = BLFileSelection.of(parameters);
+    final var found =
+      BLFileScanner.scan(this.directory, selection, p -> false);
+
+    for (final var file : expected.keySet()) {
+      Assertions.assertEquals(
+        Boolean.valueOf(found.containsKey(file)),
+        Boolean.valueOf(BLFileScanner.isSelected(
+          this.directory, selection, p -> false, file)),
+        file.toString());
+    }
+
+    Assertions.assertFalse(BLFileScanner.isSelected(
+      this.directory, selection, p -> false, Path.of("d0", "e0")));
+    Assertions.assertFalse(BLFileScanner.isSelected(
+      this.directory, selection, p -> false, Path.of("d0", "missing.txt")));
+    Assertions.assertFalse(BLFileScanner.isSelected(
+      this.directory, selection, p -> true, Path.of("d0", "e0", "f0.txt")));
+  }
+
+  /**
+   * A background discovery yields every file exactly once, and then reports
+   * that there are no more files.
+   */
+
+  @Test
+  public void testDiscovery()
+    throws Exception
+  {
+    final var expected = this.createTree();
+    final var discovery =
+      BLFileDiscovery.start(this.directory, BLFileSelection.all(), p -> false);
+
+    final var received = new ArrayList<Path>();
+    while (true) {
+      final int index = discovery.next();
+      if (index < 0) {
+        break;
+      }
+      received.add(discovery.file(index));
+      Assertions.assertEquals(
+        expected.get(discovery.file(index)).longValue(),
+        discovery.attributes(index).size());
+    }
+
+    discovery.raiseFailure();
+    Assertions.assertEquals(-1, discovery.next());
+    Assertions.assertEquals(expected.size(), received.size());
+    Assertions.assertEquals(
+      expected.keySet(),
+      received.stream().collect(Collectors.toSet()));
+    Assertions.assertEquals(expected.size(), discovery.count());
+  }
+}
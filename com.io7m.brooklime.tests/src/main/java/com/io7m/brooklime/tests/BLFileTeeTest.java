@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.vanilla.internal.BLFileTee;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLFileTeeTest
+{
+  private static final int SLICE = 1024;
+
+  private Path directory;
+  private byte[] data;
+  private Path file;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+    this.data = new byte[SLICE * (BLFileTee.WINDOW_SLICES * 2 + 3)];
+    new Random(0L).nextBytes(this.data);
+    this.file = this.directory.resolve("file.bin").toAbsolutePath();
+    Files.write(this.file, this.data);
+  }
+
+  private void checkSlice(
+    final ByteBuffer buffer,
+    final long position)
+  {
+    final var octets = new byte[buffer.remaining()];
+    buffer.get(octets);
+    Assertions.assertArrayEquals(
+      Arrays.copyOfRange(
+        this.data, (int) position, (int) position + octets.length),
+      octets
+    );
+  }
+
+  /**
+   * Readers that progress together share buffers, and buffers are discarded
+   * once every reader has consumed them.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReadersInStep()
+    throws Exception
+  {
+    try (var tee = new BLFileTee(this.file, Optional.empty(), 2)) {
+      final var r0 = tee.reader(0);
+      final var r1 = tee.reader(1);
+
+      for (long position = 0L; position < this.data.length; position += SLICE) {
+        this.checkSlice(r0.read(position, SLICE, false), position);
+        Assertions.assertEquals(1, tee.buffered());
+        this.checkSlice(r1.read(position, SLICE, false), position);
+        Assertions.assertEquals(0, tee.buffered());
+      }
+    }
+  }
+
+  /**
+   * A reader that runs far ahead of another is not held up, and the number
+   * of buffers held is bounded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReaderFarAhead()
+    throws Exception
+  {
+    try (var tee = new BLFileTee(this.file, Optional.empty(), 2)) {
+      final var r0 = tee.reader(0);
+      final var r1 = tee.reader(1);
+
+      for (long position = 0L; position < this.data.length; position += SLICE) {
+        this.checkSlice(r0.read(position, SLICE, false), position);
+        Assertions.assertTrue(tee.buffered() <= BLFileTee.WINDOW_SLICES);
+      }
+      r0.finish();
+
+      for (long position = 0L; position < this.data.length; position += SLICE) {
+        this.checkSlice(r1.read(position, SLICE, false), position);
+        Assertions.assertTrue(tee.buffered() <= BLFileTee.WINDOW_SLICES);
+      }
+      Assertions.assertEquals(0, tee.buffered());
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLParseException;
+import com.io7m.brooklime.vanilla.internal.BLNexusParsers;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLFlightRecorderTest
+{
+  private static final String PARSE_EVENT =
+    "com.io7m.brooklime.Parse";
+
+  private static final byte[] PROMOTE_RESPONSE = """
+    <promoteResponse>
+      <data>
+        <stagedRepositoryId>comio7m-1000</stagedRepositoryId>
+      </data>
+    </promoteResponse>
+    """.stripIndent().getBytes(StandardCharsets.UTF_8);
+
+  private Path directory;
+  private BLNexusParsers parsers;
+  private URI uri;
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+    this.parsers = new BLNexusParsers();
+    this.uri = URI.create("urn:test");
+  }
+
+  private List<RecordedEvent> eventsOf(
+    final Recording recording)
+    throws IOException
+  {
+    final var file = this.directory.resolve("recording.jfr");
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file)
+      .stream()
+      .filter(e -> PARSE_EVENT.equals(e.getEventType().getName()))
+      .toList();
+  }
+
+  /**
+   * Parsing a document records its kind and size.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParseRecorded()
+    throws Exception
+  {
+    try (var recording = new Recording()) {
+      recording.enable(PARSE_EVENT).withoutThreshold();
+      recording.start();
+
+      final var id =
+        this.parsers.parseStagingRepositoryCreate(
+          this.uri, new ByteArrayInputStream(PROMOTE_RESPONSE));
+      Assertions.assertEquals("comio7m-1000", id);
+
+      recording.stop();
+
+      final var events = this.eventsOf(recording);
+      Assertions.assertEquals(1, events.size());
+
+      final var event = events.get(0);
+      Assertions.assertEquals("urn:test", event.getString("uri"));
+      Assertions.assertEquals("promoteResponse", event.getString("document"));
+      Assertions.assertEquals(
+        PROMOTE_RESPONSE.length, event.getLong("bytes"));
+      Assertions.assertTrue(event.getBoolean("succeeded"));
+    }
+  }
+
+  /**
+   * Failing to parse a document records the failure.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParseFailureRecorded()
+    throws Exception
+  {
+    try (var recording = new Recording()) {
+      recording.enable(PARSE_EVENT).withoutThreshold();
+      recording.start();
+
+      Assertions.assertThrows(BLParseException.class, () -> {
+        this.parsers.parseStagingRepositoryCreate(
+          this.uri,
+          new ByteArrayInputStream(
+            "<promoteResponse>".getBytes(StandardCharsets.UTF_8)));
+      });
+
+      recording.stop();
+
+      final var events = this.eventsOf(recording);
+      Assertions.assertEquals(1, events.size());
+      Assertions.assertFalse(events.get(0).getBoolean("succeeded"));
+    }
+  }
+
+  /**
+   * Nothing is recorded when the event is disabled.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParseDisabled()
+    throws Exception
+  {
+    try (var recording = new Recording()) {
+      recording.disable(PARSE_EVENT);
+      recording.start();
+
+      this.parsers.parseStagingRepositoryCreate(
+        this.uri, new ByteArrayInputStream(PROMOTE_RESPONSE));
+
+      recording.stop();
+      Assertions.assertEquals(List.of(), this.eventsOf(recording));
+    }
+  }
+}
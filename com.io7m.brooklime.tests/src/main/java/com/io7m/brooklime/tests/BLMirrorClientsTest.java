@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.vanilla.internal.BLMirrorClients;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+public final class BLMirrorClientsTest
+{
+  private static BLNexusClientConfiguration configuration(
+    final String uri)
+  {
+    return BLNexusClientConfiguration.builder()
+      .setUserName("user")
+      .setPassword("password")
+      .setApplicationVersion(
+        BLApplicationVersion.builder()
+          .setApplicationName("com.io7m.brooklime.tests")
+          .setApplicationVersion("0.0.1")
+          .build())
+      .setStagingProfileId("6bfe53ee-d3ce-438d-a869-d501f01febb1")
+      .setBaseURI(URI.create(uri))
+      .setRetryDelay(Duration.ofSeconds(1L))
+      .setRetryCount(3)
+      .build();
+  }
+
+  /**
+   * A client is created once for each mirror configuration.
+   */
+
+  @Test
+  public void testShared()
+  {
+    final var a = configuration("http://a.example.com");
+    final var b = configuration("http://b.example.com");
+
+    try (var clients = new BLMirrorClients(Optional.empty())) {
+      final var clientA0 = clients.clientOf(a);
+      final var clientA1 =
+        clients.clientOf(configuration("http://a.example.com"));
+      final var clientB = clients.clientOf(b);
+
+      Assertions.assertSame(clientA0, clientA1);
+      Assertions.assertNotSame(clientA0, clientB);
+    }
+  }
+
+  /**
+   * Closing the clients forgets them.
+   */
+
+  @Test
+  public void testClosed()
+  {
+    final var a = configuration("http://a.example.com");
+
+    final var clients = new BLMirrorClients(Optional.empty());
+    final var client0 = clients.clientOf(a);
+    clients.close();
+    final var client1 = clients.clientOf(a);
+    clients.close();
+
+    Assertions.assertNotSame(client0, client1);
+  }
+}
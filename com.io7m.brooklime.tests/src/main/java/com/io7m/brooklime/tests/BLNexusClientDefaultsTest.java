@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLNexusClientProviderType;
+import com.io7m.brooklime.api.BLNexusClientType;
+import com.io7m.brooklime.api.BLProgressReceiverType;
+import com.io7m.brooklime.api.BLStagingProfileRepository;
+import com.io7m.brooklime.api.BLStagingRepositoryClose;
+import com.io7m.brooklime.api.BLStagingRepositoryCreate;
+import com.io7m.brooklime.api.BLStagingRepositoryDrop;
+import com.io7m.brooklime.api.BLStagingRepositoryRelease;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public final class BLNexusClientDefaultsTest
+{
+  /*
+   * A client that records the uploads it is asked to execute.
+   */
+
+  private static final class FakeClient implements BLNexusClientType
+  {
+    private final List<BLStagingRepositoryUpload> uploads;
+    private boolean closed;
+
+    FakeClient()
+    {
+      this.uploads = new ArrayList<>();
+    }
+
+    @Override
+    public void upload(
+      final BLStagingRepositoryUpload upload,
+      final BLProgressReceiverType receiver)
+    {
+      this.uploads.add(upload);
+    }
+
+    @Override
+    public BLStagingRepositoryUpload createUploadRequest(
+      final BLStagingRepositoryUploadRequestParameters request)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<BLStagingProfileRepository> stagingRepositories()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<BLStagingProfileRepository> stagingRepositoryGet(
+      final String id)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String stagingRepositoryCreate(
+      final BLStagingRepositoryCreate create)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void stagingRepositoryDrop(
+      final BLStagingRepositoryDrop drop)
+      throws BLException
+    {
+      throw new BLException("Drop failed");
+    }
+
+    @Override
+    public void stagingRepositoryClose(
+      final BLStagingRepositoryClose close)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void stagingRepositoryRelease(
+      final BLStagingRepositoryRelease release)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close()
+    {
+      this.closed = true;
+    }
+  }
+
+  private static BLNexusClientConfiguration configuration()
+  {
+    return BLNexusClientConfiguration.builder()
+      .setUserName("user")
+      .setPassword("password")
+      .setApplicationVersion(
+        BLApplicationVersion.builder()
+          .setApplicationName("com.io7m.brooklime.tests")
+          .setApplicationVersion("0.0.1")
+          .build())
+      .setStagingProfileId("6bfe53ee-d3ce-438d-a869-d501f01febb1")
+      .setBaseURI(URI.create("http://a.example.com"))
+      .setRetryDelay(Duration.ofSeconds(1L))
+      .setRetryCount(3)
+      .build();
+  }
+
+  /**
+   * The default asynchronous client calls the blocking client, and fails
+   * with the exceptions that the blocking client throws.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCreateAsyncClientDefault()
+    throws Exception
+  {
+    final var client = new FakeClient();
+    final BLNexusClientProviderType provider = configuration -> client;
+
+    final var upload =
+      BLStagingRepositoryUpload.builder()
+        .setRepositoryId("r0")
+        .setBaseDirectory(Path.of("").toAbsolutePath())
+        .setRetryCount(1)
+        .setRetryDelay(Duration.ZERO)
+        .build();
+
+    try (var async = provider.createAsyncClient(configuration())) {
+      async.upload(upload, event -> {
+      }).get(10L, TimeUnit.SECONDS);
+      Assertions.assertEquals(List.of(upload), client.uploads);
+
+      final var ex =
+        Assertions.assertThrows(ExecutionException.class, () -> {
+          async.stagingRepositoryDrop(
+            BLStagingRepositoryDrop.builder()
+              .addStagingRepositories("x")
+              .build()
+          ).get(10L, TimeUnit.SECONDS);
+        });
+      Assertions.assertInstanceOf(BLException.class, ex.getCause());
+      Assertions.assertEquals("Drop failed", ex.getCause().getMessage());
+    }
+
+    Assertions.assertTrue(client.closed);
+  }
+
+  /**
+   * The default sink uploads the written content as a single source once
+   * it is finished.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUploadOpenDefault()
+    throws Exception
+  {
+    final var client = new FakeClient();
+    final var sink =
+      client.uploadOpen("r0", "a/x.jar", OptionalLong.of(5L), event -> {
+      });
+
+    try (var output = sink.outputStream()) {
+      output.write("Hel".getBytes());
+      Assertions.assertEquals(List.of(), client.uploads);
+      sink.write(ByteBuffer.wrap("lo".getBytes()));
+    }
+    sink.finish();
+
+    Assertions.assertEquals(1, client.uploads.size());
+    final var upload = client.uploads.get(0);
+    Assertions.assertEquals("r0", upload.repositoryId());
+    Assertions.assertEquals(List.of(), upload.files());
+    Assertions.assertEquals(1, upload.sources().size());
+
+    final var source = upload.sources().get(0);
+    Assertions.assertEquals("a/x.jar", source.path());
+    Assertions.assertEquals(5L, source.size());
+    try (var stream = source.open()) {
+      Assertions.assertEquals("Hello", new String(stream.readAllBytes()));
+    }
+  }
+
+  /**
+   * The default sink rejects content of the wrong size, and abandoned sinks
+   * upload nothing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUploadOpenDefaultSize()
+    throws Exception
+  {
+    final var client = new FakeClient();
+
+    final var large =
+      client.uploadOpen("r0", "x.jar", OptionalLong.of(2L), event -> {
+      });
+    Assertions.assertThrows(IOException.class, () -> {
+      large.write(ByteBuffer.wrap("Hello".getBytes()));
+    });
+
+    final var small =
+      client.uploadOpen("r0", "x.jar", OptionalLong.of(8L), event -> {
+      });
+    small.write(ByteBuffer.wrap("Hello".getBytes()));
+    Assertions.assertThrows(BLException.class, small::finish);
+
+    final var aborted =
+      client.uploadOpen("r0", "x.jar", OptionalLong.empty(), event -> {
+      });
+    aborted.write(ByteBuffer.wrap("Hello".getBytes()));
+    aborted.abort();
+    aborted.close();
+    Assertions.assertThrows(BLException.class, aborted::finish);
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> {
+      client.uploadOpen("r0", "/x.jar", OptionalLong.empty(), event -> {
+      });
+    });
+    Assertions.assertEquals(List.of(), client.uploads);
+  }
+}
@@ -26,8 +26,10 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.BinaryBody;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -172,6 +174,101 @@ public final class BLNexusCommandLineTest
     });
   }
 
+  /**
+   * Uploading with checksums generates missing checksum files.
+   */
+
+  @Test
+  public void testUploadChecksums()
+    throws Exception
+  {
+    MOCK_SERVER.when(
+      HttpRequest.request()
+        .withPath("/service/local/staging/deployByRepositoryId/example-0/.*")
+    ).respond(
+      HttpResponse.response()
+        .withStatusCode(Integer.valueOf(201))
+    );
+
+    final var upload = this.directory.resolve("upload");
+    Files.createDirectories(upload);
+    Files.writeString(upload.resolve("x.jar"), "Hello");
+
+    MainExitless.main(new String[]{
+      "upload",
+      "--user",
+      "user",
+      "--password",
+      "pass",
+      "--stagingProfileId",
+      "88536b02-fb30-4ee3-9831-0c5b290bd913",
+      "--repository",
+      "example-0",
+      "--directory",
+      upload.toString(),
+      "--checksums",
+      "MD5,SHA1",
+      "--baseURI",
+      this.serverAddress.toString()
+    });
+
+    MOCK_SERVER.verify(
+      HttpRequest.request()
+        .withPath("/service/local/staging/deployByRepositoryId/example-0/x.jar.md5")
+        .withBody(BinaryBody.binary(
+          "8b1a9953c4611296a827abf8c47804d7".getBytes())),
+      VerificationTimes.exactly(1)
+    );
+    MOCK_SERVER.verify(
+      HttpRequest.request()
+        .withPath("/service/local/staging/deployByRepositoryId/example-0/x.jar.sha1"),
+      VerificationTimes.exactly(1)
+    );
+    Assertions.assertFalse(
+      Files.exists(this.directory.resolve("upload.brooklime-journal")));
+  }
+
+  /**
+   * Uploading with --resume writes a journal next to the directory.
+   */
+
+  @Test
+  public void testUploadResumeJournal()
+    throws Exception
+  {
+    MOCK_SERVER.when(
+      HttpRequest.request()
+        .withPath("/service/local/staging/deployByRepositoryId/example-0/.*")
+    ).respond(
+      HttpResponse.response()
+        .withStatusCode(Integer.valueOf(201))
+    );
+
+    final var upload = this.directory.resolve("upload");
+    Files.createDirectories(upload);
+    Files.writeString(upload.resolve("x.jar"), "Hello");
+
+    MainExitless.main(new String[]{
+      "upload",
+      "--user",
+      "user",
+      "--password",
+      "pass",
+      "--stagingProfileId",
+      "88536b02-fb30-4ee3-9831-0c5b290bd913",
+      "--repository",
+      "example-0",
+      "--directory",
+      upload.toString(),
+      "--resume",
+      "--baseURI",
+      this.serverAddress.toString()
+    });
+
+    Assertions.assertTrue(
+      Files.isRegularFile(this.directory.resolve("upload.brooklime-journal")));
+  }
+
   /**
    * Closing staging repositories fails if the repository vanishes.
    */
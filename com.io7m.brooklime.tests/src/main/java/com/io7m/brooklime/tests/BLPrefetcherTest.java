@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.vanilla.internal.BLPrefetcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLPrefetcherTest
+{
+  private Path directory;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+  }
+
+  private List<Path> createFiles(
+    final List<byte[]> contents,
+    final int count,
+    final int size)
+    throws IOException
+  {
+    final var random = new Random(0L);
+    final var files = new ArrayList<Path>(count);
+    for (int index = 0; index < count; ++index) {
+      final var data = new byte[size];
+      random.nextBytes(data);
+      final var file = this.directory.resolve("f" + index + ".bin");
+      Files.write(file, data);
+      files.add(file.toAbsolutePath());
+      contents.add(data);
+    }
+    return files;
+  }
+
+  private static byte[] prefixOf(
+    final BLPrefetcher.Prefetched prefetched,
+    final long size,
+    final long modified)
+  {
+    final var buffer = prefetched.prefixIfUnchanged(size, modified);
+    final var octets = new byte[buffer.remaining()];
+    buffer.get(octets);
+    return octets;
+  }
+
+  /**
+   * Files read ahead hold the start of each file, and the memory budget is
+   * never exceeded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchWithinBudget()
+    throws Exception
+  {
+    final var contents = new ArrayList<byte[]>();
+    final var files = this.createFiles(contents, 10, 2500);
+    final var budget = new BLPrefetcher.Budget(3000L);
+
+    try (var prefetcher = new BLPrefetcher(
+      Executors.newFixedThreadPool(3), budget, files, 3)) {
+      for (int index = 0; index < files.size(); ++index) {
+        final var taken = prefetcher.take(index);
+        Assertions.assertTrue(budget.used() <= budget.limit());
+
+        if (index == 0) {
+          Assertions.assertTrue(taken.isEmpty());
+          continue;
+        }
+
+        try (var prefetched = taken.orElseThrow()) {
+          final var file = files.get(index);
+          final var modified =
+            Files.getLastModifiedTime(file).toMillis();
+          final var prefix =
+            prefixOf(prefetched, 2500L, modified);
+
+          /*
+           * Each file may hold up to an equal share of the budget, but may
+           * receive less if the files that precede it have not yet been
+           * released.
+           */
+
+          Assertions.assertTrue(prefix.length <= 1000);
+          Assertions.assertArrayEquals(
+            Arrays.copyOf(contents.get(index), prefix.length), prefix);
+          Assertions.assertEquals(2500L, prefetched.channel().size());
+        }
+      }
+    }
+    Assertions.assertEquals(0L, budget.used());
+  }
+
+  /**
+   * The prefix of a file that has changed since it was read ahead is not
+   * used.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchChanged()
+    throws Exception
+  {
+    final var contents = new ArrayList<byte[]>();
+    final var files = this.createFiles(contents, 2, 100);
+    final var budget = new BLPrefetcher.Budget(1000L);
+
+    try (var prefetcher = new BLPrefetcher(
+      Executors.newFixedThreadPool(1), budget, files, 1)) {
+      prefetcher.take(0);
+
+      try (var prefetched = prefetcher.take(1).orElseThrow()) {
+        final var modified =
+          Files.getLastModifiedTime(files.get(1)).toMillis();
+
+        Assertions.assertEquals(100, prefixOf(prefetched, 100L, modified).length);
+        Assertions.assertEquals(0, prefixOf(prefetched, 99L, modified).length);
+        Assertions.assertEquals(0, prefixOf(prefetched, 100L, modified + 1L).length);
+      }
+    }
+    Assertions.assertEquals(0L, budget.used());
+  }
+}
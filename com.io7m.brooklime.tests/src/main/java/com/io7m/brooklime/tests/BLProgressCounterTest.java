@@ -18,6 +18,7 @@ package com.io7m.brooklime.tests;
 
 import com.io7m.brooklime.api.BLProgressEventType;
 import com.io7m.brooklime.api.BLProgressFileStarted;
+import com.io7m.brooklime.api.BLProgressTotal;
 import com.io7m.brooklime.api.BLProgressUpdate;
 import com.io7m.brooklime.vanilla.internal.BLProgressCounter;
 import org.junit.jupiter.api.Assertions;
@@ -27,8 +28,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class BLProgressCounterTest
 {
@@ -125,6 +134,210 @@ public final class BLProgressCounterTest
     }
   }
 
+  @Test
+  public void testUntracked()
+  {
+    final BLProgressCounter counter =
+      new BLProgressCounter(this.clock, this::logEvent);
+
+    this.clock.setNow(Instant.ofEpochSecond(0L));
+    counter.startFile("file0", 30L, 0, 1, 0, 1);
+    counter.addSizeReceived(10L);
+
+    this.take(BLProgressFileStarted.class);
+    final BLProgressUpdate e = this.take(BLProgressUpdate.class);
+    Assertions.assertEquals(Optional.empty(), e.total());
+  }
+
+  @Test
+  public void testTotals()
+  {
+    this.clock.setNow(Instant.ofEpochSecond(0L));
+
+    final BLProgressCounter counter =
+      new BLProgressCounter(this.clock, this::logEvent);
+    final BLProgressCounter fork =
+      counter.fork();
+
+    counter.plan(2L, 100L);
+
+    counter.fileStarted();
+    counter.startFile("file0", 60L, 0, 2, 0, 2);
+    counter.addSizeReceived(30L);
+    counter.startFile("file0", 60L, 1, 2, 0, 2);
+    counter.setSizeReceived(60L);
+    counter.fileCompleted();
+
+    fork.fileStarted();
+    fork.startFile("file1", 40L, 0, 2, 1, 2);
+    this.clock.setNow(Instant.ofEpochSecond(10L));
+    fork.addSizeReceived(20L);
+
+    final BLProgressUpdate e =
+      (BLProgressUpdate) this.events.get(this.events.size() - 1);
+    final BLProgressTotal t = e.total().orElseThrow();
+    Assertions.assertEquals("file1", e.name());
+    Assertions.assertEquals(80L, t.bytesSent());
+    Assertions.assertEquals(100L, t.bytesMaximum());
+    Assertions.assertEquals(8L, t.bytesPerSecond());
+    Assertions.assertEquals(1L, t.filesCompleted());
+    Assertions.assertEquals(1L, t.filesInFlight());
+    Assertions.assertEquals(2L, t.filesMaximum());
+    Assertions.assertEquals(0.8, t.progress(), 0.001);
+    Assertions.assertEquals(Duration.ofSeconds(2L), t.timeRemaining());
+  }
+
+  @Test
+  public void testTotalsFailed()
+  {
+    final BLProgressCounter counter =
+      new BLProgressCounter(this.clock, this::logEvent);
+
+    counter.plan(1L, 100L);
+    counter.fileStarted();
+    counter.startFile("file0", 100L, 0, 1, 0, 1);
+    counter.addSizeReceived(50L);
+    counter.fileFailed();
+
+    /*
+     * Late statistics for a file that has finished are not accounted.
+     */
+
+    counter.setSizeReceived(70L);
+
+    final BLProgressTotal t = counter.accounting().total().orElseThrow();
+    Assertions.assertEquals(0L, t.bytesSent());
+    Assertions.assertEquals(0L, t.filesCompleted());
+    Assertions.assertEquals(0L, t.filesInFlight());
+  }
+
+  @Test
+  public void testTotalsConcurrent()
+    throws Exception
+  {
+    final int threads = 8;
+    final int files = 100;
+    final long fileSize = 1000L;
+
+    final BLProgressCounter counter =
+      new BLProgressCounter(Clock.systemUTC(), event -> {
+      });
+    counter.plan((long) threads * files, threads * files * fileSize);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final var futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < threads; ++thread) {
+        final var fork = counter.fork();
+        futures.add(executor.submit(() -> {
+          for (int file = 0; file < files; ++file) {
+            fork.fileStarted();
+            fork.startFile("file", fileSize, 0, 2, file, files);
+            fork.addSizeReceived(fileSize / 2L);
+            fork.startFile("file", fileSize, 1, 2, file, files);
+            for (long sent = 0L; sent < fileSize; sent += 10L) {
+              fork.addSizeReceived(10L);
+            }
+            fork.fileCompleted();
+          }
+        }));
+      }
+      for (final var future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    final BLProgressTotal t = counter.accounting().total().orElseThrow();
+    Assertions.assertEquals(threads * files * fileSize, t.bytesSent());
+    Assertions.assertEquals(threads * files, t.filesCompleted());
+    Assertions.assertEquals(0L, t.filesInFlight());
+    Assertions.assertEquals(1.0, t.progress(), 0.001);
+  }
+
+  @Test
+  public void testFileStateConsistent()
+    throws Exception
+  {
+    final int files = 10_000;
+    final var updates = new ArrayList<BLProgressUpdate>();
+    final BLProgressCounter counter =
+      new BLProgressCounter(Clock.systemUTC(), event -> {
+        if (event instanceof BLProgressUpdate update) {
+          updates.add(update);
+        }
+      });
+
+    counter.startFile("file0", 0L, 0, files, 0, files);
+
+    final var done = new AtomicBoolean(false);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final var ticker = executor.submit(() -> {
+        while (!done.get()) {
+          counter.addSizeReceived(0L);
+        }
+      });
+      final var uploader = executor.submit(() -> {
+        for (int file = 1; file < files; ++file) {
+          counter.startFile("file" + file, file, file, files, file, files);
+        }
+        done.set(true);
+      });
+      uploader.get();
+      ticker.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    for (final var update : updates) {
+      final int file = update.fileIndexCurrent() - 1;
+      Assertions.assertEquals("file" + file, update.name());
+      Assertions.assertEquals(file, update.bytesMaximum());
+      Assertions.assertEquals(file, update.attemptCurrent());
+    }
+  }
+
+  @Test
+  public void testOneUpdatePerPeriod()
+    throws Exception
+  {
+    final int threads = 8;
+    final var updates = new AtomicInteger(0);
+    final BLProgressCounter counter =
+      new BLProgressCounter(this.clock, event -> {
+        if (event instanceof BLProgressUpdate) {
+          updates.incrementAndGet();
+        }
+      });
+
+    counter.startFile("file", 1000L, 1, 1, 0, 1);
+
+    final var start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final var futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < threads; ++thread) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int index = 0; index < 100; ++index) {
+            counter.addSizeReceived(1L);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (final var future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    Assertions.assertEquals(1, updates.get());
+  }
+
   private <T extends BLProgressEventType> T take(
     final Class<T> clazz)
   {
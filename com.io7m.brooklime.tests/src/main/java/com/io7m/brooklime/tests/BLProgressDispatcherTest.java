@@ -0,0 +1,331 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLConcurrencyChangeReason;
+import com.io7m.brooklime.api.BLProgressConcurrencyChanged;
+import com.io7m.brooklime.api.BLProgressEventType;
+import com.io7m.brooklime.api.BLProgressFileStarted;
+import com.io7m.brooklime.api.BLProgressUpdate;
+import com.io7m.brooklime.vanilla.internal.BLProgressDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public final class BLProgressDispatcherTest
+{
+  private ExecutorService executor;
+  private CopyOnWriteArrayList<BLProgressEventType> events;
+  private CountDownLatch blocked;
+  private CountDownLatch release;
+
+  private static BLProgressFileStarted started(
+    final String name)
+  {
+    return BLProgressFileStarted.builder()
+      .setName(name)
+      .setAttemptCurrent(1)
+      .setAttemptMaximum(1)
+      .setFileIndexCurrent(1)
+      .setFileIndexMaximum(1)
+      .build();
+  }
+
+  private static BLProgressUpdate update(
+    final String name,
+    final long sent)
+  {
+    return BLProgressUpdate.builder()
+      .setName(name)
+      .setAttemptCurrent(1)
+      .setAttemptMaximum(1)
+      .setFileIndexCurrent(1)
+      .setFileIndexMaximum(1)
+      .setBytesSent(sent)
+      .setBytesMaximum(100L)
+      .setBytesPerSecond(0L)
+      .setProgress(0.0)
+      .setTimeRemaining(Duration.ZERO)
+      .build();
+  }
+
+  /*
+   * The adaptive controller reports a change of concurrency as an upload
+   * finishes.
+   */
+
+  private static BLProgressConcurrencyChanged finished(
+    final String name)
+  {
+    return BLProgressConcurrencyChanged.builder()
+      .setName(name)
+      .setAttemptCurrent(1)
+      .setAttemptMaximum(1)
+      .setFileIndexCurrent(1)
+      .setFileIndexMaximum(1)
+      .setConcurrencyPrevious(1)
+      .setConcurrencyCurrent(2)
+      .setReason(BLConcurrencyChangeReason.THROUGHPUT_INCREASED)
+      .setBytesPerSecond(0L)
+      .build();
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.executor = Executors.newSingleThreadExecutor();
+    this.events = new CopyOnWriteArrayList<>();
+    this.blocked = new CountDownLatch(1);
+    this.release = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.release.countDown();
+    this.executor.shutdown();
+  }
+
+  /*
+   * A receiver that blocks on the first event until released.
+   */
+
+  private void slowReceiver(
+    final BLProgressEventType event)
+  {
+    this.blocked.countDown();
+    try {
+      this.release.await();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.events.add(event);
+  }
+
+  private List<Long> sentOf(
+    final List<BLProgressEventType> received)
+  {
+    return received.stream()
+      .filter(e -> e instanceof BLProgressUpdate)
+      .map(e -> Long.valueOf(((BLProgressUpdate) e).bytesSent()))
+      .toList();
+  }
+
+  @Test
+  public void testDelivered()
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this.events::add, 16);
+
+    dispatcher.onProgressEvent(started("a"));
+    dispatcher.onProgressEvent(update("a", 10L));
+    dispatcher.onProgressEvent(started("b"));
+    dispatcher.close();
+
+    Assertions.assertEquals(3, this.events.size());
+    Assertions.assertEquals(started("a"), this.events.get(0));
+    Assertions.assertEquals(update("a", 10L), this.events.get(1));
+    Assertions.assertEquals(started("b"), this.events.get(2));
+  }
+
+  @Test
+  public void testCoalesced()
+    throws Exception
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this::slowReceiver, 16);
+
+    dispatcher.onProgressEvent(started("a"));
+    Assertions.assertTrue(this.blocked.await(5L, TimeUnit.SECONDS));
+
+    for (long sent = 1L; sent <= 100L; ++sent) {
+      dispatcher.onProgressEvent(update("a", sent));
+      dispatcher.onProgressEvent(update("b", sent));
+    }
+
+    this.release.countDown();
+    dispatcher.close();
+
+    Assertions.assertEquals(3, this.events.size());
+    Assertions.assertEquals(started("a"), this.events.get(0));
+    Assertions.assertEquals(update("a", 100L), this.events.get(1));
+    Assertions.assertEquals(update("b", 100L), this.events.get(2));
+    Assertions.assertEquals(0L, dispatcher.discarded());
+  }
+
+  @Test
+  public void testNotCoalescedAcrossOtherEvents()
+    throws Exception
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this::slowReceiver, 16);
+
+    dispatcher.onProgressEvent(started("x"));
+    Assertions.assertTrue(this.blocked.await(5L, TimeUnit.SECONDS));
+
+    dispatcher.onProgressEvent(update("a", 10L));
+    dispatcher.onProgressEvent(update("a", 20L));
+    dispatcher.onProgressEvent(started("a"));
+    dispatcher.onProgressEvent(update("a", 5L));
+    dispatcher.onProgressEvent(update("a", 6L));
+
+    this.release.countDown();
+    dispatcher.close();
+
+    Assertions.assertEquals(
+      List.of(
+        started("x"),
+        update("a", 20L),
+        started("a"),
+        update("a", 6L)),
+      this.events
+    );
+  }
+
+  @Test
+  public void testBounded()
+    throws Exception
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this::slowReceiver, 4);
+
+    dispatcher.onProgressEvent(update("first", 0L));
+    Assertions.assertTrue(this.blocked.await(5L, TimeUnit.SECONDS));
+
+    for (long index = 0L; index < 10L; ++index) {
+      dispatcher.onProgressEvent(update("file" + index, index));
+    }
+
+    this.release.countDown();
+    dispatcher.close();
+
+    Assertions.assertEquals(6L, dispatcher.discarded());
+    Assertions.assertEquals(
+      List.of(
+        Long.valueOf(0L),
+        Long.valueOf(6L),
+        Long.valueOf(7L),
+        Long.valueOf(8L),
+        Long.valueOf(9L)),
+      this.sentOf(this.events)
+    );
+  }
+
+  @Test
+  public void testUpdatesDiscardedFirst()
+    throws Exception
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this::slowReceiver, 4);
+
+    dispatcher.onProgressEvent(update("first", 0L));
+    Assertions.assertTrue(this.blocked.await(5L, TimeUnit.SECONDS));
+
+    dispatcher.onProgressEvent(started("a"));
+    dispatcher.onProgressEvent(update("a", 1L));
+    dispatcher.onProgressEvent(started("b"));
+    dispatcher.onProgressEvent(update("b", 2L));
+    dispatcher.onProgressEvent(finished("a"));
+    dispatcher.onProgressEvent(finished("b"));
+    dispatcher.onProgressEvent(started("c"));
+
+    this.release.countDown();
+    dispatcher.close();
+
+    Assertions.assertEquals(3L, dispatcher.discarded());
+    Assertions.assertEquals(
+      List.of(
+        update("first", 0L),
+        started("b"),
+        finished("a"),
+        finished("b"),
+        started("c")),
+      this.events
+    );
+  }
+
+  @Test
+  public void testOtherEventsBounded()
+    throws Exception
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this::slowReceiver, 4);
+
+    dispatcher.onProgressEvent(update("first", 0L));
+    Assertions.assertTrue(this.blocked.await(5L, TimeUnit.SECONDS));
+
+    for (long index = 0L; index < 10_000L; ++index) {
+      dispatcher.onProgressEvent(started("file" + index));
+      dispatcher.onProgressEvent(update("file" + index, index));
+      dispatcher.onProgressEvent(finished("file" + index));
+    }
+
+    this.release.countDown();
+    dispatcher.close();
+
+    Assertions.assertEquals(29_996L, dispatcher.discarded());
+    Assertions.assertEquals(5, this.events.size());
+    Assertions.assertEquals(
+      List.of(
+        update("first", 0L),
+        started("file9998"),
+        finished("file9998"),
+        started("file9999"),
+        finished("file9999")),
+      this.events
+    );
+  }
+
+  @Test
+  public void testReceiverFailure()
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, event -> {
+        this.events.add(event);
+        throw new IllegalStateException();
+      }, 16);
+
+    dispatcher.onProgressEvent(started("a"));
+    dispatcher.onProgressEvent(started("b"));
+    dispatcher.close();
+
+    Assertions.assertEquals(2, this.events.size());
+  }
+
+  @Test
+  public void testClosed()
+  {
+    final var dispatcher =
+      new BLProgressDispatcher(this.executor, this.events::add, 16);
+
+    dispatcher.close();
+    dispatcher.onProgressEvent(started("a"));
+    dispatcher.close();
+
+    Assertions.assertEquals(List.of(), this.events);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLRateLimitScope;
+import com.io7m.brooklime.vanilla.internal.BLRateLimiter;
+import com.io7m.brooklime.vanilla.internal.BLTokenBucket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class BLRateLimiterTest
+{
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+  private static BLNexusClientConfiguration configuration(
+    final BLRateLimitScope scope)
+  {
+    return BLNexusClientConfiguration.builder()
+      .setUserName("user")
+      .setPassword("password")
+      .setApplicationVersion(
+        BLApplicationVersion.builder()
+          .setApplicationName("com.io7m.brooklime.tests")
+          .setApplicationVersion("1.0.0")
+          .build())
+      .setStagingProfileId("6bfe53ee-d3ce-438d-a869-d501f01febb1")
+      .setBaseURI(URI.create("http://localhost:20000"))
+      .setRetryDelay(Duration.ofSeconds(1L))
+      .setRetryCount(3)
+      .setUploadBytesPerSecond(1000L)
+      .setUploadRequestsPerSecond(2.0)
+      .setRateLimitScope(scope)
+      .build();
+  }
+
+  /**
+   * The burst is available immediately, and tokens beyond the burst are
+   * available at the configured rate.
+   */
+
+  @Test
+  public void testBucketBurstThenRate()
+  {
+    final var now = new AtomicLong(0L);
+    final var bucket = new BLTokenBucket(100.0, 10.0, now::get);
+
+    Assertions.assertEquals(0L, bucket.reserve(10L));
+    Assertions.assertEquals(SECOND / 10L, bucket.reserve(10L));
+    Assertions.assertEquals(SECOND / 5L, bucket.reserve(10L));
+
+    now.set(SECOND / 5L);
+    Assertions.assertEquals(SECOND / 10L, bucket.reserve(10L));
+  }
+
+  /**
+   * An idle bucket refills only up to the burst.
+   */
+
+  @Test
+  public void testBucketIdleRefillsToBurst()
+  {
+    final var now = new AtomicLong(0L);
+    final var bucket = new BLTokenBucket(100.0, 10.0, now::get);
+
+    now.set(60L * SECOND);
+    Assertions.assertEquals(0L, bucket.reserve(10L));
+    Assertions.assertEquals(SECOND / 10L, bucket.reserve(10L));
+  }
+
+  /**
+   * Reservations larger than the burst wait for the excess.
+   */
+
+  @Test
+  public void testBucketLargeReservation()
+  {
+    final var now = new AtomicLong(0L);
+    final var bucket = new BLTokenBucket(100.0, 10.0, now::get);
+
+    Assertions.assertEquals(SECOND, bucket.reserve(110L));
+  }
+
+  /**
+   * An unlimited limiter never waits.
+   */
+
+  @Test
+  public void testUnlimited()
+  {
+    final var limiter =
+      BLRateLimiter.create(OptionalLong.empty(), OptionalDouble.empty());
+
+    Assertions.assertSame(BLRateLimiter.UNLIMITED, limiter);
+    Assertions.assertFalse(limiter.limitsBytes());
+    Assertions.assertEquals(1024, limiter.chunkSize(1024));
+    for (int index = 0; index < 1000; ++index) {
+      Assertions.assertEquals(0L, limiter.reserveBytes(1_000_000L));
+      Assertions.assertEquals(0L, limiter.reserveRequest());
+    }
+  }
+
+  /**
+   * Requests beyond the first must wait.
+   */
+
+  @Test
+  public void testRequests()
+  {
+    final var limiter =
+      BLRateLimiter.create(OptionalLong.empty(), OptionalDouble.of(1.0));
+
+    Assertions.assertFalse(limiter.limitsBytes());
+    Assertions.assertEquals(0L, limiter.reserveRequest());
+    Assertions.assertTrue(limiter.reserveRequest() > 0L);
+  }
+
+  /**
+   * Limiters are shared by clients with the same limits only if the JVM
+   * scope is requested.
+   */
+
+  @Test
+  public void testScope()
+  {
+    final var client0 =
+      BLRateLimiter.forConfiguration(configuration(BLRateLimitScope.CLIENT));
+    final var client1 =
+      BLRateLimiter.forConfiguration(configuration(BLRateLimitScope.CLIENT));
+    final var jvm0 =
+      BLRateLimiter.forConfiguration(configuration(BLRateLimitScope.JVM));
+    final var jvm1 =
+      BLRateLimiter.forConfiguration(configuration(BLRateLimitScope.JVM));
+
+    Assertions.assertNotSame(client0, client1);
+    Assertions.assertNotSame(client0, jvm0);
+    Assertions.assertSame(jvm0, jvm1);
+    Assertions.assertTrue(jvm0.limitsBytes());
+    Assertions.assertEquals(8192, jvm0.chunkSize(1024 * 1024));
+  }
+
+  /**
+   * Limits must be positive.
+   */
+
+  @Test
+  public void testNonPositiveLimits()
+  {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> {
+      BLNexusClientConfiguration.builder()
+        .from(configuration(BLRateLimitScope.CLIENT))
+        .setUploadBytesPerSecond(0L)
+        .build();
+    });
+    Assertions.assertThrows(IllegalArgumentException.class, () -> {
+      BLNexusClientConfiguration.builder()
+        .from(configuration(BLRateLimitScope.CLIENT))
+        .setUploadRequestsPerSecond(-1.0)
+        .build();
+    });
+  }
+}
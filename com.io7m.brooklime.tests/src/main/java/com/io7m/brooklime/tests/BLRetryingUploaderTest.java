@@ -17,12 +17,15 @@
 package com.io7m.brooklime.tests;
 
 import com.io7m.brooklime.api.BLApplicationVersion;
+import com.io7m.brooklime.api.BLException;
 import com.io7m.brooklime.api.BLHTTPFailureException;
 import com.io7m.brooklime.api.BLNexusClientConfiguration;
 import com.io7m.brooklime.api.BLProgressEventType;
+import com.io7m.brooklime.api.BLUploadSourceType;
 import com.io7m.brooklime.vanilla.internal.BLNexusParsers;
 import com.io7m.brooklime.vanilla.internal.BLProgressCounter;
 import com.io7m.brooklime.vanilla.internal.BLRetryingUploader;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -30,6 +33,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.BinaryBody;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.verify.VerificationTimes;
@@ -37,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -47,8 +52,12 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
 
@@ -69,6 +78,7 @@ public final class BLRetryingUploaderTest
   private BLProgressCounter progressCounter;
   private Path helloFile;
   private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
 
   @BeforeAll
   public static void startServer()
@@ -90,6 +100,8 @@ public final class BLRetryingUploaderTest
 
     this.executor =
       Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
 
     this.directory = createTempDirectory();
     this.parsers = new BLNexusParsers();
@@ -138,6 +150,7 @@ public final class BLRetryingUploaderTest
   @AfterEach
   public void tearDown()
   {
+    this.ticker.close();
     this.executor.shutdown();
   }
 
@@ -151,10 +164,9 @@ public final class BLRetryingUploaderTest
   {
     final BLRetryingUploader uploader =
       new BLRetryingUploader(
-        this.executor,
+        this.ticker,
         this.client,
         this.serverAddress,
-        this.serverAddress,
         this.helloFile,
         1,
         1,
@@ -200,10 +212,9 @@ public final class BLRetryingUploaderTest
   {
     final BLRetryingUploader uploader =
       new BLRetryingUploader(
-        this.executor,
+        this.ticker,
         this.client,
         this.serverAddress,
-        this.serverAddress,
         this.helloFile,
         1,
         1,
@@ -252,10 +263,9 @@ public final class BLRetryingUploaderTest
   {
     final BLRetryingUploader uploader =
       new BLRetryingUploader(
-        this.executor,
+        this.ticker,
         this.client,
         this.serverAddress,
-        this.serverAddress,
         this.helloFile,
         1,
         1,
@@ -304,10 +314,9 @@ public final class BLRetryingUploaderTest
   {
     final BLRetryingUploader uploader =
       new BLRetryingUploader(
-        this.executor,
+        this.ticker,
         this.client,
         this.serverAddress,
-        this.serverAddress,
         this.helloFile,
         1,
         1,
@@ -333,6 +342,215 @@ public final class BLRetryingUploaderTest
       VerificationTimes.exactly(3));
   }
 
+  /*
+   * The uploader does not wait for the retry delay after the final attempt.
+   */
+
+  @Test
+  public void testUploadFailMaximumNoFinalDelay()
+    throws Exception
+  {
+    final BLRetryingUploader uploader =
+      new BLRetryingUploader(
+        this.ticker,
+        this.client,
+        this.serverAddress,
+        this.helloFile,
+        1,
+        1,
+        Duration.ofSeconds(30L),
+        1,
+        this.progressCounter
+      );
+
+    MOCK_SERVER.when(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT")
+    ).respond(
+      HttpResponse.response().withStatusCode(Integer.valueOf(500))
+    );
+
+    Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10L), () -> {
+      Assertions.assertThrows(BLHTTPFailureException.class, uploader::execute);
+
+      final var ex =
+        Assertions.assertThrows(
+          ExecutionException.class,
+          () -> uploader.executeAsync().get());
+      Assertions.assertInstanceOf(BLHTTPFailureException.class, ex.getCause());
+    });
+
+    MOCK_SERVER.verify(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT"),
+      VerificationTimes.exactly(2));
+  }
+
+  /*
+   * Interrupting the uploader while it waits to retry aborts the upload and
+   * leaves the thread interrupted.
+   */
+
+  @Test
+  public void testUploadInterruptedRetry()
+    throws Exception
+  {
+    final BLRetryingUploader uploader =
+      new BLRetryingUploader(
+        this.ticker,
+        this.client,
+        this.serverAddress,
+        this.helloFile,
+        1,
+        1,
+        Duration.ofSeconds(30L),
+        3,
+        this.progressCounter
+      );
+
+    MOCK_SERVER.when(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT")
+    ).respond(
+      HttpResponse.response().withStatusCode(Integer.valueOf(500))
+    );
+
+    final var failure = new AtomicReference<Exception>();
+    final var interrupted = new AtomicBoolean(false);
+    final var thread = new Thread(() -> {
+      try {
+        uploader.execute();
+      } catch (final Exception e) {
+        failure.set(e);
+      }
+      interrupted.set(Thread.currentThread().isInterrupted());
+    });
+    thread.start();
+
+    while (MOCK_SERVER.retrieveRecordedRequests(
+      HttpRequest.request().withMethod("PUT")).length == 0) {
+      Thread.sleep(10L);
+    }
+    thread.interrupt();
+    thread.join(10_000L);
+
+    Assertions.assertFalse(thread.isAlive());
+    Assertions.assertInstanceOf(BLException.class, failure.get());
+    Assertions.assertInstanceOf(
+      InterruptedException.class, failure.get().getCause());
+    Assertions.assertTrue(interrupted.get());
+
+    MOCK_SERVER.verify(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT"),
+      VerificationTimes.exactly(1));
+  }
+
+  /*
+   * Uploads declare the exact content length rather than being chunked.
+   */
+
+  @Test
+  public void testUploadContentLength()
+    throws Exception
+  {
+    final BLRetryingUploader uploader =
+      new BLRetryingUploader(
+        this.ticker,
+        this.client,
+        this.serverAddress,
+        this.helloFile,
+        1,
+        1,
+        Duration.of(100L, ChronoUnit.MILLIS),
+        10,
+        this.progressCounter
+      );
+
+    MOCK_SERVER.when(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT")
+    ).respond(
+      HttpResponse.response()
+        .withStatusCode(Integer.valueOf(200))
+    );
+
+    uploader.execute();
+
+    MOCK_SERVER.verify(
+      HttpRequest.request()
+        .withPath("/")
+        .withMethod("PUT")
+        .withHeader("Content-Length", "6")
+        .withBody(BinaryBody.binary("Hello.".getBytes())),
+      VerificationTimes.exactly(1)
+    );
+  }
+
+  /*
+   * Invalid arguments fail the upload without being retried.
+   */
+
+  @Test
+  public void testUploadInvalidNotRetried()
+    throws Exception
+  {
+    final var sizes = new AtomicInteger(0);
+    final var source = new BLUploadSourceType()
+    {
+      @Override
+      public String path()
+      {
+        return "file.txt";
+      }
+
+      @Override
+      public long size()
+      {
+        sizes.incrementAndGet();
+        throw new IllegalArgumentException("Invalid");
+      }
+
+      @Override
+      public InputStream open()
+      {
+        throw new IllegalStateException();
+      }
+    };
+
+    final BLRetryingUploader uploader =
+      BLRetryingUploader.forSource(
+        this.ticker,
+        this.client,
+        this.serverAddress,
+        this.helloFile,
+        source,
+        1,
+        1,
+        Duration.of(100L, ChronoUnit.MILLIS),
+        3,
+        this.progressCounter
+      );
+
+    final var ex =
+      Assertions.assertThrows(BLException.class, uploader::execute);
+    Assertions.assertInstanceOf(
+      IllegalArgumentException.class, ex.getCause());
+    Assertions.assertEquals(1, sizes.get());
+
+    final var exAsync =
+      Assertions.assertThrows(
+        ExecutionException.class,
+        () -> uploader.executeAsync().get());
+    Assertions.assertInstanceOf(BLException.class, exAsync.getCause());
+    Assertions.assertEquals(2, sizes.get());
+  }
+
   private <T extends BLProgressEventType> T take(
     final Class<T> clazz)
   {
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.vanilla.internal.BLUploadJournal;
+import com.io7m.brooklime.vanilla.internal.BLUploadJournalEntry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLUploadJournalTest
+{
+  private Path directory;
+  private Path file;
+
+  @BeforeEach
+  public void testSetup()
+    throws IOException
+  {
+    this.directory = createTempDirectory();
+    this.file = this.directory.resolve("journal");
+  }
+
+  private static BLUploadJournalEntry entry(
+    final String repository,
+    final String path,
+    final long size)
+  {
+    return new BLUploadJournalEntry(repository, path, size, 1000L, "ab01");
+  }
+
+  /**
+   * Entries survive reopening the journal, and only entries for the requested
+   * repository are returned.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRoundTrip()
+    throws Exception
+  {
+    try (var journal = BLUploadJournal.open(this.file)) {
+      journal.record(entry("repo-a", "a/b/c.jar", 23L));
+      journal.record(entry("repo-b", "a/b/c.jar", 24L));
+      journal.record(entry("repo-a", "x\ty\\z\nw", 25L));
+      Assertions.assertEquals(
+        Optional.of(entry("repo-b", "a/b/c.jar", 24L)),
+        journal.find("repo-b", "a/b/c.jar"));
+    }
+
+    final var entries = BLUploadJournal.read(this.file, "repo-a");
+    Assertions.assertEquals(2, entries.size());
+    Assertions.assertEquals(
+      entry("repo-a", "a/b/c.jar", 23L), entries.get("a/b/c.jar"));
+    Assertions.assertEquals(
+      entry("repo-a", "x\ty\\z\nw", 25L), entries.get("x\ty\\z\nw"));
+
+    try (var journal = BLUploadJournal.open(this.file)) {
+      Assertions.assertEquals(
+        Optional.of(entry("repo-a", "a/b/c.jar", 23L)),
+        journal.find("repo-a", "a/b/c.jar"));
+    }
+  }
+
+  /**
+   * The most recent entry for a file wins.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLastEntryWins()
+    throws Exception
+  {
+    try (var journal = BLUploadJournal.open(this.file)) {
+      journal.record(entry("repo-a", "a.jar", 23L));
+      journal.record(entry("repo-a", "a.jar", 100L));
+    }
+
+    final var entries = BLUploadJournal.read(this.file, "repo-a");
+    Assertions.assertEquals(100L, entries.get("a.jar").size());
+  }
+
+  /**
+   * A partially written final line is ignored, and appending to the journal
+   * afterwards produces a readable entry.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPartialLineIgnored()
+    throws Exception
+  {
+    try (var journal = BLUploadJournal.open(this.file)) {
+      journal.record(entry("repo-a", "a.jar", 23L));
+    }
+
+    Files.writeString(
+      this.file,
+      "repo-a\t24\t1000\tab01\ta.jar.a",
+      StandardCharsets.UTF_8,
+      StandardOpenOption.APPEND);
+
+    Assertions.assertEquals(
+      1, BLUploadJournal.read(this.file, "repo-a").size());
+
+    try (var journal = BLUploadJournal.open(this.file)) {
+      journal.record(entry("repo-a", "b.jar", 25L));
+    }
+
+    final var entries = BLUploadJournal.read(this.file, "repo-a");
+    Assertions.assertEquals(2, entries.size());
+    Assertions.assertEquals(23L, entries.get("a.jar").size());
+    Assertions.assertEquals(25L, entries.get("b.jar").size());
+  }
+
+  /**
+   * A journal that does not exist is empty.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMissingIsEmpty()
+    throws Exception
+  {
+    Assertions.assertEquals(
+      0, BLUploadJournal.read(this.file, "repo-a").size());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.tests;
+
+import com.io7m.brooklime.api.BLUploadSources;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static com.io7m.brooklime.tests.BLTestDirectories.createTempDirectory;
+
+public final class BLUploadSourcesTest
+{
+  /**
+   * Byte sources copy their data and can be opened repeatedly.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testBytes()
+    throws IOException
+  {
+    final var data = "Hello".getBytes();
+    final var source = BLUploadSources.ofBytes("a/b.txt", data);
+    data[0] = 'J';
+
+    Assertions.assertEquals("a/b.txt", source.path());
+    Assertions.assertEquals(5L, source.size());
+    for (int index = 0; index < 3; ++index) {
+      try (var stream = source.open()) {
+        Assertions.assertEquals("Hello", new String(stream.readAllBytes()));
+      }
+    }
+  }
+
+  /**
+   * Buffer sources supply the remaining octets of the buffer, without
+   * changing the buffer, and can be opened repeatedly.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testByteBuffer()
+    throws IOException
+  {
+    final var buffer = ByteBuffer.allocateDirect(16);
+    buffer.put("xxHelloyy".getBytes());
+    buffer.position(2);
+    buffer.limit(7);
+
+    final var source = BLUploadSources.ofByteBuffer("a/b.txt", buffer);
+    Assertions.assertEquals(5L, source.size());
+    for (int index = 0; index < 3; ++index) {
+      try (var stream = source.open()) {
+        Assertions.assertEquals('H', stream.read());
+        Assertions.assertEquals("ello", new String(stream.readAllBytes()));
+        Assertions.assertEquals(-1, stream.read());
+      }
+    }
+
+    Assertions.assertEquals(2, buffer.position());
+    Assertions.assertEquals(7, buffer.limit());
+  }
+
+  /**
+   * File sources read the file anew each time they are opened.
+   *
+   * @throws IOException On errors
+   */
+
+  @Test
+  public void testFile()
+    throws IOException
+  {
+    final var file = createTempDirectory().resolve("file.txt");
+    Files.writeString(file, "Hello");
+
+    final var source = BLUploadSources.ofFile("a/b.txt", file);
+    Assertions.assertEquals(5L, source.size());
+    try (var stream = source.open()) {
+      Assertions.assertEquals("Hello", new String(stream.readAllBytes()));
+    }
+
+    Files.writeString(file, "Goodbye");
+    Assertions.assertEquals(7L, source.size());
+    try (var stream = source.open()) {
+      Assertions.assertEquals("Goodbye", new String(stream.readAllBytes()));
+    }
+  }
+
+  /**
+   * Source paths must be relative file paths.
+   */
+
+  @Test
+  public void testPathsInvalid()
+  {
+    for (final var path : new String[]{"", "/a/b.txt", "a/"}) {
+      Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> BLUploadSources.ofBytes(path, new byte[0]));
+    }
+  }
+}
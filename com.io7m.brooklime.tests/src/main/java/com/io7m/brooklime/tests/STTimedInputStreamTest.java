@@ -18,6 +18,7 @@
 package com.io7m.brooklime.tests;
 
 
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
 import com.io7m.brooklime.vanilla.internal.streamtime.STTimedInputStream;
 import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
 import org.junit.jupiter.api.AfterEach;
@@ -27,10 +28,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.OptionalLong;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import static com.io7m.brooklime.tests.STTimedOutputStreamTest.verifyStats;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -42,17 +45,21 @@ public final class STTimedInputStreamTest
     LoggerFactory.getLogger(STTimedInputStreamTest.class);
 
   private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
 
   @BeforeEach
   public void setup()
   {
     this.executor =
       Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
   }
 
   @AfterEach
   public void tearDown()
   {
+    this.ticker.close();
     this.executor.shutdown();
   }
 
@@ -67,7 +74,7 @@ public final class STTimedInputStreamTest
 
     final var buffer = new byte[10];
     try (var input =
-           new STTimedInputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedInputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         assertEquals(10, input.read(buffer));
         Thread.sleep(1_000L);
@@ -89,7 +96,7 @@ public final class STTimedInputStreamTest
 
     final var buffer = new byte[10];
     try (var input =
-           new STTimedInputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedInputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         for (int k = 0; k < 10; ++k) {
           input.read();
@@ -113,7 +120,7 @@ public final class STTimedInputStreamTest
 
     final var buffer = new byte[10];
     try (var input =
-           new STTimedInputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedInputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         assertEquals(10, input.read(buffer, 0, 10));
         Thread.sleep(1_000L);
@@ -135,7 +142,7 @@ public final class STTimedInputStreamTest
 
     final var buffer = new byte[10];
     try (var input =
-           new STTimedInputStream(this.executor, stats::add, bao)) {
+           new STTimedInputStream(this.ticker, stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         assertEquals(10, input.read(buffer, 0, 10));
         Thread.sleep(1_000L);
@@ -145,4 +152,84 @@ public final class STTimedInputStreamTest
 
     verifyStats(stats);
   }
+
+  @Test
+  public void testClosedNotSampled()
+    throws Exception
+  {
+    final var stats =
+      new LinkedBlockingQueue<STTransferStatistics>();
+    final var bao =
+      new ByteArrayInputStream(new byte[5 * 10]);
+
+    final var buffer = new byte[10];
+    try (var input =
+           new STTimedInputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
+      assertEquals(10, input.read(buffer));
+    }
+
+    final var closedCount = stats.size();
+    Thread.sleep(2_500L);
+    assertEquals(closedCount, stats.size());
+  }
+
+  @Test
+  public void testSharedTicker()
+    throws Exception
+  {
+    final var scheduler = new ScheduledThreadPoolExecutor(1);
+    scheduler.setRemoveOnCancelPolicy(true);
+
+    try (var shared = new STStatisticsTicker(scheduler)) {
+      final var stats =
+        new LinkedBlockingQueue<STTransferStatistics>();
+      final var inputs =
+        new ArrayList<STTimedInputStream>();
+
+      for (int index = 0; index < 100; ++index) {
+        inputs.add(new STTimedInputStream(
+          shared, stats::add, new ByteArrayInputStream(new byte[10])));
+      }
+      assertEquals(100, shared.size());
+      assertEquals(1, scheduler.getQueue().size());
+
+      for (final var input : inputs) {
+        input.close();
+      }
+      assertEquals(0, shared.size());
+      assertEquals(0, scheduler.getQueue().size());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void testTickerClosed()
+    throws Exception
+  {
+    final var scheduler = new ScheduledThreadPoolExecutor(1);
+    scheduler.setRemoveOnCancelPolicy(true);
+
+    try {
+      final var stats =
+        new LinkedBlockingQueue<STTransferStatistics>();
+      final var shared =
+        new STStatisticsTicker(scheduler);
+
+      final var input =
+        new STTimedInputStream(
+          shared, stats::add, new ByteArrayInputStream(new byte[10]));
+      assertEquals(1, shared.size());
+      assertEquals(1, scheduler.getQueue().size());
+
+      shared.close();
+      assertEquals(0, shared.size());
+      assertEquals(0, scheduler.getQueue().size());
+
+      input.close();
+      assertEquals(0, scheduler.getQueue().size());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
 }
@@ -18,6 +18,7 @@
 package com.io7m.brooklime.tests;
 
 
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
 import com.io7m.brooklime.vanilla.internal.streamtime.STTimedOutputStream;
 import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
 import org.junit.jupiter.api.AfterEach;
@@ -42,17 +43,21 @@ public final class STTimedOutputStreamTest
     LoggerFactory.getLogger(STTimedOutputStreamTest.class);
 
   private ScheduledExecutorService executor;
+  private STStatisticsTicker ticker;
 
   @BeforeEach
   public void setup()
   {
     this.executor =
       Executors.newScheduledThreadPool(1);
+    this.ticker =
+      new STStatisticsTicker(this.executor);
   }
 
   @AfterEach
   public void tearDown()
   {
+    this.ticker.close();
     this.executor.shutdown();
   }
 
@@ -67,7 +72,7 @@ public final class STTimedOutputStreamTest
 
     final var buffer = new byte[10];
     try (var output =
-           new STTimedOutputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedOutputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         output.write(buffer);
         Thread.sleep(1_000L);
@@ -121,7 +126,7 @@ public final class STTimedOutputStreamTest
 
     final var buffer = new byte[10];
     try (var output =
-           new STTimedOutputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedOutputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         output.write(buffer, 0, buffer.length);
         Thread.sleep(1_000L);
@@ -142,7 +147,7 @@ public final class STTimedOutputStreamTest
 
     final var buffer = new byte[10];
     try (var output =
-           new STTimedOutputStream(this.executor, OptionalLong.of(50L), stats::add, bao)) {
+           new STTimedOutputStream(this.ticker, OptionalLong.of(50L), stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         for (int k = 0; k < 10; ++k) {
           output.write(0);
@@ -164,7 +169,7 @@ public final class STTimedOutputStreamTest
       new ByteArrayOutputStream();
 
     final var buffer = new byte[10];
-    try (var output = new STTimedOutputStream(this.executor, stats::add, bao)) {
+    try (var output = new STTimedOutputStream(this.ticker, stats::add, bao)) {
       for (int index = 0; index < 5; ++index) {
         output.write(buffer, 0, buffer.length);
         Thread.sleep(1_000L);
@@ -173,4 +178,37 @@ public final class STTimedOutputStreamTest
 
     verifyStats(stats);
   }
+
+  @Test
+  public void testPeriodsSumToTotal()
+    throws Exception
+  {
+    final var stats =
+      new LinkedBlockingQueue<STTransferStatistics>();
+    final var bao =
+      new ByteArrayOutputStream();
+
+    final var deadline = System.nanoTime() + 2_500_000_000L;
+    try (var output = new STTimedOutputStream(this.ticker, stats::add, bao)) {
+      while (System.nanoTime() < deadline) {
+        for (int index = 0; index < 1000; ++index) {
+          output.write(0);
+        }
+        Thread.sleep(1L);
+      }
+    }
+
+    final var statsCopy = List.copyOf(stats);
+    assertTrue(statsCopy.size() >= 3);
+
+    final var sum =
+      statsCopy.stream()
+        .mapToDouble(STTransferStatistics::octetsPerSecond)
+        .sum();
+    final var last =
+      statsCopy.get(statsCopy.size() - 1);
+
+    assertEquals((double) last.sizeTransferred(), sum);
+    assertTrue(last.sizeTransferred() <= bao.size());
+  }
 }
@@ -18,21 +18,26 @@ package com.io7m.brooklime.vanilla;
 
 import com.io7m.brooklime.api.BLApplicationVersion;
 import com.io7m.brooklime.api.BLApplicationVersions;
+import com.io7m.brooklime.api.BLNexusAsyncClientType;
 import com.io7m.brooklime.api.BLNexusClientConfiguration;
 import com.io7m.brooklime.api.BLNexusClientProviderType;
 import com.io7m.brooklime.api.BLNexusClientType;
+import com.io7m.brooklime.vanilla.internal.BLExecutors;
+import com.io7m.brooklime.vanilla.internal.BLHTTPClients;
+import com.io7m.brooklime.vanilla.internal.BLNexusAsyncClient;
 import com.io7m.brooklime.vanilla.internal.BLNexusClient;
 import com.io7m.brooklime.vanilla.internal.BLNexusParsers;
 import com.io7m.brooklime.vanilla.internal.BLNexusRequests;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
 
 import java.io.IOException;
-import java.net.Authenticator;
-import java.net.CookieManager;
-import java.net.PasswordAuthentication;
 import java.net.http.HttpClient;
 import java.time.Clock;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * The default provider of Nexus clients.
@@ -83,69 +88,90 @@ public final class BLNexusClients implements BLNexusClientProviderType
     );
   }
 
-  private static final class BasicAuthenticator
-    extends Authenticator
+  private record Components(
+    ScheduledExecutorService executor,
+    ExecutorService progressExecutor,
+    Optional<ExecutorService> httpExecutor,
+    HttpClient httpClient,
+    BLNexusRequests requests)
   {
-    private final String username;
-    private final char[] password;
-
-    BasicAuthenticator(
-      final String inUsername,
-      final char[] inPassword)
-    {
-      this.username =
-        Objects.requireNonNull(inUsername, "username");
-      this.password =
-        Objects.requireNonNull(inPassword, "password");
-    }
-
 
-    @Override
-    protected PasswordAuthentication getPasswordAuthentication()
-    {
-      return new PasswordAuthentication(
-        this.username,
-        this.password
-      );
-    }
   }
 
-  @Override
-  public BLNexusClientType createClient(
+  private static Components createComponents(
     final BLNexusClientConfiguration configuration)
   {
-    Objects.requireNonNull(configuration, "configuration");
-
+    final var mode =
+      configuration.executionMode();
     final var executor =
-      Executors.newScheduledThreadPool(1, r -> {
-        final var thread = new Thread(r);
-        thread.setName("com.io7m.brooklime.statistics-" + thread.getId());
-        thread.setDaemon(true);
-        return thread;
-      });
-
-    final var basicAuthenticator =
-      new BasicAuthenticator(
-        configuration.userName(),
-        configuration.password().toCharArray()
-      );
+      BLExecutors.createStatisticsExecutor(mode);
+    final var progressExecutor =
+      BLExecutors.createProgressExecutor(mode);
+
+    /*
+     * An executor supplied by the caller belongs to the caller, and so is
+     * not handed to the client to be shut down.
+     */
+
+    final Optional<ExecutorService> httpExecutor;
+    if (configuration.httpExecutor().isPresent()) {
+      httpExecutor = Optional.empty();
+    } else {
+      httpExecutor = BLExecutors.createHTTPExecutor(mode);
+    }
 
     final var httpClient =
-      HttpClient.newBuilder()
-        .authenticator(basicAuthenticator)
-        .cookieHandler(new CookieManager())
-        .followRedirects(HttpClient.Redirect.NORMAL)
-        .build();
+      BLHTTPClients.create(
+        configuration,
+        configuration.httpExecutor()
+          .or(() -> httpExecutor.map(Executor.class::cast))
+      );
 
     final var parsers =
       new BLNexusParsers();
     final var requests =
-      new BLNexusRequests(executor, httpClient, parsers, configuration);
+      new BLNexusRequests(
+        executor,
+        new STStatisticsTicker(executor),
+        httpClient,
+        parsers,
+        configuration
+      );
 
+    return new Components(
+      executor, progressExecutor, httpExecutor, httpClient, requests);
+  }
+
+  @Override
+  public BLNexusClientType createClient(
+    final BLNexusClientConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var components = createComponents(configuration);
     return new BLNexusClient(
-      executor,
-      httpClient,
-      requests,
+      components.executor(),
+      components.progressExecutor(),
+      components.httpExecutor(),
+      components.httpClient(),
+      components.requests(),
+      Clock.systemUTC()
+    );
+  }
+
+  @Override
+  public BLNexusAsyncClientType createAsyncClient(
+    final BLNexusClientConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var components = createComponents(configuration);
+    return new BLNexusAsyncClient(
+      components.executor(),
+      components.progressExecutor(),
+      components.httpExecutor(),
+      components.httpClient(),
+      components.requests(),
       Clock.systemUTC()
     );
   }
@@ -0,0 +1,383 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLConcurrencyChangeReason;
+import com.io7m.brooklime.api.BLHTTPErrorException;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.LATENCY_SPIKE;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.SERVER_ERROR;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.THROTTLED;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.THROUGHPUT_INCREASED;
+import static com.io7m.brooklime.api.BLConcurrencyChangeReason.TIMEOUT;
+
+/**
+ * An additive-increase/multiplicative-decrease (AIMD) controller for the
+ * number of concurrent uploads.
+ *
+ * The controller hands out permits to upload tasks, and never has more than
+ * {@link #limit()} permits outstanding. The limit starts at {@code 1}. The
+ * per-second samples produced by the statistics trackers of the file
+ * uploads are summed, and once per period ({@link #tick()}) the aggregate
+ * throughput is examined: if all permits were in use and the throughput
+ * grew since the limit was last raised, the limit is raised by one. The
+ * limit is halved when the server responds with HTTP 429 or 5xx errors, when
+ * a request times out, or when the latency of a small upload is far higher
+ * than the recent average; after a decrease, further decreases are ignored
+ * until the next period so that a burst of failures from the same episode of
+ * congestion only counts once. Every change is reported to the progress
+ * receiver along with its reason.
+ */
+
+public final class BLAdaptiveConcurrency
+  implements BLRetryingUploader.AttemptObserverType, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLAdaptiveConcurrency.class);
+
+  private static final double GROWTH_THRESHOLD = 1.05;
+  private static final double LATENCY_SPIKE_FACTOR = 3.0;
+  private static final double LATENCY_WEIGHT = 0.2;
+  private static final int LATENCY_SAMPLES_MINIMUM = 8;
+  private static final long LATENCY_SIZE_MAXIMUM = 1_048_576L;
+
+  private final int maximum;
+  private final ArrayDeque<CompletableFuture<Void>> waiters;
+  private BLProgressCounter counterLast;
+  private ScheduledFuture<?> ticker;
+  private int limit;
+  private int inFlight;
+  private boolean saturated;
+  private boolean decreasedThisPeriod;
+  private long bytesPeriod;
+  private long bytesPerSecond;
+  private long throughputAtIncrease;
+  private double latencyAverage;
+  private int latencySamples;
+
+  /**
+   * An AIMD controller for the number of concurrent uploads.
+   *
+   * @param inCounter The progress counter to which changes are reported
+   * @param inMaximum The maximum number of concurrent uploads
+   */
+
+  public BLAdaptiveConcurrency(
+    final BLProgressCounter inCounter,
+    final int inMaximum)
+  {
+    Objects.requireNonNull(inCounter, "counter");
+
+    if (inMaximum < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Maximum concurrency must be at least 1 (received %d)",
+        Integer.valueOf(inMaximum)));
+    }
+
+    this.maximum = inMaximum;
+    this.counterLast = inCounter;
+    this.waiters = new ArrayDeque<>();
+    this.limit = 1;
+  }
+
+  /**
+   * Start evaluating throughput once per second on the given executor.
+   *
+   * @param executor The executor
+   *
+   * @return this
+   */
+
+  public BLAdaptiveConcurrency start(
+    final ScheduledExecutorService executor)
+  {
+    Objects.requireNonNull(executor, "executor");
+
+    synchronized (this) {
+      if (this.ticker == null) {
+        this.ticker = executor.scheduleAtFixedRate(
+          this::tick, 1L, 1L, TimeUnit.SECONDS);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return The current maximum number of concurrent uploads
+   */
+
+  public synchronized int limit()
+  {
+    return this.limit;
+  }
+
+  /**
+   * Acquire a permit to start an upload. The returned future completes when
+   * fewer than {@link #limit()} permits are outstanding.
+   *
+   * @return A future that completes when the permit is granted
+   */
+
+  public synchronized CompletableFuture<Void> acquire()
+  {
+    if (this.inFlight < this.limit) {
+      this.acquired();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final var waiter = new CompletableFuture<Void>();
+    this.waiters.add(waiter);
+    return waiter;
+  }
+
+  /**
+   * Release a permit acquired with {@link #acquire()}.
+   */
+
+  public void release()
+  {
+    final List<CompletableFuture<Void>> granted;
+    synchronized (this) {
+      --this.inFlight;
+      granted = this.grant();
+    }
+    complete(granted);
+  }
+
+  private void acquired()
+  {
+    ++this.inFlight;
+    if (this.inFlight >= this.limit) {
+      this.saturated = true;
+    }
+  }
+
+  private List<CompletableFuture<Void>> grant()
+  {
+    final var granted = new ArrayList<CompletableFuture<Void>>();
+    while (this.inFlight < this.limit && !this.waiters.isEmpty()) {
+      this.acquired();
+      granted.add(this.waiters.poll());
+    }
+    return granted;
+  }
+
+  private static void complete(
+    final List<CompletableFuture<Void>> granted)
+  {
+    for (final var waiter : granted) {
+      waiter.complete(null);
+    }
+  }
+
+  @Override
+  public synchronized void onStatistics(
+    final STTransferStatistics statistics)
+  {
+    this.bytesPeriod += Math.round(statistics.octetsPerSecond());
+  }
+
+  @Override
+  public void onAttemptSucceeded(
+    final BLProgressCounter attemptCounter,
+    final long size,
+    final Duration time)
+  {
+    Objects.requireNonNull(attemptCounter, "attemptCounter");
+    Objects.requireNonNull(time, "time");
+
+    if (size > LATENCY_SIZE_MAXIMUM) {
+      synchronized (this) {
+        this.counterLast = attemptCounter;
+      }
+      return;
+    }
+
+    final boolean spike;
+    synchronized (this) {
+      this.counterLast = attemptCounter;
+
+      final double latency = (double) time.toNanos();
+      spike = this.latencySamples >= LATENCY_SAMPLES_MINIMUM
+        && latency > this.latencyAverage * LATENCY_SPIKE_FACTOR;
+
+      if (this.latencySamples == 0) {
+        this.latencyAverage = latency;
+      } else {
+        this.latencyAverage =
+          (this.latencyAverage * (1.0 - LATENCY_WEIGHT))
+            + (latency * LATENCY_WEIGHT);
+      }
+      ++this.latencySamples;
+    }
+
+    if (spike) {
+      this.decrease(attemptCounter, LATENCY_SPIKE);
+    }
+  }
+
+  @Override
+  public void onAttemptFailed(
+    final BLProgressCounter attemptCounter,
+    final Throwable exception)
+  {
+    Objects.requireNonNull(attemptCounter, "attemptCounter");
+    Objects.requireNonNull(exception, "exception");
+
+    synchronized (this) {
+      this.counterLast = attemptCounter;
+    }
+
+    final var reason = reasonOf(exception);
+    if (reason.isPresent()) {
+      this.decrease(attemptCounter, reason.get());
+    }
+  }
+
+  /**
+   * Determine whether the given failure indicates congestion.
+   *
+   * @param exception The failure
+   *
+   * @return The reason to decrease concurrency, if any
+   */
+
+  public static Optional<BLConcurrencyChangeReason> reasonOf(
+    final Throwable exception)
+  {
+    final var cause = BLNexusRequests.unwrapCompletion(exception);
+    if (cause instanceof BLHTTPErrorException httpError) {
+      final int status = httpError.statusCode();
+      if (status == 429) {
+        return Optional.of(THROTTLED);
+      }
+      if (status >= 500) {
+        return Optional.of(SERVER_ERROR);
+      }
+      return Optional.empty();
+    }
+    if (cause instanceof HttpTimeoutException) {
+      return Optional.of(TIMEOUT);
+    }
+    return Optional.empty();
+  }
+
+  private void decrease(
+    final BLProgressCounter attemptCounter,
+    final BLConcurrencyChangeReason reason)
+  {
+    final int previous;
+    final int current;
+    final long throughput;
+    synchronized (this) {
+      if (this.decreasedThisPeriod || this.limit == 1) {
+        return;
+      }
+
+      previous = this.limit;
+      current = Math.max(1, previous / 2);
+      this.limit = current;
+      this.decreasedThisPeriod = true;
+      this.throughputAtIncrease = 0L;
+      throughput = this.bytesPerSecond;
+    }
+
+    LOG.debug("concurrency {} -> {} ({})",
+              Integer.valueOf(previous),
+              Integer.valueOf(current),
+              reason);
+    attemptCounter.concurrencyChanged(previous, current, reason, throughput);
+  }
+
+  /**
+   * Evaluate the throughput observed since the last period, and raise the
+   * limit if appropriate. This is called once per second after
+   * {@link #start(ScheduledExecutorService)}.
+   */
+
+  public void tick()
+  {
+    final int previous;
+    final int current;
+    final long throughput;
+    final BLProgressCounter reportTo;
+    final List<CompletableFuture<Void>> granted;
+
+    synchronized (this) {
+      throughput = this.bytesPeriod;
+      this.bytesPeriod = 0L;
+      this.bytesPerSecond = throughput;
+
+      final boolean grew =
+        throughput > 0L
+          && throughput >= this.throughputAtIncrease * GROWTH_THRESHOLD;
+      final boolean raise =
+        this.saturated
+          && !this.decreasedThisPeriod
+          && grew
+          && this.limit < this.maximum;
+
+      this.decreasedThisPeriod = false;
+      this.saturated = this.inFlight >= this.limit;
+      if (!raise) {
+        return;
+      }
+
+      previous = this.limit;
+      current = previous + 1;
+      this.limit = current;
+      this.throughputAtIncrease = throughput;
+      reportTo = this.counterLast;
+      granted = this.grant();
+    }
+
+    complete(granted);
+    LOG.debug("concurrency {} -> {} ({})",
+              Integer.valueOf(previous),
+              Integer.valueOf(current),
+              THROUGHPUT_INCREASED);
+    reportTo.concurrencyChanged(
+      previous, current, THROUGHPUT_INCREASED, throughput);
+  }
+
+  @Override
+  public void close()
+  {
+    synchronized (this) {
+      if (this.ticker != null) {
+        this.ticker.cancel(false);
+        this.ticker = null;
+      }
+    }
+  }
+}
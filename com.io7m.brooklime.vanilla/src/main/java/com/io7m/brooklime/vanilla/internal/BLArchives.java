@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The zip archives (such as jar files) from which files are uploaded. Each
+ * archive is opened as a zip file system on first use, and the entries of
+ * the archive are then read directly from the archive without extracting
+ * them. Archives remain open until they are closed, because the planned
+ * files of an upload refer to the open file system.
+ */
+
+public final class BLArchives implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLArchives.class);
+
+  private final Map<Path, FileSystem> open;
+
+  /**
+   * The zip archives from which files are uploaded.
+   */
+
+  public BLArchives()
+  {
+    this.open = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Determine the directory from which files are uploaded for the given
+   * base. If the base is a regular file, it is opened as a zip archive and
+   * the root directory of the archive is returned. Otherwise, the base is
+   * returned unchanged.
+   *
+   * @param base The base directory or archive
+   *
+   * @return The directory from which files are uploaded
+   *
+   * @throws IOException If the base is a file that is not a zip archive
+   */
+
+  public Path directoryOf(
+    final Path base)
+    throws IOException
+  {
+    Objects.requireNonNull(base, "base");
+
+    if (!Files.isRegularFile(base)) {
+      return base;
+    }
+
+    final var absolute = base.toAbsolutePath().normalize();
+    try {
+      return this.open.computeIfAbsent(absolute, BLArchives::openArchive)
+        .getRootDirectories()
+        .iterator()
+        .next();
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static FileSystem openArchive(
+    final Path file)
+  {
+    LOG.debug("open archive {}", file);
+    try {
+      return FileSystems.newFileSystem(file, (ClassLoader) null);
+    } catch (final ProviderNotFoundException e) {
+      throw new UncheckedIOException(
+        new IOException(
+          String.format(
+            "%s is neither a directory nor a zip archive", file), e));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    for (final var archive : this.open.values()) {
+      try {
+        archive.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close archive: ", e);
+      }
+    }
+    this.open.clear();
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A stream that produces a zip archive of a list of files on demand. Each
+ * call to {@code read} compresses only as much of the next file as is needed
+ * to satisfy the call, so the archive is never held in memory or written to
+ * disk. Digests of each file are computed as the file is read, and the
+ * requested checksum files are added to the archive after each file.
+ */
+
+public final class BLBundleInputStream extends InputStream
+{
+  private static final int CHUNK_SIZE = 65536;
+
+  private final Path base;
+  private final List<Path> files;
+  private final List<Set<BLChecksumAlgorithm>> required;
+  private final List<Set<BLChecksumAlgorithm>> sidecars;
+  private final BLProgressCounter counter;
+  private final int attempt;
+  private final int attemptMaximum;
+  private final Buffer buffer;
+  private final ZipOutputStream zip;
+  private final byte[] chunk;
+  private final List<BLUploadedFile> results;
+  private int bufferPosition;
+  private int fileIndex;
+  private InputStream fileStream;
+  private Map<BLChecksumAlgorithm, MessageDigest> fileDigests;
+  private BasicFileAttributes fileAttributes;
+  private long fileSent;
+  private boolean finished;
+  private long bytesAccounted;
+  private int filesAccounted;
+  private boolean settled;
+
+  /**
+   * A stream that produces a zip archive of a list of files on demand.
+   *
+   * @param inBase           The base directory of the files
+   * @param inFiles          The files, relative to the base directory
+   * @param inRequired       The digests to compute for each file
+   * @param inSidecars       The checksum files to add for each file
+   * @param inCounter        The progress counter
+   * @param inAttempt        The attempt number
+   * @param inAttemptMaximum The maximum number of attempts
+   */
+
+  public BLBundleInputStream(
+    final Path inBase,
+    final List<Path> inFiles,
+    final List<Set<BLChecksumAlgorithm>> inRequired,
+    final List<Set<BLChecksumAlgorithm>> inSidecars,
+    final BLProgressCounter inCounter,
+    final int inAttempt,
+    final int inAttemptMaximum)
+  {
+    this.base =
+      Objects.requireNonNull(inBase, "base");
+    this.files =
+      List.copyOf(Objects.requireNonNull(inFiles, "files"));
+    this.required =
+      List.copyOf(Objects.requireNonNull(inRequired, "required"));
+    this.sidecars =
+      List.copyOf(Objects.requireNonNull(inSidecars, "sidecars"));
+    this.counter =
+      Objects.requireNonNull(inCounter, "counter");
+    this.attempt = inAttempt;
+    this.attemptMaximum = inAttemptMaximum;
+
+    this.buffer = new Buffer();
+    this.zip = new ZipOutputStream(this.buffer);
+    this.chunk = new byte[CHUNK_SIZE];
+    this.results = new ArrayList<>(this.files.size());
+  }
+
+  private static final class Buffer extends ByteArrayOutputStream
+  {
+    Buffer()
+    {
+      super(CHUNK_SIZE * 2);
+    }
+
+    byte[] bytes()
+    {
+      return this.buf;
+    }
+  }
+
+  /**
+   * @return The uploaded files, once the stream has been read completely
+   */
+
+  public List<BLUploadedFile> results()
+  {
+    return List.copyOf(this.results);
+  }
+
+  /**
+   * Settle the aggregate accounting of the archive once the server has
+   * responded. The files sent in the archive are only completed when the
+   * server accepts the archive; otherwise, the octets sent are retracted so
+   * that they can be counted again by the next attempt. Octets read after
+   * the stream is settled are not counted.
+   *
+   * @param accepted {@code true} if the server accepted the archive
+   */
+
+  public synchronized void settle(
+    final boolean accepted)
+  {
+    if (this.settled) {
+      return;
+    }
+    this.settled = true;
+
+    final var accounting = this.counter.accounting();
+    if (!accepted) {
+      accounting.addBytes(-this.bytesAccounted);
+    }
+    for (int index = 0; index < this.filesAccounted; ++index) {
+      if (accepted) {
+        accounting.fileCompleted();
+      } else {
+        accounting.fileFailed();
+      }
+    }
+  }
+
+  private synchronized void accountFile()
+  {
+    if (!this.settled) {
+      this.counter.accounting().fileStarted();
+      ++this.filesAccounted;
+    }
+  }
+
+  private synchronized void accountBytes(
+    final int count)
+  {
+    if (!this.settled) {
+      this.counter.accounting().addBytes(count);
+      this.bytesAccounted += count;
+    }
+  }
+
+  @Override
+  public int read()
+    throws IOException
+  {
+    final byte[] single = new byte[1];
+    final int r = this.read(single, 0, 1);
+    return r == -1 ? -1 : Byte.toUnsignedInt(single[0]);
+  }
+
+  @Override
+  public int read(
+    final byte[] data,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    if (length == 0) {
+      return 0;
+    }
+
+    while (this.bufferPosition == this.buffer.size()) {
+      this.buffer.reset();
+      this.bufferPosition = 0;
+      if (!this.fill()) {
+        return -1;
+      }
+    }
+
+    final int available = this.buffer.size() - this.bufferPosition;
+    final int count = Math.min(available, length);
+    System.arraycopy(
+      this.buffer.bytes(), this.bufferPosition, data, offset, count);
+    this.bufferPosition += count;
+    return count;
+  }
+
+  /**
+   * Feed the next piece of input into the zip stream.
+   *
+   * @return {@code false} if the archive is complete
+   */
+
+  private boolean fill()
+    throws IOException
+  {
+    if (this.fileStream != null) {
+      final int r = this.fileStream.read(this.chunk);
+      if (r > 0) {
+        this.zip.write(this.chunk, 0, r);
+        for (final var digest : this.fileDigests.values()) {
+          digest.update(this.chunk, 0, r);
+        }
+        this.fileSent += r;
+        this.accountBytes(r);
+        this.counter.setSizeReceived(this.fileSent);
+      } else {
+        this.finishFile();
+      }
+      return true;
+    }
+
+    if (this.fileIndex < this.files.size()) {
+      this.startFile();
+      return true;
+    }
+
+    if (!this.finished) {
+      this.zip.finish();
+      this.finished = true;
+      return true;
+    }
+    return false;
+  }
+
+  private void startFile()
+    throws IOException
+  {
+    final var file = this.files.get(this.fileIndex);
+    final var actual = this.base.resolve(file).toAbsolutePath();
+
+    this.fileAttributes =
+      Files.readAttributes(actual, BasicFileAttributes.class);
+    this.fileDigests =
+      BLDigests.createAll(this.required.get(this.fileIndex));
+    this.fileSent = 0L;
+    this.fileStream = Files.newInputStream(actual);
+
+    this.counter.startFile(
+      actual.toString(),
+      this.fileAttributes.size(),
+      this.attempt,
+      this.attemptMaximum,
+      this.fileIndex,
+      this.files.size()
+    );
+    this.accountFile();
+
+    final var entry =
+      new ZipEntry(BLNexusRequests.translateFileToURIPath(file));
+    entry.setLastModifiedTime(this.fileAttributes.lastModifiedTime());
+    this.zip.putNextEntry(entry);
+  }
+
+  private void finishFile()
+    throws IOException
+  {
+    this.fileStream.close();
+    this.fileStream = null;
+    this.zip.closeEntry();
+
+    final var file = this.files.get(this.fileIndex);
+    final var digests = BLDigests.finish(this.fileDigests);
+    for (final var algorithm : this.sidecars.get(this.fileIndex)) {
+      final var entry = new ZipEntry(
+        BLNexusRequests.translateFileToURIPath(
+          BLUploadChecksums.checksumFileOf(file, algorithm)));
+      entry.setLastModifiedTime(this.fileAttributes.lastModifiedTime());
+      this.zip.putNextEntry(entry);
+      this.zip.write(digests.get(algorithm).getBytes(StandardCharsets.US_ASCII));
+      this.zip.closeEntry();
+    }
+
+    this.results.add(new BLUploadedFile(
+      this.base.resolve(file).toAbsolutePath(),
+      this.fileSent,
+      this.fileAttributes.lastModifiedTime().toMillis(),
+      digests
+    ));
+    ++this.fileIndex;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.fileStream != null) {
+      this.fileStream.close();
+      this.fileStream = null;
+    }
+  }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLErrorLogging;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLHTTPErrorException;
+import com.io7m.brooklime.api.BLHTTPFailureException;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * An uploader that streams all of the files of an upload to the Nexus
+ * staging bundle upload endpoint as a single zip archive, retrying on
+ * failure. The archive is built on the fly as the request body is sent;
+ * each attempt builds the archive again from the files.
+ *
+ * @see BLBundleInputStream
+ */
+
+public final class BLBundleUploader
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLBundleUploader.class);
+
+  private final ScheduledExecutorService executor;
+  private final HttpClient client;
+  private final URI targetURI;
+  private final BLStagingRepositoryUpload upload;
+  private final List<Set<BLChecksumAlgorithm>> required;
+  private final List<Set<BLChecksumAlgorithm>> sidecars;
+  private final BLProgressCounter counter;
+  private final BLNexusParsers parsers;
+  private final String boundary;
+  private final AtomicReference<BLBundleInputStream> bundle;
+  private BLRateLimiter limiter;
+  private Optional<Duration> requestTimeout;
+
+  /**
+   * An uploader that streams files to the bundle upload endpoint.
+   *
+   * @param inExecutor  A scheduled executor for retries
+   * @param inClient    The HTTP client
+   * @param inTargetURI The bundle upload URI
+   * @param inUpload    The upload
+   * @param inRequired  The digests to compute for each file
+   * @param inSidecars  The checksum files to add for each file
+   * @param inCounter   The progress counter
+   */
+
+  public BLBundleUploader(
+    final ScheduledExecutorService inExecutor,
+    final HttpClient inClient,
+    final URI inTargetURI,
+    final BLStagingRepositoryUpload inUpload,
+    final List<Set<BLChecksumAlgorithm>> inRequired,
+    final List<Set<BLChecksumAlgorithm>> inSidecars,
+    final BLProgressCounter inCounter)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.client =
+      Objects.requireNonNull(inClient, "client");
+    this.targetURI =
+      Objects.requireNonNull(inTargetURI, "targetURI");
+    this.upload =
+      Objects.requireNonNull(inUpload, "upload");
+    this.required =
+      Objects.requireNonNull(inRequired, "required");
+    this.sidecars =
+      Objects.requireNonNull(inSidecars, "sidecars");
+    this.counter =
+      Objects.requireNonNull(inCounter, "counter");
+    this.parsers =
+      new BLNexusParsers();
+    this.boundary =
+      "brooklime-" + UUID.randomUUID();
+    this.bundle =
+      new AtomicReference<>();
+    this.limiter =
+      BLRateLimiter.UNLIMITED;
+    this.requestTimeout =
+      Optional.empty();
+  }
+
+  /**
+   * Set the rate limiter that governs each attempt. Every attempt reserves a
+   * request from the limiter before it is sent, and the archive is streamed
+   * no faster than the limiter's bandwidth allows.
+   *
+   * @param inLimiter The rate limiter
+   *
+   * @return this
+   */
+
+  public BLBundleUploader setRateLimiter(
+    final BLRateLimiter inLimiter)
+  {
+    this.limiter = Objects.requireNonNull(inLimiter, "limiter");
+    return this;
+  }
+
+  /**
+   * Set the timeout applied to each attempt. As the whole archive is sent
+   * in a single request, the timeout must allow for sending every file.
+   *
+   * @param inTimeout The request timeout, if any
+   *
+   * @return this
+   */
+
+  public BLBundleUploader setRequestTimeout(
+    final Optional<Duration> inTimeout)
+  {
+    this.requestTimeout = Objects.requireNonNull(inTimeout, "timeout");
+    return this;
+  }
+
+  private HttpRequest createRequest(
+    final int attempt)
+  {
+    final var header =
+      ("--%s\r\n"
+        + "Content-Disposition: form-data; name=\"file\"; filename=\"bundle.zip\"\r\n"
+        + "Content-Type: application/zip\r\n"
+        + "\r\n").formatted(this.boundary);
+    final var trailer =
+      "\r\n--%s--\r\n".formatted(this.boundary);
+
+    final var body =
+      HttpRequest.BodyPublishers.ofInputStream(() -> {
+        final var stream = new BLBundleInputStream(
+          this.upload.baseDirectory(),
+          this.upload.files(),
+          this.required,
+          this.sidecars,
+          this.counter,
+          attempt + 1,
+          this.upload.retryCount()
+        );
+        final var previous = this.bundle.getAndSet(stream);
+        if (previous != null) {
+          previous.settle(false);
+        }
+        final var sequence = new SequenceInputStream(
+          new SequenceInputStream(asStream(header), stream),
+          asStream(trailer)
+        );
+        if (this.limiter.limitsBytes()) {
+          return new BLRateLimitedInputStream(sequence, this.limiter);
+        }
+        return sequence;
+      });
+
+    final var builder =
+      HttpRequest.newBuilder(this.targetURI)
+        .POST(body)
+        .header(
+          "Content-Type",
+          "multipart/form-data; boundary=%s".formatted(this.boundary));
+
+    this.requestTimeout.ifPresent(builder::timeout);
+    return builder.build();
+  }
+
+  private static InputStream asStream(
+    final String text)
+  {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private List<BLUploadedFile> checkResponse(
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    if (status >= 400) {
+      LOG.error(
+        "{}: {}",
+        this.targetURI,
+        Integer.valueOf(status)
+      );
+
+      final var errors =
+        this.parsers.parseErrorsIfPresent(contentType, this.targetURI, body);
+
+      BLErrorLogging.logErrors(LOG, errors);
+      throw new BLHTTPErrorException(
+        status, "Error: %d".formatted(Integer.valueOf(status)), errors);
+    }
+
+    final var stream = this.bundle.get();
+    final var results =
+      stream == null ? List.<BLUploadedFile>of() : stream.results();
+    if (results.size() != this.upload.files().size()) {
+      throw new BLHTTPFailureException(
+        "The server accepted the bundle before all files were sent");
+    }
+
+    LOG.info("bundle of {} files uploaded", Integer.valueOf(results.size()));
+    return results;
+  }
+
+  private void settle(
+    final List<BLUploadedFile> results)
+  {
+    final var stream = this.bundle.get();
+    if (stream != null) {
+      stream.settle(!results.isEmpty());
+    }
+  }
+
+  /*
+   * The events of a bundle upload name the bundle endpoint rather than a
+   * file, and count the octets of the files that the server accepted.
+   */
+
+  private void recordAttempt(
+    final BLUploadAttemptEvent event,
+    final int attempt,
+    final int status,
+    final List<BLUploadedFile> results)
+  {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRepositoryId(this.upload.repositoryId());
+      event.setUri(this.targetURI.toString());
+      event.setAttempt(attempt + 1);
+      event.setAttemptMaximum(this.upload.retryCount());
+      event.setBytes(
+        results.stream().mapToLong(BLUploadedFile::size).sum());
+      event.setStatus(status);
+      event.setSucceeded(!results.isEmpty());
+      event.commit();
+    }
+  }
+
+  private BLRetryWaitEvent beginRetryWait()
+  {
+    final var event = new BLRetryWaitEvent();
+    event.begin();
+    return event;
+  }
+
+  private void recordRetryWait(
+    final BLRetryWaitEvent event,
+    final int attempt)
+  {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRepositoryId(this.upload.repositoryId());
+      event.setAttempt(attempt + 1);
+      event.commit();
+    }
+  }
+
+  private BLHTTPFailureException failedAllAttempts()
+  {
+    return new BLHTTPFailureException(
+      String.format(
+        "Failed to upload bundle after %d attempts",
+        Integer.valueOf(this.upload.retryCount()))
+    );
+  }
+
+  /**
+   * Execute the upload.
+   *
+   * @return The uploaded files
+   *
+   * @throws BLException On errors
+   */
+
+  public List<BLUploadedFile> execute()
+    throws BLException
+  {
+    for (int attempt = 0; attempt < this.upload.retryCount(); ++attempt) {
+      try {
+        BLRateLimiter.await(this.limiter.reserveRequest());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BLException("Interrupted while uploading bundle", e);
+      }
+
+      final var event = new BLUploadAttemptEvent();
+      event.begin();
+
+      int status = 0;
+      List<BLUploadedFile> results = List.of();
+      try {
+        final var response =
+          this.client.send(
+            this.createRequest(attempt),
+            HttpResponse.BodyHandlers.ofInputStream()
+          );
+
+        status = response.statusCode();
+        try (var body = response.body()) {
+          results = this.checkResponse(
+            status,
+            BLNexusRequests.contentTypeOf(response),
+            body
+          );
+          return results;
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BLException("Interrupted while uploading bundle", e);
+      } catch (final Exception e) {
+        LOG.error("Upload error: ", e);
+      } finally {
+        this.settle(results);
+        this.recordAttempt(event, attempt, status, results);
+      }
+
+      if (attempt + 1 < this.upload.retryCount()) {
+        this.sleepBeforeRetry(attempt);
+      }
+    }
+
+    throw this.failedAllAttempts();
+  }
+
+  private void sleepBeforeRetry(
+    final int attempt)
+    throws BLException
+  {
+    final var wait = this.beginRetryWait();
+    try {
+      LOG.info("Sleeping for {} before retrying", this.upload.retryDelay());
+      Thread.sleep(this.upload.retryDelay().toMillis());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BLException("Interrupted while waiting to retry bundle", e);
+    } finally {
+      this.recordRetryWait(wait, attempt);
+    }
+  }
+
+  /**
+   * Execute the upload without blocking. Retries are scheduled after the
+   * retry delay rather than sleeping.
+   *
+   * @return The upload in progress
+   */
+
+  public CompletableFuture<List<BLUploadedFile>> executeAsync()
+  {
+    return this.attemptAsync(0);
+  }
+
+  private CompletableFuture<List<BLUploadedFile>> attemptAsync(
+    final int attempt)
+  {
+    if (attempt >= this.upload.retryCount()) {
+      return CompletableFuture.failedFuture(this.failedAllAttempts());
+    }
+
+    final long delay = this.limiter.reserveRequest();
+    final CompletableFuture<Void> admitted;
+    if (delay == 0L) {
+      admitted = CompletableFuture.completedFuture(null);
+    } else {
+      admitted = CompletableFuture.runAsync(
+        () -> { },
+        CompletableFuture.delayedExecutor(
+          delay, TimeUnit.NANOSECONDS, this.executor)
+      );
+    }
+
+    final var event = new BLUploadAttemptEvent();
+    return admitted.thenCompose(ignored -> {
+        event.begin();
+        return this.client.sendAsync(
+          this.createRequest(attempt),
+          HttpResponse.BodyHandlers.ofByteArray()
+        );
+      }).handle((response, exception) -> {
+        if (exception != null) {
+          LOG.error(
+            "Upload error: ", BLNexusRequests.unwrapCompletion(exception));
+          this.settle(List.of());
+          this.recordAttempt(event, attempt, 0, List.of());
+        } else {
+          try {
+            final var results =
+              this.checkResponse(
+                response.statusCode(),
+                BLNexusRequests.contentTypeOf(response),
+                new ByteArrayInputStream(response.body())
+              );
+            this.settle(results);
+            this.recordAttempt(
+              event, attempt, response.statusCode(), results);
+            return CompletableFuture.completedFuture(results);
+          } catch (final BLException e) {
+            LOG.error("Upload error: ", e);
+            this.settle(List.of());
+            this.recordAttempt(
+              event, attempt, response.statusCode(), List.of());
+          }
+        }
+
+        if (attempt + 1 >= this.upload.retryCount()) {
+          return CompletableFuture.<List<BLUploadedFile>>failedFuture(
+            this.failedAllAttempts());
+        }
+
+        LOG.info("Scheduling retry after {}", this.upload.retryDelay());
+        final var wait = this.beginRetryWait();
+        final var delayed =
+          CompletableFuture.delayedExecutor(
+            this.upload.retryDelay().toMillis(),
+            TimeUnit.MILLISECONDS,
+            this.executor
+          );
+
+        return CompletableFuture.supplyAsync(
+            () -> {
+              this.recordRetryWait(wait, attempt);
+              return Integer.valueOf(attempt + 1);
+            }, delayed)
+          .thenCompose(next -> this.attemptAsync(next.intValue()));
+      }).thenCompose(Function.identity());
+  }
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An uploader that executes a bounded number of upload tasks concurrently.
+ *
+ * Tasks are started in index order. When a task fails, no further tasks are
+ * started, but tasks that are already running are allowed to complete. Once
+ * all running tasks have completed, the failure of the task with the lowest
+ * index is raised; this is the same failure that would have been raised if
+ * the tasks had been executed sequentially, regardless of how the concurrent
+ * tasks happened to be scheduled.
+ *
+ * Tasks may also be taken from a source of task indices that becomes
+ * available incrementally, such as the files found by a directory scan that
+ * is still in progress.
+ *
+ * If an adaptive concurrency controller is supplied, the configured
+ * parallelism is an upper bound, and each task additionally holds a permit
+ * from the controller while it executes. A permit is only requested once a
+ * task has been taken from the source, so workers waiting for tasks to
+ * become available do not hold permits.
+ */
+
+public final class BLConcurrentUploader
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLConcurrentUploader.class);
+
+  private final BLExecutionMode mode;
+  private final int parallelism;
+  private final Optional<BLAdaptiveConcurrency> concurrency;
+
+  /**
+   * An uploader that executes a bounded number of upload tasks concurrently
+   * on platform threads.
+   *
+   * @param inParallelism The maximum number of tasks that may execute at once
+   */
+
+  public BLConcurrentUploader(
+    final int inParallelism)
+  {
+    this(BLExecutionMode.PLATFORM_THREADS, inParallelism);
+  }
+
+  /**
+   * An uploader that executes a bounded number of upload tasks concurrently.
+   *
+   * @param inMode        The execution mode
+   * @param inParallelism The maximum number of tasks that may execute at once
+   */
+
+  public BLConcurrentUploader(
+    final BLExecutionMode inMode,
+    final int inParallelism)
+  {
+    this(inMode, inParallelism, Optional.empty());
+  }
+
+  /**
+   * An uploader that executes a bounded number of upload tasks concurrently,
+   * optionally limited further by an adaptive concurrency controller.
+   *
+   * @param inMode        The execution mode
+   * @param inParallelism The maximum number of tasks that may execute at once
+   * @param inConcurrency The adaptive concurrency controller, if any
+   */
+
+  public BLConcurrentUploader(
+    final BLExecutionMode inMode,
+    final int inParallelism,
+    final Optional<BLAdaptiveConcurrency> inConcurrency)
+  {
+    this.mode = Objects.requireNonNull(inMode, "mode");
+    this.concurrency = Objects.requireNonNull(inConcurrency, "concurrency");
+    if (inParallelism < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Parallelism must be at least 1 (received %d)",
+        Integer.valueOf(inParallelism)));
+    }
+    this.parallelism = inParallelism;
+  }
+
+  /**
+   * A single upload task.
+   */
+
+  public interface TaskType
+  {
+    /**
+     * Execute the task with the given index.
+     *
+     * @param counter The progress counter for the current worker
+     * @param index   The task index
+     *
+     * @throws BLException On errors
+     */
+
+    void execute(
+      BLProgressCounter counter,
+      int index)
+      throws BLException;
+  }
+
+  /**
+   * A single upload task that does not block.
+   */
+
+  public interface AsyncTaskType
+  {
+    /**
+     * Start the task with the given index.
+     *
+     * @param counter The progress counter for the current chain of tasks
+     * @param index   The task index
+     *
+     * @return The task in progress
+     */
+
+    CompletableFuture<Void> execute(
+      BLProgressCounter counter,
+      int index);
+  }
+
+  /**
+   * A source of task indices.
+   */
+
+  public interface TaskSourceType
+  {
+    /**
+     * Take the index of the next task, waiting until one is available.
+     *
+     * @return The index of the next task, or {@code -1} if there are no more
+     * tasks
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+
+    int next()
+      throws InterruptedException;
+  }
+
+  private static final class CountedSource implements TaskSourceType
+  {
+    private final int taskCount;
+    private final AtomicInteger taskNext;
+
+    CountedSource(
+      final int inTaskCount)
+    {
+      this.taskCount = inTaskCount;
+      this.taskNext = new AtomicInteger(0);
+    }
+
+    @Override
+    public int next()
+    {
+      final int index = this.taskNext.getAndIncrement();
+      return index < this.taskCount ? index : -1;
+    }
+  }
+
+  /**
+   * Execute {@code taskCount} tasks. Each concurrent worker receives its own
+   * fork of the given progress counter.
+   *
+   * @param counter   The progress counter
+   * @param taskCount The number of tasks
+   * @param task      The task
+   *
+   * @throws BLException On errors
+   * @see BLProgressCounter#fork()
+   */
+
+  public void execute(
+    final BLProgressCounter counter,
+    final int taskCount,
+    final TaskType task)
+    throws BLException
+  {
+    Objects.requireNonNull(counter, "counter");
+    Objects.requireNonNull(task, "task");
+
+    final int workers = Math.min(this.parallelism, taskCount);
+    if (workers <= 1) {
+      for (int index = 0; index < taskCount; ++index) {
+        task.execute(counter, index);
+      }
+      return;
+    }
+
+    LOG.debug(
+      "executing {} uploads with {} workers ({})",
+      Integer.valueOf(taskCount),
+      Integer.valueOf(workers),
+      this.mode);
+
+    this.executeWorkers(counter, workers, new CountedSource(taskCount), task);
+  }
+
+  /**
+   * Execute a task for each index taken from the given source, until the
+   * source is exhausted. Up to the configured parallelism of tasks execute
+   * concurrently, and each concurrent worker receives its own fork of the
+   * given progress counter. Failures are reported in the same manner as
+   * {@link #execute(BLProgressCounter, int, TaskType)}, with indices
+   * ordered as they were taken from the source.
+   *
+   * @param counter The progress counter
+   * @param source  The source of task indices
+   * @param task    The task
+   *
+   * @throws BLException On errors
+   */
+
+  public void executeStreaming(
+    final BLProgressCounter counter,
+    final TaskSourceType source,
+    final TaskType task)
+    throws BLException
+  {
+    Objects.requireNonNull(counter, "counter");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(task, "task");
+
+    LOG.debug(
+      "executing streamed uploads with {} workers ({})",
+      Integer.valueOf(this.parallelism),
+      this.mode);
+
+    this.executeWorkers(counter, this.parallelism, source, task);
+  }
+
+  private void executeWorkers(
+    final BLProgressCounter counter,
+    final int workers,
+    final TaskSourceType source,
+    final TaskType task)
+    throws BLException
+  {
+    final var state = new State(source, this.concurrency);
+    final var executor =
+      BLExecutors.createUploadExecutor(this.mode, workers);
+    try {
+      final var futures = new ArrayList<Future<?>>(workers);
+      for (int worker = 0; worker < workers; ++worker) {
+        final var workerCounter = counter.fork();
+        futures.add(executor.submit(() -> state.run(task, workerCounter)));
+      }
+
+      for (final var future : futures) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          throw new BLException(e.getCause());
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+      throw new BLException("Interrupted while waiting for uploads", e);
+    } finally {
+      executor.shutdown();
+    }
+
+    state.raiseFirstFailure();
+  }
+
+  /**
+   * Execute {@code taskCount} tasks without blocking. No threads are created;
+   * instead, up to the configured parallelism of chains of tasks are kept in
+   * progress, with each chain starting the next unclaimed task when its
+   * current task completes. Each chain receives its own fork of the given
+   * progress counter. Failures are reported in the same manner as
+   * {@link #execute(BLProgressCounter, int, TaskType)}.
+   *
+   * @param counter   The progress counter
+   * @param taskCount The number of tasks
+   * @param task      The task
+   *
+   * @return The tasks in progress
+   */
+
+  public CompletableFuture<Void> executeAsync(
+    final BLProgressCounter counter,
+    final int taskCount,
+    final AsyncTaskType task)
+  {
+    Objects.requireNonNull(counter, "counter");
+    Objects.requireNonNull(task, "task");
+
+    final int chains = Math.max(1, Math.min(this.parallelism, taskCount));
+    final var state =
+      new State(new CountedSource(taskCount), this.concurrency);
+    final var futures = new CompletableFuture<?>[chains];
+    for (int chain = 0; chain < chains; ++chain) {
+      final var done = new CompletableFuture<Void>();
+      state.runAsync(task, counter.fork(), done);
+      futures[chain] = done;
+    }
+
+    return CompletableFuture.allOf(futures)
+      .thenRun(() -> {
+        try {
+          state.raiseFirstFailure();
+        } catch (final BLException e) {
+          throw new CompletionException(e);
+        }
+      });
+  }
+
+  private static final class State
+  {
+    private final TaskSourceType source;
+    private final AtomicBoolean failed;
+    private final ConcurrentSkipListMap<Integer, BLException> failures;
+    private final Optional<BLAdaptiveConcurrency> concurrency;
+
+    State(
+      final TaskSourceType inSource,
+      final Optional<BLAdaptiveConcurrency> inConcurrency)
+    {
+      this.source = inSource;
+      this.concurrency = inConcurrency;
+      this.failed = new AtomicBoolean(false);
+      this.failures = new ConcurrentSkipListMap<>();
+    }
+
+    void run(
+      final TaskType task,
+      final BLProgressCounter counter)
+    {
+      while (!this.failed.get()) {
+        final int index = this.next();
+        if (index < 0 || this.failed.get()) {
+          return;
+        }
+
+        /*
+         * The permit is only taken once a task is available, so that a
+         * worker waiting for a directory scan does not hold a permit that
+         * a worker with a task could be using.
+         */
+
+        if (!this.acquire()) {
+          this.fail(index, new BLException("Interrupted awaiting a permit"));
+          return;
+        }
+
+        try {
+          task.execute(counter, index);
+        } catch (final BLException e) {
+          this.fail(index, e);
+        } catch (final RuntimeException e) {
+          this.fail(index, new BLException(e));
+        } finally {
+          this.release();
+        }
+      }
+    }
+
+    private int next()
+    {
+      try {
+        return this.source.next();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return -1;
+      }
+    }
+
+    private boolean acquire()
+    {
+      if (this.concurrency.isEmpty()) {
+        return true;
+      }
+
+      try {
+        this.concurrency.get().acquire().get();
+        return true;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (final ExecutionException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private void release()
+    {
+      this.concurrency.ifPresent(BLAdaptiveConcurrency::release);
+    }
+
+    void runAsync(
+      final AsyncTaskType asyncTask,
+      final BLProgressCounter counter,
+      final CompletableFuture<Void> done)
+    {
+      if (this.failed.get()) {
+        done.complete(null);
+        return;
+      }
+
+      final int index = this.next();
+      if (index < 0 || this.failed.get()) {
+        done.complete(null);
+        return;
+      }
+
+      if (this.concurrency.isEmpty()) {
+        this.runAsyncPermitted(asyncTask, counter, index, done);
+        return;
+      }
+
+      this.concurrency.get()
+        .acquire()
+        .thenRun(() -> this.runAsyncPermitted(asyncTask, counter, index, done));
+    }
+
+    private void runAsyncPermitted(
+      final AsyncTaskType asyncTask,
+      final BLProgressCounter counter,
+      final int index,
+      final CompletableFuture<Void> done)
+    {
+
+      CompletableFuture<Void> future;
+      try {
+        future = asyncTask.execute(counter, index);
+      } catch (final RuntimeException e) {
+        future = CompletableFuture.failedFuture(e);
+      }
+
+      future.whenComplete((ignored, exception) -> {
+        this.release();
+        if (exception != null) {
+          final var cause = BLNexusRequests.unwrapCompletion(exception);
+          if (cause instanceof BLException blException) {
+            this.fail(index, blException);
+          } else {
+            this.fail(index, new BLException(cause));
+          }
+        }
+        this.runAsync(asyncTask, counter, done);
+      });
+    }
+
+    private void fail(
+      final int index,
+      final BLException e)
+    {
+      this.failures.put(Integer.valueOf(index), e);
+      this.failed.set(true);
+    }
+
+    void raiseFirstFailure()
+      throws BLException
+    {
+      final Map.Entry<Integer, BLException> first =
+        this.failures.pollFirstEntry();
+
+      if (first == null) {
+        return;
+      }
+
+      final var exception = first.getValue();
+      for (final var other : this.failures.values()) {
+        exception.addSuppressed(other);
+      }
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLFileDigests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A persistent cache of the digests of local files.
+ *
+ * The cache maps each file (by path relative to the directory being
+ * uploaded) to the size, modification time, and file key (the inode, on
+ * platforms that have them) that the file had when its digests were
+ * computed, along with the digests themselves. A file whose attributes
+ * still match is assumed not to have changed, and its digests can be
+ * obtained without reading the file.
+ *
+ * The cache file is a compact binary log of records. It is memory-mapped
+ * and indexed when the cache is opened, and new and updated entries are
+ * appended to it as they are computed. A truncated final record (if the
+ * process is killed during a write) is discarded. When the cache is closed,
+ * the log is rewritten if most of its records have been superseded.
+ */
+
+public final class BLDigestCache implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLDigestCache.class);
+
+  private static final int MAGIC = 0x424c4443;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+
+  private final Path file;
+  private final Map<String, Entry> entries;
+  private FileChannel channel;
+  private long records;
+
+  private record Entry(
+    long size,
+    long modified,
+    String fileKey,
+    Map<BLChecksumAlgorithm, byte[]> digests)
+  {
+    boolean matches(
+      final BasicFileAttributes attributes)
+    {
+      return this.size == attributes.size()
+             && this.modified == attributes.lastModifiedTime().toMillis()
+             && Objects.equals(this.fileKey, fileKeyOf(attributes));
+    }
+  }
+
+  private BLDigestCache(
+    final Path inFile,
+    final Map<String, Entry> inEntries,
+    final FileChannel inChannel,
+    final long inRecords)
+  {
+    this.file =
+      Objects.requireNonNull(inFile, "file");
+    this.entries =
+      Objects.requireNonNull(inEntries, "entries");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.records =
+      inRecords;
+  }
+
+  private static String fileKeyOf(
+    final BasicFileAttributes attributes)
+  {
+    return Objects.toString(attributes.fileKey(), "");
+  }
+
+  /**
+   * Open a digest cache, creating it if necessary.
+   *
+   * @param file The cache file
+   *
+   * @return A digest cache
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BLDigestCache open(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var entries = new HashMap<String, Entry>();
+    final var channel =
+      FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      );
+
+    try {
+      long records = 0L;
+      long end = 0L;
+      if (channel.size() >= HEADER_SIZE) {
+        final var map =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+
+        if (map.getInt() == MAGIC && map.getInt() == VERSION) {
+          end = HEADER_SIZE;
+          while (map.hasRemaining()) {
+            if (!readRecord(map, entries)) {
+              break;
+            }
+            ++records;
+            end = map.position();
+          }
+        } else {
+          LOG.warn("{}: not a digest cache; ignoring it", file);
+        }
+      }
+
+      if (end == 0L) {
+        channel.truncate(0L);
+        writeFully(
+          channel,
+          ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        end = HEADER_SIZE;
+      } else if (end < channel.size()) {
+        LOG.warn("{}: discarding a truncated record", file);
+        channel.truncate(end);
+      }
+
+      channel.position(end);
+      return new BLDigestCache(file, entries, channel, records);
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static boolean readRecord(
+    final ByteBuffer map,
+    final Map<String, Entry> entries)
+  {
+    try {
+      final int length = map.getInt();
+      if (length < 0 || length > map.remaining()) {
+        return false;
+      }
+
+      final var record = map.slice(map.position(), length);
+      map.position(map.position() + length);
+
+      final var path = readString(record);
+      final long size = record.getLong();
+      final long modified = record.getLong();
+      final var fileKey = readString(record);
+      final int count = Byte.toUnsignedInt(record.get());
+
+      final var algorithms = BLChecksumAlgorithm.values();
+      final var digests =
+        new EnumMap<BLChecksumAlgorithm, byte[]>(BLChecksumAlgorithm.class);
+      for (int index = 0; index < count; ++index) {
+        final int ordinal = Byte.toUnsignedInt(record.get());
+        final var digest = new byte[Byte.toUnsignedInt(record.get())];
+        record.get(digest);
+        if (ordinal < algorithms.length) {
+          digests.put(algorithms[ordinal], digest);
+        }
+      }
+
+      entries.put(path, new Entry(size, modified, fileKey, digests));
+      return true;
+    } catch (final BufferUnderflowException | IllegalArgumentException
+                   | IndexOutOfBoundsException e) {
+      return false;
+    }
+  }
+
+  private static String readString(
+    final ByteBuffer buffer)
+  {
+    final int length = Short.toUnsignedInt(buffer.getShort());
+    final var bytes = buffer.slice(buffer.position(), length);
+    buffer.position(buffer.position() + length);
+    return StandardCharsets.UTF_8.decode(bytes).toString();
+  }
+
+  private static ByteBuffer encodeRecord(
+    final String path,
+    final Entry entry)
+  {
+    final var pathBytes = path.getBytes(StandardCharsets.UTF_8);
+    final var keyBytes = entry.fileKey().getBytes(StandardCharsets.UTF_8);
+
+    int length = 2 + pathBytes.length + 8 + 8 + 2 + keyBytes.length + 1;
+    for (final var digest : entry.digests().values()) {
+      length += 2 + digest.length;
+    }
+
+    final var buffer = ByteBuffer.allocate(4 + length);
+    buffer.putInt(length);
+    buffer.putShort((short) pathBytes.length);
+    buffer.put(pathBytes);
+    buffer.putLong(entry.size());
+    buffer.putLong(entry.modified());
+    buffer.putShort((short) keyBytes.length);
+    buffer.put(keyBytes);
+    buffer.put((byte) entry.digests().size());
+    for (final var digest : entry.digests().entrySet()) {
+      buffer.put((byte) digest.getKey().ordinal());
+      buffer.put((byte) digest.getValue().length);
+      buffer.put(digest.getValue());
+    }
+    return buffer.flip();
+  }
+
+  private static void writeFully(
+    final FileChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Find the digests of a file, if the file has not changed since they were
+   * computed.
+   *
+   * @param path       The path of the file
+   * @param attributes The current attributes of the file
+   *
+   * @return The known digests, if any
+   */
+
+  public synchronized Optional<BLFileDigests> find(
+    final String path,
+    final BasicFileAttributes attributes)
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(attributes, "attributes");
+
+    final var entry = this.entries.get(path);
+    if (entry == null || !entry.matches(attributes)) {
+      return Optional.empty();
+    }
+
+    final var hex = HexFormat.of();
+    final var digests =
+      new EnumMap<BLChecksumAlgorithm, String>(BLChecksumAlgorithm.class);
+    for (final var digest : entry.digests().entrySet()) {
+      digests.put(digest.getKey(), hex.formatHex(digest.getValue()));
+    }
+
+    return Optional.of(
+      BLFileDigests.builder()
+        .setSize(entry.size())
+        .setModified(entry.modified())
+        .setDigests(digests)
+        .build()
+    );
+  }
+
+  /**
+   * Record the digests of a file. If the cache already holds digests for the
+   * file with the same attributes, the digests are merged.
+   *
+   * @param path       The path of the file
+   * @param attributes The attributes of the file at the time the digests
+   *                   were computed
+   * @param digests    The lowercase hexadecimal digests
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public synchronized void put(
+    final String path,
+    final BasicFileAttributes attributes,
+    final Map<BLChecksumAlgorithm, String> digests)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(attributes, "attributes");
+    Objects.requireNonNull(digests, "digests");
+
+    final var existing = this.entries.get(path);
+    final var merged =
+      new EnumMap<BLChecksumAlgorithm, byte[]>(BLChecksumAlgorithm.class);
+    if (existing != null && existing.matches(attributes)) {
+      merged.putAll(existing.digests());
+    }
+
+    final var hex = HexFormat.of();
+    boolean changed = existing == null || !existing.matches(attributes);
+    for (final var digest : digests.entrySet()) {
+      final var bytes = hex.parseHex(digest.getValue());
+      final var previous = merged.put(digest.getKey(), bytes);
+      changed = changed || previous == null;
+    }
+
+    if (!changed) {
+      return;
+    }
+
+    final var entry =
+      new Entry(
+        attributes.size(),
+        attributes.lastModifiedTime().toMillis(),
+        fileKeyOf(attributes),
+        merged
+      );
+
+    writeFully(this.channel, encodeRecord(path, entry));
+    this.entries.put(path, entry);
+    ++this.records;
+  }
+
+  /**
+   * Obtain the digests of a file, computing (and recording) any digests that
+   * are not already known.
+   *
+   * @param actual     The file
+   * @param path       The path of the file used as the cache key
+   * @param algorithms The required algorithms
+   *
+   * @return The lowercase hexadecimal digests for the given algorithms
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Map<BLChecksumAlgorithm, String> digestsOf(
+    final Path actual,
+    final String path,
+    final Set<BLChecksumAlgorithm> algorithms)
+    throws IOException
+  {
+    final var attributes =
+      Files.readAttributes(actual, BasicFileAttributes.class);
+
+    final var results =
+      new EnumMap<BLChecksumAlgorithm, String>(BLChecksumAlgorithm.class);
+    this.find(path, attributes)
+      .ifPresent(known -> results.putAll(known.digests()));
+    results.keySet().retainAll(algorithms);
+
+    final var missing = EnumSet.noneOf(BLChecksumAlgorithm.class);
+    missing.addAll(algorithms);
+    missing.removeAll(results.keySet());
+    if (!missing.isEmpty()) {
+      final var computed = BLDigests.digestsOf(actual, missing);
+      this.put(path, attributes, computed);
+      results.putAll(computed);
+    }
+    return results;
+  }
+
+  @Override
+  public synchronized void close()
+    throws IOException
+  {
+    if (this.channel == null) {
+      return;
+    }
+
+    try {
+      if (this.records > 64L && this.records > 2L * this.entries.size()) {
+        this.compact();
+      }
+    } finally {
+      this.channel.close();
+      this.channel = null;
+    }
+  }
+
+  private void compact()
+    throws IOException
+  {
+    final var temporary =
+      this.file.resolveSibling(this.file.getFileName() + ".tmp");
+
+    try (var output = FileChannel.open(
+      temporary,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.WRITE)) {
+      writeFully(
+        output,
+        ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+      for (final var entry : this.entries.entrySet()) {
+        writeFully(output, encodeRecord(entry.getKey(), entry.getValue()));
+      }
+    }
+
+    Files.move(
+      temporary,
+      this.file,
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLDigestCache %s]".formatted(this.file);
+  }
+}
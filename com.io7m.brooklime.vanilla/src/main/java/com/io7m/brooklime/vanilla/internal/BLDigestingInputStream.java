@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An input stream that updates a set of digests with every octet read from
+ * the underlying stream, so that the digests of a stream can be computed in
+ * the same pass that sends the stream elsewhere.
+ */
+
+public final class BLDigestingInputStream extends FilterInputStream
+{
+  private final List<MessageDigest> digests;
+
+  /**
+   * An input stream that updates a set of digests.
+   *
+   * @param inStream  The underlying stream
+   * @param inDigests The digests
+   */
+
+  public BLDigestingInputStream(
+    final InputStream inStream,
+    final List<MessageDigest> inDigests)
+  {
+    super(Objects.requireNonNull(inStream, "stream"));
+    this.digests = List.copyOf(Objects.requireNonNull(inDigests, "digests"));
+  }
+
+  @Override
+  public int read()
+    throws IOException
+  {
+    final int r = super.read();
+    if (r >= 0) {
+      for (final var digest : this.digests) {
+        digest.update((byte) r);
+      }
+    }
+    return r;
+  }
+
+  @Override
+  public int read(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final int r = super.read(buffer, offset, length);
+    if (r > 0) {
+      for (final var digest : this.digests) {
+        digest.update(buffer, offset, r);
+      }
+    }
+    return r;
+  }
+
+  @Override
+  public long skip(
+    final long count)
+    throws IOException
+  {
+    final var buffer = new byte[(int) Math.min(count, 8192L)];
+    final int r = this.read(buffer, 0, buffer.length);
+    return Math.max(r, 0);
+  }
+
+  @Override
+  public boolean markSupported()
+  {
+    return false;
+  }
+}
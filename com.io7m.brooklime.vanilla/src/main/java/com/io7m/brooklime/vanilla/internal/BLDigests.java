@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Functions to compute file digests.
+ */
+
+public final class BLDigests
+{
+  private static final int BUFFER_SIZE = 65536;
+
+  private BLDigests()
+  {
+
+  }
+
+  /**
+   * Create a message digest for the given algorithm.
+   *
+   * @param algorithm The algorithm
+   *
+   * @return A message digest
+   */
+
+  public static MessageDigest create(
+    final BLChecksumAlgorithm algorithm)
+  {
+    try {
+      return MessageDigest.getInstance(algorithm.jcaName());
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Create message digests for the given algorithms.
+   *
+   * @param algorithms The algorithms
+   *
+   * @return A digest for each algorithm
+   */
+
+  public static Map<BLChecksumAlgorithm, MessageDigest> createAll(
+    final Set<BLChecksumAlgorithm> algorithms)
+  {
+    final var results =
+      new EnumMap<BLChecksumAlgorithm, MessageDigest>(BLChecksumAlgorithm.class);
+    for (final var algorithm : algorithms) {
+      results.put(algorithm, create(algorithm));
+    }
+    return results;
+  }
+
+  /**
+   * Format the current values of the given digests. The digests are reset.
+   *
+   * @param digests The digests
+   *
+   * @return The lowercase hexadecimal digests
+   */
+
+  public static Map<BLChecksumAlgorithm, String> finish(
+    final Map<BLChecksumAlgorithm, MessageDigest> digests)
+  {
+    final var hex = HexFormat.of();
+    final var results =
+      new EnumMap<BLChecksumAlgorithm, String>(BLChecksumAlgorithm.class);
+    for (final var entry : digests.entrySet()) {
+      results.put(entry.getKey(), hex.formatHex(entry.getValue().digest()));
+    }
+    return results;
+  }
+
+  /**
+   * Compute digests of a file in a single pass over the file. The file
+   * may be an entry of an archive, in which case the entry is read from
+   * the archive without extracting it.
+   *
+   * @param file       The file
+   * @param algorithms The algorithms
+   *
+   * @return The lowercase hexadecimal digests
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Map<BLChecksumAlgorithm, String> digestsOf(
+    final Path file,
+    final Set<BLChecksumAlgorithm> algorithms)
+    throws IOException
+  {
+    final var digests = createAll(algorithms);
+    if (digests.isEmpty()) {
+      return Map.of();
+    }
+
+    try (var channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+      final var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        for (final var digest : digests.values()) {
+          digest.update(buffer.duplicate());
+        }
+        buffer.clear();
+      }
+    }
+    return finish(digests);
+  }
+}
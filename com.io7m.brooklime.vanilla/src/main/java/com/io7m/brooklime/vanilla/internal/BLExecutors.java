@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Functions to create executors for the various execution modes.
+ *
+ * The project targets JDK 17, and so the virtual thread APIs (introduced in
+ * JDK 21) are located reflectively. If they cannot be found, the
+ * functions here fall back to platform threads.
+ */
+
+public final class BLExecutors
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLExecutors.class);
+
+  private static final MethodHandle VIRTUAL_EXECUTOR =
+    findVirtualExecutor();
+  private static final MethodHandle VIRTUAL_FACTORY =
+    findVirtualFactory();
+
+  private BLExecutors()
+  {
+
+  }
+
+  private static MethodHandle findVirtualExecutor()
+  {
+    try {
+      return MethodHandles.publicLookup()
+        .findStatic(
+          Executors.class,
+          "newThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class, ThreadFactory.class)
+        );
+    } catch (final NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static MethodHandle findVirtualFactory()
+  {
+    try {
+      final var lookup =
+        MethodHandles.publicLookup();
+      final var builderClass =
+        Class.forName("java.lang.Thread$Builder");
+      final var virtualBuilderClass =
+        Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+      final var ofVirtual =
+        lookup.findStatic(
+          Thread.class,
+          "ofVirtual",
+          MethodType.methodType(virtualBuilderClass));
+      final var name =
+        lookup.findVirtual(
+          virtualBuilderClass,
+          "name",
+          MethodType.methodType(virtualBuilderClass, String.class, long.class));
+      final var factory =
+        lookup.findVirtual(
+          builderClass,
+          "factory",
+          MethodType.methodType(ThreadFactory.class));
+
+      /*
+       * (String, long) -> Thread.ofVirtual().name(prefix, start).factory()
+       */
+
+      final var named =
+        MethodHandles.filterReturnValue(
+          MethodHandles.foldArguments(name, 0, ofVirtual),
+          factory.asType(
+            MethodType.methodType(ThreadFactory.class, virtualBuilderClass))
+        );
+      return named;
+    } catch (final ClassNotFoundException
+                   | NoSuchMethodException
+                   | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return {@code true} if the current JVM supports virtual threads
+   */
+
+  public static boolean virtualThreadsSupported()
+  {
+    return VIRTUAL_EXECUTOR != null && VIRTUAL_FACTORY != null;
+  }
+
+  /**
+   * Determine the execution mode that will actually be used for the
+   * requested mode.
+   *
+   * @param mode The requested mode
+   *
+   * @return The effective mode
+   */
+
+  public static BLExecutionMode effectiveMode(
+    final BLExecutionMode mode)
+  {
+    Objects.requireNonNull(mode, "mode");
+
+    return switch (mode) {
+      case PLATFORM_THREADS -> BLExecutionMode.PLATFORM_THREADS;
+      case VIRTUAL_THREADS -> {
+        if (virtualThreadsSupported()) {
+          yield BLExecutionMode.VIRTUAL_THREADS;
+        }
+        LOG.warn(
+          "Virtual threads are not supported by this JVM; using platform threads");
+        yield BLExecutionMode.PLATFORM_THREADS;
+      }
+    };
+  }
+
+  /**
+   * Create an executor for up to {@code workers} concurrent uploads.
+   *
+   * @param mode    The execution mode
+   * @param workers The number of workers
+   *
+   * @return An executor
+   */
+
+  public static ExecutorService createUploadExecutor(
+    final BLExecutionMode mode,
+    final int workers)
+  {
+    return switch (effectiveMode(mode)) {
+      case PLATFORM_THREADS -> {
+        yield Executors.newFixedThreadPool(workers, r -> {
+          final var thread = new Thread(r);
+          thread.setName("com.io7m.brooklime.upload-" + thread.getId());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      case VIRTUAL_THREADS -> {
+        yield virtualExecutor("com.io7m.brooklime.upload-");
+      }
+    };
+  }
+
+  /**
+   * Create an executor for up to {@code workers} concurrent reads of files
+   * ahead of their uploads.
+   *
+   * @param mode    The execution mode
+   * @param workers The number of workers
+   *
+   * @return An executor
+   *
+   * @see BLPrefetcher
+   */
+
+  public static ExecutorService createPrefetchExecutor(
+    final BLExecutionMode mode,
+    final int workers)
+  {
+    return switch (effectiveMode(mode)) {
+      case PLATFORM_THREADS -> {
+        yield Executors.newFixedThreadPool(workers, r -> {
+          final var thread = new Thread(r);
+          thread.setName("com.io7m.brooklime.prefetch-" + thread.getId());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      case VIRTUAL_THREADS -> {
+        yield virtualExecutor("com.io7m.brooklime.prefetch-");
+      }
+    };
+  }
+
+  /**
+   * Create an executor for the HTTP client, if the execution mode requires
+   * one. In {@link BLExecutionMode#PLATFORM_THREADS} mode, the HTTP client's
+   * own default executor is used.
+   *
+   * @param mode The execution mode
+   *
+   * @return An executor, if one is required
+   */
+
+  public static Optional<ExecutorService> createHTTPExecutor(
+    final BLExecutionMode mode)
+  {
+    return switch (effectiveMode(mode)) {
+      case PLATFORM_THREADS -> Optional.empty();
+      case VIRTUAL_THREADS -> {
+        yield Optional.of(virtualExecutor("com.io7m.brooklime.http-"));
+      }
+    };
+  }
+
+  /**
+   * Create an executor for the delivery of transfer statistics.
+   *
+   * @param mode The execution mode
+   *
+   * @return An executor
+   */
+
+  public static ScheduledExecutorService createStatisticsExecutor(
+    final BLExecutionMode mode)
+  {
+    return switch (effectiveMode(mode)) {
+      case PLATFORM_THREADS -> {
+        yield Executors.newScheduledThreadPool(1, r -> {
+          final var thread = new Thread(r);
+          thread.setName("com.io7m.brooklime.statistics-" + thread.getId());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      case VIRTUAL_THREADS -> {
+        yield Executors.newScheduledThreadPool(
+          1, virtualFactory("com.io7m.brooklime.statistics-"));
+      }
+    };
+  }
+
+  /**
+   * Create an executor for the delivery of progress events to receivers.
+   *
+   * @param mode The execution mode
+   *
+   * @return An executor
+   *
+   * @see BLProgressDispatcher
+   */
+
+  public static ExecutorService createProgressExecutor(
+    final BLExecutionMode mode)
+  {
+    return switch (effectiveMode(mode)) {
+      case PLATFORM_THREADS -> {
+        yield Executors.newSingleThreadExecutor(r -> {
+          final var thread = new Thread(r);
+          thread.setName("com.io7m.brooklime.progress-" + thread.getId());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      case VIRTUAL_THREADS -> {
+        yield virtualExecutor("com.io7m.brooklime.progress-");
+      }
+    };
+  }
+
+  private static ExecutorService virtualExecutor(
+    final String prefix)
+  {
+    try {
+      return (ExecutorService) VIRTUAL_EXECUTOR.invoke(virtualFactory(prefix));
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static ThreadFactory virtualFactory(
+    final String prefix)
+  {
+    try {
+      return (ThreadFactory) VIRTUAL_FACTORY.invoke(prefix, 0L);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
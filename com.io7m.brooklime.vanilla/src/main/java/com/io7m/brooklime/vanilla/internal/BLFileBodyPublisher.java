@@ -0,0 +1,536 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTracker;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A body publisher that publishes the contents of a file channel.
+ *
+ * The publisher declares the exact content length of the file, and so
+ * requests are sent with a {@code Content-Length} header rather than with
+ * chunked transfer encoding. When the channel supports it, the file is
+ * published as a series of read-only memory-mapped slices, and so the file
+ * contents are never copied onto the Java heap. Otherwise, the file is read
+ * into direct buffers.
+ *
+ * If the publisher is given a rate limiter that limits bandwidth, each
+ * buffer is published only once bandwidth has been reserved for it. When the
+ * limiter requires a delay, delivery resumes on the executor after the delay
+ * rather than blocking the thread that requested the buffer.
+ *
+ * If the publisher is given a prefix of the file that has already been read
+ * into memory (such as by a {@link BLPrefetcher}), the octets of the prefix
+ * are published from memory, and only the remainder of the file is read from
+ * the channel.
+ *
+ * If the publisher is given a reader of a {@link BLFileTee}, the remainder
+ * of the file is read through the tee, so that the publishers of several
+ * uploads of the same file share the buffers read from the channel.
+ *
+ * The channel is read using positional reads only, and is not closed by the
+ * publisher. The same channel can therefore be used for any number of
+ * requests (such as retries of a failed upload) without being reopened.
+ */
+
+public final class BLFileBodyPublisher implements HttpRequest.BodyPublisher
+{
+  /**
+   * The maximum size of a single published buffer.
+   */
+
+  public static final int SLICE_SIZE = 1024 * 1024;
+
+  /**
+   * Files smaller than this are read rather than mapped; mapping has a
+   * fixed cost that exceeds the cost of a copy for small files.
+   */
+
+  public static final long MAP_THRESHOLD = 64L * 1024L;
+
+  private final STStatisticsTicker ticker;
+  private final ScheduledExecutorService executor;
+  private final FileChannel channel;
+  private final long size;
+  private final Consumer<STTransferStatistics> statsConsumer;
+  private final boolean mapped;
+  private final List<MessageDigest> digests;
+  private final BLRateLimiter limiter;
+  private final int sliceSize;
+  private final ByteBuffer prefix;
+  private final Optional<BLFileTee.Reader> tee;
+
+  private BLFileBodyPublisher(
+    final Builder builder)
+  {
+    this.ticker = builder.ticker;
+    this.executor = builder.ticker.executor();
+    this.channel = builder.channel;
+    this.statsConsumer = builder.statsConsumer;
+    this.tee = builder.tee;
+    this.prefix = builder.prefix.asReadOnlyBuffer();
+    this.limiter = builder.limiter;
+    this.sliceSize = this.limiter.chunkSize(SLICE_SIZE);
+    this.digests = builder.digests;
+
+    if (builder.size < 0L) {
+      throw new IllegalArgumentException(
+        "Size must be non-negative (received %d)"
+          .formatted(Long.valueOf(builder.size)));
+    }
+
+    if (this.prefix.remaining() > builder.size) {
+      throw new IllegalArgumentException(
+        "Prefix size %d exceeds the size %d"
+          .formatted(
+            Integer.valueOf(this.prefix.remaining()),
+            Long.valueOf(builder.size)));
+    }
+
+    this.size = builder.size;
+    this.mapped = builder.mapped && builder.size >= MAP_THRESHOLD;
+  }
+
+  /**
+   * Start building a body publisher that publishes the contents of a file
+   * channel. By default, the channel is read rather than mapped, no digests
+   * are computed, the publisher is not rate limited, and every octet is
+   * read from the channel.
+   *
+   * @param ticker        The ticker that samples statistics, and on whose
+   *                      executor rate limited delivery resumes
+   * @param channel       The file channel
+   * @param size          The number of octets that will be published
+   * @param statsConsumer A function that receives statistics updates
+   *
+   * @return A builder
+   */
+
+  public static Builder builder(
+    final STStatisticsTicker ticker,
+    final FileChannel channel,
+    final long size,
+    final Consumer<STTransferStatistics> statsConsumer)
+  {
+    return new Builder(ticker, channel, size, statsConsumer);
+  }
+
+  /**
+   * A builder of body publishers.
+   */
+
+  public static final class Builder
+  {
+    private final STStatisticsTicker ticker;
+    private final FileChannel channel;
+    private final long size;
+    private final Consumer<STTransferStatistics> statsConsumer;
+    private boolean mapped;
+    private List<MessageDigest> digests;
+    private BLRateLimiter limiter;
+    private ByteBuffer prefix;
+    private Optional<BLFileTee.Reader> tee;
+
+    private Builder(
+      final STStatisticsTicker inTicker,
+      final FileChannel inChannel,
+      final long inSize,
+      final Consumer<STTransferStatistics> inStatsConsumer)
+    {
+      this.ticker =
+        Objects.requireNonNull(inTicker, "ticker");
+      this.channel =
+        Objects.requireNonNull(inChannel, "channel");
+      this.size =
+        inSize;
+      this.statsConsumer =
+        Objects.requireNonNull(inStatsConsumer, "statsConsumer");
+      this.mapped =
+        false;
+      this.digests =
+        List.of();
+      this.limiter =
+        BLRateLimiter.UNLIMITED;
+      this.prefix =
+        ByteBuffer.allocate(0);
+      this.tee =
+        Optional.empty();
+    }
+
+    /**
+     * @param inMapped {@code true} if the channel may be memory-mapped
+     *
+     * @return this
+     */
+
+    public Builder setMapped(
+      final boolean inMapped)
+    {
+      this.mapped = inMapped;
+      return this;
+    }
+
+    /**
+     * Set the digests to update. The digests are reset when a subscriber
+     * subscribes, and are then updated with every octet published; they
+     * therefore hold the digests of the published file once the subscriber
+     * has been completed.
+     *
+     * @param inDigests The digests to be updated with published octets
+     *
+     * @return this
+     */
+
+    public Builder setDigests(
+      final List<MessageDigest> inDigests)
+    {
+      this.digests = List.copyOf(Objects.requireNonNull(inDigests, "digests"));
+      return this;
+    }
+
+    /**
+     * @param inLimiter The rate limiter
+     *
+     * @return this
+     */
+
+    public Builder setRateLimiter(
+      final BLRateLimiter inLimiter)
+    {
+      this.limiter = Objects.requireNonNull(inLimiter, "limiter");
+      return this;
+    }
+
+    /**
+     * Set the octets at the start of the file, which are published from
+     * memory rather than read from the channel.
+     *
+     * @param inPrefix The octets at the start of the file
+     *
+     * @return this
+     */
+
+    public Builder setPrefix(
+      final ByteBuffer inPrefix)
+    {
+      this.prefix = Objects.requireNonNull(inPrefix, "prefix");
+      return this;
+    }
+
+    /**
+     * Set the tee through which the remainder of the file is read.
+     *
+     * @param inTee The tee through which the file is read, if any
+     *
+     * @return this
+     */
+
+    public Builder setTee(
+      final Optional<BLFileTee.Reader> inTee)
+    {
+      this.tee = Objects.requireNonNull(inTee, "tee");
+      return this;
+    }
+
+    /**
+     * @return A body publisher
+     */
+
+    public BLFileBodyPublisher build()
+    {
+      return new BLFileBodyPublisher(this);
+    }
+  }
+
+  @Override
+  public long contentLength()
+  {
+    return this.size;
+  }
+
+  @Override
+  public void subscribe(
+    final Flow.Subscriber<? super ByteBuffer> subscriber)
+  {
+    Objects.requireNonNull(subscriber, "subscriber");
+
+    final var tracker =
+      new STStatisticsTracker(
+        this.ticker,
+        OptionalLong.of(this.size),
+        this.statsConsumer
+      );
+
+    for (final var digest : this.digests) {
+      digest.reset();
+    }
+
+    final var subscription = new Subscription(subscriber, tracker);
+    subscriber.onSubscribe(subscription);
+    subscription.drain();
+  }
+
+  /**
+   * Read a buffer of a file, mapping the file if permitted.
+   *
+   * @param channel  The file channel
+   * @param mapped   {@code true} if the channel may be memory-mapped
+   * @param position The offset of the buffer in the file
+   * @param length   The length of the buffer
+   *
+   * @return The buffer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static ByteBuffer readSlice(
+    final FileChannel channel,
+    final boolean mapped,
+    final long position,
+    final int length)
+    throws IOException
+  {
+    final ByteBuffer buffer;
+    if (mapped) {
+      buffer = channel.map(
+        FileChannel.MapMode.READ_ONLY, position, length);
+    } else {
+      buffer = ByteBuffer.allocateDirect(length);
+      while (buffer.hasRemaining()) {
+        final int r =
+          channel.read(buffer, position + buffer.position());
+        if (r < 0) {
+          throw new EOFException(
+            "Unexpected end of file at offset %d"
+              .formatted(Long.valueOf(position + buffer.position())));
+        }
+      }
+      buffer.flip();
+    }
+    return buffer;
+  }
+
+  private final class Subscription implements Flow.Subscription
+  {
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final STStatisticsTracker tracker;
+    private final AtomicLong demand;
+    private final AtomicInteger draining;
+    private volatile boolean cancelled;
+    private boolean done;
+    private long position;
+    private boolean reserved;
+    private long resumeAt;
+
+    Subscription(
+      final Flow.Subscriber<? super ByteBuffer> inSubscriber,
+      final STStatisticsTracker inTracker)
+    {
+      this.subscriber = inSubscriber;
+      this.tracker = inTracker;
+      this.demand = new AtomicLong();
+      this.draining = new AtomicInteger();
+    }
+
+    @Override
+    public void request(
+      final long n)
+    {
+      if (n <= 0L) {
+        this.cancel();
+        this.subscriber.onError(new IllegalArgumentException(
+          "Demand must be positive (received %d)".formatted(Long.valueOf(n))));
+        return;
+      }
+
+      this.demand.getAndAccumulate(n, (x, y) -> {
+        final long r = x + y;
+        return r < 0L ? Long.MAX_VALUE : r;
+      });
+      this.drain();
+    }
+
+    @Override
+    public void cancel()
+    {
+      this.cancelled = true;
+      this.tracker.close();
+    }
+
+    /*
+     * Deliver buffers for as long as there is demand. Only one thread
+     * drains at any given time; a thread that requests more items whilst
+     * another thread is draining (including reentrant requests from within
+     * onNext) simply causes the draining thread to loop again.
+     */
+
+    void drain()
+    {
+      if (this.draining.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+      do {
+        while (!this.cancelled && !this.done) {
+          if (this.position >= BLFileBodyPublisher.this.size) {
+            this.done = true;
+            this.tracker.close();
+            this.subscriber.onComplete();
+            break;
+          }
+
+          if (this.demand.get() == 0L) {
+            break;
+          }
+
+          if (!this.bandwidthAvailable()) {
+            break;
+          }
+
+          final ByteBuffer buffer;
+          try {
+            buffer = this.next();
+          } catch (final IOException e) {
+            this.done = true;
+            this.tracker.close();
+            this.subscriber.onError(e);
+            break;
+          }
+
+          this.demand.decrementAndGet();
+          for (final var digest : BLFileBodyPublisher.this.digests) {
+            digest.update(buffer.duplicate());
+          }
+          this.tracker.add(Integer.toUnsignedLong(buffer.remaining()));
+          this.subscriber.onNext(buffer);
+        }
+        missed = this.draining.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    /*
+     * The length of the next buffer. A buffer never spans the end of the
+     * prefix, so that each buffer comes either from memory or from the
+     * channel.
+     */
+
+    private int nextLength()
+    {
+      final var publisher = BLFileBodyPublisher.this;
+      final long prefixSize = publisher.prefix.remaining();
+      final long end =
+        this.position < prefixSize ? prefixSize : publisher.size;
+      return (int) Math.min(end - this.position, publisher.sliceSize);
+    }
+
+    /*
+     * Reserve bandwidth for the next buffer. If the limiter requires a
+     * delay, a drain is scheduled for when the delay has elapsed, and the
+     * reservation is kept so that the buffer is not charged twice.
+     */
+
+    private boolean bandwidthAvailable()
+    {
+      final var rateLimiter = BLFileBodyPublisher.this.limiter;
+      if (!rateLimiter.limitsBytes()) {
+        return true;
+      }
+
+      if (this.reserved) {
+        if (System.nanoTime() - this.resumeAt < 0L) {
+          return false;
+        }
+        this.reserved = false;
+        return true;
+      }
+
+      final long delay = rateLimiter.reserveBytes(this.nextLength());
+      if (delay == 0L) {
+        return true;
+      }
+
+      this.reserved = true;
+      this.resumeAt = System.nanoTime() + delay;
+      BLFileBodyPublisher.this.executor.schedule(
+        this::drain, delay, TimeUnit.NANOSECONDS);
+      return false;
+    }
+
+    private ByteBuffer next()
+      throws IOException
+    {
+      final var fileChannel =
+        BLFileBodyPublisher.this.channel;
+      final int length =
+        this.nextLength();
+
+      final var prefixBuffer = BLFileBodyPublisher.this.prefix;
+      if (this.position < prefixBuffer.remaining()) {
+        final int start = prefixBuffer.position() + (int) this.position;
+        final var buffer =
+          prefixBuffer.duplicate()
+            .limit(start + length)
+            .position(start)
+            .slice();
+        this.position += length;
+        return buffer;
+      }
+
+      if (fileChannel.size() < BLFileBodyPublisher.this.size) {
+        throw new EOFException(
+          "File was truncated during upload (expected %d octets, found %d)"
+            .formatted(
+              Long.valueOf(BLFileBodyPublisher.this.size),
+              Long.valueOf(fileChannel.size()))
+        );
+      }
+
+      final var publisher = BLFileBodyPublisher.this;
+      final ByteBuffer buffer;
+      if (publisher.tee.isPresent()) {
+        buffer = publisher.tee.get()
+          .read(this.position, length, publisher.mapped);
+      } else {
+        buffer = readSlice(fileChannel, publisher.mapped, this.position, length);
+      }
+
+      this.position += length;
+      return buffer;
+    }
+  }
+}
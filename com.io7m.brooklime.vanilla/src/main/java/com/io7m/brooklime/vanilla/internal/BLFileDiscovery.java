@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * A scan of a directory that runs in the background, making each file
+ * available as soon as it is found. Files are numbered in the order in which
+ * they are found, and consumers take the numbers of files from the discovery
+ * until the scan completes.
+ *
+ * @see BLFileScanner
+ */
+
+public final class BLFileDiscovery
+  implements BLConcurrentUploader.TaskSourceType
+{
+  private static final Integer FINISHED = Integer.valueOf(-1);
+
+  private final Path base;
+  private final BLFileSelection selection;
+  private final Predicate<Path> excluded;
+  private final ConcurrentHashMap<Integer, Found> found;
+  private final LinkedBlockingQueue<Integer> queue;
+  private final AtomicInteger count;
+  private volatile IOException failure;
+  private volatile boolean cancelled;
+
+  private record Found(
+    Path file,
+    BasicFileAttributes attributes)
+  {
+
+  }
+
+  private BLFileDiscovery(
+    final Path inBase,
+    final BLFileSelection inSelection,
+    final Predicate<Path> inExcluded)
+  {
+    this.base = Objects.requireNonNull(inBase, "base");
+    this.selection = Objects.requireNonNull(inSelection, "selection");
+    this.excluded = Objects.requireNonNull(inExcluded, "excluded");
+    this.found = new ConcurrentHashMap<>();
+    this.queue = new LinkedBlockingQueue<>();
+    this.count = new AtomicInteger(0);
+  }
+
+  /**
+   * Start scanning the given directory in the background.
+   *
+   * @param base      The base directory
+   * @param selection The patterns selecting the files to be found
+   * @param excluded  A predicate that is true for files that must be excluded
+   *
+   * @return The discovery in progress
+   */
+
+  public static BLFileDiscovery start(
+    final Path base,
+    final BLFileSelection selection,
+    final Predicate<Path> excluded)
+  {
+    final var discovery = new BLFileDiscovery(base, selection, excluded);
+    final var thread = new Thread(discovery::run);
+    thread.setName("com.io7m.brooklime.scanner[%s]".formatted(base));
+    thread.setDaemon(true);
+    thread.start();
+    return discovery;
+  }
+
+  private void run()
+  {
+    try {
+      BLFileScanner.scan(
+        this.base, this.selection, this.excluded, this::onFound);
+    } catch (final IOException e) {
+      this.failure = e;
+    } catch (final CancellationException e) {
+      // The consumer no longer wants the files.
+    } catch (final RuntimeException e) {
+      this.failure = new IOException(e);
+    } finally {
+      this.queue.add(FINISHED);
+    }
+  }
+
+  private void onFound(
+    final Path file,
+    final BasicFileAttributes attributes)
+  {
+    if (this.cancelled) {
+      throw new CancellationException();
+    }
+
+    final var index = Integer.valueOf(this.count.getAndIncrement());
+    this.found.put(index, new Found(file, attributes));
+    this.queue.add(index);
+  }
+
+  @Override
+  public int next()
+    throws InterruptedException
+  {
+    final var index = this.queue.take();
+    if (index.equals(FINISHED)) {
+      this.queue.add(FINISHED);
+      return -1;
+    }
+    return index.intValue();
+  }
+
+  /**
+   * @param index The file number
+   *
+   * @return The file with the given number, relative to the base directory
+   */
+
+  public Path file(
+    final int index)
+  {
+    return this.found.get(Integer.valueOf(index)).file();
+  }
+
+  /**
+   * @param index The file number
+   *
+   * @return The attributes of the file with the given number, as read by
+   * the scan
+   */
+
+  public BasicFileAttributes attributes(
+    final int index)
+  {
+    return this.found.get(Integer.valueOf(index)).attributes();
+  }
+
+  /**
+   * Determine if the scan selects the given file, whether or not the scan
+   * has found it yet.
+   *
+   * @param relative The file, relative to the base directory
+   *
+   * @return {@code true} if the scan selects the file
+   *
+   * @see BLFileScanner#isSelected(Path, BLFileSelection, Predicate, Path)
+   */
+
+  public boolean isSelected(
+    final Path relative)
+  {
+    return BLFileScanner.isSelected(
+      this.base, this.selection, this.excluded, relative);
+  }
+
+  /**
+   * @return The number of files found so far
+   */
+
+  public int count()
+  {
+    return this.count.get();
+  }
+
+  /**
+   * Stop the scan, if it is still in progress. Files that have not yet been
+   * found will not be found.
+   */
+
+  public void cancel()
+  {
+    this.cancelled = true;
+  }
+
+  /**
+   * Raise the error that stopped the scan, if any. This must only be called
+   * once {@link #next()} has returned {@code -1}.
+   *
+   * @throws BLException If the scan failed
+   */
+
+  public void raiseFailure()
+    throws BLException
+  {
+    final var e = this.failure;
+    if (e != null) {
+      throw new BLException(e);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Functions to find the files to be uploaded.
+ *
+ * Directories are scanned in parallel on a fork/join pool: each directory
+ * is listed by its own task, and the subdirectories it contains are forked
+ * as further tasks. The attributes of each file are read once, during the
+ * scan, and are delivered to an optional listener as soon as the file is
+ * found so that callers can begin work on files before the scan completes.
+ * Exclusion patterns are evaluated before the attributes of a path are
+ * read, so excluded subtrees are neither listed nor stat'ed.
+ */
+
+public final class BLFileScanner
+{
+  private BLFileScanner()
+  {
+
+  }
+
+  /**
+   * Find every regular file below the base directory (following symbolic
+   * links to files, but not to directories), reading the attributes of each
+   * file as it is found.
+   *
+   * @param base      The base directory
+   * @param selection The patterns selecting the files to be found
+   * @param excluded  A predicate that is true for files that must be excluded
+   *
+   * @return The files, relative to the base directory, and their attributes
+   *
+   * @throws IOException On errors
+   */
+
+  public static SortedMap<Path, BasicFileAttributes> scan(
+    final Path base,
+    final BLFileSelection selection,
+    final Predicate<Path> excluded)
+    throws IOException
+  {
+    return scan(base, selection, excluded, (file, attributes) -> {
+    });
+  }
+
+  /**
+   * Find every regular file below the base directory (following symbolic
+   * links to files, but not to directories), reading the attributes of each
+   * file as it is found. The listener is called, possibly concurrently from
+   * multiple threads, for each file as it is found.
+   *
+   * @param base      The base directory
+   * @param selection The patterns selecting the files to be found
+   * @param excluded  A predicate that is true for files that must be excluded
+   * @param listener  A listener that receives each file, relative to the base
+   *                  directory, and its attributes
+   *
+   * @return The files, relative to the base directory, and their attributes
+   *
+   * @throws IOException On errors
+   */
+
+  public static SortedMap<Path, BasicFileAttributes> scan(
+    final Path base,
+    final BLFileSelection selection,
+    final Predicate<Path> excluded,
+    final BiConsumer<Path, BasicFileAttributes> listener)
+    throws IOException
+  {
+    Objects.requireNonNull(base, "base");
+    Objects.requireNonNull(selection, "selection");
+    Objects.requireNonNull(excluded, "excluded");
+    Objects.requireNonNull(listener, "listener");
+
+    final var scan = new Scan(base, selection, excluded, listener);
+    final var pool = new ForkJoinPool(
+      Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    try {
+      pool.invoke(new DirectoryTask(scan, base));
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+    return scan.files;
+  }
+
+  /**
+   * Determine if the scan of the base directory selects the given file,
+   * applying the same rules as {@link #scan(Path, BLFileSelection, Predicate)}
+   * without scanning the directory. The answer does not depend on whether a
+   * scan in progress has reached the file yet.
+   *
+   * @param base      The base directory
+   * @param selection The patterns selecting the files to be found
+   * @param excluded  A predicate that is true for files that must be excluded
+   * @param relative  The file, relative to the base directory
+   *
+   * @return {@code true} if a scan would find the file
+   */
+
+  public static boolean isSelected(
+    final Path base,
+    final BLFileSelection selection,
+    final Predicate<Path> excluded,
+    final Path relative)
+  {
+    Objects.requireNonNull(base, "base");
+    Objects.requireNonNull(selection, "selection");
+    Objects.requireNonNull(excluded, "excluded");
+    Objects.requireNonNull(relative, "relative");
+
+    if (relative.isAbsolute() || relative.getNameCount() == 0) {
+      return false;
+    }
+
+    for (int count = 1; count < relative.getNameCount(); ++count) {
+      final var parent = relative.subpath(0, count);
+      if (selection.isExcluded(parent)) {
+        return false;
+      }
+      if (!Files.isDirectory(base.resolve(parent), LinkOption.NOFOLLOW_LINKS)) {
+        return false;
+      }
+    }
+
+    if (selection.isExcluded(relative) || !selection.isIncluded(relative)) {
+      return false;
+    }
+
+    final var file = base.resolve(relative);
+    return Files.isRegularFile(file) && !excluded.test(file);
+  }
+
+  private record Scan(
+    Path base,
+    BLFileSelection selection,
+    Predicate<Path> excluded,
+    BiConsumer<Path, BasicFileAttributes> listener,
+    ConcurrentSkipListMap<Path, BasicFileAttributes> files)
+  {
+    Scan(
+      final Path inBase,
+      final BLFileSelection inSelection,
+      final Predicate<Path> inExcluded,
+      final BiConsumer<Path, BasicFileAttributes> inListener)
+    {
+      this(
+        inBase,
+        inSelection,
+        inExcluded,
+        inListener,
+        new ConcurrentSkipListMap<>()
+      );
+    }
+  }
+
+  private static final class DirectoryTask extends RecursiveAction
+  {
+    private final Scan scan;
+    private final Path directory;
+
+    DirectoryTask(
+      final Scan inScan,
+      final Path inDirectory)
+    {
+      this.scan = inScan;
+      this.directory = inDirectory;
+    }
+
+    @Override
+    protected void compute()
+    {
+      final var subdirectories = new ArrayList<DirectoryTask>();
+      try (var stream = Files.newDirectoryStream(this.directory)) {
+        for (final var path : stream) {
+          final var relative = this.scan.base.relativize(path);
+          if (this.scan.selection.isExcluded(relative)) {
+            continue;
+          }
+
+          final var attributes =
+            Files.readAttributes(
+              path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+          if (attributes.isDirectory()) {
+            subdirectories.add(new DirectoryTask(this.scan, path));
+          } else {
+            this.visitFile(path, relative, attributes);
+          }
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      invokeAll(subdirectories);
+    }
+
+    private void visitFile(
+      final Path file,
+      final Path relative,
+      final BasicFileAttributes attributes)
+    {
+      if (!this.scan.selection.isIncluded(relative)) {
+        return;
+      }
+
+      var fileAttributes = attributes;
+      if (attributes.isSymbolicLink()) {
+        try {
+          fileAttributes =
+            Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final IOException e) {
+          return;
+        }
+      }
+
+      if (fileAttributes.isRegularFile() && !this.scan.excluded.test(file)) {
+        this.scan.files.put(relative, fileAttributes);
+        this.scan.listener.accept(relative, fileAttributes);
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The include and exclude patterns that select the files to be uploaded. A
+ * pattern matches a path if it matches either the whole path (relative to
+ * the base directory) or the last element of the path.
+ *
+ * @see BLStagingRepositoryUploadRequestParameters#includes()
+ * @see BLStagingRepositoryUploadRequestParameters#excludes()
+ */
+
+public final class BLFileSelection
+{
+  private static final BLFileSelection ALL =
+    new BLFileSelection(List.of(), List.of());
+
+  private final List<PathMatcher> includes;
+  private final List<PathMatcher> excludes;
+
+  private BLFileSelection(
+    final List<PathMatcher> inIncludes,
+    final List<PathMatcher> inExcludes)
+  {
+    this.includes = Objects.requireNonNull(inIncludes, "includes");
+    this.excludes = Objects.requireNonNull(inExcludes, "excludes");
+  }
+
+  /**
+   * @return A selection that includes every file
+   */
+
+  public static BLFileSelection all()
+  {
+    return ALL;
+  }
+
+  /**
+   * @param parameters The upload request parameters
+   *
+   * @return The selection given by the patterns in the parameters
+   */
+
+  public static BLFileSelection of(
+    final BLStagingRepositoryUploadRequestParameters parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    if (parameters.includes().isEmpty() && parameters.excludes().isEmpty()) {
+      return ALL;
+    }
+    return new BLFileSelection(
+      parameters.includeMatchers(),
+      parameters.excludeMatchers()
+    );
+  }
+
+  private static boolean matchesAny(
+    final List<PathMatcher> matchers,
+    final Path relative)
+  {
+    final var name = relative.getFileName();
+    for (final var matcher : matchers) {
+      if (matcher.matches(relative)) {
+        return true;
+      }
+      if (name != null && matcher.matches(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine if a file or directory is excluded. This is evaluated before
+   * the attributes of the path are read, so that excluded directories are
+   * never scanned.
+   *
+   * @param relative The path, relative to the base directory
+   *
+   * @return {@code true} if the path is excluded
+   */
+
+  public boolean isExcluded(
+    final Path relative)
+  {
+    return !this.excludes.isEmpty() && matchesAny(this.excludes, relative);
+  }
+
+  /**
+   * Determine if a file that is not excluded is included.
+   *
+   * @param relative The file, relative to the base directory
+   *
+   * @return {@code true} if the file is included
+   */
+
+  public boolean isIncluded(
+    final Path relative)
+  {
+    return this.includes.isEmpty() || matchesAny(this.includes, relative);
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A file that is read once on behalf of several readers, such as the body
+ * publishers of the uploads of one file to several staging repositories.
+ *
+ * Each buffer read from the file is held in memory until every reader has
+ * consumed it, so that readers that progress at roughly the same rate read
+ * each part of the file from the channel only once. At most
+ * {@link #WINDOW_SLICES} buffers are held at any one time; a reader that
+ * runs so far ahead of the slowest reader that no more buffers can be held
+ * reads the file from the channel itself, and so no reader ever waits for
+ * another.
+ *
+ * The tee owns its channel (and the prefetched file, if any, from which the
+ * channel was taken), and closes it when the tee is closed.
+ */
+
+public final class BLFileTee implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLFileTee.class);
+
+  /**
+   * The maximum number of buffers held in memory.
+   */
+
+  public static final int WINDOW_SLICES = 16;
+
+  private final Path file;
+  private final Optional<BLPrefetcher.Prefetched> prefetched;
+  private final TreeMap<Long, ByteBuffer> window;
+  private final long[] positions;
+  private FileChannel channel;
+  private boolean closed;
+
+  /**
+   * A file that is read once on behalf of several readers.
+   *
+   * @param inFile       The absolute path of the file
+   * @param inPrefetched The file, if it has been read ahead
+   * @param inReaders    The number of readers
+   */
+
+  public BLFileTee(
+    final Path inFile,
+    final Optional<BLPrefetcher.Prefetched> inPrefetched,
+    final int inReaders)
+  {
+    this.file =
+      Objects.requireNonNull(inFile, "file");
+    this.prefetched =
+      Objects.requireNonNull(inPrefetched, "prefetched");
+
+    if (inReaders < 1) {
+      throw new IllegalArgumentException(
+        "Reader count must be at least 1 (received %d)"
+          .formatted(Integer.valueOf(inReaders)));
+    }
+
+    this.window = new TreeMap<>();
+    this.positions = new long[inReaders];
+  }
+
+  /**
+   * Obtain the reader with the given index.
+   *
+   * @param index The reader index
+   *
+   * @return The reader
+   */
+
+  public Reader reader(
+    final int index)
+  {
+    Objects.checkIndex(index, this.positions.length);
+    return new Reader(index);
+  }
+
+  /**
+   * @return The number of buffers currently held in memory
+   */
+
+  public synchronized int buffered()
+  {
+    return this.window.size();
+  }
+
+  private synchronized FileChannel channel()
+    throws IOException
+  {
+    if (this.closed) {
+      throw new IOException("File tee is closed");
+    }
+    if (this.channel == null) {
+      if (this.prefetched.isPresent()) {
+        this.channel = this.prefetched.get().channel();
+      } else {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.READ);
+      }
+    }
+    return this.channel;
+  }
+
+  private synchronized ByteBuffer cached(
+    final long position,
+    final int length)
+  {
+    final var buffer = this.window.get(Long.valueOf(position));
+    if (buffer != null && buffer.remaining() == length) {
+      return buffer.duplicate();
+    }
+    return null;
+  }
+
+  private synchronized void offer(
+    final long position,
+    final ByteBuffer buffer)
+  {
+    if (this.window.size() < WINDOW_SLICES) {
+      this.window.putIfAbsent(Long.valueOf(position), buffer.asReadOnlyBuffer());
+    }
+  }
+
+  /*
+   * Record that a reader has consumed the file up to the given position,
+   * and discard every buffer that every reader has consumed.
+   */
+
+  private synchronized void advance(
+    final int index,
+    final long position)
+  {
+    this.positions[index] = position;
+
+    final long slowest = Arrays.stream(this.positions).min().orElseThrow();
+    final var iterator = this.window.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final var entry = iterator.next();
+      final long end = entry.getKey().longValue() + entry.getValue().remaining();
+      if (end > slowest) {
+        break;
+      }
+      iterator.remove();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    final FileChannel toClose;
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.window.clear();
+      toClose = this.channel;
+    }
+
+    if (this.prefetched.isPresent()) {
+      this.prefetched.get().close();
+    } else if (toClose != null) {
+      try {
+        toClose.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close local file: ", e);
+      }
+    }
+  }
+
+  /**
+   * One of the readers of a tee.
+   */
+
+  public final class Reader
+  {
+    private final int index;
+
+    private Reader(
+      final int inIndex)
+    {
+      this.index = inIndex;
+    }
+
+    /**
+     * @return The file channel shared by all readers
+     *
+     * @throws IOException On I/O errors
+     */
+
+    public FileChannel channel()
+      throws IOException
+    {
+      return BLFileTee.this.channel();
+    }
+
+    /**
+     * Obtain the prefix of the file that was read ahead, if the file has not
+     * changed since.
+     *
+     * @param size     The current size of the file
+     * @param modified The current modification time of the file
+     *
+     * @return The octets at the start of the file
+     */
+
+    public ByteBuffer prefix(
+      final long size,
+      final long modified)
+    {
+      return BLFileTee.this.prefetched
+        .map(p -> p.prefixIfUnchanged(size, modified))
+        .orElseGet(() -> ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Read a buffer of the file, from memory if another reader has read it
+     * already, and from the channel otherwise.
+     *
+     * @param position The offset of the buffer in the file
+     * @param length   The length of the buffer
+     * @param mapped   {@code true} if the channel may be memory-mapped
+     *
+     * @return The buffer
+     *
+     * @throws IOException On I/O errors
+     */
+
+    public ByteBuffer read(
+      final long position,
+      final int length,
+      final boolean mapped)
+      throws IOException
+    {
+      final var tee = BLFileTee.this;
+
+      var buffer = tee.cached(position, length);
+      if (buffer == null) {
+        buffer = BLFileBodyPublisher.readSlice(
+          tee.channel(), mapped, position, length);
+        tee.offer(position, buffer);
+      }
+      tee.advance(this.index, position + length);
+      return buffer;
+    }
+
+    /**
+     * Indicate that the reader will read no more of the file (such as when
+     * its upload has completed), so that buffers are no longer held on its
+     * behalf.
+     */
+
+    public void finish()
+    {
+      BLFileTee.this.advance(this.index, Long.MAX_VALUE);
+    }
+  }
+}
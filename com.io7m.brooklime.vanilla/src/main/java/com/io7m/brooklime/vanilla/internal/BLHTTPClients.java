@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLHTTPVersion;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+
+import java.net.Authenticator;
+import java.net.CookieManager;
+import java.net.PasswordAuthentication;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Functions to create HTTP clients.
+ */
+
+public final class BLHTTPClients
+{
+  private BLHTTPClients()
+  {
+
+  }
+
+  private static final class BasicAuthenticator
+    extends Authenticator
+  {
+    private final String username;
+    private final char[] password;
+
+    BasicAuthenticator(
+      final String inUsername,
+      final char[] inPassword)
+    {
+      this.username =
+        Objects.requireNonNull(inUsername, "username");
+      this.password =
+        Objects.requireNonNull(inPassword, "password");
+    }
+
+
+    @Override
+    protected PasswordAuthentication getPasswordAuthentication()
+    {
+      return new PasswordAuthentication(
+        this.username,
+        this.password
+      );
+    }
+  }
+
+  private static HttpClient.Version httpVersionOf(
+    final BLHTTPVersion version)
+  {
+    return switch (version) {
+      case HTTP_1_1 -> HttpClient.Version.HTTP_1_1;
+      case HTTP_2 -> HttpClient.Version.HTTP_2;
+    };
+  }
+
+  /**
+   * Determine the value of an {@code Authorization} header that presents
+   * the credentials of the given configuration without waiting for the
+   * server to ask for them. Requests whose bodies cannot be sent a second
+   * time must carry this header, because the authenticator of a client only
+   * supplies credentials by repeating a request that the server rejected.
+   *
+   * @param configuration The client configuration
+   *
+   * @return The header value
+   */
+
+  public static String basicAuthorizationOf(
+    final BLNexusClientConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var credentials =
+      configuration.userName() + ":" + configuration.password();
+    return "Basic " + Base64.getEncoder()
+      .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Create an HTTP client that authenticates with the credentials of the
+   * given configuration.
+   *
+   * @param configuration The client configuration
+   * @param executor      The executor for the HTTP client, if any
+   *
+   * @return An HTTP client
+   */
+
+  public static HttpClient create(
+    final BLNexusClientConfiguration configuration,
+    final Optional<Executor> executor)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(executor, "executor");
+
+    final var basicAuthenticator =
+      new BasicAuthenticator(
+        configuration.userName(),
+        configuration.password().toCharArray()
+      );
+
+    final var httpClientBuilder =
+      HttpClient.newBuilder()
+        .authenticator(basicAuthenticator)
+        .cookieHandler(new CookieManager())
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .version(httpVersionOf(configuration.httpVersion()));
+
+    configuration.connectTimeout()
+      .ifPresent(httpClientBuilder::connectTimeout);
+    executor.ifPresent(httpClientBuilder::executor);
+    return httpClientBuilder.build();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering an HTTP request to the Nexus API, from
+ * the sending of the request to the receipt of the complete response.
+ */
+
+@Name("com.io7m.brooklime.HTTPExchange")
+@Label("HTTP Exchange")
+@Category({"Brooklime", "HTTP"})
+@Description("An HTTP request to the Nexus API and its response")
+@StackTrace(false)
+public final class BLHTTPExchangeEvent extends Event
+{
+  @Label("Repository ID")
+  @Description("The staging repository, if the request concerns only one")
+  private String repositoryId;
+
+  @Label("Method")
+  private String method;
+
+  @Label("URI")
+  private String uri;
+
+  @Label("Request Size")
+  @Description("The size of the request body, or -1 if it is not known")
+  @DataAmount
+  private long requestBytes;
+
+  @Label("Response Size")
+  @DataAmount
+  private long responseBytes;
+
+  @Label("Status")
+  @Description("The HTTP status code, or 0 if no response was received")
+  private int status;
+
+  /**
+   * Create an event.
+   */
+
+  public BLHTTPExchangeEvent()
+  {
+
+  }
+
+  void setRepositoryId(
+    final String value)
+  {
+    this.repositoryId = value;
+  }
+
+  void setMethod(
+    final String value)
+  {
+    this.method = value;
+  }
+
+  void setUri(
+    final String value)
+  {
+    this.uri = value;
+  }
+
+  void setRequestBytes(
+    final long value)
+  {
+    this.requestBytes = value;
+  }
+
+  void setResponseBytes(
+    final long value)
+  {
+    this.responseBytes = value;
+  }
+
+  void setStatus(
+    final int value)
+  {
+    this.status = value;
+  }
+}
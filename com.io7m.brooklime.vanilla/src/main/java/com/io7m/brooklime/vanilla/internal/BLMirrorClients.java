@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The HTTP clients used to upload files to mirrors. Each client starts its
+ * own selector thread, and so a client is created once for each distinct
+ * mirror configuration and is shared by every upload to that mirror, until
+ * the clients are closed.
+ */
+
+public final class BLMirrorClients implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLMirrorClients.class);
+
+  private final Optional<Executor> executor;
+  private final Map<BLNexusClientConfiguration, HttpClient> open;
+
+  /**
+   * The HTTP clients used to upload files to mirrors.
+   *
+   * @param inExecutor The executor for the HTTP clients, if any
+   */
+
+  public BLMirrorClients(
+    final Optional<Executor> inExecutor)
+  {
+    this.executor = Objects.requireNonNull(inExecutor, "executor");
+    this.open = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Find or create the client for the given mirror configuration.
+   *
+   * @param configuration The configuration of the mirror
+   *
+   * @return The HTTP client
+   */
+
+  public HttpClient clientOf(
+    final BLNexusClientConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    return this.open.computeIfAbsent(
+      configuration,
+      c -> BLHTTPClients.create(c, this.executor));
+  }
+
+  /*
+   * HTTP clients can only be closed explicitly on JDK 21 and newer. On
+   * older JDKs, the selector thread of a client stops once the client is
+   * no longer reachable.
+   */
+
+  @Override
+  public void close()
+  {
+    for (final var client : this.open.values()) {
+      if (client instanceof AutoCloseable closeable) {
+        try {
+          closeable.close();
+        } catch (final Exception e) {
+          LOG.warn("Failed to close mirror client: ", e);
+        }
+      }
+    }
+    this.open.clear();
+  }
+}
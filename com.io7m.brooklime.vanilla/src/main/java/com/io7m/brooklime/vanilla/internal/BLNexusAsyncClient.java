@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLNexusAsyncClientType;
+import com.io7m.brooklime.api.BLProgressReceiverType;
+import com.io7m.brooklime.api.BLStagingProfileRepository;
+import com.io7m.brooklime.api.BLStagingRepositoryClose;
+import com.io7m.brooklime.api.BLStagingRepositoryCreate;
+import com.io7m.brooklime.api.BLStagingRepositoryDrop;
+import com.io7m.brooklime.api.BLStagingRepositoryRelease;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * An asynchronous Nexus client.
+ */
+
+public final class BLNexusAsyncClient implements BLNexusAsyncClientType
+{
+  private final ScheduledExecutorService executor;
+  private final ExecutorService progressExecutor;
+  private final Optional<ExecutorService> httpExecutor;
+  private final HttpClient client;
+  private final BLNexusRequests requests;
+  private final Clock clock;
+
+  /**
+   * An asynchronous Nexus client.
+   *
+   * @param inExecutor         A statistics executor
+   * @param inProgressExecutor The executor on which progress events are
+   *                           delivered
+   * @param inHttpExecutor     The executor used by the HTTP client, if the
+   *                           client owns one
+   * @param inClient           An HTTP client
+   * @param inRequests         A request provider
+   * @param inClock            A clock used to track time
+   */
+
+  public BLNexusAsyncClient(
+    final ScheduledExecutorService inExecutor,
+    final ExecutorService inProgressExecutor,
+    final Optional<ExecutorService> inHttpExecutor,
+    final HttpClient inClient,
+    final BLNexusRequests inRequests,
+    final Clock inClock)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.progressExecutor =
+      Objects.requireNonNull(inProgressExecutor, "progressExecutor");
+    this.httpExecutor =
+      Objects.requireNonNull(inHttpExecutor, "httpExecutor");
+    this.client =
+      Objects.requireNonNull(inClient, "client");
+    this.requests =
+      Objects.requireNonNull(inRequests, "inRequests");
+    this.clock =
+      Objects.requireNonNull(inClock, "inClock");
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.executor.shutdown();
+    this.progressExecutor.shutdown();
+    this.httpExecutor.ifPresent(ExecutorService::shutdown);
+    this.requests.close();
+  }
+
+  @Override
+  public CompletableFuture<Void> upload(
+    final BLStagingRepositoryUpload upload,
+    final BLProgressReceiverType receiver)
+  {
+    Objects.requireNonNull(upload, "upload");
+    Objects.requireNonNull(receiver, "receiver");
+
+    /*
+     * Progress events are delivered on the progress executor so that a slow
+     * receiver cannot stall uploads. The returned future completes, with the
+     * result of the upload, once all of the events have been delivered.
+     */
+
+    final var dispatcher =
+      new BLProgressDispatcher(
+        this.progressExecutor,
+        receiver,
+        BLProgressDispatcher.DEFAULT_CAPACITY
+      );
+    final var counter =
+      new BLProgressCounter(this.clock, dispatcher);
+    final var result =
+      this.requests.uploadAsync(counter, upload);
+
+    return result
+      .handle((ignored, exception) -> dispatcher.closeAsync())
+      .thenCompose(Function.identity())
+      .thenCompose(ignored -> result);
+  }
+
+  @Override
+  public CompletableFuture<BLStagingRepositoryUpload> createUploadRequest(
+    final BLStagingRepositoryUploadRequestParameters parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return this.requests.createUploadRequest(parameters);
+      } catch (final BLException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<List<BLStagingProfileRepository>> stagingRepositories()
+  {
+    return this.requests.stagingRepositoriesAsync();
+  }
+
+  @Override
+  public CompletableFuture<Optional<BLStagingProfileRepository>> stagingRepositoryGet(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+    return this.requests.stagingRepositoryAsync(id);
+  }
+
+  @Override
+  public CompletableFuture<String> stagingRepositoryCreate(
+    final BLStagingRepositoryCreate create)
+  {
+    Objects.requireNonNull(create, "create");
+    return this.requests.stagingRepositoryCreateAsync(create);
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryDrop(
+    final BLStagingRepositoryDrop drop)
+  {
+    Objects.requireNonNull(drop, "drop");
+    return this.requests.stagingRepositoryDropAsync(drop);
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryClose(
+    final BLStagingRepositoryClose close)
+  {
+    Objects.requireNonNull(close, "close");
+    return this.requests.stagingRepositoryCloseAsync(close);
+  }
+
+  @Override
+  public CompletableFuture<Void> stagingRepositoryRelease(
+    final BLStagingRepositoryRelease release)
+  {
+    Objects.requireNonNull(release, "release");
+    return this.requests.stagingRepositoryReleaseAsync(release);
+  }
+}
@@ -26,6 +26,7 @@ import com.io7m.brooklime.api.BLStagingRepositoryDrop;
 import com.io7m.brooklime.api.BLStagingRepositoryRelease;
 import com.io7m.brooklime.api.BLStagingRepositoryUpload;
 import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.api.BLUploadSinkType;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
@@ -33,6 +34,8 @@ import java.time.Clock;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 /**
@@ -42,6 +45,8 @@ import java.util.concurrent.ScheduledExecutorService;
 public final class BLNexusClient implements BLNexusClientType
 {
   private final ScheduledExecutorService executor;
+  private final ExecutorService progressExecutor;
+  private final Optional<ExecutorService> httpExecutor;
   private final HttpClient client;
   private final BLNexusRequests requests;
   private final Clock clock;
@@ -49,20 +54,30 @@ public final class BLNexusClient implements BLNexusClientType
   /**
    * A Nexus client.
    *
-   * @param inExecutor A statistics executor
-   * @param inClient   An HTTP client
-   * @param inRequests A request provider
-   * @param inClock    A clock used to track time
+   * @param inExecutor         A statistics executor
+   * @param inProgressExecutor The executor on which progress events are
+   *                           delivered
+   * @param inHttpExecutor     The executor used by the HTTP client, if the
+   *                           client owns one
+   * @param inClient           An HTTP client
+   * @param inRequests         A request provider
+   * @param inClock            A clock used to track time
    */
 
   public BLNexusClient(
     final ScheduledExecutorService inExecutor,
+    final ExecutorService inProgressExecutor,
+    final Optional<ExecutorService> inHttpExecutor,
     final HttpClient inClient,
     final BLNexusRequests inRequests,
     final Clock inClock)
   {
     this.executor =
       Objects.requireNonNull(inExecutor, "executor");
+    this.progressExecutor =
+      Objects.requireNonNull(inProgressExecutor, "progressExecutor");
+    this.httpExecutor =
+      Objects.requireNonNull(inHttpExecutor, "httpExecutor");
     this.client =
       Objects.requireNonNull(inClient, "client");
     this.requests =
@@ -76,6 +91,9 @@ public final class BLNexusClient implements BLNexusClientType
     throws IOException
   {
     this.executor.shutdown();
+    this.progressExecutor.shutdown();
+    this.httpExecutor.ifPresent(ExecutorService::shutdown);
+    this.requests.close();
   }
 
   @Override
@@ -87,10 +105,74 @@ public final class BLNexusClient implements BLNexusClientType
     Objects.requireNonNull(upload, "upload");
     Objects.requireNonNull(receiver, "receiver");
 
-    final BLProgressCounter counter =
-      new BLProgressCounter(this.clock, receiver);
+    final var dispatcher = this.dispatcherOf(receiver);
+    try {
+      this.requests.upload(
+        new BLProgressCounter(this.clock, dispatcher), upload);
+    } finally {
+      dispatcher.close();
+    }
+  }
+
+  /*
+   * Progress events are delivered on the progress executor so that a slow
+   * receiver cannot stall uploads. Operations wait for the delivery of all
+   * of their events before returning.
+   */
+
+  private BLProgressDispatcher dispatcherOf(
+    final BLProgressReceiverType receiver)
+  {
+    return new BLProgressDispatcher(
+      this.progressExecutor,
+      receiver,
+      BLProgressDispatcher.DEFAULT_CAPACITY
+    );
+  }
+
+  @Override
+  public void uploadDirectory(
+    final BLStagingRepositoryUploadRequestParameters parameters,
+    final BLProgressReceiverType receiver)
+    throws BLException
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(receiver, "receiver");
+
+    final var dispatcher = this.dispatcherOf(receiver);
+    try {
+      this.requests.uploadDirectory(
+        new BLProgressCounter(this.clock, dispatcher), parameters);
+    } finally {
+      dispatcher.close();
+    }
+  }
+
+  @Override
+  public BLUploadSinkType uploadOpen(
+    final String repositoryId,
+    final String path,
+    final OptionalLong size,
+    final BLProgressReceiverType receiver)
+    throws BLException
+  {
+    Objects.requireNonNull(repositoryId, "repositoryId");
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(size, "size");
+    Objects.requireNonNull(receiver, "receiver");
 
-    this.requests.upload(counter, upload);
+    final var dispatcher = this.dispatcherOf(receiver);
+    try {
+      return this.requests.uploadOpen(
+          new BLProgressCounter(this.clock, dispatcher),
+          repositoryId,
+          path,
+          size)
+        .setProgressDispatcher(dispatcher);
+    } catch (final BLException | RuntimeException e) {
+      dispatcher.close();
+      throw e;
+    }
   }
 
   @Override
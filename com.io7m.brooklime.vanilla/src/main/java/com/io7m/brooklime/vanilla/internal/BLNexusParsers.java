@@ -19,6 +19,7 @@ package com.io7m.brooklime.vanilla.internal;
 import com.io7m.brooklime.api.BLNexusError;
 import com.io7m.brooklime.api.BLParseException;
 import com.io7m.brooklime.api.BLStagingProfileRepository;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -48,6 +49,46 @@ public final class BLNexusParsers
 
   }
 
+  /*
+   * Read a document, recording a flight recorder event describing the
+   * parse. The stream is only wrapped in order to count octets when the
+   * event is enabled.
+   */
+
+  private static Document readXML(
+    final URI uri,
+    final InputStream stream,
+    final String documentKind)
+    throws Exception
+  {
+    final var event = new BLParseEvent();
+    if (!event.isEnabled()) {
+      return BLPositionalXML.readXML(uri, stream);
+    }
+
+    final var counted =
+      BoundedInputStream.builder()
+        .setInputStream(stream)
+        .get();
+
+    event.begin();
+    boolean succeeded = false;
+    try {
+      final var document = BLPositionalXML.readXML(uri, counted);
+      succeeded = true;
+      return document;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.setUri(uri.toString());
+        event.setDocument(documentKind);
+        event.setBytes(counted.getCount());
+        event.setSucceeded(succeeded);
+        event.commit();
+      }
+    }
+  }
+
   private static List<Element> optionalChildElements(
     final Element element,
     final String childElement)
@@ -132,7 +173,7 @@ public final class BLNexusParsers
     Objects.requireNonNull(stream, "stream");
 
     try {
-      final Document document = BLPositionalXML.readXML(uri, stream);
+      final Document document = readXML(uri, stream, "promoteResponse");
       final Element root = document.getDocumentElement();
       checkIsElement(uri, root, "promoteResponse");
 
@@ -175,7 +216,8 @@ public final class BLNexusParsers
     Objects.requireNonNull(stream, "stream");
 
     try {
-      final Document document = BLPositionalXML.readXML(uri, stream);
+      final Document document =
+        readXML(uri, stream, "stagingRepositories");
       final Element root = document.getDocumentElement();
       checkIsElement(uri, root, "stagingRepositories");
 
@@ -224,7 +266,8 @@ public final class BLNexusParsers
     Objects.requireNonNull(stream, "stream");
 
     try {
-      final Document document = BLPositionalXML.readXML(uri, stream);
+      final Document document =
+        readXML(uri, stream, "stagingProfileRepository");
       final Element root = document.getDocumentElement();
       return this.parseRepository(uri, root);
     } catch (final SAXParseException e) {
@@ -336,6 +379,73 @@ public final class BLNexusParsers
     return builder.build();
   }
 
+  /**
+   * Parse a repository directory content listing from the given stream.
+   *
+   * @param uri    The source URI
+   * @param stream The stream URI
+   *
+   * @return The items in the directory
+   *
+   * @throws BLParseException On errors
+   */
+
+  public List<BLRepositoryContentItem> parseRepositoryContent(
+    final URI uri,
+    final InputStream stream)
+    throws BLParseException
+  {
+    Objects.requireNonNull(uri, "uri");
+    Objects.requireNonNull(stream, "stream");
+
+    try {
+      final Document document = readXML(uri, stream, "content");
+      final Element root = document.getDocumentElement();
+      checkIsElement(uri, root, "content");
+
+      final Element data =
+        requireChildElement(uri, root, "data");
+      final List<Element> itemElements =
+        optionalChildElements(data, "content-item");
+
+      final var items =
+        new ArrayList<BLRepositoryContentItem>(itemElements.size());
+      for (final Element itemElement : itemElements) {
+        items.add(parseRepositoryContentItem(uri, itemElement));
+      }
+      return List.copyOf(items);
+    } catch (final SAXParseException e) {
+      throw new BLParseException(
+        e.getMessage(),
+        e,
+        e.getLineNumber(),
+        e.getColumnNumber(),
+        uri
+      );
+    } catch (final Exception e) {
+      throw new BLParseException(e.getMessage(), e, -1, -1, uri);
+    }
+  }
+
+  private static BLRepositoryContentItem parseRepositoryContentItem(
+    final URI uri,
+    final Element element)
+    throws BLParseException
+  {
+    final var pathElement =
+      requireChildElement(uri, element, "relativePath");
+    final var leafElement =
+      requireChildElement(uri, element, "leaf");
+    final var sizeElement =
+      requireChildElement(uri, element, "sizeOnDisk");
+
+    return new BLRepositoryContentItem(
+      pathElement.getTextContent().trim(),
+      Boolean.parseBoolean(leafElement.getTextContent().trim()),
+      Long.parseLong(sizeElement.getTextContent().trim())
+    );
+  }
+
   /**
    * Parse errors from the given stream.
    *
@@ -357,7 +467,7 @@ public final class BLNexusParsers
 
     try {
       final Document document =
-        BLPositionalXML.readXML(uri, stream);
+        readXML(uri, stream, "nexus-error");
       final Element root =
         document.getDocumentElement();
       return parseErrorsElement(uri, root);
@@ -16,7 +16,9 @@
 
 package com.io7m.brooklime.vanilla.internal;
 
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
 import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLFileDigests;
 import com.io7m.brooklime.api.BLHTTPErrorException;
 import com.io7m.brooklime.api.BLHTTPFailureException;
 import com.io7m.brooklime.api.BLNexusClientConfiguration;
@@ -28,30 +30,55 @@ import com.io7m.brooklime.api.BLStagingRepositoryDrop;
 import com.io7m.brooklime.api.BLStagingRepositoryRelease;
 import com.io7m.brooklime.api.BLStagingRepositoryUpload;
 import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.api.BLUploadMode;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.isChecksumFile;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.closeDigestCache;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.openDigestCache;
+import static com.io7m.brooklime.vanilla.internal.BLUploadPlanning.excludeJournaled;
+import static com.io7m.brooklime.vanilla.internal.BLUploadPlanning.findKnownDigests;
+import static com.io7m.brooklime.vanilla.internal.BLUploadPlanning.isUploadResource;
+
 /**
  * A Nexus request provider.
  */
@@ -62,17 +89,24 @@ public final class BLNexusRequests
     LoggerFactory.getLogger(BLNexusRequests.class);
   private static final Pattern TRAILING_SLASHES =
     Pattern.compile("/+$");
+  private static final Pattern LEADING_SLASHES =
+    Pattern.compile("^/+");
 
   private final ScheduledExecutorService executor;
+  private final STStatisticsTicker ticker;
   private final HttpClient client;
   private final BLNexusParsers parsers;
   private final BLNexusClientConfiguration configuration;
   private final XMLOutputFactory outputs;
+  private final BLUploads uploads;
+  private final BLArchives archives;
 
   /**
-   * A Nexus request provider.
+   * A Nexus request provider. The provider takes ownership of the given
+   * ticker, and closes it when the provider is closed.
    *
    * @param inExecutor      An executor service
+   * @param inTicker        The ticker that samples transfer statistics
    * @param inClient        An HTTP client
    * @param inNexusParsers  A provider of Nexus parsers
    * @param inConfiguration The client configuration
@@ -80,12 +114,15 @@ public final class BLNexusRequests
 
   public BLNexusRequests(
     final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final HttpClient inClient,
     final BLNexusParsers inNexusParsers,
     final BLNexusClientConfiguration inConfiguration)
   {
     this.executor =
       Objects.requireNonNull(inExecutor, "inExecutor");
+    this.ticker =
+      Objects.requireNonNull(inTicker, "inTicker");
     this.client =
       Objects.requireNonNull(inClient, "inClient");
     this.parsers =
@@ -94,15 +131,51 @@ public final class BLNexusRequests
       Objects.requireNonNull(inConfiguration, "inConfiguration");
     this.outputs =
       XMLOutputFactory.newFactory();
+    this.uploads =
+      new BLUploads(inExecutor, inTicker, inClient, inConfiguration);
+    this.archives =
+      new BLArchives();
+  }
+
+  /**
+   * Close any archives that were opened to upload files, the clients that
+   * were created to upload files to mirrors, and the statistics ticker.
+   */
+
+  public void close()
+  {
+    this.archives.close();
+    this.uploads.close();
+    this.ticker.close();
   }
 
-  private static String scrubTrailingSlashes(
+  /*
+   * Resolve the base directory of the given parameters, opening it as a zip
+   * archive if it is a regular file.
+   */
+
+  private BLStagingRepositoryUploadRequestParameters resolveArchive(
+    final BLStagingRepositoryUploadRequestParameters parameters)
+    throws BLException
+  {
+    final var base = parameters.baseDirectory();
+    try {
+      final var directory = this.archives.directoryOf(base);
+      return directory.equals(base)
+        ? parameters
+        : parameters.withBaseDirectory(directory);
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+  }
+
+  static String scrubTrailingSlashes(
     final String baseURI)
   {
     return TRAILING_SLASHES.matcher(baseURI).replaceAll("");
   }
 
-  private static String translateFileToURIPath(
+  static String translateFileToURIPath(
     final Path file)
   {
     final var filesystem = file.getFileSystem();
@@ -120,114 +193,340 @@ public final class BLNexusRequests
   }
 
   /**
-   * Request a list of staging repositories from the server.
-   *
-   * @return A list of staging repositories
+   * A function that interprets a response from the server.
    *
-   * @throws BLException On errors
+   * @param <T> The type of returned values
    */
 
-  public List<BLStagingProfileRepository> stagingRepositories()
+  private interface ResponseHandlerType<T>
+  {
+    T handle(
+      URI uri,
+      int status,
+      String contentType,
+      InputStream body)
+      throws Exception;
+  }
+
+  /**
+   * Send a request and interpret the response, blocking until the response
+   * has been received.
+   */
+
+  private <T> T send(
+    final HttpRequest request,
+    final ResponseHandlerType<T> handler)
     throws BLException
   {
-    final var baseURI = this.configuration.baseURI().toString();
-    final var uriBuilder = new StringBuilder();
-    uriBuilder.append(scrubTrailingSlashes(baseURI));
-    uriBuilder.append("/service/local/staging/profile_repositories");
+    return this.send(request, Optional.empty(), handler);
+  }
 
-    try {
-      final var uri =
-        URI.create(uriBuilder.toString());
+  /**
+   * Send a request concerning the given repository and interpret the
+   * response, blocking until the response has been received. The response
+   * is interpreted as it is received, and so the flight recorder event for
+   * the exchange includes the interpretation.
+   */
 
-      final var httpGet =
-        HttpRequest.newBuilder(uri)
-          .GET()
-          .build();
+  private <T> T send(
+    final HttpRequest request,
+    final Optional<String> repositoryId,
+    final ResponseHandlerType<T> handler)
+    throws BLException
+  {
+    final var exchange = new BLHTTPExchangeEvent();
+    exchange.begin();
 
+    int status = 0;
+    BoundedInputStream counted = null;
+    try {
       final var response =
-        this.client.send(httpGet, BodyHandlers.ofInputStream());
-
-      final var status = response.statusCode();
-      if (status >= 400) {
-        throw new BLHTTPErrorException(
-          status,
-          errorMessageOf(status, response),
-          this.parsers.parseErrorsIfPresent(
-            contentTypeOf(response),
-            uri,
-            response.body())
-        );
+        this.client.send(request, BodyHandlers.ofInputStream());
+      status = response.statusCode();
+
+      InputStream stream = response.body();
+      if (exchange.isEnabled()) {
+        counted = BoundedInputStream.builder()
+          .setInputStream(stream)
+          .get();
+        stream = counted;
       }
 
-      return this.parsers.parseRepositories(uri, response.body());
+      try (var body = stream) {
+        return handler.handle(
+          request.uri(),
+          response.statusCode(),
+          contentTypeOf(response),
+          body
+        );
+      }
     } catch (final BLHTTPErrorException e) {
       throw e;
     } catch (final Exception e) {
       throw new BLHTTPFailureException(e);
+    } finally {
+      recordExchange(
+        exchange,
+        request,
+        repositoryId,
+        status,
+        counted == null ? 0L : counted.getCount()
+      );
     }
   }
 
-  private static String errorMessageOf(
+  private static void recordExchange(
+    final BLHTTPExchangeEvent exchange,
+    final HttpRequest request,
+    final Optional<String> repositoryId,
     final int status,
-    final HttpResponse<?> response)
+    final long responseBytes)
+  {
+    exchange.end();
+    if (exchange.shouldCommit()) {
+      exchange.setRepositoryId(repositoryId.orElse(null));
+      exchange.setMethod(request.method());
+      exchange.setUri(request.uri().toString());
+      exchange.setRequestBytes(
+        request.bodyPublisher()
+          .map(HttpRequest.BodyPublisher::contentLength)
+          .orElse(Long.valueOf(0L))
+          .longValue());
+      exchange.setResponseBytes(responseBytes);
+      exchange.setStatus(status);
+      exchange.commit();
+    }
+  }
+
+  /**
+   * Send a request and interpret the response without blocking. The response
+   * body is received in full before it is interpreted, so interpretation
+   * never waits on the network.
+   */
+
+  private <T> CompletableFuture<T> sendAsync(
+    final HttpRequest request,
+    final ResponseHandlerType<T> handler)
+  {
+    return this.sendAsync(request, Optional.empty(), handler);
+  }
+
+  /**
+   * Send a request concerning the given repository and interpret the
+   * response without blocking.
+   */
+
+  private <T> CompletableFuture<T> sendAsync(
+    final HttpRequest request,
+    final Optional<String> repositoryId,
+    final ResponseHandlerType<T> handler)
+  {
+    final var exchange = new BLHTTPExchangeEvent();
+    exchange.begin();
+
+    return this.client.sendAsync(request, BodyHandlers.ofByteArray())
+      .handle((response, exception) -> {
+        recordExchange(
+          exchange,
+          request,
+          repositoryId,
+          response == null ? 0 : response.statusCode(),
+          response == null ? 0L : response.body().length
+        );
+
+        if (exception != null) {
+          throw new CompletionException(
+            new BLHTTPFailureException(unwrapCompletion(exception)));
+        }
+
+        try {
+          return handler.handle(
+            request.uri(),
+            response.statusCode(),
+            contentTypeOf(response),
+            new ByteArrayInputStream(response.body())
+          );
+        } catch (final BLHTTPErrorException e) {
+          throw new CompletionException(e);
+        } catch (final Exception e) {
+          throw new CompletionException(new BLHTTPFailureException(e));
+        }
+      });
+  }
+
+  static Throwable unwrapCompletion(
+    final Throwable exception)
+  {
+    var current = exception;
+    while (current instanceof CompletionException
+           && current.getCause() != null) {
+      current = current.getCause();
+    }
+    return current;
+  }
+
+  private void checkStatus(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    if (status >= 400) {
+      throw new BLHTTPErrorException(
+        status,
+        errorMessageOf(status),
+        this.parsers.parseErrorsIfPresent(contentType, uri, body)
+      );
+    }
+  }
+
+  private static String errorMessageOf(
+    final int status)
   {
     return "Error: %d".formatted(Integer.valueOf(status));
   }
 
+  /*
+   * Start building a request, applying the configured request timeout.
+   */
+
+  private HttpRequest.Builder newRequest(
+    final URI uri)
+  {
+    final var builder = HttpRequest.newBuilder(uri);
+    this.configuration.requestTimeout().ifPresent(builder::timeout);
+    return builder;
+  }
+
+  private URI stagingRepositoriesURI()
+  {
+    final var baseURI = this.configuration.baseURI().toString();
+    final var uriBuilder = new StringBuilder();
+    uriBuilder.append(scrubTrailingSlashes(baseURI));
+    uriBuilder.append("/service/local/staging/profile_repositories");
+    return URI.create(uriBuilder.toString());
+  }
+
+  private List<BLStagingProfileRepository> handleStagingRepositories(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    this.checkStatus(uri, status, contentType, body);
+    return this.parsers.parseRepositories(uri, body);
+  }
+
   /**
-   * Request a staging repository from the server.
-   *
-   * @param repositoryId The repository ID
+   * Request a list of staging repositories from the server.
    *
-   * @return A staging repository
+   * @return A list of staging repositories
    *
    * @throws BLException On errors
    */
 
-  public Optional<BLStagingProfileRepository> stagingRepository(
-    final String repositoryId)
+  public List<BLStagingProfileRepository> stagingRepositories()
     throws BLException
+  {
+    return this.send(
+      this.newRequest(this.stagingRepositoriesURI())
+        .GET()
+        .build(),
+      this::handleStagingRepositories
+    );
+  }
+
+  /**
+   * Request a list of staging repositories from the server without blocking.
+   *
+   * @return A list of staging repositories
+   *
+   * @see #stagingRepositories()
+   */
+
+  public CompletableFuture<List<BLStagingProfileRepository>>
+  stagingRepositoriesAsync()
+  {
+    return this.sendAsync(
+      this.newRequest(this.stagingRepositoriesURI())
+        .GET()
+        .build(),
+      this::handleStagingRepositories
+    );
+  }
+
+  private URI stagingRepositoryURI(
+    final String repositoryId)
   {
     final var baseURI = this.configuration.baseURI().toString();
     final var uriBuilder = new StringBuilder();
     uriBuilder.append(scrubTrailingSlashes(baseURI));
     uriBuilder.append("/service/local/staging/repository/");
     uriBuilder.append(repositoryId);
+    return URI.create(uriBuilder.toString());
+  }
 
-    try {
-      final var uri =
-        URI.create(uriBuilder.toString());
+  private Optional<BLStagingProfileRepository> handleStagingRepository(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    if (status == 404) {
+      return Optional.empty();
+    }
 
-      final var httpGet =
-        HttpRequest.newBuilder(uri)
-          .GET()
-          .build();
+    this.checkStatus(uri, status, contentType, body);
+    return Optional.of(this.parsers.parseRepository(uri, body));
+  }
 
-      final var response =
-        this.client.send(httpGet, BodyHandlers.ofInputStream());
+  /**
+   * Request a staging repository from the server.
+   *
+   * @param repositoryId The repository ID
+   *
+   * @return A staging repository
+   *
+   * @throws BLException On errors
+   */
 
-      final var status = response.statusCode();
-      if (status == 404) {
-        return Optional.empty();
-      }
+  public Optional<BLStagingProfileRepository> stagingRepository(
+    final String repositoryId)
+    throws BLException
+  {
+    return this.send(
+      this.newRequest(this.stagingRepositoryURI(repositoryId))
+        .GET()
+        .build(),
+      Optional.of(repositoryId),
+      this::handleStagingRepository
+    );
+  }
 
-      if (status >= 400) {
-        throw new BLHTTPErrorException(
-          status,
-          errorMessageOf(status, response),
-          this.parsers.parseErrorsIfPresent(
-            contentTypeOf(response),
-            uri,
-            response.body())
-        );
-      }
+  /**
+   * Request a staging repository from the server without blocking.
+   *
+   * @param repositoryId The repository ID
+   *
+   * @return A staging repository
+   *
+   * @see #stagingRepository(String)
+   */
 
-      return Optional.of(this.parsers.parseRepository(uri, response.body()));
-    } catch (final BLHTTPErrorException e) {
-      throw e;
-    } catch (final Exception e) {
-      throw new BLHTTPFailureException(e);
-    }
+  public CompletableFuture<Optional<BLStagingProfileRepository>>
+  stagingRepositoryAsync(
+    final String repositoryId)
+  {
+    return this.sendAsync(
+      this.newRequest(this.stagingRepositoryURI(repositoryId))
+        .GET()
+        .build(),
+      Optional.of(repositoryId),
+      this::handleStagingRepository
+    );
   }
 
   private byte[] stagingRepositoryCreateToXML(
@@ -309,6 +608,35 @@ public final class BLNexusRequests
     }
   }
 
+  private HttpRequest stagingRepositoryCreateRequest(
+    final BLStagingRepositoryCreate create)
+    throws IOException
+  {
+    final var baseURI = this.configuration.baseURI().toString();
+    final var uriBuilder = new StringBuilder();
+    uriBuilder.append(scrubTrailingSlashes(baseURI));
+    uriBuilder.append("/service/local/staging/profiles/");
+    uriBuilder.append(this.configuration.stagingProfileId());
+    uriBuilder.append("/start");
+
+    return this.newRequest(URI.create(uriBuilder.toString()))
+      .POST(BodyPublishers.ofByteArray(
+        this.stagingRepositoryCreateToXML(create)))
+      .header("Content-Type", "application/xml")
+      .build();
+  }
+
+  private String handleStagingRepositoryCreate(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    this.checkStatus(uri, status, contentType, body);
+    return this.parsers.parseStagingRepositoryCreate(uri, body);
+  }
+
   /**
    * Create a staging repository on the server.
    *
@@ -323,53 +651,46 @@ public final class BLNexusRequests
     final BLStagingRepositoryCreate create)
     throws BLException
   {
-    final var baseURI = this.configuration.baseURI().toString();
-    final var uriBuilder = new StringBuilder();
-    uriBuilder.append(scrubTrailingSlashes(baseURI));
-    uriBuilder.append("/service/local/staging/profiles/");
-    uriBuilder.append(this.configuration.stagingProfileId());
-    uriBuilder.append("/start");
-
+    final HttpRequest request;
     try {
-      final var uri =
-        URI.create(uriBuilder.toString());
-
-      final BodyPublisher body;
-      try {
-        body = BodyPublishers.ofByteArray(
-          this.stagingRepositoryCreateToXML(create)
-        );
-      } catch (final IOException e) {
-        throw new BLException(e);
-      }
-
-      final var httpPost =
-        HttpRequest.newBuilder(uri)
-          .POST(body)
-          .header("Content-Type", "application/xml")
-          .build();
+      request = this.stagingRepositoryCreateRequest(create);
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+    return this.send(request, this::handleStagingRepositoryCreate);
+  }
 
-      final var response =
-        this.client.send(httpPost, BodyHandlers.ofInputStream());
-
-      final var status = response.statusCode();
-      if (status >= 400) {
-        throw new BLHTTPErrorException(
-          status,
-          errorMessageOf(status, response),
-          this.parsers.parseErrorsIfPresent(
-            contentTypeOf(response),
-            uri,
-            response.body())
-        );
-      }
+  /**
+   * Create a staging repository on the server without blocking.
+   *
+   * @param create The repository creation info
+   *
+   * @return A staging repository ID
+   *
+   * @see #stagingRepositoryCreate(BLStagingRepositoryCreate)
+   */
 
-      return this.parsers.parseStagingRepositoryCreate(uri, response.body());
-    } catch (final BLHTTPErrorException e) {
-      throw e;
-    } catch (final Exception e) {
-      throw new BLHTTPFailureException(e);
+  public CompletableFuture<String> stagingRepositoryCreateAsync(
+    final BLStagingRepositoryCreate create)
+  {
+    final HttpRequest request;
+    try {
+      request = this.stagingRepositoryCreateRequest(create);
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
     }
+    return this.sendAsync(request, this::handleStagingRepositoryCreate);
+  }
+
+  private URI bulkURI(
+    final String operation)
+  {
+    final var baseURI = this.configuration.baseURI().toString();
+    final var uriBuilder = new StringBuilder();
+    uriBuilder.append(scrubTrailingSlashes(baseURI));
+    uriBuilder.append("/service/local/staging/bulk/");
+    uriBuilder.append(operation);
+    return URI.create(uriBuilder.toString());
   }
 
   /**
@@ -385,14 +706,29 @@ public final class BLNexusRequests
     final BLStagingRepositoryDrop drop)
     throws BLException, IOException
   {
-    final var baseURI = this.configuration.baseURI().toString();
-    final var uriBuilder = new StringBuilder();
-    uriBuilder.append(scrubTrailingSlashes(baseURI));
-    uriBuilder.append("/service/local/staging/bulk/drop");
-
-    final var targetURI = uriBuilder.toString();
     this.executeBulkRequest(
-      targetURI, this.stagingRepositoryBulkRequestToXML(drop));
+      this.bulkURI("drop"), this.stagingRepositoryBulkRequestToXML(drop));
+  }
+
+  /**
+   * Drop a staging repository on the server without blocking.
+   *
+   * @param drop The repository info
+   *
+   * @return The operation in progress
+   *
+   * @see #stagingRepositoryDrop(BLStagingRepositoryDrop)
+   */
+
+  public CompletableFuture<Void> stagingRepositoryDropAsync(
+    final BLStagingRepositoryDrop drop)
+  {
+    try {
+      return this.executeBulkRequestAsync(
+        this.bulkURI("drop"), this.stagingRepositoryBulkRequestToXML(drop));
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
   }
 
   /**
@@ -408,14 +744,29 @@ public final class BLNexusRequests
     final BLStagingRepositoryClose close)
     throws BLException, IOException
   {
-    final var baseURI = this.configuration.baseURI().toString();
-    final var uriBuilder = new StringBuilder();
-    uriBuilder.append(scrubTrailingSlashes(baseURI));
-    uriBuilder.append("/service/local/staging/bulk/close");
-
-    final var targetURI = uriBuilder.toString();
     this.executeBulkRequest(
-      targetURI, this.stagingRepositoryBulkRequestToXML(close));
+      this.bulkURI("close"), this.stagingRepositoryBulkRequestToXML(close));
+  }
+
+  /**
+   * Close a staging repository on the server without blocking.
+   *
+   * @param close The repository info
+   *
+   * @return The operation in progress
+   *
+   * @see #stagingRepositoryClose(BLStagingRepositoryClose)
+   */
+
+  public CompletableFuture<Void> stagingRepositoryCloseAsync(
+    final BLStagingRepositoryClose close)
+  {
+    try {
+      return this.executeBulkRequestAsync(
+        this.bulkURI("close"), this.stagingRepositoryBulkRequestToXML(close));
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
   }
 
   /**
@@ -431,68 +782,80 @@ public final class BLNexusRequests
     final BLStagingRepositoryRelease release)
     throws BLException, IOException
   {
-    final var baseURI = this.configuration.baseURI().toString();
-    final var uriBuilder = new StringBuilder();
-    uriBuilder.append(scrubTrailingSlashes(baseURI));
-    uriBuilder.append("/service/local/staging/bulk/promote");
-
-    final var targetURI = uriBuilder.toString();
     this.executeBulkRequest(
-      targetURI, this.stagingRepositoryReleaseToXML(release));
+      this.bulkURI("promote"), this.stagingRepositoryReleaseToXML(release));
   }
 
-  private void executeBulkRequest(
-    final String targetURI,
-    final byte[] postData)
-    throws BLException
+  /**
+   * Release a staging repository on the server without blocking.
+   *
+   * @param release The repository info
+   *
+   * @return The operation in progress
+   *
+   * @see #stagingRepositoryRelease(BLStagingRepositoryRelease)
+   */
+
+  public CompletableFuture<Void> stagingRepositoryReleaseAsync(
+    final BLStagingRepositoryRelease release)
   {
     try {
-      final var uri =
-        URI.create(targetURI);
-
-      final var httpPost =
-        HttpRequest.newBuilder(uri)
-          .POST(BodyPublishers.ofByteArray(postData))
-          .header("Content-Type", "application/xml")
-          .build();
+      return this.executeBulkRequestAsync(
+        this.bulkURI("promote"), this.stagingRepositoryReleaseToXML(release));
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
+  }
 
-      final var response =
-        this.client.send(httpPost, BodyHandlers.ofInputStream());
-
-      final var status = response.statusCode();
-      if (status >= 400) {
-        throw new BLHTTPErrorException(
-          status,
-          errorMessageOf(status, response),
-          this.parsers.parseErrorsIfPresent(
-            contentTypeOf(response),
-            uri,
-            response.body())
-        );
-      }
+  private HttpRequest bulkRequest(
+    final URI uri,
+    final byte[] postData)
+  {
+    return this.newRequest(uri)
+      .POST(BodyPublishers.ofByteArray(postData))
+      .header("Content-Type", "application/xml")
+      .build();
+  }
 
-      if (status != 201) {
-        throw new BLHTTPErrorException(
-          status,
-          String.format(
-            "Expected server to return 201 Created, but received: %d",
-            Integer.valueOf(status)
-          ),
-          this.parsers.parseErrorsIfPresent(
-            contentTypeOf(response),
-            uri,
-            response.body())
-        );
-      }
-    } catch (final BLHTTPErrorException e) {
-      throw e;
-    } catch (final Exception e) {
-      throw new BLHTTPFailureException(e);
+  private Void handleBulkRequest(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    this.checkStatus(uri, status, contentType, body);
+
+    if (status != 201) {
+      throw new BLHTTPErrorException(
+        status,
+        String.format(
+          "Expected server to return 201 Created, but received: %d",
+          Integer.valueOf(status)
+        ),
+        this.parsers.parseErrorsIfPresent(contentType, uri, body)
+      );
     }
+    return null;
   }
 
-  private static String contentTypeOf(
-    final HttpResponse<InputStream> response)
+  private void executeBulkRequest(
+    final URI uri,
+    final byte[] postData)
+    throws BLException
+  {
+    this.send(this.bulkRequest(uri, postData), this::handleBulkRequest);
+  }
+
+  private CompletableFuture<Void> executeBulkRequestAsync(
+    final URI uri,
+    final byte[] postData)
+  {
+    return this.sendAsync(this.bulkRequest(uri, postData), this::handleBulkRequest);
+  }
+
+  static String contentTypeOf(
+    final HttpResponse<?> response)
   {
     return response.headers()
       .firstValue("Content-Type")
@@ -500,9 +863,11 @@ public final class BLNexusRequests
   }
 
   /**
-   * Create an upload request for the server.
+   * Create an upload request for the server. If the base directory of the
+   * parameters is a zip archive, the files of the upload are the entries of
+   * the archive, and are read from the archive without extracting them.
    *
-   * @param parameters The upload info
+   * @param requested The upload info
    *
    * @return An upload
    *
@@ -510,23 +875,58 @@ public final class BLNexusRequests
    */
 
   public BLStagingRepositoryUpload createUploadRequest(
-    final BLStagingRepositoryUploadRequestParameters parameters)
+    final BLStagingRepositoryUploadRequestParameters requested)
     throws BLException
   {
+    final var parameters = this.resolveArchive(requested);
     try {
       final var absoluteBase =
         parameters.baseDirectory().toAbsolutePath();
 
-      final List<Path> files;
-      try (var pathStream = Files.walk(absoluteBase)) {
-        files = pathStream.filter(Files::isRegularFile)
-          .map(absoluteBase::relativize)
-          .sorted()
-          .collect(Collectors.toList());
+      final var journal =
+        parameters.journal().map(Path::toAbsolutePath);
+      final var digestCachePath =
+        parameters.digestCache().map(Path::toAbsolutePath);
+
+      final var attributes = BLFileScanner.scan(
+        absoluteBase,
+        BLFileSelection.of(parameters),
+        p -> isUploadResource(journal, digestCachePath, p)
+      );
+
+      List<Path> files = List.copyOf(attributes.keySet());
+
+      if (parameters.resume()) {
+        files = excludeJournaled(
+          parameters.repositoryId(), journal.orElseThrow(), files, attributes);
       }
 
-      for (final var file : files) {
-        LOG.debug("upload {} -> /{}", file.toAbsolutePath(), file);
+      final var knownDigests = new HashMap<Path, BLFileDigests>();
+      final var digestCache = openDigestCache(digestCachePath);
+      try {
+        if (parameters.skipExisting()) {
+          files = this.excludeExisting(
+            absoluteBase,
+            parameters.repositoryId(),
+            parameters.parallelism(),
+            digestCache,
+            files,
+            attributes);
+        }
+
+        if (digestCache.isPresent()) {
+          findKnownDigests(digestCache.get(), files, attributes, knownDigests);
+        }
+      } finally {
+        closeDigestCache(digestCache);
+      }
+
+      files = BLUploadOrderings.order(parameters.ordering(), files, attributes);
+      LOG.debug("upload {} files from {}", Integer.valueOf(files.size()), absoluteBase);
+      if (LOG.isTraceEnabled()) {
+        for (final var file : files) {
+          LOG.trace("upload {} -> /{}", file.toAbsolutePath(), file);
+        }
       }
 
       return BLStagingRepositoryUpload.builder()
@@ -535,14 +935,309 @@ public final class BLNexusRequests
         .setRepositoryId(parameters.repositoryId())
         .setRetryCount(parameters.retryCount())
         .setRetryDelay(parameters.retryDelay())
+        .setParallelism(parameters.parallelism())
+        .setAdaptiveConcurrency(parameters.adaptiveConcurrency())
+        .setUploadMode(parameters.uploadMode())
+        .setJournal(journal)
+        .setChecksums(parameters.checksums())
+        .setDigestCache(digestCachePath)
+        .setKnownDigests(knownDigests)
+        .setFileSizes(sizesOf(files, attributes))
+        .setMirrors(parameters.mirrors())
+        .setSources(parameters.sources())
         .build();
     } catch (final IOException e) {
       throw new BLException(e);
     }
   }
 
+  private static Map<Path, Long> sizesOf(
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes)
+  {
+    final var sizes = new HashMap<Path, Long>(files.size());
+    for (final var file : files) {
+      sizes.put(file, Long.valueOf(attributes.get(file).size()));
+    }
+    return sizes;
+  }
+
+  private URI repositoryContentURI(
+    final String repositoryId,
+    final String path)
+  {
+    final var baseURI = this.configuration.baseURI().toString();
+    final var uriBuilder = new StringBuilder(128);
+    uriBuilder.append(scrubTrailingSlashes(baseURI));
+    uriBuilder.append("/service/local/repositories/");
+    uriBuilder.append(repositoryId);
+    uriBuilder.append("/content/");
+    uriBuilder.append(path);
+    return URI.create(uriBuilder.toString());
+  }
+
+  private List<BLRepositoryContentItem> handleRepositoryContent(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    if (status == 404) {
+      return List.of();
+    }
+
+    this.checkStatus(uri, status, contentType, body);
+    return this.parsers.parseRepositoryContent(uri, body);
+  }
+
+  private Optional<String> handleChecksum(
+    final URI uri,
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException, IOException
+  {
+    if (status == 404) {
+      return Optional.empty();
+    }
+
+    this.checkStatus(uri, status, contentType, body);
+    return checksumOf(body.readAllBytes());
+  }
+
+  /**
+   * Extract the checksum from the content of a checksum file: The first
+   * whitespace-separated word, which may be followed by a file name.
+   */
+
+  private static Optional<String> checksumOf(
+    final byte[] data)
+  {
+    final var text =
+      StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(data))
+        .toString()
+        .trim();
+    if (text.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(text.split("\\s+")[0].toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * List the content of the given directory of a repository. A directory
+   * that does not exist is treated as being empty.
+   */
+
+  private List<BLRepositoryContentItem> repositoryContent(
+    final String repositoryId,
+    final String directory)
+    throws BLException
+  {
+    final var path = directory.isEmpty() ? "" : directory + "/";
+    return this.send(
+      this.newRequest(this.repositoryContentURI(repositoryId, path))
+        .header("Accept", "application/xml")
+        .GET()
+        .build(),
+      Optional.of(repositoryId),
+      this::handleRepositoryContent
+    );
+  }
+
+  private CompletableFuture<Optional<String>> repositoryChecksum(
+    final String repositoryId,
+    final String checksumFile)
+  {
+    return this.sendAsync(
+      this.newRequest(this.repositoryContentURI(repositoryId, checksumFile))
+        .GET()
+        .build(),
+      Optional.of(repositoryId),
+      this::handleChecksum
+    );
+  }
+
+  private static Optional<String> awaitChecksum(
+    final CompletableFuture<Optional<String>> future)
+    throws BLException
+  {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BLException(e);
+    } catch (final ExecutionException e) {
+      final var cause = unwrapCompletion(e.getCause());
+      if (cause instanceof BLException) {
+        throw (BLException) cause;
+      }
+      throw new BLHTTPFailureException(cause);
+    }
+  }
+
+  private static String sha1Of(
+    final Optional<BLDigestCache> digestCache,
+    final Path actual,
+    final String path)
+    throws IOException
+  {
+    final var algorithms = Set.of(BLChecksumAlgorithm.SHA1);
+    final var digests = digestCache.isPresent()
+      ? digestCache.get().digestsOf(actual, path, algorithms)
+      : BLDigests.digestsOf(actual, algorithms);
+    return digests.get(BLChecksumAlgorithm.SHA1);
+  }
+
+  /**
+   * Remove any files that are already present in the staging repository with
+   * the same size and SHA-1 checksum. Only the repository directories that
+   * contain local files are listed, and up to {@code parallelism} directories
+   * are examined concurrently.
+   */
+
+  private List<Path> excludeExisting(
+    final Path base,
+    final String repositoryId,
+    final int parallelism,
+    final Optional<BLDigestCache> digestCache,
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes)
+    throws BLException
+  {
+    final var byDirectory = new TreeMap<String, List<Path>>();
+    for (final var file : files) {
+      final var parent = file.getParent();
+      final var directory =
+        parent == null ? "" : translateFileToURIPath(parent);
+      byDirectory.computeIfAbsent(directory, k -> new ArrayList<>())
+        .add(file);
+    }
+
+    final var directories = List.copyOf(byDirectory.keySet());
+    final var existing = ConcurrentHashMap.<Path>newKeySet();
+    final var uploader =
+      new BLConcurrentUploader(this.configuration.executionMode(), parallelism);
+
+    uploader.execute(
+      new BLProgressCounter(Clock.systemUTC(), event -> {
+      }),
+      directories.size(),
+      (counter, index) -> {
+        final var directory = directories.get(index);
+        final var remote = new HashMap<String, BLRepositoryContentItem>();
+        for (final var item : this.repositoryContent(repositoryId, directory)) {
+          if (item.leaf()) {
+            remote.put(LEADING_SLASHES.matcher(item.relativePath())
+                         .replaceAll(""), item);
+          }
+        }
+
+        existing.addAll(this.presentIn(
+          base,
+          repositoryId,
+          digestCache,
+          byDirectory.get(directory),
+          attributes,
+          remote));
+      });
+
+    if (!existing.isEmpty()) {
+      LOG.info(
+        "{} of {} files are already present in the repository",
+        Integer.valueOf(existing.size()),
+        Integer.valueOf(files.size()));
+    }
+
+    return files.stream()
+      .filter(file -> !existing.contains(file))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Determine which of the files of a single directory are already present
+   * in the repository. A file is present if the repository holds a file of
+   * the same size whose {@code .sha1} checksum file matches the local
+   * content. A local checksum file is itself present if the repository holds
+   * a checksum file of the same size naming the same checksum. The remote
+   * checksum files of the directory are requested concurrently, and each is
+   * requested at most once.
+   */
+
+  private List<Path> presentIn(
+    final Path base,
+    final String repositoryId,
+    final Optional<BLDigestCache> digestCache,
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes,
+    final Map<String, BLRepositoryContentItem> remote)
+    throws BLException
+  {
+    final var candidates = new ArrayList<Path>(files.size());
+    final var checksums =
+      new HashMap<String, CompletableFuture<Optional<String>>>();
+
+    for (final var file : files) {
+      final var path = translateFileToURIPath(file);
+      final var item = remote.get(path);
+      if (item == null || item.size() != attributes.get(file).size()) {
+        continue;
+      }
+      checksums.computeIfAbsent(
+        checksumFileOf(file, path),
+        p -> this.repositoryChecksum(repositoryId, p));
+      candidates.add(file);
+    }
+
+    final var present = new ArrayList<Path>(candidates.size());
+    try {
+      for (final var file : candidates) {
+        final var path = translateFileToURIPath(file);
+        final var actual = base.resolve(file);
+        final var remoteChecksum =
+          awaitChecksum(checksums.get(checksumFileOf(file, path)));
+        if (remoteChecksum.isEmpty()) {
+          continue;
+        }
+
+        final var localChecksum = isChecksumFile(file)
+          ? checksumOf(Files.readAllBytes(actual))
+          : Optional.of(sha1Of(digestCache, actual, path));
+        if (!remoteChecksum.equals(localChecksum)) {
+          continue;
+        }
+
+        LOG.debug("skip {} (already present in the repository)", file);
+        present.add(file);
+      }
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+    return present;
+  }
+
   /**
-   * Execute an upload request for the server.
+   * @return The repository path of the checksum file that identifies the
+   * content of the given file: The file itself if it is a checksum file,
+   * and its {@code .sha1} checksum file otherwise
+   */
+
+  private static String checksumFileOf(
+    final Path file,
+    final String path)
+  {
+    if (isChecksumFile(file)) {
+      return path;
+    }
+    return path + "." + BLChecksumAlgorithm.SHA1.extension();
+  }
+
+  /**
+   * Execute an upload request for the server. In
+   * {@link BLUploadMode#FILES} mode, up to
+   * {@link BLStagingRepositoryUpload#parallelism()} files are uploaded
+   * concurrently. In {@link BLUploadMode#BUNDLE} mode, all files are
+   * streamed to the server in a single request.
    *
    * @param counter The progress counter
    * @param upload  The upload
@@ -555,43 +1250,83 @@ public final class BLNexusRequests
     final BLStagingRepositoryUpload upload)
     throws BLException
   {
-    final var files = upload.files();
-    for (int fileIndex = 0, fileMax = files.size(); fileIndex < fileMax; ++fileIndex) {
-      final var file = files.get(fileIndex);
-
-      final var actual =
-        upload.baseDirectory().resolve(file).toAbsolutePath();
-
-      final var baseURI = this.configuration.baseURI().toString();
-      final var uriBuilder = new StringBuilder(128);
-      uriBuilder.append(scrubTrailingSlashes(baseURI));
-      uriBuilder.append("/service/local/staging/deployByRepositoryId/");
-      uriBuilder.append(upload.repositoryId());
-      uriBuilder.append("/");
-      uriBuilder.append(translateFileToURIPath(file));
-      final var targetURI = URI.create(uriBuilder.toString());
-
-      final var serviceUriBuilder = new StringBuilder(128);
-      serviceUriBuilder.append(scrubTrailingSlashes(baseURI));
-      serviceUriBuilder.append("/service/local/staging/repository/");
-      serviceUriBuilder.append(upload.repositoryId());
-      final var serviceURI = URI.create(serviceUriBuilder.toString());
-
-      final var uploader =
-        new BLRetryingUploader(
-          this.executor,
-          this.client,
-          serviceURI,
-          targetURI,
-          actual,
-          fileIndex,
-          fileMax,
-          upload.retryDelay(),
-          upload.retryCount(),
-          counter
-        );
+    this.uploads.upload(counter, upload);
+  }
 
-      uploader.execute();
+  /**
+   * Execute an upload request for the server without blocking. In
+   * {@link BLUploadMode#FILES} mode, up to
+   * {@link BLStagingRepositoryUpload#parallelism()} files are uploaded
+   * concurrently, but no threads are created to do so.
+   *
+   * @param counter The progress counter
+   * @param upload  The upload
+   *
+   * @return The upload in progress
+   *
+   * @see #upload(BLProgressCounter, BLStagingRepositoryUpload)
+   */
+
+  public CompletableFuture<Void> uploadAsync(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+  {
+    return this.uploads.uploadAsync(counter, upload);
+  }
+
+  /**
+   * Open an upload of a single file to the given staging repository,
+   * returning a sink to which the content of the file is written.
+   *
+   * @param counter      The progress counter
+   * @param repositoryId The ID of the staging repository
+   * @param path         The path of the file in the staging repository
+   * @param size         The size of the file, if known
+   *
+   * @return A sink
+   *
+   * @throws BLException On errors
+   */
+
+  public BLUploadSink uploadOpen(
+    final BLProgressCounter counter,
+    final String repositoryId,
+    final String path,
+    final OptionalLong size)
+    throws BLException
+  {
+    return this.uploads.uploadOpen(counter, repositoryId, path, size);
+  }
+
+  /**
+   * Scan the base directory of the given parameters and upload the files
+   * that are found, starting each upload as soon as its file is found rather
+   * than waiting for the scan to complete. Files are uploaded in the order in
+   * which they are found, and so
+   * {@link BLStagingRepositoryUploadRequestParameters#ordering()} is not
+   * applied. Uploads in {@link BLUploadMode#BUNDLE} mode, and uploads that
+   * skip files already present in the repository, require the complete set
+   * of files up front, and so are planned in full before the upload starts.
+   * Uploads with {@link BLStagingRepositoryUploadRequestParameters#sources()}
+   * are also planned in full, with the sources uploaded after the files.
+   *
+   * @param counter    The progress counter
+   * @param parameters The upload request parameters
+   *
+   * @throws BLException On errors
+   */
+
+  public void uploadDirectory(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUploadRequestParameters parameters)
+    throws BLException
+  {
+    if (parameters.uploadMode() != BLUploadMode.FILES
+      || parameters.skipExisting()
+      || !parameters.sources().isEmpty()) {
+      this.upload(counter, this.createUploadRequest(parameters));
+      return;
     }
+    this.uploads.uploadDirectory(counter, this.resolveArchive(parameters));
   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the parsing of an XML document returned
+ * by the Nexus API.
+ */
+
+@Name("com.io7m.brooklime.Parse")
+@Label("Parse")
+@Category({"Brooklime", "Parsing"})
+@Description("The parsing of an XML document returned by the Nexus API")
+@StackTrace(false)
+public final class BLParseEvent extends Event
+{
+  @Label("URI")
+  private String uri;
+
+  @Label("Document")
+  @Description("The kind of document that was expected")
+  private String document;
+
+  @Label("Size")
+  @DataAmount
+  private long bytes;
+
+  @Label("Succeeded")
+  private boolean succeeded;
+
+  /**
+   * Create an event.
+   */
+
+  public BLParseEvent()
+  {
+
+  }
+
+  void setUri(
+    final String value)
+  {
+    this.uri = value;
+  }
+
+  void setDocument(
+    final String value)
+  {
+    this.document = value;
+  }
+
+  void setBytes(
+    final long value)
+  {
+    this.bytes = value;
+  }
+
+  void setSucceeded(
+    final boolean value)
+  {
+    this.succeeded = value;
+  }
+}
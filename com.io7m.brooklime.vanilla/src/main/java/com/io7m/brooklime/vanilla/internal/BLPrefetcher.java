@@ -0,0 +1,381 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-ahead stage that opens, and reads the start of, the next files of
+ * an upload plan while the current files are being uploaded, so that the
+ * latency of opening and reading files is hidden behind the time spent on
+ * the network.
+ *
+ * Whenever the upload of a file starts, the prefetcher schedules reads of
+ * up to {@code depth} files that follow it in the plan. Each read opens the
+ * file and reads as much of it as the memory budget allows (and no more
+ * than an equal share of the budget per file) into a direct buffer. The
+ * memory budget is shared by every upload of a client, and is never
+ * exceeded: reads that cannot reserve memory simply open the file, and the
+ * file is then read from disk during the upload as usual.
+ */
+
+public final class BLPrefetcher implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLPrefetcher.class);
+
+  private final ExecutorService executor;
+  private final Budget budget;
+  private final List<Path> files;
+  private final int depth;
+  private final long fileLimit;
+  private final ConcurrentHashMap<Integer, CompletableFuture<Prefetched>> pending;
+  private final AtomicInteger scheduled;
+  private final AtomicBoolean closed;
+
+  /**
+   * A read-ahead stage.
+   *
+   * @param inExecutor The executor on which files are read; the prefetcher
+   *                   shuts down the executor when closed
+   * @param inBudget   The memory budget
+   * @param inFiles    The absolute paths of the files, in upload order
+   * @param inDepth    The number of files to read ahead
+   */
+
+  public BLPrefetcher(
+    final ExecutorService inExecutor,
+    final Budget inBudget,
+    final List<Path> inFiles,
+    final int inDepth)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.budget =
+      Objects.requireNonNull(inBudget, "budget");
+    this.files =
+      List.copyOf(Objects.requireNonNull(inFiles, "files"));
+
+    if (inDepth < 1) {
+      throw new IllegalArgumentException(
+        "Depth must be at least 1 (received %d)"
+          .formatted(Integer.valueOf(inDepth)));
+    }
+
+    this.depth = inDepth;
+    this.fileLimit = inBudget.limit() / inDepth;
+    this.pending = new ConcurrentHashMap<>();
+    this.scheduled = new AtomicInteger(0);
+    this.closed = new AtomicBoolean(false);
+  }
+
+  /**
+   * A memory budget for prefetched files.
+   */
+
+  public static final class Budget
+  {
+    private final long limit;
+    private final AtomicLong used;
+
+    /**
+     * A memory budget for prefetched files.
+     *
+     * @param inLimit The maximum number of octets held at any one time
+     */
+
+    public Budget(
+      final long inLimit)
+    {
+      if (inLimit < 0L) {
+        throw new IllegalArgumentException(
+          "Limit must be non-negative (received %d)"
+            .formatted(Long.valueOf(inLimit)));
+      }
+      this.limit = inLimit;
+      this.used = new AtomicLong(0L);
+    }
+
+    /**
+     * @return The maximum number of octets held at any one time
+     */
+
+    public long limit()
+    {
+      return this.limit;
+    }
+
+    /**
+     * @return The number of octets currently held
+     */
+
+    public long used()
+    {
+      return this.used.get();
+    }
+
+    /**
+     * Reserve up to {@code wanted} octets.
+     *
+     * @param wanted The number of octets wanted
+     *
+     * @return The number of octets reserved, which may be less than wanted
+     */
+
+    long reserve(
+      final long wanted)
+    {
+      while (true) {
+        final long current = this.used.get();
+        final long granted = Math.min(wanted, this.limit - current);
+        if (granted <= 0L) {
+          return 0L;
+        }
+        if (this.used.compareAndSet(current, current + granted)) {
+          return granted;
+        }
+      }
+    }
+
+    void release(
+      final long octets)
+    {
+      this.used.addAndGet(-octets);
+    }
+  }
+
+  /**
+   * A file that has been opened, and the start of which may have been read,
+   * ahead of its upload. The receiver of a prefetched file takes ownership
+   * of its channel, and must call {@link #close()} once it no longer needs
+   * the prefix.
+   */
+
+  public static final class Prefetched implements AutoCloseable
+  {
+    private final Budget budget;
+    private final FileChannel channel;
+    private final long size;
+    private final long modified;
+    private final ByteBuffer prefix;
+    private final AtomicBoolean closed;
+
+    private Prefetched(
+      final Budget inBudget,
+      final FileChannel inChannel,
+      final long inSize,
+      final long inModified,
+      final ByteBuffer inPrefix)
+    {
+      this.budget = inBudget;
+      this.channel = inChannel;
+      this.size = inSize;
+      this.modified = inModified;
+      this.prefix = inPrefix;
+      this.closed = new AtomicBoolean(false);
+    }
+
+    /**
+     * @return The open file channel
+     */
+
+    public FileChannel channel()
+    {
+      return this.channel;
+    }
+
+    /**
+     * Obtain the prefix of the file, if the file still has the size and
+     * modification time that it had when the prefix was read.
+     *
+     * @param currentSize     The current size of the file
+     * @param currentModified The current modification time of the file
+     *
+     * @return The octets at the start of the file
+     */
+
+    public ByteBuffer prefixIfUnchanged(
+      final long currentSize,
+      final long currentModified)
+    {
+      if (this.closed.get()
+        || currentSize != this.size
+        || currentModified != this.modified) {
+        return ByteBuffer.allocate(0);
+      }
+      return this.prefix.asReadOnlyBuffer();
+    }
+
+    /**
+     * Release the memory held by the prefix, and close the channel.
+     */
+
+    @Override
+    public void close()
+    {
+      if (this.closed.compareAndSet(false, true)) {
+        this.budget.release(this.prefix.capacity());
+        try {
+          this.channel.close();
+        } catch (final IOException e) {
+          LOG.warn("Failed to close local file: ", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Take the prefetched file with the given index in the plan, scheduling
+   * reads of the files that follow it. If the file has not been scheduled
+   * for reading, nothing is returned and the caller reads the file itself.
+   *
+   * @param index The index of the file in the plan
+   *
+   * @return The prefetched file, if any
+   */
+
+  public Optional<Prefetched> take(
+    final int index)
+  {
+    this.scheduleAfter(index);
+
+    final var future = this.pending.remove(Integer.valueOf(index));
+    if (future == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(future.join());
+  }
+
+  private void scheduleAfter(
+    final int index)
+  {
+    final int limit = Math.min(this.files.size(), index + 1 + this.depth);
+    while (!this.closed.get()) {
+      final int next = this.scheduled.get();
+      if (next >= limit) {
+        return;
+      }
+      if (!this.scheduled.compareAndSet(next, next + 1)) {
+        continue;
+      }
+
+      /*
+       * The file that is starting now is read by its own upload; reading it
+       * here as well would only delay that upload.
+       */
+
+      if (next > index) {
+        try {
+          this.pending.put(
+            Integer.valueOf(next),
+            CompletableFuture.supplyAsync(() -> this.read(next), this.executor)
+          );
+        } catch (final RejectedExecutionException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  private Prefetched read(
+    final int index)
+  {
+    final var file = this.files.get(index);
+
+    final FileChannel channel;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    } catch (final IOException e) {
+      LOG.debug("prefetch {}: ", file, e);
+      return null;
+    }
+
+    long reserved = 0L;
+    try {
+      final long size = channel.size();
+      final long modified = Files.getLastModifiedTime(file).toMillis();
+      reserved = this.budget.reserve(Math.min(size, this.fileLimit));
+
+      final var prefix = ByteBuffer.allocateDirect((int) reserved);
+      while (prefix.hasRemaining()) {
+        if (channel.read(prefix, prefix.position()) < 0) {
+          throw new EOFException(
+            "Unexpected end of file at offset %d"
+              .formatted(Integer.valueOf(prefix.position())));
+        }
+      }
+      prefix.flip();
+
+      final var prefetched =
+        new Prefetched(this.budget, channel, size, modified, prefix);
+      if (this.closed.get()) {
+        prefetched.close();
+        return null;
+      }
+      return prefetched;
+    } catch (final IOException e) {
+      LOG.debug("prefetch {}: ", file, e);
+      this.budget.release(reserved);
+      try {
+        channel.close();
+      } catch (final IOException ex) {
+        e.addSuppressed(ex);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Stop reading ahead, and release every file that was read but not taken.
+   */
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      this.executor.shutdown();
+      for (final var future : this.pending.values()) {
+        future.thenAccept(prefetched -> {
+          if (prefetched != null) {
+            prefetched.close();
+          }
+        });
+      }
+      this.pending.clear();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLProgressTotal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The aggregate progress of all of the uploads performed by a single
+ * operation. An instance is shared between a progress counter and all of
+ * its forks, and every method may be called from any thread. All counts
+ * are held in striped adders so that concurrent uploads never contend on
+ * a lock when reporting bytes; a summary is only assembled when a progress
+ * update is actually delivered.
+ */
+
+public final class BLProgressAccounting
+{
+  private final Clock clock;
+  private final Instant timeStarted;
+  private final LongAdder bytesPlanned;
+  private final LongAdder bytesSent;
+  private final LongAdder filesPlanned;
+  private final LongAdder filesCompleted;
+  private final LongAdder filesInFlight;
+
+  /**
+   * Create an empty accounting.
+   *
+   * @param inClock The clock used to measure elapsed time
+   */
+
+  public BLProgressAccounting(
+    final Clock inClock)
+  {
+    this.clock =
+      Objects.requireNonNull(inClock, "inClock");
+    this.timeStarted =
+      this.clock.instant();
+
+    this.bytesPlanned = new LongAdder();
+    this.bytesSent = new LongAdder();
+    this.filesPlanned = new LongAdder();
+    this.filesCompleted = new LongAdder();
+    this.filesInFlight = new LongAdder();
+  }
+
+  /**
+   * Announce that a number of files, with the given total size, will be
+   * uploaded. Operations that discover their files incrementally may call
+   * this method any number of times.
+   *
+   * @param files The number of files
+   * @param bytes The total size of the files
+   */
+
+  public void plan(
+    final long files,
+    final long bytes)
+  {
+    this.filesPlanned.add(files);
+    this.bytesPlanned.add(bytes);
+  }
+
+  /**
+   * Record that a number of bytes were sent. The count may be negative in
+   * order to retract bytes sent by an attempt that is being retried.
+   *
+   * @param bytes The number of bytes
+   */
+
+  public void addBytes(
+    final long bytes)
+  {
+    this.bytesSent.add(bytes);
+  }
+
+  /**
+   * Record that the upload of a file began.
+   */
+
+  public void fileStarted()
+  {
+    this.filesInFlight.increment();
+  }
+
+  /**
+   * Record that the upload of a file completed successfully.
+   */
+
+  public void fileCompleted()
+  {
+    this.filesInFlight.decrement();
+    this.filesCompleted.increment();
+  }
+
+  /**
+   * Record that the upload of a file failed and will not be retried.
+   */
+
+  public void fileFailed()
+  {
+    this.filesInFlight.decrement();
+  }
+
+  /**
+   * Summarize the accounting. The result is empty if nothing has been
+   * planned, as is the case for operations that do not track aggregate
+   * progress. The individual counts are read without any mutual exclusion,
+   * and so the summary is only approximate while uploads are in progress.
+   *
+   * @return The aggregate progress, if any
+   */
+
+  public Optional<BLProgressTotal> total()
+  {
+    final long filesMaximum = this.filesPlanned.sum();
+    if (filesMaximum == 0L) {
+      return Optional.empty();
+    }
+
+    final long bytesMaximum =
+      this.bytesPlanned.sum();
+    final long bytes =
+      Math.max(0L, this.bytesSent.sum());
+    final long elapsedMs =
+      Duration.between(this.timeStarted, this.clock.instant()).toMillis();
+    final long bytesPerSecond =
+      elapsedMs > 0L ? (bytes * 1000L) / elapsedMs : 0L;
+
+    final double progress;
+    if (bytesMaximum > 0L) {
+      final double raw = (double) bytes / (double) bytesMaximum;
+      progress = Math.min(1.0, Math.max(0.0, raw));
+    } else {
+      progress = 0.0;
+    }
+
+    final Duration timeRemaining;
+    if (bytesPerSecond > 0L) {
+      final long remaining = Math.max(0L, bytesMaximum - bytes);
+      timeRemaining = Duration.ofSeconds(remaining / bytesPerSecond);
+    } else {
+      timeRemaining = Duration.ZERO;
+    }
+
+    return Optional.of(
+      BLProgressTotal.builder()
+        .setBytesSent(bytes)
+        .setBytesMaximum(bytesMaximum)
+        .setBytesPerSecond(bytesPerSecond)
+        .setFilesCompleted(this.filesCompleted.sum())
+        .setFilesInFlight(Math.max(0L, this.filesInFlight.sum()))
+        .setFilesMaximum(filesMaximum)
+        .setProgress(progress)
+        .setTimeRemaining(timeRemaining)
+        .build()
+    );
+  }
+}
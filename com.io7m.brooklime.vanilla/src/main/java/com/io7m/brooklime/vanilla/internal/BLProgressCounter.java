@@ -16,6 +16,9 @@
 
 package com.io7m.brooklime.vanilla.internal;
 
+import com.io7m.brooklime.api.BLConcurrencyChangeReason;
+import com.io7m.brooklime.api.BLProgressConcurrencyChanged;
+import com.io7m.brooklime.api.BLProgressEventType;
 import com.io7m.brooklime.api.BLProgressFileStarted;
 import com.io7m.brooklime.api.BLProgressReceiverType;
 import com.io7m.brooklime.api.BLProgressUpdate;
@@ -27,9 +30,17 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * A progress counter.
+ * A progress counter. A counter describes one file at a time, but the
+ * counter and all of its forks also share a {@link BLProgressAccounting}
+ * that describes every upload of the operation. Byte counts are updated
+ * atomically, and the description of the current file is published as a
+ * single immutable value, so the statistics thread that reports bytes and
+ * the upload thread that starts and finishes files do not need to
+ * coordinate.
  */
 
 public final class BLProgressCounter
@@ -39,16 +50,40 @@ public final class BLProgressCounter
 
   private final BLProgressReceiverType receiver;
   private final Clock clock;
-  private boolean atStart;
-  private Instant timeLast;
-  private long sizePeriod;
-  private long sizeReceived;
-  private long sizeExpected;
-  private String name;
-  private int fileIndex;
-  private int fileCount;
-  private int attemptIndex;
-  private int attemptMaximum;
+  private final Object receiverLock;
+  private final BLProgressAccounting accounting;
+  private final AtomicLong sizePeriod;
+  private final AtomicLong sizeReceived;
+  private final AtomicReference<Period> reportPeriod;
+  private volatile boolean tracked;
+  private volatile FileState file;
+
+  /*
+   * The file most recently started with this counter.
+   */
+
+  private record FileState(
+    String name,
+    long sizeExpected,
+    int attemptIndex,
+    int attemptMaximum,
+    int fileIndex,
+    int fileCount)
+  {
+
+  }
+
+  /*
+   * The start of the current reporting period. An update is delivered for
+   * the first bytes of each file, and then at most once per period.
+   */
+
+  private record Period(
+    Instant timeLast,
+    boolean atStart)
+  {
+
+  }
 
   /**
    * A progress counter.
@@ -60,18 +95,132 @@ public final class BLProgressCounter
   public BLProgressCounter(
     final Clock inClock,
     final BLProgressReceiverType inReceiver)
+  {
+    this(
+      inClock,
+      inReceiver,
+      new Object(),
+      new BLProgressAccounting(inClock)
+    );
+  }
+
+  private BLProgressCounter(
+    final Clock inClock,
+    final BLProgressReceiverType inReceiver,
+    final Object inReceiverLock,
+    final BLProgressAccounting inAccounting)
   {
     this.clock =
       Objects.requireNonNull(inClock, "inClock");
     this.receiver =
       Objects.requireNonNull(inReceiver, "receiver");
+    this.receiverLock =
+      Objects.requireNonNull(inReceiverLock, "inReceiverLock");
+    this.accounting =
+      Objects.requireNonNull(inAccounting, "inAccounting");
+
+    this.file = new FileState("", 0L, 0, 0, 0, 0);
+    this.sizeReceived = new AtomicLong(0L);
+    this.sizePeriod = new AtomicLong(0L);
+    this.tracked = false;
+    this.reportPeriod =
+      new AtomicReference<>(new Period(this.clock.instant(), true));
+  }
+
+  /**
+   * Create a new counter that delivers events to the same receiver as this
+   * counter. Deliveries from this counter and all of its forks are
+   * serialized, so the receiver is never called concurrently even if the
+   * counters are used from different threads. The new counter shares the
+   * aggregate accounting of this counter.
+   *
+   * @return A new progress counter
+   */
 
-    this.name = "";
-    this.sizeExpected = 0L;
-    this.sizeReceived = 0L;
-    this.sizePeriod = 0L;
-    this.atStart = true;
-    this.timeLast = this.clock.instant();
+  public BLProgressCounter fork()
+  {
+    return new BLProgressCounter(
+      this.clock,
+      this.receiver,
+      this.receiverLock,
+      this.accounting
+    );
+  }
+
+  /**
+   * @return The aggregate accounting shared by this counter and its forks
+   */
+
+  public BLProgressAccounting accounting()
+  {
+    return this.accounting;
+  }
+
+  /**
+   * Announce that a number of files, with the given total size, will be
+   * uploaded by this counter and its forks.
+   *
+   * @param files The number of files
+   * @param bytes The total size of the files
+   *
+   * @see BLProgressAccounting#plan(long, long)
+   */
+
+  public void plan(
+    final long files,
+    final long bytes)
+  {
+    this.accounting.plan(files, bytes);
+  }
+
+  /**
+   * Indicate that the upload of a planned file is beginning. Until the
+   * upload is completed or fails, the bytes reported to this counter are
+   * also added to the aggregate accounting, and the bytes of any attempt
+   * that is restarted with {@link #startFile(String, long, int, int, int, int)}
+   * are retracted from it.
+   */
+
+  public void fileStarted()
+  {
+    this.sizeReceived.set(0L);
+    this.tracked = true;
+    this.accounting.fileStarted();
+  }
+
+  /**
+   * Indicate that the upload of the current file completed successfully.
+   */
+
+  public void fileCompleted()
+  {
+    if (this.tracked) {
+      this.tracked = false;
+      this.accounting.fileCompleted();
+    }
+  }
+
+  /**
+   * Indicate that the upload of the current file failed and will not be
+   * retried. The bytes sent by the file are retracted from the aggregate
+   * accounting.
+   */
+
+  public void fileFailed()
+  {
+    if (this.tracked) {
+      this.tracked = false;
+      this.accounting.addBytes(-this.sizeReceived.get());
+      this.accounting.fileFailed();
+    }
+  }
+
+  private void deliver(
+    final BLProgressEventType event)
+  {
+    synchronized (this.receiverLock) {
+      this.receiver.onProgressEvent(event);
+    }
   }
 
   /**
@@ -83,24 +232,29 @@ public final class BLProgressCounter
   public void addSizeReceived(
     final long extra)
   {
-    this.setSizeReceived(this.sizeReceived + extra);
+    this.received(extra, this.sizeReceived.addAndGet(extra));
   }
 
-  private double determineProgress()
+  private static double determineProgress(
+    final FileState file,
+    final long received)
   {
-    final double raw = (double) this.sizeReceived / (double) this.sizeExpected;
+    final double raw = (double) received / (double) file.sizeExpected();
     return Math.min(1.0, Math.max(0.0, raw));
   }
 
-  private Duration estimateTimeRemaining()
+  private static Duration estimateTimeRemaining(
+    final FileState file,
+    final long received,
+    final long period)
   {
-    if (this.sizePeriod == 0L) {
+    if (period == 0L) {
       return Duration.of(0L, ChronoUnit.SECONDS);
     }
 
     final long sizeRemaining =
-      Math.max(0L, this.sizeExpected - this.sizeReceived);
-    return Duration.of(sizeRemaining / this.sizePeriod, ChronoUnit.SECONDS);
+      Math.max(0L, file.sizeExpected() - received);
+    return Duration.of(sizeRemaining / period, ChronoUnit.SECONDS);
   }
 
   /**
@@ -122,24 +276,31 @@ public final class BLProgressCounter
     final int inFileIndex,
     final int inFileCount)
   {
-    this.name = Objects.requireNonNull(inName, "name");
-    this.sizeExpected = inSizeExpected;
-    this.sizePeriod = 0L;
-    this.sizeReceived = 0L;
-    this.attemptIndex = inAttemptIndex;
-    this.attemptMaximum = inAttemptMaximum;
-    this.fileIndex = inFileIndex;
-    this.fileCount = inFileCount;
-    this.timeLast = this.clock.instant();
-    this.atStart = true;
-
-    this.receiver.onProgressEvent(
+    final long previous = this.sizeReceived.getAndSet(0L);
+    if (this.tracked) {
+      this.accounting.addBytes(-previous);
+    }
+
+    final var started = new FileState(
+      Objects.requireNonNull(inName, "name"),
+      inSizeExpected,
+      inAttemptIndex,
+      inAttemptMaximum,
+      inFileIndex,
+      inFileCount
+    );
+
+    this.file = started;
+    this.sizePeriod.set(0L);
+    this.reportPeriod.set(new Period(this.clock.instant(), true));
+
+    this.deliver(
       BLProgressFileStarted.builder()
-        .setAttemptCurrent(this.attemptIndex)
-        .setAttemptMaximum(this.attemptMaximum)
-        .setFileIndexCurrent(this.fileIndex + 1)
-        .setFileIndexMaximum(this.fileCount)
-        .setName(this.name)
+        .setAttemptCurrent(started.attemptIndex())
+        .setAttemptMaximum(started.attemptMaximum())
+        .setFileIndexCurrent(started.fileIndex() + 1)
+        .setFileIndexMaximum(started.fileCount())
+        .setName(started.name())
         .build()
     );
   }
@@ -153,46 +314,99 @@ public final class BLProgressCounter
   public void setSizeReceived(
     final long size)
   {
-    final var sizeThen =
-      this.sizeReceived;
-    final var extra =
-      size - sizeThen;
+    this.received(size - this.sizeReceived.getAndSet(size), size);
+  }
 
-    this.sizeReceived += extra;
-    this.sizePeriod += extra;
+  private void received(
+    final long extra,
+    final long received)
+  {
+    if (this.tracked) {
+      this.accounting.addBytes(extra);
+    }
+
+    this.sizePeriod.addAndGet(extra);
 
-    if (this.sizeReceived > this.sizeExpected) {
+    final var current = this.file;
+    if (received > current.sizeExpected()) {
       LOG.warn(
         "Wrote more data than expected (expected {} but received {})",
-        Long.toUnsignedString(this.sizeExpected),
-        Long.toUnsignedString(this.sizeReceived)
+        Long.toUnsignedString(current.sizeExpected()),
+        Long.toUnsignedString(received)
       );
     }
 
-    final Instant timeNow =
-      this.clock.instant();
-    final var between =
-      Duration.between(this.timeLast, timeNow);
-
-    if (between.getSeconds() >= 1L || this.atStart) {
-      this.timeLast = timeNow;
-      this.receiver.onProgressEvent(
-        BLProgressUpdate.builder()
-          .setAttemptCurrent(this.attemptIndex)
-          .setAttemptMaximum(this.attemptMaximum)
-          .setBytesMaximum(this.sizeExpected)
-          .setBytesPerSecond(this.sizePeriod)
-          .setBytesSent(this.sizeReceived)
-          .setFileIndexCurrent(this.fileIndex + 1)
-          .setFileIndexMaximum(this.fileCount)
-          .setName(this.name)
-          .setProgress(this.determineProgress())
-          .setTimeRemaining(this.estimateTimeRemaining())
-          .build()
-      );
-      this.sizePeriod = 0L;
+    if (!this.endPeriod()) {
+      return;
+    }
+
+    final long period = this.sizePeriod.getAndSet(0L);
+    this.deliver(
+      BLProgressUpdate.builder()
+        .setAttemptCurrent(current.attemptIndex())
+        .setAttemptMaximum(current.attemptMaximum())
+        .setBytesMaximum(current.sizeExpected())
+        .setBytesPerSecond(period)
+        .setBytesSent(received)
+        .setFileIndexCurrent(current.fileIndex() + 1)
+        .setFileIndexMaximum(current.fileCount())
+        .setName(current.name())
+        .setProgress(determineProgress(current, received))
+        .setTimeRemaining(estimateTimeRemaining(current, received, period))
+        .setTotal(this.accounting.total())
+        .build()
+    );
+  }
+
+  /*
+   * End the current reporting period if it has lasted at least a second,
+   * or if no update has been delivered for the current file. Only the
+   * thread that ends the period delivers an update for it.
+   */
+
+  private boolean endPeriod()
+  {
+    final var last = this.reportPeriod.get();
+    final var timeNow = this.clock.instant();
+    if (!last.atStart()
+      && Duration.between(last.timeLast(), timeNow).getSeconds() < 1L) {
+      return false;
     }
+    return this.reportPeriod.compareAndSet(last, new Period(timeNow, false));
+  }
 
-    this.atStart = false;
+  /**
+   * The number of concurrent uploads was changed. The event carries the
+   * name, file index, and attempt of the file most recently started with
+   * this counter.
+   *
+   * @param previous       The number of concurrent uploads before the change
+   * @param current        The number of concurrent uploads after the change
+   * @param reason         The reason for the change
+   * @param bytesPerSecond The aggregate throughput observed most recently
+   */
+
+  public void concurrencyChanged(
+    final int previous,
+    final int current,
+    final BLConcurrencyChangeReason reason,
+    final long bytesPerSecond)
+  {
+    Objects.requireNonNull(reason, "reason");
+
+    final var state = this.file;
+    this.deliver(
+      BLProgressConcurrencyChanged.builder()
+        .setAttemptCurrent(state.attemptIndex())
+        .setAttemptMaximum(state.attemptMaximum())
+        .setFileIndexCurrent(state.fileIndex() + 1)
+        .setFileIndexMaximum(state.fileCount())
+        .setName(state.name())
+        .setConcurrencyPrevious(previous)
+        .setConcurrencyCurrent(current)
+        .setReason(reason)
+        .setBytesPerSecond(bytesPerSecond)
+        .build()
+    );
   }
 }
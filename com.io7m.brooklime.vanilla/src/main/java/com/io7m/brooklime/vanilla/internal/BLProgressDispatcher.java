@@ -0,0 +1,320 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLProgressEventType;
+import com.io7m.brooklime.api.BLProgressReceiverType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.io7m.brooklime.api.BLProgressEventType.Kind.PROGRESS_UPDATE;
+
+/**
+ * A receiver that queues events and delivers them to another receiver on
+ * an executor, so that the threads producing events never wait for the
+ * receiver. A progress update replaces any update for the same file that
+ * has not yet been delivered, and at most a bounded number of events of any
+ * kind wait for delivery, however slowly the receiver consumes them. If the
+ * bound is reached, the oldest undelivered update is discarded, as later
+ * updates and events supersede it; if no update is waiting, the oldest
+ * undelivered event is discarded instead. Events are delivered in order,
+ * one at a time, by at most one task on the executor at any given time; no
+ * task is running while the queue is empty.
+ */
+
+public final class BLProgressDispatcher implements BLProgressReceiverType
+{
+  /**
+   * The default number of events that may be waiting for delivery.
+   */
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLProgressDispatcher.class);
+
+  private final Executor executor;
+  private final BLProgressReceiverType receiver;
+  private final ReentrantLock lock;
+  private final int capacity;
+  private final ArrayDeque<Slot> events;
+  private final Map<String, Slot> updates;
+  private final CompletableFuture<Void> drained;
+  private int updateCount;
+  private boolean running;
+  private boolean closed;
+  private long discarded;
+
+  /*
+   * A queued event. Updates are coalesced by replacing the event held in
+   * the slot of an undelivered update.
+   */
+
+  private static final class Slot
+  {
+    private BLProgressEventType event;
+
+    Slot(
+      final BLProgressEventType inEvent)
+    {
+      this.event = inEvent;
+    }
+  }
+
+  /**
+   * Create a dispatcher.
+   *
+   * @param inExecutor The executor on which events are delivered
+   * @param inReceiver The receiver to which events are delivered
+   * @param inCapacity The number of events that may be waiting for
+   *                   delivery
+   */
+
+  public BLProgressDispatcher(
+    final Executor inExecutor,
+    final BLProgressReceiverType inReceiver,
+    final int inCapacity)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "inExecutor");
+    this.receiver =
+      Objects.requireNonNull(inReceiver, "inReceiver");
+
+    if (inCapacity <= 0) {
+      throw new IllegalArgumentException(
+        "Capacity must be positive (received %d)"
+          .formatted(Integer.valueOf(inCapacity)));
+    }
+
+    this.capacity = inCapacity;
+    this.lock = new ReentrantLock();
+    this.events = new ArrayDeque<>();
+    this.updates = new HashMap<>();
+    this.drained = new CompletableFuture<>();
+  }
+
+  @Override
+  public void onProgressEvent(
+    final BLProgressEventType event)
+  {
+    Objects.requireNonNull(event, "event");
+
+    final boolean start;
+    this.lock.lock();
+    try {
+      if (this.closed) {
+        LOG.debug("discarding event after close: {}", event);
+        return;
+      }
+      if (this.coalesce(event)) {
+        return;
+      }
+
+      if (this.events.size() == this.capacity) {
+        this.discardOldest();
+        ++this.discarded;
+      }
+
+      final var slot = new Slot(event);
+      if (event.kind() == PROGRESS_UPDATE) {
+        this.updates.put(event.name(), slot);
+        ++this.updateCount;
+      }
+      this.events.addLast(slot);
+
+      start = !this.running;
+      this.running = true;
+    } finally {
+      this.lock.unlock();
+    }
+
+    if (start) {
+      this.start();
+    }
+  }
+
+  /*
+   * Replace an undelivered update for the same file. An event of any other
+   * kind ends the run of updates that may be replaced, so that a later
+   * update is never delivered ahead of an earlier event for the same file.
+   */
+
+  private boolean coalesce(
+    final BLProgressEventType event)
+  {
+    if (event.kind() != PROGRESS_UPDATE) {
+      this.updates.remove(event.name());
+      return false;
+    }
+
+    final var existing = this.updates.get(event.name());
+    if (existing == null) {
+      return false;
+    }
+    existing.event = event;
+    return true;
+  }
+
+  /*
+   * Discard the oldest waiting update, or the oldest waiting event if no
+   * update is waiting.
+   */
+
+  private void discardOldest()
+  {
+    if (this.updateCount == 0) {
+      this.take();
+      return;
+    }
+
+    final var iterator = this.events.iterator();
+    while (iterator.hasNext()) {
+      final var slot = iterator.next();
+      if (slot.event.kind() == PROGRESS_UPDATE) {
+        iterator.remove();
+        this.removed(slot);
+        return;
+      }
+    }
+  }
+
+  private void removed(
+    final Slot slot)
+  {
+    if (slot.event.kind() == PROGRESS_UPDATE) {
+      this.updates.remove(slot.event.name(), slot);
+      --this.updateCount;
+    }
+  }
+
+  private BLProgressEventType take()
+  {
+    final var slot = this.events.removeFirst();
+    this.removed(slot);
+    return slot.event;
+  }
+
+  private void start()
+  {
+    try {
+      this.executor.execute(this::drain);
+    } catch (final RejectedExecutionException e) {
+      LOG.debug("progress executor rejected delivery: ", e);
+      this.lock.lock();
+      try {
+        this.discarded += this.events.size();
+        this.events.clear();
+        this.updates.clear();
+        this.updateCount = 0;
+        this.running = false;
+        if (this.closed) {
+          this.drained.complete(null);
+        }
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  private void drain()
+  {
+    while (true) {
+      final BLProgressEventType event;
+      this.lock.lock();
+      try {
+        if (this.events.isEmpty()) {
+          this.running = false;
+          if (this.closed) {
+            this.drained.complete(null);
+          }
+          return;
+        }
+        event = this.take();
+      } finally {
+        this.lock.unlock();
+      }
+
+      try {
+        this.receiver.onProgressEvent(event);
+      } catch (final RuntimeException e) {
+        LOG.error("Progress receiver failed: ", e);
+      }
+    }
+  }
+
+  /**
+   * @return The number of events discarded because too many events were
+   * waiting, or because the executor rejected their delivery
+   */
+
+  public long discarded()
+  {
+    this.lock.lock();
+    try {
+      return this.discarded;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Stop accepting events. Events that are waiting are still delivered.
+   *
+   * @return A future that completes when all waiting events are delivered
+   */
+
+  public CompletableFuture<Void> closeAsync()
+  {
+    this.lock.lock();
+    try {
+      if (!this.closed) {
+        this.closed = true;
+        if (!this.running) {
+          this.drained.complete(null);
+        }
+      }
+    } finally {
+      this.lock.unlock();
+    }
+    return this.drained;
+  }
+
+  /**
+   * Stop accepting events, and wait until all waiting events are delivered.
+   */
+
+  public void close()
+  {
+    this.closeAsync().join();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLProgressDispatcher %s]".formatted(this.receiver);
+  }
+}
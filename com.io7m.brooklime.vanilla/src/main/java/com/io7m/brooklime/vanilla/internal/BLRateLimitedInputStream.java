@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Objects;
+
+/**
+ * An input stream that delivers octets no faster than the bandwidth allowed
+ * by a rate limiter. Reads block the calling thread when the limiter requires
+ * a delay, and so the stream is only suitable for use on threads that may
+ * block, such as those that pull request bodies from streams.
+ */
+
+public final class BLRateLimitedInputStream extends FilterInputStream
+{
+  private final BLRateLimiter limiter;
+  private final int chunkSize;
+
+  /**
+   * An input stream that delivers octets no faster than the bandwidth allowed
+   * by a rate limiter.
+   *
+   * @param inStream  The underlying stream
+   * @param inLimiter The rate limiter
+   */
+
+  public BLRateLimitedInputStream(
+    final InputStream inStream,
+    final BLRateLimiter inLimiter)
+  {
+    super(Objects.requireNonNull(inStream, "stream"));
+    this.limiter = Objects.requireNonNull(inLimiter, "limiter");
+    this.chunkSize = this.limiter.chunkSize(Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int read()
+    throws IOException
+  {
+    final int r = super.read();
+    if (r >= 0) {
+      this.pay(1L);
+    }
+    return r;
+  }
+
+  @Override
+  public int read(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    final int r =
+      super.read(buffer, offset, Math.min(length, this.chunkSize));
+    if (r > 0) {
+      this.pay(r);
+    }
+    return r;
+  }
+
+  @Override
+  public long skip(
+    final long count)
+    throws IOException
+  {
+    final long r = super.skip(count);
+    if (r > 0L) {
+      this.pay(r);
+    }
+    return r;
+  }
+
+  private void pay(
+    final long octets)
+    throws InterruptedIOException
+  {
+    try {
+      BLRateLimiter.await(this.limiter.reserveBytes(octets));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException();
+      ex.initCause(e);
+      throw ex;
+    }
+  }
+}
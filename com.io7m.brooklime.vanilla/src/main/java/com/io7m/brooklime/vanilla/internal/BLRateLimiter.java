@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A limiter for upload bandwidth and upload request rates, backed by
+ * token buckets. A single limiter is shared by every upload of a client
+ * (or, for {@link com.io7m.brooklime.api.BLRateLimitScope#JVM}, of every
+ * client in the JVM with the same limits).
+ */
+
+public final class BLRateLimiter
+{
+  /**
+   * A limiter that imposes no limits.
+   */
+
+  public static final BLRateLimiter UNLIMITED =
+    new BLRateLimiter(Optional.empty(), Optional.empty());
+
+  private static final int CHUNK_MINIMUM = 8192;
+  private static final Map<Limits, BLRateLimiter> SHARED =
+    new ConcurrentHashMap<>();
+
+  private final Optional<BLTokenBucket> bytes;
+  private final Optional<BLTokenBucket> requests;
+
+  private record Limits(
+    OptionalLong bytesPerSecond,
+    OptionalDouble requestsPerSecond)
+  {
+
+  }
+
+  private BLRateLimiter(
+    final Optional<BLTokenBucket> inBytes,
+    final Optional<BLTokenBucket> inRequests)
+  {
+    this.bytes = Objects.requireNonNull(inBytes, "bytes");
+    this.requests = Objects.requireNonNull(inRequests, "requests");
+  }
+
+  /**
+   * Create a limiter. Up to a tenth of a second's worth of octets, and a
+   * single request, may be sent at once without waiting.
+   *
+   * @param bytesPerSecond    The maximum number of octets per second
+   * @param requestsPerSecond The maximum number of requests per second
+   *
+   * @return A new limiter
+   */
+
+  public static BLRateLimiter create(
+    final OptionalLong bytesPerSecond,
+    final OptionalDouble requestsPerSecond)
+  {
+    if (bytesPerSecond.isEmpty() && requestsPerSecond.isEmpty()) {
+      return UNLIMITED;
+    }
+
+    Optional<BLTokenBucket> bytes = Optional.empty();
+    if (bytesPerSecond.isPresent()) {
+      final double rate = (double) bytesPerSecond.getAsLong();
+      bytes = Optional.of(
+        new BLTokenBucket(rate, Math.max(rate / 10.0, CHUNK_MINIMUM)));
+    }
+
+    Optional<BLTokenBucket> requests = Optional.empty();
+    if (requestsPerSecond.isPresent()) {
+      requests = Optional.of(
+        new BLTokenBucket(requestsPerSecond.getAsDouble(), 1.0));
+    }
+    return new BLRateLimiter(bytes, requests);
+  }
+
+  /**
+   * Find or create the limiter for the given configuration.
+   *
+   * @param configuration The client configuration
+   *
+   * @return A limiter
+   */
+
+  public static BLRateLimiter forConfiguration(
+    final BLNexusClientConfiguration configuration)
+  {
+    final var limits = new Limits(
+      configuration.uploadBytesPerSecond(),
+      configuration.uploadRequestsPerSecond()
+    );
+
+    return switch (configuration.rateLimitScope()) {
+      case CLIENT -> create(limits.bytesPerSecond, limits.requestsPerSecond);
+      case JVM -> SHARED.computeIfAbsent(
+        limits, k -> create(k.bytesPerSecond, k.requestsPerSecond));
+    };
+  }
+
+  /**
+   * @return {@code true} if the limiter limits bandwidth
+   */
+
+  public boolean limitsBytes()
+  {
+    return this.bytes.isPresent();
+  }
+
+  /**
+   * Determine the size of the buffers in which octets should be sent. Large
+   * buffers are sent in a single burst once enough tokens are available, so
+   * buffers are limited to about a twentieth of a second's worth of octets
+   * to keep the transfer smooth.
+   *
+   * @param maximum The maximum buffer size
+   *
+   * @return The buffer size
+   */
+
+  public int chunkSize(
+    final int maximum)
+  {
+    if (this.bytes.isEmpty()) {
+      return maximum;
+    }
+    final long rate = (long) this.bytes.get().rate();
+    return (int) Math.min(maximum, Math.max(CHUNK_MINIMUM, rate / 20L));
+  }
+
+  /**
+   * Reserve bandwidth for the given number of octets.
+   *
+   * @param octets The number of octets
+   *
+   * @return The number of nanoseconds to wait before sending the octets
+   */
+
+  public long reserveBytes(
+    final long octets)
+  {
+    return this.bytes.isPresent() ? this.bytes.get().reserve(octets) : 0L;
+  }
+
+  /**
+   * Reserve a single request.
+   *
+   * @return The number of nanoseconds to wait before sending the request
+   */
+
+  public long reserveRequest()
+  {
+    return this.requests.isPresent() ? this.requests.get().reserve(1L) : 0L;
+  }
+
+  /**
+   * Wait for the given number of nanoseconds, blocking the current thread.
+   *
+   * @param nanos The number of nanoseconds
+   *
+   * @throws InterruptedException If the thread is interrupted
+   */
+
+  public static void await(
+    final long nanos)
+    throws InterruptedException
+  {
+    if (nanos <= 0L) {
+      return;
+    }
+
+    final long deadline = System.nanoTime() + nanos;
+    while (true) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0L) {
+        return;
+      }
+      LockSupport.parkNanos(remaining);
+    }
+  }
+}
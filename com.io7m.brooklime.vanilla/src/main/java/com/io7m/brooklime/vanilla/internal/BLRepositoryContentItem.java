@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.util.Objects;
+
+/**
+ * An item in a listing of the content of a repository directory.
+ *
+ * @param relativePath The path of the item relative to the repository root
+ * @param leaf         {@code true} if the item is a file
+ * @param size         The size of the item in octets, or {@code -1} for
+ *                     directories
+ */
+
+public record BLRepositoryContentItem(
+  String relativePath,
+  boolean leaf,
+  long size)
+{
+  /**
+   * An item in a listing of the content of a repository directory.
+   *
+   * @param relativePath The path of the item relative to the repository root
+   * @param leaf         {@code true} if the item is a file
+   * @param size         The size of the item in octets, or {@code -1} for
+   *                     directories
+   */
+
+  public BLRepositoryContentItem
+  {
+    Objects.requireNonNull(relativePath, "relativePath");
+  }
+}
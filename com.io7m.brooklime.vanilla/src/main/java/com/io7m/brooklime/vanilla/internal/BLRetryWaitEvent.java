@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the delay between a failed upload
+ * attempt and the next attempt.
+ */
+
+@Name("com.io7m.brooklime.RetryWait")
+@Label("Retry Wait")
+@Category({"Brooklime", "Upload"})
+@Description("The delay before retrying a failed upload")
+@StackTrace(false)
+public final class BLRetryWaitEvent extends Event
+{
+  @Label("Repository ID")
+  private String repositoryId;
+
+  @Label("File")
+  private String file;
+
+  @Label("Failed Attempt")
+  @Description("The number of the attempt that failed, starting at 1")
+  private int attempt;
+
+  /**
+   * Create an event.
+   */
+
+  public BLRetryWaitEvent()
+  {
+
+  }
+
+  void setRepositoryId(
+    final String value)
+  {
+    this.repositoryId = value;
+  }
+
+  void setFile(
+    final String value)
+  {
+    this.file = value;
+  }
+
+  void setAttempt(
+    final int value)
+  {
+    this.attempt = value;
+  }
+}
@@ -16,32 +16,50 @@
 
 package com.io7m.brooklime.vanilla.internal;
 
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
 import com.io7m.brooklime.api.BLErrorLogging;
 import com.io7m.brooklime.api.BLException;
 import com.io7m.brooklime.api.BLHTTPErrorException;
 import com.io7m.brooklime.api.BLHTTPFailureException;
+import com.io7m.brooklime.api.BLUploadSourceType;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
 import com.io7m.brooklime.vanilla.internal.streamtime.STTimedInputStream;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTransferStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.function.Supplier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * An uploader that retries on failure.
+ * An uploader that retries on failure. The file is opened once and the
+ * same channel is used for every attempt. Files that are not on the default
+ * file system, such as the entries of archives, are instead streamed anew
+ * for each attempt, as are upload sources. Alternatively, the uploader can
+ * upload octets held in memory (such as generated checksum files).
  */
 
 public final class BLRetryingUploader
@@ -50,7 +68,6 @@ public final class BLRetryingUploader
     LoggerFactory.getLogger(BLRetryingUploader.class);
 
   private final HttpClient client;
-  private final URI serviceURI;
   private final URI targetURI;
   private final Path file;
   private final int fileIndex;
@@ -58,15 +75,31 @@ public final class BLRetryingUploader
   private final Duration retryDelay;
   private final int maxRetries;
   private final BLProgressCounter counter;
+  private final STStatisticsTicker ticker;
   private final ScheduledExecutorService executor;
   private final BLNexusParsers parsers;
+  private Optional<byte[]> content;
+  private Optional<BLUploadSourceType> source;
+  private AttemptObserverType observer;
+  private BLRateLimiter limiter;
+  private Optional<Duration> requestTimeout;
+  private Optional<BLPrefetcher.Prefetched> prefetched;
+  private Optional<BLFileTee.Reader> tee;
+  private String progressName;
+  private Optional<String> repositoryId;
+  private Map<BLChecksumAlgorithm, MessageDigest> digests;
+  private long attemptStarted;
+  private FileChannel channel;
+  private InputStream sourceStream;
+  private long sizeSent;
+  private long modified;
 
   /**
    * An uploader that retries on failure.
    *
-   * @param inExecutor   A scheduled executor for statistics
+   * @param inTicker     The ticker that samples statistics, and on whose
+   *                     executor retries are scheduled
    * @param inClient     The HTTP client
-   * @param inServiceURI The service URI
    * @param inTargetURI  The target URI
    * @param inFile       The file
    * @param inFileIndex  The file index
@@ -77,9 +110,8 @@ public final class BLRetryingUploader
    */
 
   public BLRetryingUploader(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final HttpClient inClient,
-    final URI inServiceURI,
     final URI inTargetURI,
     final Path inFile,
     final int inFileIndex,
@@ -88,16 +120,20 @@ public final class BLRetryingUploader
     final int inMaxRetries,
     final BLProgressCounter inCounter)
   {
+    this.ticker =
+      Objects.requireNonNull(inTicker, "inTicker");
     this.executor =
-      Objects.requireNonNull(inExecutor, "inExecutor");
+      this.ticker.executor();
     this.client =
       Objects.requireNonNull(inClient, "inClient");
-    this.serviceURI =
-      Objects.requireNonNull(inServiceURI, "inServiceURI");
     this.targetURI =
       Objects.requireNonNull(inTargetURI, "targetURI");
     this.file =
       Objects.requireNonNull(inFile, "inFile");
+    this.content =
+      Optional.empty();
+    this.source =
+      Optional.empty();
     this.fileIndex =
       inFileIndex;
     this.fileCount =
@@ -110,110 +146,906 @@ public final class BLRetryingUploader
       Objects.requireNonNull(inCounter, "inCounter");
     this.parsers =
       new BLNexusParsers();
+    this.digests =
+      Map.of();
+    this.observer =
+      NoObserver.NO_OBSERVER;
+    this.limiter =
+      BLRateLimiter.UNLIMITED;
+    this.requestTimeout =
+      Optional.empty();
+    this.prefetched =
+      Optional.empty();
+    this.tee =
+      Optional.empty();
+    this.progressName =
+      this.file.toString();
+    this.repositoryId =
+      Optional.empty();
 
     if (!this.file.isAbsolute()) {
       throw new IllegalArgumentException("File must be absolute");
     }
   }
 
+  /**
+   * An uploader that uploads octets held in memory, retrying on failure.
+   *
+   * @param inTicker     The ticker that samples statistics, and on whose
+   *                     executor retries are scheduled
+   * @param inClient     The HTTP client
+   * @param inTargetURI  The target URI
+   * @param inFile       The name of the file, for progress reporting
+   * @param inContent    The octets to upload
+   * @param inFileIndex  The file index
+   * @param inFileCount  The file count
+   * @param inRetryDelay The retry delay
+   * @param inMaxRetries The maximum number of retries
+   * @param inCounter    The progress counter
+   *
+   * @return An uploader
+   */
+
+  public static BLRetryingUploader forContent(
+    final STStatisticsTicker inTicker,
+    final HttpClient inClient,
+    final URI inTargetURI,
+    final Path inFile,
+    final byte[] inContent,
+    final int inFileIndex,
+    final int inFileCount,
+    final Duration inRetryDelay,
+    final int inMaxRetries,
+    final BLProgressCounter inCounter)
+  {
+    final var uploader = new BLRetryingUploader(
+      inTicker,
+      inClient,
+      inTargetURI,
+      inFile,
+      inFileIndex,
+      inFileCount,
+      inRetryDelay,
+      inMaxRetries,
+      inCounter
+    );
+    uploader.content = Optional.of(inContent.clone());
+    return uploader;
+  }
+
+  /**
+   * An uploader that uploads the octets supplied by an upload source,
+   * retrying on failure. The source is reopened for each attempt.
+   *
+   * @param inTicker     The ticker that samples statistics, and on whose
+   *                     executor retries are scheduled
+   * @param inClient     The HTTP client
+   * @param inTargetURI  The target URI
+   * @param inFile       The name of the file, for progress reporting
+   * @param inSource     The upload source
+   * @param inFileIndex  The file index
+   * @param inFileCount  The file count
+   * @param inRetryDelay The retry delay
+   * @param inMaxRetries The maximum number of retries
+   * @param inCounter    The progress counter
+   *
+   * @return An uploader
+   */
+
+  public static BLRetryingUploader forSource(
+    final STStatisticsTicker inTicker,
+    final HttpClient inClient,
+    final URI inTargetURI,
+    final Path inFile,
+    final BLUploadSourceType inSource,
+    final int inFileIndex,
+    final int inFileCount,
+    final Duration inRetryDelay,
+    final int inMaxRetries,
+    final BLProgressCounter inCounter)
+  {
+    final var uploader = new BLRetryingUploader(
+      inTicker,
+      inClient,
+      inTargetURI,
+      inFile,
+      inFileIndex,
+      inFileCount,
+      inRetryDelay,
+      inMaxRetries,
+      inCounter
+    );
+    uploader.source =
+      Optional.of(Objects.requireNonNull(inSource, "inSource"));
+    return uploader;
+  }
+
+  /**
+   * An observer of the outcomes of individual upload attempts.
+   */
+
+  public interface AttemptObserverType
+  {
+    /**
+     * Transfer statistics were sampled for the current attempt.
+     *
+     * @param statistics The statistics
+     */
+
+    void onStatistics(STTransferStatistics statistics);
+
+    /**
+     * An attempt succeeded.
+     *
+     * @param counter The progress counter used by the attempt
+     * @param size    The number of octets sent
+     * @param time    The time taken by the attempt
+     */
+
+    void onAttemptSucceeded(
+      BLProgressCounter counter,
+      long size,
+      Duration time);
+
+    /**
+     * An attempt failed.
+     *
+     * @param counter   The progress counter used by the attempt
+     * @param exception The failure
+     */
+
+    void onAttemptFailed(
+      BLProgressCounter counter,
+      Throwable exception);
+  }
+
+  private enum NoObserver implements AttemptObserverType
+  {
+    NO_OBSERVER;
+
+    @Override
+    public void onStatistics(
+      final STTransferStatistics statistics)
+    {
+
+    }
+
+    @Override
+    public void onAttemptSucceeded(
+      final BLProgressCounter attemptCounter,
+      final long size,
+      final Duration time)
+    {
+
+    }
+
+    @Override
+    public void onAttemptFailed(
+      final BLProgressCounter attemptCounter,
+      final Throwable exception)
+    {
+
+    }
+  }
+
+  /**
+   * Set the observer that is notified of the outcome of each attempt.
+   *
+   * @param inObserver The observer
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setAttemptObserver(
+    final AttemptObserverType inObserver)
+  {
+    this.observer = Objects.requireNonNull(inObserver, "observer");
+    return this;
+  }
+
+  /**
+   * Set the rate limiter that governs each attempt. Every attempt reserves a
+   * request from the limiter before it is sent, and the octets of each attempt
+   * are published no faster than the limiter's bandwidth allows.
+   *
+   * @param inLimiter The rate limiter
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setRateLimiter(
+    final BLRateLimiter inLimiter)
+  {
+    this.limiter = Objects.requireNonNull(inLimiter, "limiter");
+    return this;
+  }
+
+  /**
+   * Set the timeout applied to each attempt. An attempt that has not
+   * received a response within the timeout fails, and is retried.
+   *
+   * @param inTimeout The request timeout, if any
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setRequestTimeout(
+    final Optional<Duration> inTimeout)
+  {
+    this.requestTimeout = Objects.requireNonNull(inTimeout, "timeout");
+    return this;
+  }
+
+  /**
+   * Set the file that has been opened, and the start of which may have been
+   * read, ahead of this upload. The uploader takes ownership of the file,
+   * and publishes the prefix of the file from memory if the file has not
+   * changed since the prefix was read.
+   *
+   * @param inPrefetched The prefetched file, if any
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setPrefetched(
+    final Optional<BLPrefetcher.Prefetched> inPrefetched)
+  {
+    this.prefetched = Objects.requireNonNull(inPrefetched, "prefetched");
+    return this;
+  }
+
+  /**
+   * Set the tee through which the file is read, when the file is uploaded
+   * to several targets at once. The tee, rather than the uploader, owns the
+   * file; the uploader finishes its reader once the upload has completed.
+   *
+   * @param inTee The reader of the tee, if any
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setTee(
+    final Optional<BLFileTee.Reader> inTee)
+  {
+    this.tee = Objects.requireNonNull(inTee, "tee");
+    return this;
+  }
+
+  /**
+   * Set the name under which the progress of the upload is reported. By
+   * default, the path of the file is used.
+   *
+   * @param inName The name
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setProgressName(
+    final String inName)
+  {
+    this.progressName = Objects.requireNonNull(inName, "name");
+    return this;
+  }
+
+  /**
+   * Set the staging repository to which the upload belongs. The repository
+   * is recorded in the flight recorder events of the upload.
+   *
+   * @param inRepositoryId The repository ID
+   *
+   * @return this
+   */
+
+  public BLRetryingUploader setRepositoryId(
+    final String inRepositoryId)
+  {
+    this.repositoryId =
+      Optional.of(Objects.requireNonNull(inRepositoryId, "repositoryId"));
+    return this;
+  }
+
+  private HttpRequest.Builder newRequest()
+  {
+    final var builder = HttpRequest.newBuilder(this.targetURI);
+    this.requestTimeout.ifPresent(builder::timeout);
+    return builder;
+  }
+
+  /*
+   * Reserve a request, and the octets of in-memory content, returning the
+   * number of nanoseconds that must pass before the attempt may be sent.
+   * The octets of files are reserved incrementally by the body publisher.
+   */
+
+  private long admissionDelay()
+  {
+    final long requestDelay =
+      this.limiter.reserveRequest();
+    final long contentDelay =
+      this.content.map(data -> this.limiter.reserveBytes(data.length))
+        .orElse(Long.valueOf(0L))
+        .longValue();
+    return Math.max(requestDelay, contentDelay);
+  }
+
+  private void attemptSucceeded()
+  {
+    this.observer.onAttemptSucceeded(
+      this.counter,
+      this.sizeSent,
+      Duration.ofNanos(System.nanoTime() - this.attemptStarted)
+    );
+  }
+
+  private void attemptFailed(
+    final Throwable exception)
+  {
+    this.observer.onAttemptFailed(this.counter, exception);
+  }
+
+  private void recordAttempt(
+    final BLUploadAttemptEvent event,
+    final int attempt,
+    final int status,
+    final boolean succeeded)
+  {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRepositoryId(this.repositoryId.orElse(null));
+      event.setFile(this.file.toString());
+      event.setUri(this.targetURI.toString());
+      event.setAttempt(attempt + 1);
+      event.setAttemptMaximum(this.maxRetries);
+      event.setBytes(this.sizeSent);
+      event.setStatus(status);
+      event.setSucceeded(succeeded);
+      event.commit();
+    }
+  }
+
+  private BLRetryWaitEvent beginRetryWait()
+  {
+    final var event = new BLRetryWaitEvent();
+    event.begin();
+    return event;
+  }
+
+  private void recordRetryWait(
+    final BLRetryWaitEvent event,
+    final int attempt)
+  {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRepositoryId(this.repositoryId.orElse(null));
+      event.setFile(this.file.toString());
+      event.setAttempt(attempt + 1);
+      event.commit();
+    }
+  }
+
+  /*
+   * Generated content, such as checksum files, is not planned by callers
+   * and so does not take part in the aggregate accounting.
+   */
+
+  private void fileStarted()
+  {
+    if (this.content.isEmpty()) {
+      this.counter.fileStarted();
+    }
+  }
+
+  private void fileFinished(
+    final boolean succeeded)
+  {
+    if (succeeded) {
+      this.counter.fileCompleted();
+    } else {
+      this.counter.fileFailed();
+    }
+  }
+
+  private BLUploadedFile result()
+  {
+    return new BLUploadedFile(
+      this.file,
+      this.sizeSent,
+      this.modified,
+      BLDigests.finish(this.digests)
+    );
+  }
+
+  private FileChannel openChannel()
+    throws IOException
+  {
+    if (this.channel == null) {
+      if (this.tee.isPresent()) {
+        this.channel = this.tee.get().channel();
+      } else if (this.prefetched.isPresent()) {
+        this.channel = this.prefetched.get().channel();
+      } else {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.READ);
+      }
+    }
+    return this.channel;
+  }
+
+  /*
+   * The HTTP client closes a source stream that it reads to the end, but
+   * not one that it abandons when an attempt fails, and the statistics of
+   * an unclosed stream would continue to be sampled.
+   */
+
+  private void closeSource()
+  {
+    final var stream = this.sourceStream;
+    if (stream != null) {
+      this.sourceStream = null;
+      try {
+        stream.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close source: ", e);
+      }
+    }
+  }
+
+  private void closeChannel()
+  {
+    this.closeSource();
+    if (this.tee.isPresent()) {
+      this.tee.get().finish();
+      this.channel = null;
+      return;
+    }
+    if (this.prefetched.isPresent()) {
+      this.prefetched.get().close();
+      this.prefetched = Optional.empty();
+      this.channel = null;
+    }
+    if (this.channel != null) {
+      try {
+        this.channel.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close local file: ", e);
+      }
+      this.channel = null;
+    }
+  }
+
+  private ByteBuffer prefixOf(
+    final long size)
+  {
+    if (this.tee.isPresent()) {
+      return this.tee.get().prefix(size, this.modified);
+    }
+    return this.prefetched.map(p -> p.prefixIfUnchanged(size, this.modified))
+      .orElseGet(() -> ByteBuffer.allocate(0));
+  }
+
+  private HttpRequest createRequest(
+    final int attempt)
+    throws IOException
+  {
+    this.attemptStarted = System.nanoTime();
+    if (this.content.isPresent()) {
+      return this.createContentRequest(attempt, this.content.get());
+    }
+
+    if (this.source.isPresent()) {
+      return this.createSourceRequest(attempt, this.source.get());
+    }
+
+    final var fileChannel = this.openChannel();
+    final long sizeExpected = fileChannel.size();
+    this.sizeSent = sizeExpected;
+    this.modified = Files.getLastModifiedTime(this.file).toMillis();
+
+    this.counter.startFile(
+      this.progressName,
+      sizeExpected,
+      attempt + 1,
+      this.maxRetries,
+      this.fileIndex,
+      this.fileCount
+    );
+
+    final var publisher =
+      BLFileBodyPublisher.builder(
+          this.ticker,
+          fileChannel,
+          sizeExpected,
+          this::onStatistics)
+        .setMapped(true)
+        .setDigests(List.copyOf(this.digests.values()))
+        .setRateLimiter(this.limiter)
+        .setPrefix(this.prefixOf(sizeExpected))
+        .setTee(this.tee)
+        .build();
+
+    return this.newRequest()
+      .PUT(publisher)
+      .header("Content-Type", "application/octet-stream")
+      .build();
+  }
+
+  private void onStatistics(
+    final STTransferStatistics statistics)
+  {
+    this.counter.setSizeReceived(statistics.sizeTransferred());
+    this.observer.onStatistics(statistics);
+  }
+
+  /*
+   * Create a request that streams the octets of an upload source directly
+   * into the request body. Files that are not on the default file system,
+   * such as entries of zip archives, are uploaded as sources, because
+   * opening a channel on such a file may require the file system to extract
+   * the file to a temporary file.
+   */
+
+  private HttpRequest createSourceRequest(
+    final int attempt,
+    final BLUploadSourceType uploadSource)
+    throws IOException
+  {
+    final long sizeExpected = uploadSource.size();
+    this.sizeSent = sizeExpected;
+    this.modified = 0L;
+
+    this.counter.startFile(
+      this.progressName,
+      sizeExpected,
+      attempt + 1,
+      this.maxRetries,
+      this.fileIndex,
+      this.fileCount
+    );
+
+    final var publisher =
+      HttpRequest.BodyPublishers.fromPublisher(
+        HttpRequest.BodyPublishers.ofInputStream(
+          () -> this.openSource(uploadSource, sizeExpected)),
+        sizeExpected
+      );
+
+    return this.newRequest()
+      .PUT(publisher)
+      .header("Content-Type", "application/octet-stream")
+      .build();
+  }
+
+  private InputStream openSource(
+    final BLUploadSourceType uploadSource,
+    final long size)
+  {
+    this.closeSource();
+    for (final var digest : this.digests.values()) {
+      digest.reset();
+    }
+
+    try {
+      InputStream stream =
+        new BLDigestingInputStream(
+          uploadSource.open(),
+          List.copyOf(this.digests.values())
+        );
+      stream =
+        new STTimedInputStream(
+          this.ticker, OptionalLong.of(size), this::onStatistics, stream);
+      if (this.limiter.limitsBytes()) {
+        stream = new BLRateLimitedInputStream(stream, this.limiter);
+      }
+      this.sourceStream = stream;
+      return stream;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private HttpRequest createContentRequest(
+    final int attempt,
+    final byte[] data)
+  {
+    this.sizeSent = Integer.toUnsignedLong(data.length);
+    this.modified = 0L;
+
+    this.counter.startFile(
+      this.progressName,
+      this.sizeSent,
+      attempt + 1,
+      this.maxRetries,
+      this.fileIndex,
+      this.fileCount
+    );
+
+    for (final var digest : this.digests.values()) {
+      digest.reset();
+      digest.update(data);
+    }
+
+    return this.newRequest()
+      .PUT(HttpRequest.BodyPublishers.ofByteArray(data))
+      .header("Content-Type", "application/octet-stream")
+      .build();
+  }
+
+  private void checkResponse(
+    final int status,
+    final String contentType,
+    final InputStream body)
+    throws BLException
+  {
+    if (status >= 400) {
+      LOG.error(
+        "{}: {}",
+        this.targetURI,
+        Integer.valueOf(status)
+      );
+
+      final var errors =
+        this.parsers.parseErrorsIfPresent(contentType, this.targetURI, body);
+
+      BLErrorLogging.logErrors(LOG, errors);
+      throw new BLHTTPErrorException(status, errorOf(status), errors);
+    }
+  }
+
+  private BLHTTPFailureException failedAllAttempts()
+  {
+    return new BLHTTPFailureException(
+      String.format(
+        "Failed to upload file %s after %d attempts",
+        this.file,
+        Integer.valueOf(this.maxRetries))
+    );
+  }
+
   /**
    * Execute the upload.
    *
+   * @return The uploaded file
+   *
    * @throws BLException On errors
    */
 
-  public void execute()
+  public BLUploadedFile execute()
+    throws BLException
+  {
+    return this.execute(Set.of());
+  }
+
+  /**
+   * Execute the upload.
+   *
+   * @param algorithms The algorithms with which digests of the uploaded
+   *                   octets should be computed during the upload
+   *
+   * @return The uploaded file
+   *
+   * @throws BLException On errors
+   */
+
+  public BLUploadedFile execute(
+    final Set<BLChecksumAlgorithm> algorithms)
+    throws BLException
+  {
+    this.digests = BLDigests.createAll(algorithms);
+    this.fileStarted();
+
+    boolean succeeded = false;
+    try {
+      final var result = this.executeAttempts();
+      succeeded = true;
+      return result;
+    } finally {
+      this.fileFinished(succeeded);
+      this.closeChannel();
+    }
+  }
+
+  private BLUploadedFile executeAttempts()
     throws BLException
   {
     for (int attempt = 0; attempt < this.maxRetries; ++attempt) {
       try {
-        final long sizeExpected = Files.size(this.file);
-
-        this.counter.startFile(
-          this.file.toString(),
-          sizeExpected,
-          attempt + 1,
-          this.maxRetries,
-          this.fileIndex,
-          this.fileCount
-        );
+        BLRateLimiter.await(this.admissionDelay());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BLException("Interrupted while waiting for rate limits", e);
+      }
 
-        final Supplier<InputStream> inputStreamSupplier = () -> {
-          try {
-            final var baseStream =
-              Files.newInputStream(this.file);
-
-            final var timedStream =
-              new STTimedInputStream(
-                this.executor,
-                OptionalLong.of(sizeExpected),
-                statistics -> {
-                  this.counter.setSizeReceived(statistics.sizeTransferred());
-                },
-                baseStream
-              );
-
-            return timedStream;
-          } catch (final IOException e) {
-            LOG.error("Failed to open local file: ", e);
-            throw new UncheckedIOException(e);
-          }
-        };
+      final var event = new BLUploadAttemptEvent();
+      event.begin();
 
+      int status = 0;
+      boolean succeeded = false;
+      try {
         final var put =
-          HttpRequest.newBuilder(this.targetURI)
-            .PUT(BodyPublishers.ofInputStream(inputStreamSupplier))
-            .header("Content-Type", "application/octet-stream")
-            .build();
-
+          this.createRequest(attempt);
         final var response =
           this.client.send(put, HttpResponse.BodyHandlers.ofInputStream());
 
-        final int status = response.statusCode();
-        if (status >= 400) {
-          LOG.error(
-            "{}: {}",
-            this.targetURI,
-            Integer.valueOf(status)
+        status = response.statusCode();
+        try (var body = response.body()) {
+          this.checkResponse(
+            status,
+            BLNexusRequests.contentTypeOf(response),
+            body
           );
-
-          final var errors =
-            this.parsers.parseErrorsIfPresent(
-              contentTypeOf(response),
-              this.targetURI,
-              response.body()
-            );
-
-          BLErrorLogging.logErrors(LOG, errors);
-          throw new BLHTTPErrorException(status, errorOf(status), errors);
         }
-        return;
+        this.attemptSucceeded();
+        succeeded = true;
+        return this.result();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BLException("Interrupted while uploading", e);
       } catch (final Exception e) {
         LOG.error("Upload error: ", e);
+        this.attemptFailed(e);
+        if (isFatal(e)) {
+          throw new BLException(e);
+        }
+      } finally {
+        this.recordAttempt(event, attempt, status, succeeded);
       }
 
-      try {
-        LOG.info("Sleeping for {} before retrying", this.retryDelay);
-        Thread.sleep(this.retryDelay.toMillis());
-      } catch (final InterruptedException e) {
-        Thread.currentThread().interrupt();
+      if (attempt + 1 < this.maxRetries) {
+        this.sleepBeforeRetry(attempt);
       }
     }
 
-    throw new BLHTTPFailureException(
-      String.format(
-        "Failed to upload file %s after %d attempts",
-        this.file,
-        Integer.valueOf(this.maxRetries))
-    );
+    throw this.failedAllAttempts();
+  }
+
+  private void sleepBeforeRetry(
+    final int attempt)
+    throws BLException
+  {
+    final var wait = this.beginRetryWait();
+    try {
+      LOG.info("Sleeping for {} before retrying", this.retryDelay);
+      Thread.sleep(this.retryDelay.toMillis());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BLException("Interrupted while waiting to retry", e);
+    } finally {
+      this.recordRetryWait(wait, attempt);
+    }
   }
 
-  private static String contentTypeOf(
-    final HttpResponse<InputStream> response)
+  /**
+   * Execute the upload without blocking. Retries are scheduled after the
+   * retry delay rather than sleeping.
+   *
+   * @return The upload in progress
+   */
+
+  public CompletableFuture<BLUploadedFile> executeAsync()
+  {
+    return this.executeAsync(Set.of());
+  }
+
+  /**
+   * Execute the upload without blocking. Retries are scheduled after the
+   * retry delay rather than sleeping.
+   *
+   * @param algorithms The algorithms with which digests of the uploaded
+   *                   octets should be computed during the upload
+   *
+   * @return The upload in progress
+   */
+
+  public CompletableFuture<BLUploadedFile> executeAsync(
+    final Set<BLChecksumAlgorithm> algorithms)
+  {
+    this.digests = BLDigests.createAll(algorithms);
+    this.fileStarted();
+
+    return this.attemptAsync(0)
+      .whenComplete((ignored, exception) -> {
+        this.fileFinished(exception == null);
+        this.closeChannel();
+      });
+  }
+
+  private CompletableFuture<BLUploadedFile> attemptAsync(
+    final int attempt)
+  {
+    if (attempt >= this.maxRetries) {
+      return CompletableFuture.failedFuture(this.failedAllAttempts());
+    }
+
+    final long delay = this.admissionDelay();
+    final CompletableFuture<Void> admitted;
+    if (delay == 0L) {
+      admitted = CompletableFuture.completedFuture(null);
+    } else {
+      admitted = CompletableFuture.runAsync(
+        () -> { },
+        CompletableFuture.delayedExecutor(
+          delay, TimeUnit.NANOSECONDS, this.executor)
+      );
+    }
+
+    final var event = new BLUploadAttemptEvent();
+    final CompletableFuture<HttpResponse<byte[]>> sent =
+      admitted.thenCompose(ignored -> {
+        event.begin();
+        return this.sendAsync(attempt);
+      });
+
+    return sent.handle((response, exception) -> {
+      if (exception != null) {
+        final var cause = BLNexusRequests.unwrapCompletion(exception);
+        LOG.error("Upload error: ", cause);
+        this.attemptFailed(cause);
+        this.recordAttempt(event, attempt, 0, false);
+        if (isFatal(cause)) {
+          return CompletableFuture.<BLUploadedFile>failedFuture(
+            new BLException(cause));
+        }
+      } else {
+        try {
+          this.checkResponse(
+            response.statusCode(),
+            BLNexusRequests.contentTypeOf(response),
+            new ByteArrayInputStream(response.body())
+          );
+          this.attemptSucceeded();
+          this.recordAttempt(event, attempt, response.statusCode(), true);
+          return CompletableFuture.completedFuture(this.result());
+        } catch (final BLException e) {
+          LOG.error("Upload error: ", e);
+          this.attemptFailed(e);
+          this.recordAttempt(event, attempt, response.statusCode(), false);
+        }
+      }
+
+      if (attempt + 1 >= this.maxRetries) {
+        return CompletableFuture.<BLUploadedFile>failedFuture(
+          this.failedAllAttempts());
+      }
+
+      LOG.info("Scheduling retry after {}", this.retryDelay);
+      final var wait = this.beginRetryWait();
+      final var delayed =
+        CompletableFuture.delayedExecutor(
+          this.retryDelay.toMillis(),
+          TimeUnit.MILLISECONDS,
+          this.executor
+        );
+
+      return CompletableFuture.supplyAsync(
+          () -> {
+            this.recordRetryWait(wait, attempt);
+            return Integer.valueOf(attempt + 1);
+          }, delayed)
+        .thenCompose(next -> this.attemptAsync(next.intValue()));
+    }).thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<HttpResponse<byte[]>> sendAsync(
+    final int attempt)
+  {
+    try {
+      return this.client.sendAsync(
+        this.createRequest(attempt),
+        HttpResponse.BodyHandlers.ofByteArray()
+      );
+    } catch (final Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /*
+   * Invalid arguments, such as an upload source with an invalid path, will
+   * fail in the same way on every attempt, and so are never retried.
+   */
+
+  private static boolean isFatal(
+    final Throwable exception)
   {
-    return response.headers()
-      .firstValue("Content-Type")
-      .orElse("application/octet-stream");
+    return exception instanceof IllegalArgumentException;
   }
 
   private static String errorOf(
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free token bucket.
+ *
+ * The bucket is implemented as a generic cell rate algorithm: rather than
+ * tracking a token count that must be refilled, the bucket tracks the time
+ * at which all of the tokens taken so far will have been paid for. Taking
+ * tokens is a single compare-and-set, regardless of the number of tokens
+ * taken, and so callers can take tokens for whole buffers at a time.
+ *
+ * Tokens are taken by reservation: {@link #reserve(long)} always succeeds,
+ * and returns the time that the caller must wait before using the tokens.
+ * Callers that must not block can schedule their work after the returned
+ * delay instead of sleeping.
+ */
+
+public final class BLTokenBucket
+{
+  private final LongSupplier clock;
+  private final double rate;
+  private final double nanosPerToken;
+  private final long burstNanos;
+  private final AtomicLong paidAt;
+
+  /**
+   * A token bucket.
+   *
+   * @param inTokensPerSecond The rate at which tokens are added
+   * @param inBurstTokens     The maximum number of tokens that can be taken
+   *                          at once without waiting
+   * @param inClock           A monotonic clock in nanoseconds
+   */
+
+  public BLTokenBucket(
+    final double inTokensPerSecond,
+    final double inBurstTokens,
+    final LongSupplier inClock)
+  {
+    if (!(inTokensPerSecond > 0.0)) {
+      throw new IllegalArgumentException(String.format(
+        "Token rate must be positive (received %f)",
+        Double.valueOf(inTokensPerSecond)));
+    }
+    if (inBurstTokens < 0.0) {
+      throw new IllegalArgumentException(String.format(
+        "Burst size must be non-negative (received %f)",
+        Double.valueOf(inBurstTokens)));
+    }
+
+    this.clock = Objects.requireNonNull(inClock, "clock");
+    this.rate = inTokensPerSecond;
+    this.nanosPerToken = 1_000_000_000.0 / inTokensPerSecond;
+    this.burstNanos = (long) (inBurstTokens * this.nanosPerToken);
+    this.paidAt = new AtomicLong(this.clock.getAsLong());
+  }
+
+  /**
+   * A token bucket using {@link System#nanoTime()}.
+   *
+   * @param inTokensPerSecond The rate at which tokens are added
+   * @param inBurstTokens     The maximum number of tokens that can be taken
+   *                          at once without waiting
+   */
+
+  public BLTokenBucket(
+    final double inTokensPerSecond,
+    final double inBurstTokens)
+  {
+    this(inTokensPerSecond, inBurstTokens, System::nanoTime);
+  }
+
+  /**
+   * @return The rate at which tokens are added, per second
+   */
+
+  public double rate()
+  {
+    return this.rate;
+  }
+
+  /**
+   * Reserve the given number of tokens.
+   *
+   * @param tokens The number of tokens
+   *
+   * @return The number of nanoseconds that the caller must wait before
+   * using the tokens
+   */
+
+  public long reserve(
+    final long tokens)
+  {
+    if (tokens <= 0L) {
+      return 0L;
+    }
+
+    final long cost = (long) Math.ceil((double) tokens * this.nanosPerToken);
+    while (true) {
+      final long now = this.clock.getAsLong();
+      final long then = this.paidAt.get();
+      final long next = Math.max(then, now) + cost;
+      if (this.paidAt.compareAndSet(then, next)) {
+        return Math.max(0L, next - now - this.burstNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering one attempt to upload a file, from the
+ * start of the request to the receipt of the response.
+ */
+
+@Name("com.io7m.brooklime.UploadAttempt")
+@Label("Upload Attempt")
+@Category({"Brooklime", "Upload"})
+@Description("An attempt to upload a file to a staging repository")
+@StackTrace(false)
+public final class BLUploadAttemptEvent extends Event
+{
+  @Label("Repository ID")
+  private String repositoryId;
+
+  @Label("File")
+  private String file;
+
+  @Label("URI")
+  private String uri;
+
+  @Label("Attempt")
+  @Description("The attempt number, starting at 1")
+  private int attempt;
+
+  @Label("Maximum Attempts")
+  private int attemptMaximum;
+
+  @Label("Size")
+  @DataAmount
+  private long bytes;
+
+  @Label("Status")
+  @Description("The HTTP status code, or 0 if no response was received")
+  private int status;
+
+  @Label("Succeeded")
+  private boolean succeeded;
+
+  /**
+   * Create an event.
+   */
+
+  public BLUploadAttemptEvent()
+  {
+
+  }
+
+  void setRepositoryId(
+    final String value)
+  {
+    this.repositoryId = value;
+  }
+
+  void setFile(
+    final String value)
+  {
+    this.file = value;
+  }
+
+  void setUri(
+    final String value)
+  {
+    this.uri = value;
+  }
+
+  void setAttempt(
+    final int value)
+  {
+    this.attempt = value;
+  }
+
+  void setAttemptMaximum(
+    final int value)
+  {
+    this.attemptMaximum = value;
+  }
+
+  void setBytes(
+    final long value)
+  {
+    this.bytes = value;
+  }
+
+  void setStatus(
+    final int value)
+  {
+    this.status = value;
+  }
+
+  void setSucceeded(
+    final boolean value)
+  {
+    this.succeeded = value;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Functions to determine the checksum files and digests required by the
+ * files of an upload.
+ */
+
+public final class BLUploadChecksums
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploadChecksums.class);
+
+  private BLUploadChecksums()
+  {
+
+  }
+
+  static boolean isChecksumFile(
+    final Path file)
+  {
+    final var name = String.valueOf(file.getFileName());
+    for (final var algorithm : BLChecksumAlgorithm.values()) {
+      if (name.endsWith("." + algorithm.extension())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static Path checksumFileOf(
+    final Path file,
+    final BLChecksumAlgorithm algorithm)
+  {
+    return file.resolveSibling(
+      file.getFileName() + "." + algorithm.extension());
+  }
+
+  /**
+   * Determine the checksum files that must be generated for the given file:
+   * Those requested by the upload that are not themselves part of the upload.
+   */
+
+  static Set<BLChecksumAlgorithm> checksumFilesOf(
+    final BLStagingRepositoryUpload upload,
+    final Predicate<Path> present,
+    final int fileIndex)
+  {
+    return checksumFilesOf(upload, present, upload.files().get(fileIndex));
+  }
+
+  /**
+   * Determine the checksum files that must be generated for the given file,
+   * relative to the base directory of the upload.
+   */
+
+  static Set<BLChecksumAlgorithm> checksumFilesOf(
+    final BLStagingRepositoryUpload upload,
+    final Predicate<Path> present,
+    final Path file)
+  {
+    if (upload.checksums().isEmpty() || isChecksumFile(file)) {
+      return Set.of();
+    }
+
+    final var results = EnumSet.noneOf(BLChecksumAlgorithm.class);
+    for (final var algorithm : upload.checksums()) {
+      if (!present.test(checksumFileOf(file, algorithm))) {
+        results.add(algorithm);
+      }
+    }
+    return results;
+  }
+
+  static Set<BLChecksumAlgorithm> digestsOf(
+    final Optional<BLUploadJournal> journal,
+    final Set<BLChecksumAlgorithm> checksums)
+  {
+    if (journal.isEmpty()) {
+      return checksums;
+    }
+
+    final var results = EnumSet.of(BLChecksumAlgorithm.SHA256);
+    results.addAll(checksums);
+    return results;
+  }
+
+  /**
+   * Determine the digests that must be computed during the upload of the
+   * given file: Those required that are not already known.
+   */
+
+  static Set<BLChecksumAlgorithm> unknownDigestsOf(
+    final BLStagingRepositoryUpload upload,
+    final int fileIndex,
+    final Set<BLChecksumAlgorithm> required)
+  {
+    final var known =
+      upload.knownDigests().get(upload.files().get(fileIndex));
+    if (known == null || required.isEmpty()) {
+      return required;
+    }
+
+    final var results = EnumSet.noneOf(BLChecksumAlgorithm.class);
+    results.addAll(required);
+    results.removeAll(known.digests().keySet());
+    return results;
+  }
+
+  /**
+   * Combine the digests computed during an upload with the known digests of
+   * the file, and record them in the digest cache. If the file changed after
+   * the upload was planned, the known digests are discarded and any missing
+   * digests are computed from the file.
+   */
+
+  static BLUploadedFile completeDigests(
+    final BLStagingRepositoryUpload upload,
+    final int fileIndex,
+    final Set<BLChecksumAlgorithm> required,
+    final Optional<BLDigestCache> digestCache,
+    final BLUploadedFile result)
+    throws BLException
+  {
+    final var file = upload.files().get(fileIndex);
+    final var known = upload.knownDigests().get(file);
+    final var digests =
+      new EnumMap<BLChecksumAlgorithm, String>(BLChecksumAlgorithm.class);
+    digests.putAll(result.digests());
+
+    if (known != null
+        && known.size() == result.size()
+        && known.modified() == result.modified()) {
+      for (final var algorithm : required) {
+        final var digest = known.digests().get(algorithm);
+        if (digest != null) {
+          digests.putIfAbsent(algorithm, digest);
+        }
+      }
+    }
+
+    final var missing = EnumSet.noneOf(BLChecksumAlgorithm.class);
+    missing.addAll(required);
+    missing.removeAll(digests.keySet());
+
+    try {
+      final var actual = result.file();
+      if (!missing.isEmpty()) {
+        LOG.debug("{} changed since the upload was planned", file);
+        digests.putAll(BLDigests.digestsOf(actual, missing));
+      }
+
+      if (digestCache.isPresent() && !digests.isEmpty()) {
+        final var attributes =
+          Files.readAttributes(actual, BasicFileAttributes.class);
+        if (attributes.size() == result.size()
+            && attributes.lastModifiedTime().toMillis() == result.modified()) {
+          digestCache.get()
+            .put(BLNexusRequests.translateFileToURIPath(file), attributes, digests);
+        }
+      }
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+
+    return new BLUploadedFile(
+      result.file(),
+      result.size(),
+      result.modified(),
+      digests
+    );
+  }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only journal of completed uploads.
+ *
+ * The journal is a UTF-8 text file with one entry per line. Each entry is
+ * written to the file with a single unbuffered write as soon as the upload
+ * of the corresponding file has completed, and so the journal reflects every
+ * completed upload even if the uploading process is killed. A partially
+ * written final line (if the process is killed during a write) is ignored
+ * when the journal is read. If a file is uploaded more than once, the last
+ * entry for the file wins.
+ */
+
+public final class BLUploadJournal implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploadJournal.class);
+
+  private static final String HEADER =
+    "# brooklime-journal 1";
+
+  private final Path file;
+  private final FileChannel channel;
+  private final Map<Key, BLUploadJournalEntry> entries;
+
+  private record Key(
+    String repositoryId,
+    String path)
+  {
+
+  }
+
+  private BLUploadJournal(
+    final Path inFile,
+    final FileChannel inChannel,
+    final Map<Key, BLUploadJournalEntry> inEntries)
+  {
+    this.file =
+      Objects.requireNonNull(inFile, "file");
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.entries =
+      Objects.requireNonNull(inEntries, "entries");
+  }
+
+  /**
+   * Open a journal for reading and appending, creating it if necessary.
+   *
+   * @param file The journal file
+   *
+   * @return A journal
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static BLUploadJournal open(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var entries = new ConcurrentHashMap<Key, BLUploadJournalEntry>();
+    readInto(file, entries);
+
+    final var channel =
+      FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      );
+
+    final var journal = new BLUploadJournal(file, channel, entries);
+    journal.truncatePartialLine();
+    channel.position(channel.size());
+    if (channel.size() == 0L) {
+      journal.writeLine(HEADER);
+    }
+    return journal;
+  }
+
+  /**
+   * Read the entries of a journal for a single staging repository. A journal
+   * that does not exist is treated as being empty.
+   *
+   * @param file         The journal file
+   * @param repositoryId The staging repository ID
+   *
+   * @return The most recent entry for each file, keyed by path
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Map<String, BLUploadJournalEntry> read(
+    final Path file,
+    final String repositoryId)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(repositoryId, "repositoryId");
+
+    final var entries = new ConcurrentHashMap<Key, BLUploadJournalEntry>();
+    readInto(file, entries);
+
+    final var results = new ConcurrentHashMap<String, BLUploadJournalEntry>();
+    for (final var entry : entries.values()) {
+      if (Objects.equals(entry.repositoryId(), repositoryId)) {
+        results.put(entry.path(), entry);
+      }
+    }
+    return results;
+  }
+
+  private static void readInto(
+    final Path file,
+    final Map<Key, BLUploadJournalEntry> entries)
+    throws IOException
+  {
+    final String text;
+    try {
+      text = Files.readString(file, StandardCharsets.UTF_8);
+    } catch (final NoSuchFileException e) {
+      // An absent journal is an empty journal.
+      return;
+    }
+
+    /*
+     * Only lines terminated with a newline are complete; anything following
+     * the final newline was cut short and might otherwise parse as an entry
+     * with a truncated path.
+     */
+
+    final var lines = text.split("\n", -1);
+    for (int index = 0; index < lines.length - 1; ++index) {
+      final var line = lines[index];
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      final var entry = parseLine(line);
+      if (entry.isEmpty()) {
+        LOG.warn(
+          "{}:{}: ignoring malformed journal entry",
+          file,
+          Integer.valueOf(index + 1));
+        continue;
+      }
+
+      final var e = entry.get();
+      entries.put(new Key(e.repositoryId(), e.path()), e);
+    }
+  }
+
+  private static Optional<BLUploadJournalEntry> parseLine(
+    final String line)
+  {
+    final var fields = line.split("\t", -1);
+    if (fields.length != 5) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(
+        new BLUploadJournalEntry(
+          unescape(fields[0]),
+          unescape(fields[4]),
+          Long.parseUnsignedLong(fields[1]),
+          Long.parseLong(fields[2]),
+          fields[3]
+        )
+      );
+    } catch (final IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static String escape(
+    final String text)
+  {
+    final var builder = new StringBuilder(text.length());
+    for (int index = 0; index < text.length(); ++index) {
+      final char c = text.charAt(index);
+      switch (c) {
+        case '\\' -> builder.append("\\\\");
+        case '\t' -> builder.append("\\t");
+        case '\n' -> builder.append("\\n");
+        case '\r' -> builder.append("\\r");
+        default -> builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  private static String unescape(
+    final String text)
+  {
+    final var builder = new StringBuilder(text.length());
+    int index = 0;
+    while (index < text.length()) {
+      final char c = text.charAt(index);
+      ++index;
+      if (c != '\\') {
+        builder.append(c);
+        continue;
+      }
+
+      if (index >= text.length()) {
+        throw new IllegalArgumentException("Truncated escape sequence");
+      }
+
+      final char e = text.charAt(index);
+      ++index;
+      switch (e) {
+        case '\\' -> builder.append('\\');
+        case 't' -> builder.append('\t');
+        case 'n' -> builder.append('\n');
+        case 'r' -> builder.append('\r');
+        default -> throw new IllegalArgumentException("Bad escape sequence");
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Find the most recent entry for the given file.
+   *
+   * @param repositoryId The staging repository ID
+   * @param path         The file path
+   *
+   * @return The entry, if any
+   */
+
+  public Optional<BLUploadJournalEntry> find(
+    final String repositoryId,
+    final String path)
+  {
+    return Optional.ofNullable(this.entries.get(new Key(repositoryId, path)));
+  }
+
+  /**
+   * Append an entry to the journal. The entry has been handed to the
+   * operating system when this method returns.
+   *
+   * @param entry The entry
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void record(
+    final BLUploadJournalEntry entry)
+    throws IOException
+  {
+    Objects.requireNonNull(entry, "entry");
+
+    this.writeLine(
+      String.join(
+        "\t",
+        escape(entry.repositoryId()),
+        Long.toUnsignedString(entry.size()),
+        Long.toString(entry.modified()),
+        entry.sha256(),
+        escape(entry.path())
+      )
+    );
+
+    this.entries.put(new Key(entry.repositoryId(), entry.path()), entry);
+  }
+
+  /*
+   * If the process was killed during a write, the file may end with a
+   * partial line. Remove it so that the next entry starts on a new line;
+   * simply terminating the partial line could turn it into an entry with a
+   * truncated (and therefore wrong) path.
+   */
+
+  private void truncatePartialLine()
+    throws IOException
+  {
+    final var buffer = ByteBuffer.allocate(4096);
+    long end = this.channel.size();
+    while (end > 0L) {
+      final long start = Math.max(0L, end - buffer.capacity());
+      buffer.clear();
+      buffer.limit((int) (end - start));
+      while (buffer.hasRemaining()) {
+        if (this.channel.read(buffer, start + buffer.position()) < 0) {
+          break;
+        }
+      }
+
+      for (int index = buffer.position() - 1; index >= 0; --index) {
+        if (buffer.get(index) == '\n') {
+          this.channel.truncate(start + index + 1L);
+          return;
+        }
+      }
+      end = start;
+    }
+    this.channel.truncate(0L);
+  }
+
+  private synchronized void writeLine(
+    final String line)
+    throws IOException
+  {
+    this.writeBytes(
+      ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private synchronized void writeBytes(
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      this.channel.write(buffer);
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.channel.close();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLUploadJournal %s]".formatted(this.file);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import java.util.Objects;
+
+/**
+ * A record of a file that was successfully uploaded.
+ *
+ * @param repositoryId The ID of the staging repository
+ * @param path         The path of the file relative to the base directory,
+ *                     using {@code /} as a separator
+ * @param size         The size of the file in octets
+ * @param modified     The modification time of the file in milliseconds since
+ *                     the epoch
+ * @param sha256       The lowercase hexadecimal SHA-256 digest of the file
+ */
+
+public record BLUploadJournalEntry(
+  String repositoryId,
+  String path,
+  long size,
+  long modified,
+  String sha256)
+{
+  /**
+   * A record of a file that was successfully uploaded.
+   *
+   * @param repositoryId The ID of the staging repository
+   * @param path         The path of the file relative to the base directory,
+   *                     using {@code /} as a separator
+   * @param size         The size of the file in octets
+   * @param modified     The modification time of the file in milliseconds
+   *                     since the epoch
+   * @param sha256       The lowercase hexadecimal SHA-256 digest of the file
+   */
+
+  public BLUploadJournalEntry
+  {
+    Objects.requireNonNull(repositoryId, "repositoryId");
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(sha256, "sha256");
+  }
+}
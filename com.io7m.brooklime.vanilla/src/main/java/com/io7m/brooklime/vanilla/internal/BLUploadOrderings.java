@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLUploadOrdering;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Functions to order the files of an upload.
+ */
+
+public final class BLUploadOrderings
+{
+  private BLUploadOrderings()
+  {
+
+  }
+
+  /**
+   * Order the given files.
+   *
+   * @param ordering   The ordering
+   * @param files      The files
+   * @param attributes The attributes of the files
+   *
+   * @return The ordered files
+   */
+
+  public static List<Path> order(
+    final BLUploadOrdering ordering,
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes)
+  {
+    Objects.requireNonNull(ordering, "ordering");
+    Objects.requireNonNull(files, "files");
+    Objects.requireNonNull(attributes, "attributes");
+
+    return files.stream()
+      .sorted(comparatorOf(ordering, attributes))
+      .toList();
+  }
+
+  private static Comparator<Path> comparatorOf(
+    final BLUploadOrdering ordering,
+    final Map<Path, BasicFileAttributes> attributes)
+  {
+    return switch (ordering) {
+      case NAME -> Comparator.naturalOrder();
+      case LARGEST_FIRST -> Comparator.<Path>comparingLong(
+          file -> sizeOf(attributes, file))
+        .reversed()
+        .thenComparing(Comparator.naturalOrder());
+    };
+  }
+
+  private static long sizeOf(
+    final Map<Path, BasicFileAttributes> attributes,
+    final Path file)
+  {
+    final var fileAttributes = attributes.get(file);
+    return fileAttributes == null ? 0L : fileAttributes.size();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLFileDigests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.io7m.brooklime.vanilla.internal.BLNexusRequests.translateFileToURIPath;
+
+/**
+ * Functions used to plan an upload from the files found by a scan. The
+ * attributes read during the scan are used throughout, so planning does
+ * not read the attributes of any file a second time.
+ */
+
+public final class BLUploadPlanning
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploadPlanning.class);
+
+  private BLUploadPlanning()
+  {
+
+  }
+
+  /**
+   * @return {@code true} if the given file is the upload journal or the
+   * digest cache (or its temporary file), and so must not be uploaded
+   */
+
+  static boolean isUploadResource(
+    final Optional<Path> journal,
+    final Optional<Path> digestCache,
+    final Path file)
+  {
+    if (journal.isPresent() && journal.get().equals(file)) {
+      return true;
+    }
+    if (digestCache.isEmpty()) {
+      return false;
+    }
+    final var cache = digestCache.get();
+    return cache.equals(file)
+      || cache.resolveSibling(cache.getFileName() + ".tmp").equals(file);
+  }
+
+  /**
+   * Look up the digests of every file in the digest cache. Only file
+   * attributes are read; file contents are not.
+   */
+
+  static void findKnownDigests(
+    final BLDigestCache digestCache,
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes,
+    final Map<Path, BLFileDigests> knownDigests)
+  {
+    for (final var file : files) {
+      digestCache.find(translateFileToURIPath(file), attributes.get(file))
+        .ifPresent(digests -> knownDigests.put(file, digests));
+    }
+
+    LOG.debug(
+      "digest cache: digests known for {} of {} files",
+      Integer.valueOf(knownDigests.size()),
+      Integer.valueOf(files.size()));
+  }
+
+  /**
+   * @return {@code true} if the journal records the given file as having
+   * been uploaded, and the file has not changed since
+   */
+
+  static boolean isJournaled(
+    final Map<String, BLUploadJournalEntry> entries,
+    final Path file,
+    final BasicFileAttributes attributes)
+  {
+    final var entry = entries.get(translateFileToURIPath(file));
+    return entry != null
+      && entry.size() == attributes.size()
+      && entry.modified() == attributes.lastModifiedTime().toMillis();
+  }
+
+  /**
+   * Remove any files that the journal records as having been uploaded to
+   * the given repository, and that have not changed since.
+   */
+
+  static List<Path> excludeJournaled(
+    final String repositoryId,
+    final Path journalFile,
+    final List<Path> files,
+    final Map<Path, BasicFileAttributes> attributes)
+    throws IOException
+  {
+    final var entries = BLUploadJournal.read(journalFile, repositoryId);
+    final var remaining = new ArrayList<Path>(files.size());
+
+    for (final var file : files) {
+      if (isJournaled(entries, file, attributes.get(file))) {
+        LOG.debug("skip {} (already uploaded)", file);
+        continue;
+      }
+      remaining.add(file);
+    }
+
+    final var skipped = files.size() - remaining.size();
+    if (skipped > 0) {
+      LOG.info(
+        "Resuming: {} of {} files were already uploaded",
+        Integer.valueOf(skipped),
+        Integer.valueOf(files.size()));
+    }
+    return remaining;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Functions to open, update, and close the optional resources (the journal
+ * and the digest cache) used by an upload.
+ */
+
+public final class BLUploadResources
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploadResources.class);
+
+  private BLUploadResources()
+  {
+
+  }
+
+  static Optional<BLDigestCache> openDigestCache(
+    final Optional<Path> file)
+    throws IOException
+  {
+    return file.isPresent()
+      ? Optional.of(BLDigestCache.open(file.get()))
+      : Optional.empty();
+  }
+
+  static void closeDigestCache(
+    final Optional<BLDigestCache> digestCache)
+  {
+    digestCache.ifPresent(c -> {
+      try {
+        c.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close digest cache: ", e);
+      }
+    });
+  }
+
+  static void recordJournal(
+    final Optional<BLUploadJournal> journal,
+    final BLStagingRepositoryUpload upload,
+    final int fileIndex,
+    final BLUploadedFile result)
+    throws BLException
+  {
+    if (journal.isPresent()) {
+      try {
+        journal.get().record(
+          new BLUploadJournalEntry(
+            upload.repositoryId(),
+            BLNexusRequests.translateFileToURIPath(upload.files().get(fileIndex)),
+            result.size(),
+            result.modified(),
+            result.digests().get(BLChecksumAlgorithm.SHA256)
+          )
+        );
+      } catch (final IOException e) {
+        throw new BLException(e);
+      }
+    }
+  }
+
+  static Optional<BLUploadJournal> openJournal(
+    final BLStagingRepositoryUpload upload)
+    throws BLException
+  {
+    try {
+      return upload.journal().isPresent()
+        ? Optional.of(BLUploadJournal.open(upload.journal().get()))
+        : Optional.empty();
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+  }
+
+  static void closeJournal(
+    final Optional<BLUploadJournal> journal)
+  {
+    journal.ifPresent(j -> {
+      try {
+        j.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close journal: ", e);
+      }
+    });
+  }
+}
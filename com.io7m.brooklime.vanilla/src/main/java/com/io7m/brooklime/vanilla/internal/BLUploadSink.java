@@ -0,0 +1,652 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLErrorLogging;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLHTTPErrorException;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLUploadSinkType;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import com.io7m.brooklime.vanilla.internal.streamtime.STTimedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A sink that sends the octets written to it to the server as the body of a
+ * single upload request. The sink publishes the request body itself: each
+ * write waits until the HTTP client has requested more of the body, and then
+ * hands a copy of the written octets directly to the client, so that the
+ * writer is paced by the connection without any intermediate thread.
+ */
+
+public final class BLUploadSink implements BLUploadSinkType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploadSink.class);
+
+  private static final int CHUNK_SIZE = 65536;
+
+  private final ReentrantLock lock;
+  private final Condition changed;
+  private final URI targetURI;
+  private final BLRateLimiter limiter;
+  private final BLNexusParsers parsers;
+  private final STTimedOutputStream stream;
+  private final byte[] scratch;
+  private final Output output;
+  private Optional<BLProgressDispatcher> dispatcher;
+  private CompletableFuture<HttpResponse<byte[]>> response;
+  private Flow.Subscriber<? super ByteBuffer> subscriber;
+  private long demand;
+  private boolean cancelled;
+  private State state;
+
+  private enum State
+  {
+    OPEN,
+    FINISHED,
+    ABORTED
+  }
+
+  private BLUploadSink(
+    final STStatisticsTicker inTicker,
+    final URI inTargetURI,
+    final OptionalLong inSize,
+    final BLRateLimiter inLimiter,
+    final BLProgressCounter inCounter)
+  {
+    this.targetURI =
+      Objects.requireNonNull(inTargetURI, "targetURI");
+    this.limiter =
+      Objects.requireNonNull(inLimiter, "limiter");
+    this.lock =
+      new ReentrantLock();
+    this.changed =
+      this.lock.newCondition();
+    this.parsers =
+      new BLNexusParsers();
+    this.scratch =
+      new byte[CHUNK_SIZE];
+    this.output =
+      new Output();
+    this.state =
+      State.OPEN;
+    this.dispatcher =
+      Optional.empty();
+    this.stream =
+      new STTimedOutputStream(
+        inTicker,
+        inSize,
+        statistics -> inCounter.setSizeReceived(statistics.sizeTransferred()),
+        new BufferedOutputStream(new BodyOutputStream(), CHUNK_SIZE)
+      );
+  }
+
+  /**
+   * Open a sink, starting the upload request immediately. The request
+   * carries the credentials of the configuration from the start, because
+   * the body cannot be sent a second time in response to an authentication
+   * challenge.
+   *
+   * @param ticker        The ticker that samples statistics
+   * @param client        The HTTP client
+   * @param configuration The client configuration
+   * @param targetURI     The target URI
+   * @param name          The name of the file, for progress reporting
+   * @param size          The size of the file, if known
+   * @param limiter       The rate limiter
+   * @param counter       The progress counter
+   *
+   * @return A sink
+   *
+   * @throws BLException On errors
+   */
+
+  public static BLUploadSink open(
+    final STStatisticsTicker ticker,
+    final HttpClient client,
+    final BLNexusClientConfiguration configuration,
+    final URI targetURI,
+    final String name,
+    final OptionalLong size,
+    final BLRateLimiter limiter,
+    final BLProgressCounter counter)
+    throws BLException
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(counter, "counter");
+
+    try {
+      BLRateLimiter.await(limiter.reserveRequest());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BLException("Interrupted while waiting for rate limits", e);
+    }
+
+    final var sink =
+      new BLUploadSink(ticker, targetURI, size, limiter, counter);
+
+    counter.startFile(name, size.orElse(Long.MAX_VALUE), 1, 1, 0, 1);
+
+    final var publisher = sink.new Body();
+    final var body =
+      size.isPresent() && size.getAsLong() > 0L
+        ? HttpRequest.BodyPublishers.fromPublisher(
+        publisher, size.getAsLong())
+        : HttpRequest.BodyPublishers.fromPublisher(publisher);
+
+    final var builder = HttpRequest.newBuilder(targetURI);
+    configuration.requestTimeout().ifPresent(builder::timeout);
+
+    final var request =
+      builder.PUT(body)
+        .header("Content-Type", "application/octet-stream")
+        .header(
+          "Authorization",
+          BLHTTPClients.basicAuthorizationOf(configuration))
+        .build();
+
+    sink.response =
+      client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    sink.response.whenComplete((r, e) -> sink.signal());
+    return sink;
+  }
+
+  /**
+   * Set the dispatcher through which the progress of the upload is
+   * delivered. The sink closes the dispatcher when the upload is finished
+   * or abandoned, and finishing the upload waits until all of its progress
+   * events have been delivered.
+   *
+   * @param inDispatcher The dispatcher
+   *
+   * @return this
+   */
+
+  public BLUploadSink setProgressDispatcher(
+    final BLProgressDispatcher inDispatcher)
+  {
+    this.dispatcher =
+      Optional.of(Objects.requireNonNull(inDispatcher, "dispatcher"));
+    return this;
+  }
+
+  private void signal()
+  {
+    this.lock.lock();
+    try {
+      this.changed.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /*
+   * Wait until the HTTP client has requested another part of the body,
+   * returning the subscriber to which the part should be delivered.
+   */
+
+  private Flow.Subscriber<? super ByteBuffer> awaitDemand()
+    throws IOException
+  {
+    this.lock.lock();
+    try {
+      while (true) {
+        if (this.cancelled || this.response.isDone()) {
+          throw new IOException(
+            "The server stopped accepting the upload of %s"
+              .formatted(this.targetURI));
+        }
+        if (this.subscriber != null && this.demand > 0L) {
+          --this.demand;
+          return this.subscriber;
+        }
+        this.changed.await();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException();
+      ex.initCause(e);
+      throw ex;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private Flow.Subscriber<? super ByteBuffer> awaitSubscriber()
+    throws IOException
+  {
+    this.lock.lock();
+    try {
+      while (this.subscriber == null) {
+        if (this.response.isDone()) {
+          throw new IOException(
+            "The server stopped accepting the upload of %s"
+              .formatted(this.targetURI));
+        }
+        this.changed.await();
+      }
+      return this.subscriber;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final var ex = new InterruptedIOException();
+      ex.initCause(e);
+      throw ex;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void send(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    int position = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      final int count = Math.min(remaining, CHUNK_SIZE);
+      final var target = this.awaitDemand();
+
+      try {
+        BLRateLimiter.await(this.limiter.reserveBytes(count));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        final var ex = new InterruptedIOException();
+        ex.initCause(e);
+        throw ex;
+      }
+
+      final var copy = new byte[count];
+      System.arraycopy(buffer, position, copy, 0, count);
+      target.onNext(ByteBuffer.wrap(copy));
+      position += count;
+      remaining -= count;
+    }
+  }
+
+  private void ensureOpen()
+    throws ClosedChannelException
+  {
+    if (this.state != State.OPEN) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  @Override
+  public OutputStream outputStream()
+  {
+    return this.output;
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer source)
+    throws IOException
+  {
+    this.ensureOpen();
+
+    final int count = source.remaining();
+    while (source.hasRemaining()) {
+      final int length = Math.min(source.remaining(), this.scratch.length);
+      source.get(this.scratch, 0, length);
+      this.stream.write(this.scratch, 0, length);
+    }
+    return count;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return this.state == State.OPEN;
+  }
+
+  @Override
+  public void finish()
+    throws BLException
+  {
+    if (this.state != State.OPEN) {
+      if (this.state == State.ABORTED) {
+        throw new BLException(
+          "The upload of %s was abandoned".formatted(this.targetURI));
+      }
+      return;
+    }
+
+    try {
+      this.finishRequest();
+    } finally {
+      this.dispatcher.ifPresent(BLProgressDispatcher::close);
+    }
+  }
+
+  private void finishRequest()
+    throws BLException
+  {
+    /*
+     * If the server responded before the whole body was sent, the response
+     * (typically an error) is more informative than the failure to send.
+     */
+
+    IOException sendFailure = null;
+    try {
+      this.stream.close();
+    } catch (final IOException e) {
+      if (!this.response.isDone() || this.response.isCompletedExceptionally()) {
+        this.abort();
+        throw new BLException(e);
+      }
+      sendFailure = e;
+    }
+    this.state = State.FINISHED;
+
+    final HttpResponse<byte[]> received;
+    try {
+      received = this.response.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.response.cancel(true);
+      throw new BLException("Interrupted while uploading", e);
+    } catch (final ExecutionException e) {
+      final var cause = BLNexusRequests.unwrapCompletion(e.getCause());
+      if (cause instanceof BLException blException) {
+        throw blException;
+      }
+      throw new BLException(cause);
+    }
+
+    final int status = received.statusCode();
+    if (status >= 400) {
+      LOG.error("{}: {}", this.targetURI, Integer.valueOf(status));
+
+      final var errors =
+        this.parsers.parseErrorsIfPresent(
+          BLNexusRequests.contentTypeOf(received),
+          this.targetURI,
+          new ByteArrayInputStream(received.body())
+        );
+
+      BLErrorLogging.logErrors(LOG, errors);
+      throw new BLHTTPErrorException(
+        status, "Error: %d".formatted(Integer.valueOf(status)), errors);
+    }
+    if (sendFailure != null) {
+      throw new BLException(sendFailure);
+    }
+  }
+
+  @Override
+  public void abort()
+  {
+    if (this.state != State.OPEN) {
+      return;
+    }
+    this.state = State.ABORTED;
+    this.stream.closeStatistics();
+
+    final Flow.Subscriber<? super ByteBuffer> target;
+    this.lock.lock();
+    try {
+      this.cancelled = true;
+      target = this.subscriber;
+      this.changed.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+
+    if (target != null) {
+      target.onError(
+        new IOException("The upload of %s was abandoned"
+                          .formatted(this.targetURI)));
+    }
+    this.response.cancel(true);
+    this.dispatcher.ifPresent(BLProgressDispatcher::closeAsync);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.state == State.ABORTED) {
+      return;
+    }
+    try {
+      this.finish();
+    } catch (final BLException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[BLUploadSink %s]".formatted(this.targetURI);
+  }
+
+  /*
+   * The request body. The body can be sent only once, and so any attempt
+   * by the HTTP client to send it again (such as after a redirect) fails.
+   */
+
+  private final class Body implements Flow.Publisher<ByteBuffer>
+  {
+    Body()
+    {
+
+    }
+
+    @Override
+    public void subscribe(
+      final Flow.Subscriber<? super ByteBuffer> newSubscriber)
+    {
+      final var sink = BLUploadSink.this;
+      final boolean first;
+      sink.lock.lock();
+      try {
+        first = sink.subscriber == null;
+        if (first) {
+          sink.subscriber = newSubscriber;
+        }
+      } finally {
+        sink.lock.unlock();
+      }
+
+      if (!first) {
+        newSubscriber.onSubscribe(new Refused());
+        newSubscriber.onError(
+          new IOException("The body of a streamed upload cannot be resent"));
+        return;
+      }
+
+      newSubscriber.onSubscribe(new Subscription());
+      sink.signal();
+    }
+  }
+
+  private final class Subscription implements Flow.Subscription
+  {
+    Subscription()
+    {
+
+    }
+
+    @Override
+    public void request(
+      final long count)
+    {
+      final var sink = BLUploadSink.this;
+      sink.lock.lock();
+      try {
+        if (count <= 0L) {
+          sink.cancelled = true;
+        } else {
+          final long sum = sink.demand + count;
+          sink.demand = sum < 0L ? Long.MAX_VALUE : sum;
+        }
+        sink.changed.signalAll();
+      } finally {
+        sink.lock.unlock();
+      }
+    }
+
+    @Override
+    public void cancel()
+    {
+      final var sink = BLUploadSink.this;
+      sink.lock.lock();
+      try {
+        sink.cancelled = true;
+        sink.changed.signalAll();
+      } finally {
+        sink.lock.unlock();
+      }
+    }
+  }
+
+  private static final class Refused implements Flow.Subscription
+  {
+    Refused()
+    {
+
+    }
+
+    @Override
+    public void request(
+      final long count)
+    {
+
+    }
+
+    @Override
+    public void cancel()
+    {
+
+    }
+  }
+
+  /*
+   * The stream at the end of the chain of streams through which written
+   * octets pass, which delivers them to the HTTP client. Closing the stream
+   * completes the request body.
+   */
+
+  private final class BodyOutputStream extends OutputStream
+  {
+    BodyOutputStream()
+    {
+
+    }
+
+    @Override
+    public void write(
+      final int octet)
+      throws IOException
+    {
+      BLUploadSink.this.send(new byte[]{(byte) octet}, 0, 1);
+    }
+
+    @Override
+    public void write(
+      final byte[] buffer,
+      final int offset,
+      final int length)
+      throws IOException
+    {
+      Objects.checkFromIndexSize(offset, length, buffer.length);
+      BLUploadSink.this.send(buffer, offset, length);
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      BLUploadSink.this.awaitSubscriber().onComplete();
+    }
+  }
+
+  /*
+   * The output stream view of the sink.
+   */
+
+  private final class Output extends OutputStream
+  {
+    Output()
+    {
+
+    }
+
+    @Override
+    public void write(
+      final int octet)
+      throws IOException
+    {
+      BLUploadSink.this.ensureOpen();
+      BLUploadSink.this.stream.write(octet);
+    }
+
+    @Override
+    public void write(
+      final byte[] buffer,
+      final int offset,
+      final int length)
+      throws IOException
+    {
+      BLUploadSink.this.ensureOpen();
+      BLUploadSink.this.stream.write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush()
+      throws IOException
+    {
+      BLUploadSink.this.ensureOpen();
+      BLUploadSink.this.stream.flush();
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      BLUploadSink.this.close();
+    }
+  }
+}
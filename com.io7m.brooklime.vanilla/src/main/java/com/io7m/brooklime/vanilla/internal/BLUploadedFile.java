@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The result of successfully uploading a file.
+ *
+ * @param file     The file
+ * @param size     The number of octets uploaded
+ * @param modified The modification time of the file, in milliseconds since
+ *                 the epoch, at the time the upload started
+ * @param digests  The lowercase hexadecimal digests of the uploaded octets,
+ *                 for each requested algorithm
+ */
+
+public record BLUploadedFile(
+  Path file,
+  long size,
+  long modified,
+  Map<BLChecksumAlgorithm, String> digests)
+{
+  /**
+   * The result of successfully uploading a file.
+   *
+   * @param file     The file
+   * @param size     The number of octets uploaded
+   * @param modified The modification time of the file, in milliseconds since
+   *                 the epoch, at the time the upload started
+   * @param digests  The lowercase hexadecimal digests of the uploaded octets,
+   *                 for each requested algorithm
+   */
+
+  public BLUploadedFile
+  {
+    Objects.requireNonNull(file, "file");
+    digests = Map.copyOf(Objects.requireNonNull(digests, "digests"));
+  }
+}
@@ -0,0 +1,1280 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal;
+
+import com.io7m.brooklime.api.BLChecksumAlgorithm;
+import com.io7m.brooklime.api.BLException;
+import com.io7m.brooklime.api.BLNexusClientConfiguration;
+import com.io7m.brooklime.api.BLStagingRepositoryUpload;
+import com.io7m.brooklime.api.BLStagingRepositoryUploadRequestParameters;
+import com.io7m.brooklime.api.BLUploadSources;
+import com.io7m.brooklime.api.BLUploadMode;
+import com.io7m.brooklime.vanilla.internal.streamtime.STStatisticsTicker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+
+import static com.io7m.brooklime.vanilla.internal.BLNexusRequests.scrubTrailingSlashes;
+import static com.io7m.brooklime.vanilla.internal.BLNexusRequests.translateFileToURIPath;
+import static com.io7m.brooklime.vanilla.internal.BLNexusRequests.unwrapCompletion;
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.checksumFileOf;
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.checksumFilesOf;
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.completeDigests;
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.digestsOf;
+import static com.io7m.brooklime.vanilla.internal.BLUploadChecksums.unknownDigestsOf;
+import static com.io7m.brooklime.vanilla.internal.BLUploadPlanning.isJournaled;
+import static com.io7m.brooklime.vanilla.internal.BLUploadPlanning.isUploadResource;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.closeDigestCache;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.closeJournal;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.openDigestCache;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.openJournal;
+import static com.io7m.brooklime.vanilla.internal.BLUploadResources.recordJournal;
+
+/**
+ * The execution of uploads: the transfer of the files of a planned upload
+ * (or of the files found by a scan that is still in progress) to the
+ * server.
+ *
+ * @see BLNexusRequests
+ */
+
+public final class BLUploads
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(BLUploads.class);
+
+  private final ScheduledExecutorService executor;
+  private final STStatisticsTicker ticker;
+  private final HttpClient client;
+  private final BLNexusClientConfiguration configuration;
+  private final BLRateLimiter rateLimiter;
+  private final BLPrefetcher.Budget prefetchBudget;
+  private final BLMirrorClients mirrorClients;
+
+  /**
+   * The execution of uploads.
+   *
+   * @param inExecutor      An executor service
+   * @param inTicker        The ticker that samples transfer statistics
+   * @param inClient        An HTTP client
+   * @param inConfiguration The client configuration
+   */
+
+  public BLUploads(
+    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
+    final HttpClient inClient,
+    final BLNexusClientConfiguration inConfiguration)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "inExecutor");
+    this.ticker =
+      Objects.requireNonNull(inTicker, "inTicker");
+    this.client =
+      Objects.requireNonNull(inClient, "inClient");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "inConfiguration");
+    this.rateLimiter =
+      BLRateLimiter.forConfiguration(inConfiguration);
+    this.prefetchBudget =
+      new BLPrefetcher.Budget(inConfiguration.prefetchMemoryLimit());
+    this.mirrorClients =
+      new BLMirrorClients(inClient.executor());
+  }
+
+  /**
+   * Close the HTTP clients that were created to upload files to mirrors.
+   */
+
+  public void close()
+  {
+    this.mirrorClients.close();
+  }
+
+  /*
+   * A staging repository to which the files of an upload are sent: either
+   * the repository of the upload itself, or one of its mirrors.
+   */
+
+  private record UploadTarget(
+    HttpClient client,
+    URI baseURI,
+    String repositoryId,
+    boolean mirror)
+  {
+    String progressNameOf(
+      final Path file)
+    {
+      return "%s (%s %s)".formatted(file, this.baseURI, this.repositoryId);
+    }
+  }
+
+  private List<UploadTarget> targetsOf(
+    final BLStagingRepositoryUpload upload)
+  {
+    final var targets = new ArrayList<UploadTarget>(1 + upload.mirrors().size());
+    targets.add(new UploadTarget(
+      this.client,
+      this.configuration.baseURI(),
+      upload.repositoryId(),
+      false
+    ));
+
+    for (final var mirror : upload.mirrors()) {
+      final var mirrorConfiguration =
+        this.configuration.withBaseURI(mirror.baseURI())
+          .withUserName(mirror.userName().orElse(this.configuration.userName()))
+          .withPassword(mirror.password().orElse(this.configuration.password()));
+
+      targets.add(new UploadTarget(
+        this.mirrorClients.clientOf(mirrorConfiguration),
+        mirror.baseURI(),
+        mirror.repositoryId(),
+        true
+      ));
+    }
+    return List.copyOf(targets);
+  }
+
+  private BLRetryingUploader createChecksumUploader(
+    final UploadTarget target,
+    final BLStagingRepositoryUpload upload,
+    final Path uploadedFile,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final BLChecksumAlgorithm algorithm,
+    final BLUploadedFile result,
+    final Optional<BLAdaptiveConcurrency> concurrency)
+  {
+    final var file =
+      checksumFileOf(uploadedFile, algorithm);
+    final var actual =
+      upload.baseDirectory().resolve(file).toAbsolutePath();
+    final var text =
+      result.digests().get(algorithm);
+
+    final var uploader = BLRetryingUploader.forContent(
+      this.ticker,
+      target.client(),
+      uploadTargetURI(target, file),
+      actual,
+      text.getBytes(StandardCharsets.US_ASCII),
+      position,
+      count,
+      upload.retryDelay(),
+      upload.retryCount(),
+      target.mirror() ? fileCounter.fork() : fileCounter
+    );
+    if (target.mirror()) {
+      uploader.setProgressName(target.progressNameOf(actual));
+    }
+    uploader.setRateLimiter(this.rateLimiter);
+    uploader.setRequestTimeout(this.configuration.requestTimeout());
+    uploader.setRepositoryId(target.repositoryId());
+    concurrency.ifPresent(uploader::setAttemptObserver);
+    return uploader;
+  }
+
+  private static URI uploadTargetURI(
+    final UploadTarget target,
+    final Path file)
+  {
+    return uploadTargetURI(target, translateFileToURIPath(file));
+  }
+
+  private static URI uploadTargetURI(
+    final UploadTarget target,
+    final String path)
+  {
+    final var baseURI = target.baseURI().toString();
+    final var uriBuilder = new StringBuilder(128);
+    uriBuilder.append(scrubTrailingSlashes(baseURI));
+    uriBuilder.append("/service/local/staging/deployByRepositoryId/");
+    uriBuilder.append(target.repositoryId());
+    uriBuilder.append("/");
+    uriBuilder.append(path);
+    return URI.create(uriBuilder.toString());
+  }
+
+  /*
+   * Create an uploader for the file with the given index in the upload. The
+   * position and count are the position of the file in the sequence of files
+   * reported to progress receivers, and the number of files in the sequence.
+   * Uploads to mirrors report progress under their own names, through their
+   * own forks of the counter. Files that are not on the default file system,
+   * such as the entries of archives, are uploaded as sources named by their
+   * paths relative to the base directory.
+   */
+
+  private BLRetryingUploader createUploader(
+    final UploadTarget target,
+    final BLStagingRepositoryUpload upload,
+    final int fileIndex,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final Optional<BLAdaptiveConcurrency> concurrency)
+  {
+    final var files = upload.files();
+    final var file = files.get(fileIndex);
+
+    final var actual =
+      upload.baseDirectory().resolve(file).toAbsolutePath();
+    final var targetURI =
+      uploadTargetURI(target, file);
+
+    final var progressCounter =
+      target.mirror() ? fileCounter.fork() : fileCounter;
+
+    final BLRetryingUploader uploader;
+    if (isDefaultFileSystem(actual)) {
+      uploader = new BLRetryingUploader(
+        this.ticker,
+        target.client(),
+        targetURI,
+        actual,
+        position,
+        count,
+        upload.retryDelay(),
+        upload.retryCount(),
+        progressCounter
+      );
+    } else {
+      uploader = BLRetryingUploader.forSource(
+        this.ticker,
+        target.client(),
+        targetURI,
+        actual,
+        BLUploadSources.ofFile(translateFileToURIPath(file), actual),
+        position,
+        count,
+        upload.retryDelay(),
+        upload.retryCount(),
+        progressCounter
+      );
+    }
+    if (target.mirror()) {
+      uploader.setProgressName(target.progressNameOf(actual));
+    }
+    uploader.setRateLimiter(this.rateLimiter);
+    uploader.setRequestTimeout(this.configuration.requestTimeout());
+    uploader.setRepositoryId(target.repositoryId());
+    concurrency.ifPresent(uploader::setAttemptObserver);
+    return uploader;
+  }
+
+  private BLRetryingUploader createSourceUploader(
+    final UploadTarget target,
+    final BLStagingRepositoryUpload upload,
+    final int sourceIndex,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final Optional<BLAdaptiveConcurrency> concurrency)
+  {
+    final var file =
+      sourceFileOf(upload, sourceIndex);
+    final var actual =
+      upload.baseDirectory().resolve(file).toAbsolutePath();
+
+    final var uploader = BLRetryingUploader.forSource(
+      this.ticker,
+      target.client(),
+      uploadTargetURI(target, file),
+      actual,
+      upload.sources().get(sourceIndex),
+      position,
+      count,
+      upload.retryDelay(),
+      upload.retryCount(),
+      target.mirror() ? fileCounter.fork() : fileCounter
+    );
+    if (target.mirror()) {
+      uploader.setProgressName(target.progressNameOf(actual));
+    }
+    uploader.setRateLimiter(this.rateLimiter);
+    uploader.setRequestTimeout(this.configuration.requestTimeout());
+    uploader.setRepositoryId(target.repositoryId());
+    concurrency.ifPresent(uploader::setAttemptObserver);
+    return uploader;
+  }
+
+  /*
+   * Upload the source with the given index in the upload to every target
+   * concurrently, opening the source separately for each target.
+   */
+
+  private CompletableFuture<BLUploadedFile> uploadSourceToTargets(
+    final List<UploadTarget> targets,
+    final BLStagingRepositoryUpload upload,
+    final int sourceIndex,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final Optional<BLAdaptiveConcurrency> concurrency,
+    final Set<BLChecksumAlgorithm> algorithms)
+  {
+    final var futures =
+      new ArrayList<CompletableFuture<BLUploadedFile>>(targets.size());
+    for (int index = 0; index < targets.size(); ++index) {
+      futures.add(
+        this.createSourceUploader(
+            targets.get(index), upload, sourceIndex, position, count,
+            fileCounter, concurrency)
+          .executeAsync(index == 0 ? algorithms : Set.of())
+      );
+    }
+    return allOf(futures);
+  }
+
+  /*
+   * Upload the file with the given index in the upload to every target.
+   * If there is only one target, the file is uploaded exactly as it would
+   * be without mirrors. Otherwise, the file is read through a tee shared by
+   * the uploads to all targets, which run concurrently; the result is that
+   * of the upload to the first target, computing the given digests, and the
+   * upload fails if the upload to any target fails. Entries of archives
+   * cannot be shared through a tee, and are read separately for each target.
+   */
+
+  private CompletableFuture<BLUploadedFile> uploadToTargets(
+    final List<UploadTarget> targets,
+    final BLStagingRepositoryUpload upload,
+    final int fileIndex,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final Optional<BLAdaptiveConcurrency> concurrency,
+    final Optional<BLPrefetcher> prefetcher,
+    final Set<BLChecksumAlgorithm> algorithms)
+  {
+    final var prefetched =
+      prefetcher.flatMap(p -> p.take(fileIndex));
+
+    if (targets.size() == 1) {
+      return this.createUploader(
+          targets.get(0), upload, fileIndex, position, count, fileCounter,
+          concurrency)
+        .setPrefetched(prefetched)
+        .executeAsync(algorithms);
+    }
+
+    final var actual =
+      upload.baseDirectory()
+        .resolve(upload.files().get(fileIndex))
+        .toAbsolutePath();
+    final var tee =
+      isDefaultFileSystem(actual)
+        ? Optional.of(new BLFileTee(actual, prefetched, targets.size()))
+        : Optional.<BLFileTee>empty();
+
+    final var futures =
+      new ArrayList<CompletableFuture<BLUploadedFile>>(targets.size());
+    for (int index = 0; index < targets.size(); ++index) {
+      final var reader = index;
+      futures.add(
+        this.createUploader(
+            targets.get(index), upload, fileIndex, position, count,
+            fileCounter, concurrency)
+          .setTee(tee.map(t -> t.reader(reader)))
+          .executeAsync(index == 0 ? algorithms : Set.of())
+      );
+    }
+
+    return allOf(futures)
+      .whenComplete((ignored, exception) -> tee.ifPresent(BLFileTee::close));
+  }
+
+  /*
+   * Wait for all of the given uploads, yielding the result of the first, or
+   * the failure of the first that failed with the failures of any others
+   * suppressed.
+   */
+
+  private static CompletableFuture<BLUploadedFile> allOf(
+    final List<CompletableFuture<BLUploadedFile>> futures)
+  {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+      .handle((ignored, exception) -> {
+        BLException failure = null;
+        for (final var future : futures) {
+          if (!future.isCompletedExceptionally()) {
+            continue;
+          }
+
+          final var cause =
+            unwrapCompletion(future.handle((r, e) -> e).join());
+          final var error =
+            cause instanceof BLException blException
+              ? blException
+              : new BLException(cause);
+
+          if (failure == null) {
+            failure = error;
+          } else {
+            failure.addSuppressed(error);
+          }
+        }
+
+        if (failure != null) {
+          throw new CompletionException(failure);
+        }
+        return futures.get(0).join();
+      });
+  }
+
+  private static BLUploadedFile await(
+    final CompletableFuture<BLUploadedFile> future)
+    throws BLException
+  {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BLException("Interrupted while uploading", e);
+    } catch (final ExecutionException e) {
+      final var cause = unwrapCompletion(e.getCause());
+      if (cause instanceof BLException blException) {
+        throw blException;
+      }
+      throw new BLException(cause);
+    }
+  }
+
+  private Optional<BLPrefetcher> createPrefetcher(
+    final BLStagingRepositoryUpload upload)
+  {
+    final int depth = this.configuration.prefetchFileCount();
+    final var base = upload.baseDirectory();
+    if (depth == 0 || upload.files().size() < 2 || !isDefaultFileSystem(base)) {
+      return Optional.empty();
+    }
+
+    final var files =
+      upload.files()
+        .stream()
+        .map(file -> base.resolve(file).toAbsolutePath())
+        .toList();
+
+    return Optional.of(
+      new BLPrefetcher(
+        BLExecutors.createPrefetchExecutor(
+          this.configuration.executionMode(), depth),
+        this.prefetchBudget,
+        files,
+        depth
+      )
+    );
+  }
+
+  /*
+   * Files that are not on the default file system, such as the entries of
+   * archives, are streamed rather than read through channels, and so cannot
+   * be prefetched or shared between targets.
+   */
+
+  private static boolean isDefaultFileSystem(
+    final Path path)
+  {
+    return path.getFileSystem() == FileSystems.getDefault();
+  }
+
+  private Optional<BLAdaptiveConcurrency> createConcurrency(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+  {
+    if (!upload.adaptiveConcurrency()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+      new BLAdaptiveConcurrency(counter, upload.parallelism())
+        .start(this.executor)
+    );
+  }
+
+  /**
+   * Execute an upload request for the server. In
+   * {@link BLUploadMode#FILES} mode, up to
+   * {@link BLStagingRepositoryUpload#parallelism()} files are uploaded
+   * concurrently. In {@link BLUploadMode#BUNDLE} mode, all files are
+   * streamed to the server in a single request.
+   *
+   * @param counter The progress counter
+   * @param upload  The upload
+   *
+   * @throws BLException On errors
+   */
+
+  public void upload(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+    throws BLException
+  {
+    switch (upload.uploadMode()) {
+      case FILES -> this.uploadFiles(counter, upload);
+      case BUNDLE -> this.uploadBundle(counter, upload);
+    }
+  }
+
+  /*
+   * The resources shared by the uploads of the individual files of an upload.
+   */
+
+  private record FileUploadContext(
+    List<UploadTarget> targets,
+    Optional<BLUploadJournal> journal,
+    Optional<BLDigestCache> digestCache,
+    Optional<BLAdaptiveConcurrency> concurrency,
+    Optional<BLPrefetcher> prefetcher)
+  {
+
+  }
+
+  private void uploadFiles(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+    throws BLException
+  {
+    try {
+      plan(counter, upload);
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+
+    final var present = presentFilesOf(upload);
+    final var fileCount = upload.files().size();
+    final var count = fileCount + upload.sources().size();
+    final var journal = openJournal(upload);
+    final Optional<BLDigestCache> digestCache;
+    try {
+      digestCache = openDigestCache(upload.digestCache());
+    } catch (final IOException e) {
+      closeJournal(journal);
+      throw new BLException(e);
+    }
+
+    final var context = new FileUploadContext(
+      this.targetsOf(upload),
+      journal,
+      digestCache,
+      this.createConcurrency(counter, upload),
+      this.createPrefetcher(upload)
+    );
+    final var uploader = new BLConcurrentUploader(
+      this.configuration.executionMode(),
+      upload.parallelism(),
+      context.concurrency());
+
+    try {
+      uploader.execute(counter, count, (fileCounter, index) -> {
+        if (index >= fileCount) {
+          this.uploadSource(
+            context,
+            upload,
+            index - fileCount,
+            index,
+            count,
+            present::contains,
+            fileCounter);
+          return;
+        }
+        this.uploadFile(
+          context,
+          upload,
+          index,
+          index,
+          count,
+          present::contains,
+          fileCounter);
+      });
+    } finally {
+      context.prefetcher().ifPresent(BLPrefetcher::close);
+      context.concurrency().ifPresent(BLAdaptiveConcurrency::close);
+      closeDigestCache(digestCache);
+      closeJournal(journal);
+    }
+  }
+
+  /*
+   * Announce the files and sources of the upload to the aggregate accounting
+   * of the given counter. Each target receives its own copy of every file.
+   * The sizes of files are those read when the files were found; only the
+   * files of uploads that were assembled by hand are examined here.
+   */
+
+  private static void plan(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+    throws IOException
+  {
+    final var base = upload.baseDirectory();
+    final var sizes = upload.fileSizes();
+    long bytes = 0L;
+    for (final var file : upload.files()) {
+      final var size = sizes.get(file);
+      if (size != null) {
+        bytes += size.longValue();
+      } else {
+        bytes += Files.size(base.resolve(file));
+      }
+    }
+    for (final var source : upload.sources()) {
+      bytes += source.size();
+    }
+
+    final long targets = 1L + upload.mirrors().size();
+    final long files = upload.files().size() + upload.sources().size();
+    counter.plan(files * targets, bytes * targets);
+  }
+
+  /*
+   * Upload the file with the given index in the upload, along with any
+   * checksum files that must be generated for it. The position and count
+   * are the position of the file in the sequence of files reported to
+   * progress receivers, and the number of files in the sequence.
+   */
+
+  private void uploadFile(
+    final FileUploadContext context,
+    final BLStagingRepositoryUpload upload,
+    final int index,
+    final int position,
+    final int count,
+    final Predicate<Path> present,
+    final BLProgressCounter fileCounter)
+    throws BLException
+  {
+    final var checksums = checksumFilesOf(upload, present, index);
+    final var required = digestsOf(context.journal(), checksums);
+    final var concurrency = context.concurrency();
+    final var targets = context.targets();
+    final var algorithms = unknownDigestsOf(upload, index, required);
+
+    final BLUploadedFile uploaded;
+    if (targets.size() == 1) {
+      uploaded = this.createUploader(
+          targets.get(0), upload, index, position, count, fileCounter,
+          concurrency)
+        .setPrefetched(context.prefetcher().flatMap(p -> p.take(index)))
+        .execute(algorithms);
+    } else {
+      uploaded = await(this.uploadToTargets(
+        targets,
+        upload,
+        index,
+        position,
+        count,
+        fileCounter,
+        concurrency,
+        context.prefetcher(),
+        algorithms));
+    }
+
+    final var result =
+      completeDigests(upload, index, required, context.digestCache(), uploaded);
+
+    for (final var algorithm : checksums) {
+      for (final var target : targets) {
+        this.createChecksumUploader(
+            target, upload, upload.files().get(index), position, count,
+            fileCounter, algorithm, result, concurrency)
+          .execute();
+      }
+    }
+    recordJournal(context.journal(), upload, index, result);
+  }
+
+  /*
+   * Upload the source with the given index in the upload, along with any
+   * checksum files that must be generated for it. Sources are not recorded
+   * in the journal or the digest cache.
+   */
+
+  private void uploadSource(
+    final FileUploadContext context,
+    final BLStagingRepositoryUpload upload,
+    final int sourceIndex,
+    final int position,
+    final int count,
+    final Predicate<Path> present,
+    final BLProgressCounter fileCounter)
+    throws BLException
+  {
+    final var file = sourceFileOf(upload, sourceIndex);
+    final var checksums = checksumFilesOf(upload, present, file);
+    final var concurrency = context.concurrency();
+    final var targets = context.targets();
+
+    final BLUploadedFile uploaded;
+    if (targets.size() == 1) {
+      uploaded = this.createSourceUploader(
+          targets.get(0), upload, sourceIndex, position, count, fileCounter,
+          concurrency)
+        .execute(checksums);
+    } else {
+      uploaded = await(this.uploadSourceToTargets(
+        targets,
+        upload,
+        sourceIndex,
+        position,
+        count,
+        fileCounter,
+        concurrency,
+        checksums));
+    }
+
+    for (final var algorithm : checksums) {
+      for (final var target : targets) {
+        this.createChecksumUploader(
+            target, upload, file, position, count, fileCounter, algorithm,
+            uploaded, concurrency)
+          .execute();
+      }
+    }
+  }
+
+  /*
+   * Upload the given checksum files of an uploaded file to every target, one
+   * after another, yielding the result of the upload of the file.
+   */
+
+  private CompletableFuture<BLUploadedFile> uploadChecksumsAsync(
+    final List<UploadTarget> targets,
+    final BLStagingRepositoryUpload upload,
+    final Path file,
+    final int position,
+    final int count,
+    final BLProgressCounter fileCounter,
+    final Set<BLChecksumAlgorithm> checksums,
+    final Optional<BLAdaptiveConcurrency> concurrency,
+    final BLUploadedFile result)
+  {
+    var future = CompletableFuture.completedFuture(result);
+    for (final var algorithm : checksums) {
+      for (final var target : targets) {
+        future = future.thenCompose(
+          r -> this.createChecksumUploader(
+              target, upload, file, position, count, fileCounter, algorithm,
+              r, concurrency)
+            .executeAsync()
+            .thenApply(ignored -> r));
+      }
+    }
+    return future;
+  }
+
+  /*
+   * The files that are part of the upload, including those supplied by
+   * sources, relative to the base directory.
+   */
+
+  private static Set<Path> presentFilesOf(
+    final BLStagingRepositoryUpload upload)
+  {
+    final var results = new HashSet<Path>(upload.files());
+    for (int index = 0; index < upload.sources().size(); ++index) {
+      results.add(sourceFileOf(upload, index));
+    }
+    return Set.copyOf(results);
+  }
+
+  /*
+   * The file supplied by the source with the given index, as a path
+   * relative to the base directory, on the file system of the base
+   * directory.
+   */
+
+  private static Path sourceFileOf(
+    final BLStagingRepositoryUpload upload,
+    final int sourceIndex)
+  {
+    final var path = upload.sources().get(sourceIndex).path();
+    return upload.baseDirectory()
+      .getFileSystem()
+      .getPath("", path.split("/"));
+  }
+
+  /**
+   * Scan the base directory of the given parameters and upload the files
+   * that are found in {@link BLUploadMode#FILES} mode, starting each upload
+   * as soon as its file is found rather than waiting for the scan to
+   * complete. Files are uploaded in the order in which they are found.
+   * {@link BLStagingRepositoryUploadRequestParameters#uploadMode()},
+   * {@link BLStagingRepositoryUploadRequestParameters#ordering()} and
+   * {@link BLStagingRepositoryUploadRequestParameters#skipExisting()} are
+   * ignored.
+   *
+   * @param counter    The progress counter
+   * @param parameters The upload request parameters
+   *
+   * @throws BLException On errors
+   */
+
+  public void uploadDirectory(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUploadRequestParameters parameters)
+    throws BLException
+  {
+    final var base =
+      parameters.baseDirectory().toAbsolutePath();
+    final var template =
+      BLStagingRepositoryUpload.builder()
+        .setBaseDirectory(base)
+        .setRepositoryId(parameters.repositoryId())
+        .setRetryCount(parameters.retryCount())
+        .setRetryDelay(parameters.retryDelay())
+        .setParallelism(parameters.parallelism())
+        .setAdaptiveConcurrency(parameters.adaptiveConcurrency())
+        .setJournal(parameters.journal().map(Path::toAbsolutePath))
+        .setChecksums(parameters.checksums())
+        .setDigestCache(parameters.digestCache().map(Path::toAbsolutePath))
+        .setMirrors(parameters.mirrors())
+        .build();
+
+    final Map<String, BLUploadJournalEntry> journaled;
+    final Optional<BLDigestCache> digestCache;
+    try {
+      journaled = parameters.resume()
+        ? BLUploadJournal.read(
+        template.journal().orElseThrow(), parameters.repositoryId())
+        : Map.of();
+      digestCache = openDigestCache(template.digestCache());
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+
+    final var discovery = BLFileDiscovery.start(
+      base,
+      BLFileSelection.of(parameters),
+      p -> isUploadResource(template.journal(), template.digestCache(), p)
+    );
+
+    try {
+      this.uploadDiscovered(
+        counter, template, discovery, journaled, digestCache);
+    } finally {
+      discovery.cancel();
+      closeDigestCache(digestCache);
+    }
+  }
+
+  private void uploadDiscovered(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload template,
+    final BLFileDiscovery discovery,
+    final Map<String, BLUploadJournalEntry> journaled,
+    final Optional<BLDigestCache> digestCache)
+    throws BLException
+  {
+    final var journal = openJournal(template);
+    final var context = new FileUploadContext(
+      this.targetsOf(template),
+      journal,
+      digestCache,
+      this.createConcurrency(counter, template),
+      Optional.empty()
+    );
+    final var uploader = new BLConcurrentUploader(
+      this.configuration.executionMode(),
+      template.parallelism(),
+      context.concurrency());
+
+    final Predicate<Path> present = discovery::isSelected;
+
+    try {
+      uploader.executeStreaming(counter, discovery, (fileCounter, index) -> {
+        final var file = discovery.file(index);
+        final var attributes = discovery.attributes(index);
+        if (isJournaled(journaled, file, attributes)) {
+          LOG.debug("skip {} (already uploaded)", file);
+          return;
+        }
+
+        final long targets = context.targets().size();
+        fileCounter.plan(targets, attributes.size() * targets);
+
+        final var known = digestCache.flatMap(
+          c -> c.find(translateFileToURIPath(file), attributes));
+        final var upload = template.withFiles(List.of(file))
+          .withKnownDigests(known.map(d -> Map.of(file, d)).orElse(Map.of()));
+
+        this.uploadFile(
+          context, upload, 0, index, discovery.count(), present, fileCounter);
+      });
+      discovery.raiseFailure();
+    } finally {
+      context.concurrency().ifPresent(BLAdaptiveConcurrency::close);
+      closeJournal(journal);
+    }
+  }
+
+  /**
+   * Open an upload of a single file to the given staging repository,
+   * returning a sink to which the content of the file is written.
+   *
+   * @param counter      The progress counter
+   * @param repositoryId The ID of the staging repository
+   * @param path         The path of the file in the staging repository
+   * @param size         The size of the file, if known
+   *
+   * @return A sink
+   *
+   * @throws BLException On errors
+   */
+
+  public BLUploadSink uploadOpen(
+    final BLProgressCounter counter,
+    final String repositoryId,
+    final String path,
+    final OptionalLong size)
+    throws BLException
+  {
+    Objects.requireNonNull(repositoryId, "repositoryId");
+    BLUploadSources.checkPath(path);
+    Objects.requireNonNull(size, "size");
+
+    final var target = new UploadTarget(
+      this.client,
+      this.configuration.baseURI(),
+      repositoryId,
+      false
+    );
+
+    return BLUploadSink.open(
+      this.ticker,
+      this.client,
+      this.configuration,
+      uploadTargetURI(target, path),
+      path,
+      size,
+      this.rateLimiter,
+      counter
+    );
+  }
+
+  /**
+   * Execute an upload request for the server without blocking. In
+   * {@link BLUploadMode#FILES} mode, up to
+   * {@link BLStagingRepositoryUpload#parallelism()} files are uploaded
+   * concurrently, but no threads are created to do so.
+   *
+   * @param counter The progress counter
+   * @param upload  The upload
+   *
+   * @return The upload in progress
+   *
+   * @see #upload(BLProgressCounter, BLStagingRepositoryUpload)
+   */
+
+  public CompletableFuture<Void> uploadAsync(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+  {
+    return switch (upload.uploadMode()) {
+      case FILES -> this.uploadFilesAsync(counter, upload);
+      case BUNDLE -> this.uploadBundleAsync(counter, upload);
+    };
+  }
+
+  private CompletableFuture<Void> uploadFilesAsync(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+  {
+    try {
+      plan(counter, upload);
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
+
+    final var targets = this.targetsOf(upload);
+    final Optional<BLUploadJournal> journal;
+    try {
+      journal = openJournal(upload);
+    } catch (final BLException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    final Optional<BLDigestCache> digestCache;
+    try {
+      digestCache = openDigestCache(upload.digestCache());
+    } catch (final IOException e) {
+      closeJournal(journal);
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
+
+    final var context = new FileUploadContext(
+      targets,
+      journal,
+      digestCache,
+      this.createConcurrency(counter, upload),
+      this.createPrefetcher(upload)
+    );
+    final var uploader = new BLConcurrentUploader(
+      this.configuration.executionMode(),
+      upload.parallelism(),
+      context.concurrency());
+
+    final var present = presentFilesOf(upload);
+    final var fileCount = upload.files().size();
+    final var count = fileCount + upload.sources().size();
+    return uploader.executeAsync(
+      counter,
+      count,
+      (fileCounter, index) -> {
+        if (index >= fileCount) {
+          return this.uploadSourceAsync(
+            context,
+            upload,
+            index - fileCount,
+            index,
+            count,
+            present::contains,
+            fileCounter);
+        }
+        return this.uploadFileAsync(
+          context,
+          upload,
+          index,
+          count,
+          present::contains,
+          fileCounter);
+      }).whenComplete((ignored, exception) -> {
+        context.prefetcher().ifPresent(BLPrefetcher::close);
+        context.concurrency().ifPresent(BLAdaptiveConcurrency::close);
+        closeDigestCache(digestCache);
+        closeJournal(journal);
+      });
+  }
+
+  private CompletableFuture<Void> uploadSourceAsync(
+    final FileUploadContext context,
+    final BLStagingRepositoryUpload upload,
+    final int sourceIndex,
+    final int position,
+    final int count,
+    final Predicate<Path> present,
+    final BLProgressCounter fileCounter)
+  {
+    final var targets = context.targets();
+    final var concurrency = context.concurrency();
+    final var file = sourceFileOf(upload, sourceIndex);
+    final var checksums = checksumFilesOf(upload, present, file);
+    return this.uploadSourceToTargets(
+        targets, upload, sourceIndex, position, count, fileCounter,
+        concurrency, checksums)
+      .thenCompose(result -> this.uploadChecksumsAsync(
+        targets, upload, file, position, count, fileCounter, checksums,
+        concurrency, result))
+      .thenAccept(ignored -> {
+      });
+  }
+
+  private CompletableFuture<Void> uploadFileAsync(
+    final FileUploadContext context,
+    final BLStagingRepositoryUpload upload,
+    final int index,
+    final int count,
+    final Predicate<Path> present,
+    final BLProgressCounter fileCounter)
+  {
+    final var targets = context.targets();
+    final var concurrency = context.concurrency();
+    final var checksums = checksumFilesOf(upload, present, index);
+    final var required = digestsOf(context.journal(), checksums);
+    return this.uploadToTargets(
+        targets,
+        upload,
+        index,
+        index,
+        count,
+        fileCounter,
+        concurrency,
+        context.prefetcher(),
+        unknownDigestsOf(upload, index, required))
+      .thenApply(result -> {
+        try {
+          return completeDigests(
+            upload, index, required, context.digestCache(), result);
+        } catch (final BLException e) {
+          throw new CompletionException(e);
+        }
+      })
+      .thenCompose(result -> this.uploadChecksumsAsync(
+        targets, upload, upload.files().get(index), index, count,
+        fileCounter, checksums, concurrency, result))
+      .thenAccept(result -> {
+        try {
+          recordJournal(context.journal(), upload, index, result);
+        } catch (final BLException e) {
+          throw new CompletionException(e);
+        }
+      });
+  }
+
+  private BLBundleUploader createBundleUploader(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload,
+    final Optional<BLUploadJournal> journal)
+  {
+    final var baseURI = this.configuration.baseURI().toString();
+    final var targetURI = URI.create(
+      scrubTrailingSlashes(baseURI) + "/service/local/staging/bundle_upload");
+
+    final var fileSet = Set.copyOf(upload.files());
+    final var fileCount = upload.files().size();
+    final var required = new ArrayList<Set<BLChecksumAlgorithm>>(fileCount);
+    final var sidecars = new ArrayList<Set<BLChecksumAlgorithm>>(fileCount);
+    for (int index = 0; index < fileCount; ++index) {
+      final var checksums = checksumFilesOf(upload, fileSet::contains, index);
+      sidecars.add(checksums);
+      required.add(digestsOf(journal, checksums));
+    }
+
+    return new BLBundleUploader(
+      this.executor,
+      this.client,
+      targetURI,
+      upload,
+      required,
+      sidecars,
+      counter
+    ).setRateLimiter(this.rateLimiter)
+      .setRequestTimeout(this.configuration.requestTimeout());
+  }
+
+  private static void completeBundle(
+    final BLStagingRepositoryUpload upload,
+    final Optional<BLUploadJournal> journal,
+    final Optional<BLDigestCache> digestCache,
+    final List<BLUploadedFile> results)
+    throws BLException
+  {
+    for (int index = 0; index < results.size(); ++index) {
+      final var result = results.get(index);
+      recordJournal(
+        journal,
+        upload,
+        index,
+        completeDigests(
+          upload, index, result.digests().keySet(), digestCache, result)
+      );
+    }
+  }
+
+  /**
+   * Execute an upload request for the server by streaming every file to the
+   * staging bundle upload endpoint as a single zip archive.
+   *
+   * @param counter The progress counter
+   * @param upload  The upload
+   *
+   * @throws BLException On errors
+   */
+
+  private void uploadBundle(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+    throws BLException
+  {
+    try {
+      plan(counter, upload);
+    } catch (final IOException e) {
+      throw new BLException(e);
+    }
+
+    final var journal = openJournal(upload);
+    final Optional<BLDigestCache> digestCache;
+    try {
+      digestCache = openDigestCache(upload.digestCache());
+    } catch (final IOException e) {
+      closeJournal(journal);
+      throw new BLException(e);
+    }
+
+    try {
+      completeBundle(
+        upload,
+        journal,
+        digestCache,
+        this.createBundleUploader(counter, upload, journal).execute()
+      );
+    } finally {
+      closeDigestCache(digestCache);
+      closeJournal(journal);
+    }
+  }
+
+  private CompletableFuture<Void> uploadBundleAsync(
+    final BLProgressCounter counter,
+    final BLStagingRepositoryUpload upload)
+  {
+    try {
+      plan(counter, upload);
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
+
+    final Optional<BLUploadJournal> journal;
+    final Optional<BLDigestCache> digestCache;
+    try {
+      journal = openJournal(upload);
+    } catch (final BLException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    try {
+      digestCache = openDigestCache(upload.digestCache());
+    } catch (final IOException e) {
+      closeJournal(journal);
+      return CompletableFuture.failedFuture(new BLException(e));
+    }
+
+    return this.createBundleUploader(counter, upload, journal)
+      .executeAsync()
+      .thenAccept(results -> {
+        try {
+          completeBundle(upload, journal, digestCache, results);
+        } catch (final BLException e) {
+          throw new CompletionException(e);
+        }
+      }).whenComplete((ignored, exception) -> {
+        closeDigestCache(digestCache);
+        closeJournal(journal);
+      });
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.brooklime.vanilla.internal.streamtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Integer.toUnsignedString;
+
+/**
+ * A ticker that samples every active statistics tracker registered with it
+ * once per second. A ticker runs at most one periodic task on its executor
+ * at any given time: the task is scheduled when the first tracker is
+ * registered, and cancelled when the last tracker is deregistered, so that
+ * the cost of sampling is proportional to the number of transfers in
+ * progress. Each client owns its own ticker, and closing the ticker cancels
+ * its task regardless of any trackers that were never closed.
+ */
+
+public final class STStatisticsTicker implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(STStatisticsTicker.class);
+
+  private final ScheduledExecutorService executor;
+  private final Set<STStatisticsTracker> trackers;
+  private final ReentrantLock lock;
+  private ScheduledFuture<?> task;
+  private boolean closed;
+
+  /**
+   * Create a ticker.
+   *
+   * @param inExecutor The executor on which trackers are sampled
+   */
+
+  public STStatisticsTicker(
+    final ScheduledExecutorService inExecutor)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "inExecutor");
+    this.trackers =
+      ConcurrentHashMap.newKeySet();
+    this.lock =
+      new ReentrantLock();
+  }
+
+  /**
+   * @return The executor on which trackers are sampled
+   */
+
+  public ScheduledExecutorService executor()
+  {
+    return this.executor;
+  }
+
+  /**
+   * Register a tracker, starting the periodic task if necessary. Trackers
+   * registered after the ticker is closed are never sampled.
+   *
+   * @param tracker The tracker
+   */
+
+  void register(
+    final STStatisticsTracker tracker)
+  {
+    Objects.requireNonNull(tracker, "tracker");
+
+    this.lock.lock();
+    try {
+      if (this.closed) {
+        return;
+      }
+      this.trackers.add(tracker);
+      if (this.task == null) {
+        this.task = this.executor.scheduleAtFixedRate(
+          this::tick, 1L, 1L, TimeUnit.SECONDS);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Deregister a tracker, cancelling the periodic task if no trackers
+   * remain. Deregistering a tracker that is not registered has no effect.
+   *
+   * @param tracker The tracker
+   */
+
+  void deregister(
+    final STStatisticsTracker tracker)
+  {
+    Objects.requireNonNull(tracker, "tracker");
+
+    this.lock.lock();
+    try {
+      this.trackers.remove(tracker);
+      if (this.trackers.isEmpty()) {
+        this.cancel();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return The number of trackers currently registered
+   */
+
+  public int size()
+  {
+    return this.trackers.size();
+  }
+
+  private void cancel()
+  {
+    if (this.task != null) {
+      this.task.cancel(false);
+      this.task = null;
+    }
+  }
+
+  /**
+   * Stop sampling every tracker. Trackers that are still open are no longer
+   * sampled, and are not retained by the ticker.
+   */
+
+  @Override
+  public void close()
+  {
+    this.lock.lock();
+    try {
+      this.closed = true;
+      this.trackers.clear();
+      this.cancel();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /*
+   * A periodic task that throws is never run again, so a failing consumer
+   * must not be allowed to stop the sampling of every other tracker.
+   */
+
+  private void tick()
+  {
+    for (final var tracker : this.trackers) {
+      try {
+        tracker.broadcast();
+      } catch (final RuntimeException e) {
+        LOG.error("Statistics consumer failed: ", e);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[STStatisticsTicker 0x%s]"
+      .formatted(toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -17,36 +17,58 @@
 
 package com.io7m.brooklime.vanilla.internal.streamtime;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Objects;
 import java.util.OptionalLong;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static java.lang.Integer.toUnsignedString;
 
 /**
- * A tracker for transfer statistics.
+ * A tracker for transfer statistics. Trackers do not schedule any work of
+ * their own; every open tracker is sampled by the ticker with which it was
+ * created, and closing a tracker removes it from that ticker. A tracker has a single writer, the thread performing the
+ * transfer, which accumulates the total in a field that no other thread
+ * touches and then publishes it with a release store; on most architectures
+ * this is an ordinary store with no fence. The sampler reads the published
+ * total with an acquire load and derives the amount transferred in each
+ * period from the previous sample, so no read-modify-write of shared state
+ * is ever performed and no octets are lost to a reset racing with the
+ * writer.
  */
 
 public final class STStatisticsTracker implements AutoCloseable
 {
+  private static final VarHandle PUBLISHED;
+
+  static {
+    try {
+      PUBLISHED = MethodHandles.lookup()
+        .findVarHandle(STStatisticsTracker.class, "published", long.class);
+    } catch (final ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private final OptionalLong expected;
   private final Consumer<STTransferStatistics> consumer;
-  private final ScheduledExecutorService executor;
-  private volatile long transferredPeriod;
-  private volatile long transferredTotal;
+  private final STStatisticsTicker ticker;
+  private volatile boolean closed;
+  private long written;
+  private long published;
+  private long sampled;
 
   /**
    * Create a new tracker and start delivering statistics to the given consumer.
    *
-   * @param inExecutor A statistics executor
+   * @param inTicker   The ticker that samples the tracker
    * @param inExpected The expected transfer size
    * @param inConsumer The statistics receiver
    */
 
   public STStatisticsTracker(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final OptionalLong inExpected,
     final Consumer<STTransferStatistics> inConsumer)
   {
@@ -54,21 +76,16 @@ public final class STStatisticsTracker implements AutoCloseable
       inExpected;
     this.consumer =
       Objects.requireNonNull(inConsumer, "consumer");
-    this.executor =
-      Objects.requireNonNull(inExecutor, "inExecutor");
-
-    this.executor.scheduleAtFixedRate(
-      this::broadcast,
-      1L,
-      1L,
-      TimeUnit.SECONDS
-    );
+    this.ticker =
+      Objects.requireNonNull(inTicker, "inTicker");
 
     this.broadcast();
+    this.ticker.register(this);
   }
 
   /**
-   * The given number of octets have been transferred.
+   * The given number of octets have been transferred. This method must only
+   * be called by the thread performing the transfer.
    *
    * @param octets The octet count
    */
@@ -76,18 +93,23 @@ public final class STStatisticsTracker implements AutoCloseable
   public void add(
     final long octets)
   {
-    this.transferredPeriod += octets;
-    this.transferredTotal += octets;
+    final long total = this.written + octets;
+    this.written = total;
+    PUBLISHED.setRelease(this, total);
   }
 
   /**
-   * Broadcast state now.
+   * Broadcast state now. Closed trackers do not broadcast.
    */
 
   void broadcast()
   {
-    this.consumer.accept(this.sample());
-    this.transferredPeriod = 0L;
+    if (this.closed) {
+      return;
+    }
+    final var sample = this.sample();
+    this.sampled = sample.sizeTransferred();
+    this.consumer.accept(sample);
   }
 
   /**
@@ -96,17 +118,27 @@ public final class STStatisticsTracker implements AutoCloseable
 
   STTransferStatistics sample()
   {
+    final long total = (long) PUBLISHED.getAcquire(this);
     return new STTransferStatistics(
       this.expected,
-      this.transferredTotal,
-      this.transferredPeriod
+      total,
+      (double) (total - this.sampled)
     );
   }
 
+  /**
+   * Stop delivering statistics. A sample that was already being delivered
+   * when the tracker was closed may still arrive; no samples are started
+   * afterwards. Closing a tracker more than once has no further effect.
+   */
+
   @Override
   public void close()
   {
-
+    if (!this.closed) {
+      this.closed = true;
+      this.ticker.deregister(this);
+    }
   }
 
   @Override
@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
 import java.util.OptionalLong;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -38,36 +37,36 @@ public final class STTimedInputStream extends ProxyInputStream
   /**
    * Create an input stream.
    *
-   * @param inExecutor    A statistics executor
+   * @param inTicker      The ticker that samples statistics
    * @param statsConsumer A function that receives statistics updates
    * @param inStream      The underlying input stream
    */
 
   public STTimedInputStream(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final Consumer<STTransferStatistics> statsConsumer,
     final InputStream inStream)
   {
-    this(inExecutor, OptionalLong.empty(), statsConsumer, inStream);
+    this(inTicker, OptionalLong.empty(), statsConsumer, inStream);
   }
 
   /**
    * Create an input stream.
    *
-   * @param inExecutor    A statistics executor
+   * @param inTicker      The ticker that samples statistics
    * @param expected      The expected total number of octets that will be transferred
    * @param statsConsumer A function that receives statistics updates
    * @param inStream      The underlying input stream
    */
 
   public STTimedInputStream(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final OptionalLong expected,
     final Consumer<STTransferStatistics> statsConsumer,
     final InputStream inStream)
   {
     super(Objects.requireNonNull(inStream, "inStream"));
-    this.tracker = new STStatisticsTracker(inExecutor, expected, statsConsumer);
+    this.tracker = new STStatisticsTracker(inTicker, expected, statsConsumer);
   }
 
   @Override
@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Objects;
 import java.util.OptionalLong;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -38,36 +37,36 @@ public final class STTimedOutputStream extends ProxyOutputStream
   /**
    * Create an output stream.
    *
-   * @param inExecutor    A statistics executor
+   * @param inTicker      The ticker that samples statistics
    * @param statsConsumer A function that receives statistics updates
    * @param inStream      The underlying output stream
    */
 
   public STTimedOutputStream(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final Consumer<STTransferStatistics> statsConsumer,
     final OutputStream inStream)
   {
-    this(inExecutor, OptionalLong.empty(), statsConsumer, inStream);
+    this(inTicker, OptionalLong.empty(), statsConsumer, inStream);
   }
 
   /**
    * Create an output stream.
    *
-   * @param inExecutor    A statistics executor
+   * @param inTicker      The ticker that samples statistics
    * @param expected      The expected total number of octets that will be transferred
    * @param statsConsumer A function that receives statistics updates
    * @param inStream      The underlying output stream
    */
 
   public STTimedOutputStream(
-    final ScheduledExecutorService inExecutor,
+    final STStatisticsTicker inTicker,
     final OptionalLong expected,
     final Consumer<STTransferStatistics> statsConsumer,
     final OutputStream inStream)
   {
     super(Objects.requireNonNull(inStream, "inStream"));
-    this.tracker = new STStatisticsTracker(inExecutor, expected, statsConsumer);
+    this.tracker = new STStatisticsTracker(inTicker, expected, statsConsumer);
   }
 
   @Override
@@ -99,6 +98,16 @@ public final class STTimedOutputStream extends ProxyOutputStream
     super.write(b);
   }
 
+  /**
+   * Stop delivering statistics without closing the underlying stream, for
+   * streams that are abandoned rather than closed.
+   */
+
+  public void closeStatistics()
+  {
+    this.tracker.close();
+  }
+
   @Override
   public void close()
     throws IOException
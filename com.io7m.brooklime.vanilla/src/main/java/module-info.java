@@ -27,6 +27,7 @@ module com.io7m.brooklime.vanilla
 
   requires java.net.http;
   requires java.xml;
+  requires jdk.jfr;
   requires org.apache.commons.io;
   requires org.slf4j;
 